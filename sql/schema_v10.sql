@@ -0,0 +1,27 @@
+-- 数据库初始化脚本 v10
+-- 版本: 10.0.0
+-- 日期: 2026-10-18
+-- 作者: 小阳
+-- 描述: 添加报告生成任务表。进入报告阶段后写作节点改为排队由后台线程池执行，
+--       任务状态落库，重启后未完成的任务重新入队；生成的报告仍写入 dt_conversation.final_report
+
+USE `deep_talent`;
+
+-- ----------------------------
+-- 7. 报告生成任务表 (dt_report_job)
+-- ----------------------------
+DROP TABLE IF EXISTS `dt_report_job`;
+CREATE TABLE `dt_report_job` (
+  `job_id` varchar(64) NOT NULL COMMENT '任务ID',
+  `thread_id` varchar(64) NOT NULL COMMENT '会话ID',
+  `status` varchar(16) NOT NULL COMMENT '任务状态: PENDING/RUNNING/SUCCEEDED/FAILED',
+  `attempts` int(11) NOT NULL DEFAULT 0 COMMENT '已执行次数',
+  `error_message` text COMMENT '最近一次失败原因',
+  `created_at` datetime DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  `updated_at` datetime DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  `finished_at` datetime DEFAULT NULL COMMENT '完成时间',
+  PRIMARY KEY (`job_id`),
+  KEY `idx_thread_status` (`thread_id`, `status`),
+  KEY `idx_status` (`status`),
+  CONSTRAINT `fk_report_job_conversation` FOREIGN KEY (`thread_id`) REFERENCES `dt_conversation` (`thread_id`) ON DELETE CASCADE ON UPDATE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='深度天赋挖掘-报告生成任务表';
@@ -0,0 +1,59 @@
+-- 数据库初始化脚本 v11
+-- 版本: 11.0.0
+-- 日期: 2026-10-18
+-- 作者: 小阳
+-- 描述: 添加报告分节草稿表，每个阶段结束时在后台起草该阶段的阶段洞见，写作节点只需综合已完成的分节；
+--       新增分节起草与综合提示词
+
+USE `deep_talent`;
+
+-- ----------------------------
+-- 8. 报告分节草稿表 (dt_report_section)
+-- ----------------------------
+DROP TABLE IF EXISTS `dt_report_section`;
+CREATE TABLE `dt_report_section` (
+  `id` bigint(20) NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+  `thread_id` varchar(64) NOT NULL COMMENT '会话ID',
+  `phase` varchar(32) NOT NULL COMMENT '所属阶段',
+  `content` text NOT NULL COMMENT '分节内容 (Markdown)',
+  `created_at` datetime DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  PRIMARY KEY (`id`),
+  KEY `idx_thread_phase` (`thread_id`, `phase`),
+  CONSTRAINT `fk_report_section_conversation` FOREIGN KEY (`thread_id`) REFERENCES `dt_conversation` (`thread_id`) ON DELETE CASCADE ON UPDATE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='深度天赋挖掘-报告分节草稿表';
+
+-- ----------------------------
+-- 初始化分节起草与综合提示词
+-- ----------------------------
+INSERT INTO `dt_prompt_config` (`prompt_key`, `language`, `content`, `version`, `is_active`, `description`) 
+VALUES ('REPORT_SECTION_PROMPT', 'zh-CN', '你是一位专业的天赋画像分析师。用户消息中是访谈在 {phase} 阶段的对话记录（或该阶段的对话摘要），请为“天赋画像报告”撰写这一阶段的阶段洞见，最终报告会原样收录这一段。
+
+该阶段抽取到的画像要素：
+{extractions}
+
+要求：
+- 全程使用中文，不做医学/心理诊断，不使用“治疗/处方”式语言，使用“可能/倾向/建议你尝试”等表达。
+- 阶段侧重点：childhood 提炼童年的模式、情绪与应对策略；competence 提炼高峰体验、外界反馈与可迁移能力；shadow 提炼反复困扰的模式、触发条件、代价与调整方向。
+- 150-300 字，可以使用 Markdown 列表，不要输出任何标题。
+- 引用 1-2 句用户原话作为证据（用引号标注），不要补充对话中没有的信息。', 1, 1, '报告分节起草提示词');
+
+INSERT INTO `dt_prompt_config` (`prompt_key`, `language`, `content`, `version`, `is_active`, `description`) 
+VALUES ('REPORT_MERGE_PROMPT', 'zh-CN', '你是一位专业的天赋画像分析师。用户消息中是“天赋画像报告”已经写好的各阶段洞见（童年挖掘、胜任力、阴影与代价），它们会原样附在报告末尾。请在此基础上综合撰写报告的其余部分。
+
+要求：
+- 全程使用中文，不做医学/心理诊断，不使用“治疗/处方”式语言，使用“可能/倾向/建议你尝试”等表达。
+- 只依据阶段洞见中的内容，不要复述阶段洞见原文，也不要补充其中没有的事实。
+- 不要输出报告标题。
+
+输出结构（Markdown，严格按此结构输出）：
+## 1. 摘要
+（3-5 句话概括核心主题与优势）
+
+## 2. 核心天赋
+（3-6 条：每条包含“可迁移能力 + 适用场景 + 简短例证”）
+
+## 3. 阴影与代价
+（2-4 条：每条包含“触发条件 + 可能代价 + 一个可执行的微调建议”）
+
+## 4. 行动建议
+（1-2 周计划，尽量可量化、可执行，例如每天/每周做什么）', 1, 1, '报告综合提示词');
@@ -0,0 +1,15 @@
+-- 数据库初始化脚本 v12
+-- 版本: 12.0.0
+-- 日期: 2026-10-18
+-- 作者: 小阳
+-- 描述: 在 dt_report_job 表中添加 owner 与 lease_until 字段。执行中的任务记录所属实例并定期续租，
+--       多个实例共用一个库时，启动时只接管租约已过期的执行中任务
+
+USE `deep_talent`;
+
+-- ----------------------------
+-- 修改 dt_report_job 表，添加任务所属实例与租约到期时间
+-- ----------------------------
+ALTER TABLE `dt_report_job`
+  ADD COLUMN `owner` varchar(64) DEFAULT NULL COMMENT '执行该任务的实例标识',
+  ADD COLUMN `lease_until` datetime DEFAULT NULL COMMENT '租约到期时间，过期后可被其他实例接管';
@@ -0,0 +1,12 @@
+-- 数据库初始化脚本 v5
+-- 版本: 5.0.0
+-- 日期: 2026-10-18
+-- 作者: 小阳
+-- 描述: 在 dt_conversation 表中添加 state_snapshot 字段，存储会话状态二进制快照
+
+USE `deep_talent`;
+
+-- ----------------------------
+-- 修改 dt_conversation 表，添加 state_snapshot 字段
+-- ----------------------------
+ALTER TABLE `dt_conversation` ADD COLUMN `state_snapshot` LONGBLOB COMMENT '会话状态二进制快照';
@@ -0,0 +1,12 @@
+-- 数据库初始化脚本 v6
+-- 版本: 6.0.0
+-- 日期: 2026-10-18
+-- 作者: 小阳
+-- 描述: dt_message 改用 (thread_id, sequence) 联合索引，支撑按 sequence 的尾部窗口与键集分页查询
+
+USE `deep_talent`;
+
+-- ----------------------------
+-- 修改 dt_message 表索引，联合索引覆盖原 thread_id 单列索引
+-- ----------------------------
+ALTER TABLE `dt_message` ADD KEY `idx_thread_sequence` (`thread_id`, `sequence`), DROP KEY `idx_thread_id`;
@@ -0,0 +1,37 @@
+-- 数据库初始化脚本 v7
+-- 版本: 7.0.0
+-- 日期: 2026-10-18
+-- 作者: 小阳
+-- 描述: 添加阶段摘要表，每个阶段结束时把该阶段的对话压缩为摘要，后续提示词以摘要代替原始消息；新增摘要提示词
+
+USE `deep_talent`;
+
+-- ----------------------------
+-- 5. 阶段摘要表 (dt_phase_summary)
+-- ----------------------------
+DROP TABLE IF EXISTS `dt_phase_summary`;
+CREATE TABLE `dt_phase_summary` (
+  `id` bigint(20) NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+  `thread_id` varchar(64) NOT NULL COMMENT '所属会话ID',
+  `phase` varchar(32) NOT NULL COMMENT '所属阶段',
+  `summary` text COMMENT '摘要内容',
+  `from_sequence` int(11) NOT NULL DEFAULT 0 COMMENT '摘要覆盖的第一条消息顺序(含)',
+  `to_sequence` int(11) NOT NULL DEFAULT 0 COMMENT '摘要覆盖的最后一条消息之后的顺序(不含)',
+  `created_at` datetime DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  PRIMARY KEY (`id`),
+  KEY `idx_thread_to_sequence` (`thread_id`, `to_sequence`),
+  CONSTRAINT `fk_summary_thread` FOREIGN KEY (`thread_id`) REFERENCES `dt_conversation` (`thread_id`) ON DELETE CASCADE ON UPDATE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='深度天赋挖掘-阶段摘要表';
+
+-- ----------------------------
+-- 初始化摘要提示词
+-- ----------------------------
+INSERT INTO `dt_prompt_config` (`prompt_key`, `language`, `content`, `version`, `is_active`, `description`) 
+VALUES ('SUMMARIZER_SYSTEM_PROMPT', 'zh-CN', '你是“深度天赋挖掘机”的访谈记录整理助手。用户消息中是访谈在 {phase} 阶段的对话记录，请把它压缩为一段摘要，后续访谈与报告生成将用这段摘要代替原始对话。
+
+要求：
+- 全程使用中文，不超过 300 字。
+- 保留用户讲述的具体事件、情绪、行为与外界反馈，以及最能体现其模式的 2-3 句原话（用引号标注）。
+- 简要列出访谈者已经问过的主要问题，避免后续重复提问。
+- 不做评价、诊断或推断，不要补充对话中没有的信息。
+- 直接输出摘要正文，不要包含标题或解释性文字。', 1, 1, '阶段对话摘要提示词');
@@ -0,0 +1,21 @@
+-- 数据库初始化脚本 v8
+-- 版本: 8.0.0
+-- 日期: 2026-10-18
+-- 作者: 小阳
+-- 描述: 添加题库表，按阶段保存预生成的访谈问题（与访谈提示词版本绑定），用于新会话的开场问题与模型过载时的降级
+
+USE `deep_talent`;
+
+-- ----------------------------
+-- 6. 题库表 (dt_question_bank)
+-- ----------------------------
+DROP TABLE IF EXISTS `dt_question_bank`;
+CREATE TABLE `dt_question_bank` (
+  `id` bigint(20) NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+  `phase` varchar(32) NOT NULL COMMENT '所属阶段',
+  `prompt_version` int(11) NOT NULL DEFAULT 0 COMMENT '生成时使用的访谈提示词版本',
+  `question` text NOT NULL COMMENT '问题内容',
+  `created_at` datetime DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  PRIMARY KEY (`id`),
+  KEY `idx_phase_version` (`phase`, `prompt_version`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='深度天赋挖掘-题库表';
@@ -0,0 +1,18 @@
+-- 数据库初始化脚本 v9
+-- 版本: 9.0.0
+-- 日期: 2026-10-18
+-- 作者: 小阳
+-- 描述: 新增批量评估说明提示词，开启评估微批处理时附加在评估提示词之后，一次请求评估多条相互独立的用户回答
+
+USE `deep_talent`;
+
+-- ----------------------------
+-- 初始化批量评估说明提示词
+-- ----------------------------
+INSERT INTO `dt_prompt_config` (`prompt_key`, `language`, `content`, `version`, `is_active`, `description`) 
+VALUES ('EVALUATOR_BATCH_PROMPT', 'zh-CN', '批量评估模式：用户消息中包含 {count} 条相互独立的用户回答，分别来自不同的受访者，每条以【编号】开头。
+
+要求：
+- 按上面的规则分别评估每一条回答，各条之间互不参考，不要把一条回答的内容用于另一条的评估或抽取。
+- 只输出一个 JSON 对象，格式为 {"results": [...]}，results 中共 {count} 项。
+- 每项包含 "id"（对应回答的编号，整数）以及上面规定的全部字段。', 1, 1, '批量评估说明提示词');
@@ -3,9 +3,11 @@ package com.deeptalent;
 import org.mybatis.spring.annotation.MapperScan;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 
 @SpringBootApplication
 @MapperScan("com.deeptalent.mapper")
+@ConfigurationPropertiesScan
 public class DeepTalentApplication {
 
     public static void main(String[] args) {
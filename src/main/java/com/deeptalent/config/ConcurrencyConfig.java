@@ -0,0 +1,112 @@
+package com.deeptalent.config;
+
+import com.deeptalent.mapper.ReportJobMapper;
+import com.deeptalent.service.impl.InterviewMetrics;
+import com.deeptalent.service.impl.InterviewSpeculator;
+import com.deeptalent.service.impl.ReportJobQueue;
+import com.deeptalent.service.impl.SessionLocks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * 并发控制配置类
+ * 注册会话级并发控制相关的组件，以及后台执行写作节点的报告任务队列。
+ * spring.threads.virtual.enabled=true 且运行在 Java 21+ 时，执行 LLM 调用的线程池改为每任务一个虚拟线程：
+ * 阻塞等待 LLM 的任务几乎不占资源，真正的并发上限交给按模型划分的舱壁（LlmBulkheads）
+ *
+ * @author 小阳
+ * @date 2026-10-18
+ * @version 1.0.0
+ */
+@Configuration
+public class ConcurrencyConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(ConcurrencyConfig.class);
+
+    @Bean
+    public SessionLocks sessionLocks(DeepTalentProperties properties) {
+        DeepTalentProperties.Session session = properties.getSession();
+        log.info("Session locks initialized: timeout={}", session.getLockTimeout());
+        return new SessionLocks(session.getLockTimeout());
+    }
+
+    /**
+     * 对话执行线程池（流式接口与异步接口共用）
+     * 请求线程立即返回，评估、生成与保存在该线程池中完成；排队已满时拒绝新的请求
+     */
+    @Bean
+    public AsyncTaskExecutor chatExecutor(DeepTalentProperties properties, Environment environment) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            log.info("Chat executor uses virtual threads");
+            return virtualThreadExecutor("chat-");
+        }
+        int threads = properties.getSession().getChatThreads();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(threads);
+        executor.setThreadNamePrefix("chat-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds((int) properties.getSession().getStreamTimeout().toSeconds());
+        log.info("Chat executor initialized: threads={}", threads);
+        return executor;
+    }
+
+    /**
+     * 推测调用线程池：不排队，线程用尽时该轮放弃推测
+     * 虚拟线程模式下不限制线程数，推测调用与普通调用一样在模型舱壁处排队
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "deeptalent.speculation", name = "enabled", havingValue = "true")
+    public AsyncTaskExecutor speculationExecutor(DeepTalentProperties properties, Environment environment) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            return virtualThreadExecutor("speculation-");
+        }
+        int threads = properties.getSpeculation().getThreads();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("speculation-");
+        return executor;
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "deeptalent.speculation", name = "enabled", havingValue = "true")
+    public InterviewSpeculator interviewSpeculator(@Qualifier("speculationExecutor") AsyncTaskExecutor speculationExecutor,
+                                                   InterviewMetrics interviewMetrics) {
+        log.info("Speculative interviewer enabled: executor={}", speculationExecutor.getClass().getSimpleName());
+        InterviewSpeculator speculator = new InterviewSpeculator(speculationExecutor);
+        interviewMetrics.speculation(speculator);
+        return speculator;
+    }
+
+    /**
+     * 报告生成任务队列，由 InterviewServiceImpl 在应用启动完成后启动；
+     * 容器关闭时停止工作线程，未完成的任务留在库中，下次启动时重新入队
+     */
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnProperty(prefix = "deeptalent.report", name = "async", havingValue = "true")
+    public ReportJobQueue reportJobQueue(ReportJobMapper reportJobMapper, DeepTalentProperties properties) {
+        DeepTalentProperties.Report report = properties.getReport();
+        log.info("Background report generation enabled: workers={}, queueCapacity={}, maxAttempts={}, lease={}",
+                report.getWorkers(), report.getQueueCapacity(), report.getMaxAttempts(), report.getLease());
+        return new ReportJobQueue(reportJobMapper, report.getWorkers(), report.getQueueCapacity(), report.getMaxAttempts(),
+                report.getLease());
+    }
+
+    private static SimpleAsyncTaskExecutor virtualThreadExecutor(String threadNamePrefix) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadNamePrefix);
+        executor.setVirtualThreads(true);
+        return executor;
+    }
+}
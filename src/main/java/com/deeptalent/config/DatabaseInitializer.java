@@ -3,16 +3,24 @@ package com.deeptalent.config;
 import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.sql.init.dependency.DependsOnDatabaseInitialization;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.jdbc.core.JdbcTemplate;
 
 import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.Statement;
 
 /**
  * 数据库初始化配置类
- * 负责检查和更新数据库 schema
+ * 负责检查和更新数据库 schema。
+ * 通过 JDBC 元数据检查列是否存在，MySQL、SQLite、H2 均适用；
+ * 嵌入式后端的建表由 spring.sql.init 完成，本类在其之后执行
  */
 @Configuration
+@DependsOnDatabaseInitialization
 public class DatabaseInitializer {
 
     private static final Logger log = LoggerFactory.getLogger(DatabaseInitializer.class);
@@ -27,20 +35,48 @@ public class DatabaseInitializer {
     public void init() {
         log.info("Checking database schema...");
         try {
-            // 检查 dt_message 表是否存在 thread_name 列
-            String checkColumnSql = "SELECT COUNT(*) FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'dt_message' AND COLUMN_NAME = 'thread_name'";
-            Integer count = jdbcTemplate.queryForObject(checkColumnSql, Integer.class);
-
-            if (count != null && count == 0) {
-                log.info("Adding 'thread_name' column to 'dt_message' table...");
-                jdbcTemplate.execute("ALTER TABLE dt_message ADD COLUMN thread_name VARCHAR(255) COMMENT '会话名称/用户姓名'");
-                log.info("Column 'thread_name' added successfully.");
-            } else {
-                log.info("Column 'thread_name' already exists in 'dt_message' table.");
-            }
+            addColumnIfMissing("dt_message", "thread_name", "VARCHAR(255)", "会话名称/用户姓名");
+            addColumnIfMissing("dt_conversation", "last_eval", "TEXT", "最近一次评估结果(JSON)");
+            addColumnIfMissing("dt_conversation", "state_snapshot", "LONGBLOB", "会话状态二进制快照");
         } catch (Exception e) {
             log.error("Failed to check or update database schema", e);
             // 不抛出异常，避免阻断应用启动（如果数据库连接失败，Spring 可能会自己报错）
         }
     }
+
+    /**
+     * 检查表中是否存在指定列，不存在则添加
+     * 列注释仅 MySQL 支持，其他数据库省略
+     */
+    private void addColumnIfMissing(String table, String column, String type, String comment) {
+        jdbcTemplate.execute((Connection connection) -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            // H2 等数据库以大写保存未加引号的标识符
+            boolean upperCase = metaData.storesUpperCaseIdentifiers();
+            String tableName = upperCase ? table.toUpperCase() : table;
+            String columnName = upperCase ? column.toUpperCase() : column;
+
+            try (ResultSet tables = metaData.getTables(connection.getCatalog(), null, tableName, null)) {
+                if (!tables.next()) {
+                    log.warn("Table '{}' does not exist, skip checking column '{}'.", table, column);
+                    return null;
+                }
+            }
+            try (ResultSet columns = metaData.getColumns(connection.getCatalog(), null, tableName, columnName)) {
+                if (columns.next()) {
+                    log.info("Column '{}' already exists in '{}' table.", column, table);
+                    return null;
+                }
+            }
+
+            log.info("Adding '{}' column to '{}' table...", column, table);
+            boolean mySql = "MySQL".equalsIgnoreCase(metaData.getDatabaseProductName());
+            String definition = mySql ? type + " COMMENT '" + comment + "'" : type;
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("ALTER TABLE " + table + " ADD COLUMN " + column + " " + definition);
+            }
+            log.info("Column '{}' added successfully.", column);
+            return null;
+        });
+    }
 }
@@ -0,0 +1,402 @@
+package com.deeptalent.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 应用自定义配置项
+ * 对应 application.yml 中 deeptalent 前缀下的配置
+ *
+ * @author 小阳
+ * @date 2026-10-18
+ * @version 1.0.0
+ */
+@Setter
+@Getter
+@ConfigurationProperties(prefix = "deeptalent")
+public class DeepTalentProperties {
+
+    /**
+     * 持久化相关配置
+     */
+    private Persistence persistence = new Persistence();
+
+    /**
+     * 会话并发控制配置
+     */
+    private Session session = new Session();
+
+    /**
+     * 访谈节点推测执行配置
+     */
+    private Speculation speculation = new Speculation();
+
+    /**
+     * 阶段摘要配置
+     */
+    private Summary summary = new Summary();
+
+    /**
+     * 预生成题库配置
+     */
+    private QuestionBank questionBank = new QuestionBank();
+
+    /**
+     * 评估节点配置
+     */
+    private Evaluator evaluator = new Evaluator();
+
+    /**
+     * 上游大模型调用配置
+     */
+    private Llm llm = new Llm();
+
+    /**
+     * 报告生成任务配置
+     */
+    private Report report = new Report();
+
+    @Setter
+    @Getter
+    public static class Persistence {
+
+        /**
+         * 批量写入时单条 INSERT 语句最多携带的行数
+         * 小于等于 1 时退化为逐行插入
+         */
+        private int batchSize = 100;
+
+        /**
+         * 内存与快照中保留的最近消息条数，更早的消息只在需要完整历史时按需分页加载
+         * 小于等于 0 表示不限制
+         */
+        private int historyWindow = 40;
+
+        /**
+         * 按需加载早期消息时每页的行数
+         */
+        private int historyPageSize = 200;
+
+        /**
+         * 会话状态本地缓存配置
+         */
+        private Cache cache = new Cache();
+
+        /**
+         * 异步回写配置
+         */
+        private WriteBehind writeBehind = new WriteBehind();
+    }
+
+    @Setter
+    @Getter
+    public static class Cache {
+
+        /**
+         * 是否启用会话状态缓存
+         */
+        private boolean enabled = true;
+
+        /**
+         * 最多缓存的会话数
+         */
+        private int maxEntries = 1000;
+
+        /**
+         * 缓存估算内存占用上限
+         */
+        private DataSize maxMemory = DataSize.ofMegabytes(64);
+
+        /**
+         * 条目写入后的存活时间，多实例部署时即为数据陈旧的最大窗口
+         */
+        private Duration ttl = Duration.ofMinutes(30);
+    }
+
+    @Setter
+    @Getter
+    public static class WriteBehind {
+
+        /**
+         * 是否启用异步回写（默认关闭，保存同步落库）
+         */
+        private boolean enabled = false;
+
+        /**
+         * 刷盘间隔，即进程崩溃时可能丢失数据的最大时间窗口
+         */
+        private Duration flushInterval = Duration.ofSeconds(1);
+
+        /**
+         * 待写会话数达到该值时立即触发刷盘
+         */
+        private int maxBatchSize = 100;
+
+        /**
+         * 待写会话数上限，达到后调用线程同步刷盘
+         */
+        private int maxPending = 10000;
+
+        /**
+         * 同一会话连续写入失败的次数上限，达到后丢弃该状态并写入死信日志
+         */
+        private int maxAttempts = 5;
+    }
+
+    @Setter
+    @Getter
+    public static class Session {
+
+        /**
+         * 同一会话的请求排队等待锁的最长时间，应覆盖一轮完整对话（评估 + 生成）的耗时
+         */
+        private Duration lockTimeout = Duration.ofMinutes(2);
+
+        /**
+         * 流式对话（SSE）连接的最长保持时间，应覆盖评估与完整报告的生成耗时
+         */
+        private Duration streamTimeout = Duration.ofMinutes(3);
+
+        /**
+         * 异步对话接口单个请求的默认超时时间，超时后取消本轮且不保存
+         */
+        private Duration requestTimeout = Duration.ofMinutes(2);
+
+        /**
+         * 执行流式/异步对话的线程数，即同时进行中的对话上限（虚拟线程模式下不生效）
+         */
+        private int chatThreads = 64;
+    }
+
+    @Setter
+    @Getter
+    public static class Speculation {
+
+        /**
+         * 是否在评估的同时推测执行访谈节点（默认关闭：推测生成的问题看不到本轮评估结果）
+         */
+        private boolean enabled = false;
+
+        /**
+         * 执行推测调用的线程数，即同时进行中的推测调用上限，超出时该轮不推测
+         */
+        private int threads = 32;
+    }
+
+    @Setter
+    @Getter
+    public static class Summary {
+
+        /**
+         * 是否在阶段结束时生成摘要（关闭后既不生成也不加载摘要，提示词携带窗口内的全部历史消息）
+         */
+        private boolean enabled = true;
+
+        /**
+         * 在后台生成摘要的线程数，即同时进行中的摘要上限，超出时该阶段保留原始消息
+         */
+        private int threads = 8;
+    }
+
+    @Setter
+    @Getter
+    public static class QuestionBank {
+
+        /**
+         * 是否启用题库（新会话的开场问题直接取题库，模型过载被舱壁拒绝时从题库降级取题，追问轮次除外）
+         */
+        private boolean enabled = true;
+
+        /**
+         * 每个阶段保留的题目数
+         */
+        private int size = 8;
+
+        /**
+         * 后台检查提示词版本、补齐与轮转题目的间隔
+         */
+        private Duration refreshInterval = Duration.ofMinutes(5);
+
+        /**
+         * 题目的最长使用时间，超过后在后台替换为新生成的题目
+         */
+        private Duration maxAge = Duration.ofDays(1);
+    }
+
+    @Setter
+    @Getter
+    public static class Evaluator {
+
+        /**
+         * 跨会话微批处理配置
+         */
+        private Batch batch = new Batch();
+    }
+
+    @Setter
+    @Getter
+    public static class Batch {
+
+        /**
+         * 是否把同一阶段、短时间内到达的评估合并为一次多条目请求
+         */
+        private boolean enabled = false;
+
+        /**
+         * 批次打开后等待更多评估加入的时间（会计入每次评估的延迟）
+         */
+        private Duration window = Duration.ofMillis(5);
+
+        /**
+         * 单个批次的最大条目数，攒满后立即发送
+         */
+        private int maxSize = 16;
+    }
+
+    @Setter
+    @Getter
+    public static class Report {
+
+        /**
+         * 是否把写作节点改为后台任务（进入报告阶段的那一轮立即返回任务ID，报告生成后写入 final_report）
+         */
+        private boolean async = false;
+
+        /**
+         * 工作线程数，即同时生成中的报告上限
+         */
+        private int workers = 4;
+
+        /**
+         * 排队中的任务上限，超出时本轮返回 503，可以重试
+         */
+        private int queueCapacity = 1000;
+
+        /**
+         * 每个任务最多执行的次数（失败后重新入队）
+         */
+        private int maxAttempts = 3;
+
+        /**
+         * 查询任务状态时最长等待任务结束的时间
+         */
+        private Duration maxWait = Duration.ofSeconds(60);
+
+        /**
+         * 执行中任务的租约时长，执行期间每 1/3 租约续租一次；
+         * 实例停机或崩溃后超过该时长未续租的任务由其他实例（或重启后的实例）接管
+         */
+        private Duration lease = Duration.ofSeconds(60);
+
+        /**
+         * 是否在每个阶段结束时于后台起草该阶段的报告分节（写作节点只需综合各分节）
+         */
+        private boolean incremental = true;
+
+        /**
+         * 起草分节的线程数，即同时进行中的起草上限
+         */
+        private int draftThreads = 8;
+
+        /**
+         * 写作节点等待进行中的起草的最长时间，超时后携带完整对话一次性生成报告
+         */
+        private Duration draftWait = Duration.ofSeconds(60);
+    }
+
+    @Setter
+    @Getter
+    public static class Llm {
+
+        /**
+         * 按上游模型划分的舱壁配置
+         */
+        private Bulkhead bulkhead = new Bulkhead();
+
+        /**
+         * 评估调用是否使用 JSON 模式（response_format=json_object），要求上游模型支持该参数
+         */
+        private boolean jsonMode = true;
+
+        /**
+         * token 单价，用于折算 deeptalent.llm.cost 指标
+         */
+        private Pricing pricing = new Pricing();
+    }
+
+    @Setter
+    @Getter
+    public static class Pricing {
+
+        /**
+         * 每百万提示词 token 的价格（与 completionPerMillion 均为 0 时不统计费用）
+         */
+        private double promptPerMillion = 0;
+
+        /**
+         * 每百万生成 token 的价格
+         */
+        private double completionPerMillion = 0;
+    }
+
+    @Setter
+    @Getter
+    public static class Bulkhead {
+
+        /**
+         * 每个上游模型默认允许的最大并发调用数
+         */
+        private int maxConcurrent = 32;
+
+        /**
+         * 按模型名称单独配置最大并发调用数，优先于 maxConcurrent
+         */
+        private Map<String, Integer> models = new LinkedHashMap<>();
+
+        /**
+         * 等待许可的最长时间（排队超时），超时后本次调用失败，接口返回 503
+         */
+        private Duration maxWait = Duration.ofSeconds(60);
+
+        /**
+         * 每个模型排队等待许可的调用数上限，超出时直接拒绝，接口返回 429
+         */
+        private int maxQueue = 1024;
+
+        /**
+         * 按调用耗时与失败自适应调整并发上限
+         */
+        private AdaptiveLimit adaptive = new AdaptiveLimit();
+    }
+
+    @Setter
+    @Getter
+    public static class AdaptiveLimit {
+
+        /**
+         * 是否开启自适应并发上限；关闭时上限固定为 maxConcurrent
+         */
+        private boolean enabled = true;
+
+        /**
+         * 并发上限的下界
+         */
+        private int minConcurrent = 2;
+
+        /**
+         * 耗时超过该值的调用视为上游过载，应高于正常阻塞调用（如写作节点）的耗时；流式调用取首个片段的耗时
+         */
+        private Duration latencyThreshold = Duration.ofSeconds(30);
+
+        /**
+         * 过载时并发上限乘以的系数
+         */
+        private double backoffRatio = 0.9;
+    }
+}
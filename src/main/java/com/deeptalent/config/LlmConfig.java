@@ -0,0 +1,193 @@
+package com.deeptalent.config;
+
+import com.deeptalent.mapper.QuestionBankMapper;
+import com.deeptalent.mapper.ReportSectionMapper;
+import com.deeptalent.service.PromptService;
+import com.deeptalent.service.ai.DeepTalentAgent;
+import com.deeptalent.service.impl.AimdLimit;
+import com.deeptalent.service.impl.BulkheadStreamingChatModel;
+import com.deeptalent.service.impl.EvaluationBatcher;
+import com.deeptalent.service.impl.EvaluationParser;
+import com.deeptalent.service.impl.InterviewMetrics;
+import com.deeptalent.service.impl.JsonModeEvaluation;
+import com.deeptalent.service.impl.LlmBulkhead;
+import com.deeptalent.service.impl.LlmBulkheads;
+import com.deeptalent.service.impl.PhaseSummarizer;
+import com.deeptalent.service.impl.QuestionBank;
+import com.deeptalent.service.impl.ReportDrafter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
+import dev.langchain4j.model.openai.OpenAiChatModel;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+
+/**
+ * 大模型调用配置类
+ * 按上游模型创建舱壁（可选按耗时与失败自适应调整并发上限），并在 Bean 初始化后把 DeepTalentAgent 与流式对话模型包装进对应模型的舱壁，
+ * 业务代码无需感知并发限制；开启 JSON 模式时评估调用改走 response_format=json_object 的模型实例；
+ * 同时注册评估结果解析器、访谈流程监控指标，以及基于 DeepTalentAgent 的阶段摘要生成器、报告分节起草器与预生成题库
+ *
+ * @author 小阳
+ * @date 2026-10-18
+ * @version 1.0.0
+ */
+@Configuration
+public class LlmConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(LlmConfig.class);
+
+    private static final String CHAT_MODEL_NAME = "langchain4j.open-ai.chat-model.model-name";
+    private static final String CHAT_MODEL_PREFIX = "langchain4j.open-ai.chat-model.";
+    private static final String STREAMING_CHAT_MODEL_NAME = "langchain4j.open-ai.streaming-chat-model.model-name";
+
+    /**
+     * 按上游模型划分的舱壁，每个舱壁创建时注册并发上限与排队数指标
+     */
+    @Bean
+    public LlmBulkheads llmBulkheads(DeepTalentProperties properties, InterviewMetrics interviewMetrics) {
+        DeepTalentProperties.Bulkhead bulkhead = properties.getLlm().getBulkhead();
+        DeepTalentProperties.AdaptiveLimit adaptive = bulkhead.getAdaptive();
+        log.info("LLM bulkheads initialized: maxConcurrent={}, models={}, maxWait={}, maxQueue={}, adaptive={}",
+                bulkhead.getMaxConcurrent(), bulkhead.getModels(), bulkhead.getMaxWait(), bulkhead.getMaxQueue(),
+                adaptive.isEnabled());
+        return new LlmBulkheads(bulkhead.getMaxConcurrent(), bulkhead.getModels(), bulkhead.getMaxWait(),
+                bulkhead.getMaxQueue(),
+                adaptive.isEnabled() ? maxConcurrent -> new AimdLimit(adaptive.getMinConcurrent(), maxConcurrent,
+                        adaptive.getLatencyThreshold(), adaptive.getBackoffRatio()) : null,
+                interviewMetrics::bulkhead);
+    }
+
+    /**
+     * 访谈流程监控指标
+     */
+    @Bean
+    public InterviewMetrics interviewMetrics(MeterRegistry meterRegistry, DeepTalentProperties properties) {
+        DeepTalentProperties.Pricing pricing = properties.getLlm().getPricing();
+        return new InterviewMetrics(meterRegistry, pricing.getPromptPerMillion(), pricing.getCompletionPerMillion());
+    }
+
+    @Bean
+    public EvaluationParser evaluationParser(ObjectMapper objectMapper, InterviewMetrics interviewMetrics) {
+        EvaluationParser parser = new EvaluationParser(objectMapper);
+        interviewMetrics.evaluationParser(parser);
+        return parser;
+    }
+
+    /**
+     * 阶段摘要生成器，容器关闭时停止摘要线程
+     */
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnProperty(prefix = "deeptalent.summary", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public PhaseSummarizer phaseSummarizer(DeepTalentAgent deepTalentAgent, PromptService promptService,
+                                           InterviewMetrics interviewMetrics, DeepTalentProperties properties) {
+        int threads = properties.getSummary().getThreads();
+        log.info("Phase summarization enabled: threads={}", threads);
+        return new PhaseSummarizer(deepTalentAgent, promptService, interviewMetrics, threads);
+    }
+
+    /**
+     * 报告分节起草器，容器关闭时停止起草线程
+     */
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnProperty(prefix = "deeptalent.report", name = "incremental", havingValue = "true", matchIfMissing = true)
+    public ReportDrafter reportDrafter(DeepTalentAgent deepTalentAgent, PromptService promptService,
+                                       ReportSectionMapper reportSectionMapper, InterviewMetrics interviewMetrics,
+                                       DeepTalentProperties properties) {
+        DeepTalentProperties.Report report = properties.getReport();
+        log.info("Incremental report drafting enabled: threads={}, wait={}", report.getDraftThreads(), report.getDraftWait());
+        return new ReportDrafter(deepTalentAgent, promptService, reportSectionMapper, interviewMetrics,
+                report.getDraftThreads(), report.getDraftWait());
+    }
+
+    /**
+     * 预生成题库，以访谈模型的舱壁判断是否饱和，容器关闭时停止后台刷新线程
+     */
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnProperty(prefix = "deeptalent.question-bank", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public QuestionBank questionBank(DeepTalentAgent deepTalentAgent, PromptService promptService,
+                                     QuestionBankMapper questionBankMapper, LlmBulkheads llmBulkheads,
+                                     DeepTalentProperties properties, Environment environment) {
+        DeepTalentProperties.QuestionBank questionBank = properties.getQuestionBank();
+        QuestionBank bank = new QuestionBank(deepTalentAgent, promptService, questionBankMapper,
+                llmBulkheads.forModel(environment.getProperty(CHAT_MODEL_NAME, "default")),
+                questionBank.getSize(), questionBank.getRefreshInterval(), questionBank.getMaxAge());
+        bank.start();
+        return bank;
+    }
+
+    /**
+     * 评估微批处理，批次在调用方线程上发送，不需要额外的线程
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "deeptalent.evaluator.batch", name = "enabled", havingValue = "true")
+    public EvaluationBatcher evaluationBatcher(DeepTalentAgent deepTalentAgent, PromptService promptService,
+                                               EvaluationParser evaluationParser, DeepTalentProperties properties) {
+        DeepTalentProperties.Batch batch = properties.getEvaluator().getBatch();
+        log.info("Evaluation micro-batching enabled: window={}, maxSize={}", batch.getWindow(), batch.getMaxSize());
+        return new EvaluationBatcher(deepTalentAgent, promptService, evaluationParser,
+                batch.getWindow(), batch.getMaxSize());
+    }
+
+    /**
+     * 舱壁与监控包装后置处理器
+     * 包装的是同一个 Bean 而不是新增 Bean，LangChain4j 按类型自动装配模型时不会出现多个候选。
+     * AI Service 的计时在舱壁之内，只统计实际调用上游的耗时；对话模型额外统计每次响应的 token 用量
+     */
+    @Bean
+    public static BeanPostProcessor llmBulkheadPostProcessor(ObjectProvider<LlmBulkheads> bulkheads,
+                                                             ObjectProvider<DeepTalentProperties> properties,
+                                                             ObjectProvider<InterviewMetrics> metrics,
+                                                             Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DeepTalentAgent agent) {
+                    if (properties.getObject().getLlm().isJsonMode()) {
+                        log.info("AI service '{}' evaluates in JSON mode", beanName);
+                        agent = JsonModeEvaluation.wrap(agent, metrics.getObject().counting(jsonModeChatModel(environment)));
+                    }
+                    agent = metrics.getObject().timed(DeepTalentAgent.class, agent);
+                    LlmBulkhead bulkhead = bulkheads.getObject().forModel(environment.getProperty(CHAT_MODEL_NAME, "default"));
+                    log.info("Guarding AI service '{}' with bulkhead of model {}", beanName, bulkhead.getModel());
+                    return bulkhead.guard(DeepTalentAgent.class, agent);
+                }
+                if (bean instanceof ChatLanguageModel model) {
+                    return metrics.getObject().counting(model);
+                }
+                if (bean instanceof StreamingChatLanguageModel model && !(bean instanceof BulkheadStreamingChatModel)) {
+                    LlmBulkhead bulkhead = bulkheads.getObject().forModel(environment.getProperty(STREAMING_CHAT_MODEL_NAME, "default"));
+                    log.info("Guarding streaming model '{}' with bulkhead of model {}", beanName, bulkhead.getModel());
+                    return new BulkheadStreamingChatModel(model, bulkhead);
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * 按对话模型的配置创建一个开启 JSON 模式的模型实例（不注册为 Bean）
+     */
+    private static OpenAiChatModel jsonModeChatModel(Environment environment) {
+        return OpenAiChatModel.builder()
+                .baseUrl(environment.getProperty(CHAT_MODEL_PREFIX + "base-url"))
+                .apiKey(environment.getProperty(CHAT_MODEL_PREFIX + "api-key"))
+                .modelName(environment.getProperty(CHAT_MODEL_NAME))
+                .temperature(environment.getProperty(CHAT_MODEL_PREFIX + "temperature", Double.class))
+                .timeout(environment.getProperty(CHAT_MODEL_PREFIX + "timeout", Duration.class))
+                .maxRetries(environment.getProperty(CHAT_MODEL_PREFIX + "max-retries", Integer.class))
+                .logRequests(environment.getProperty(CHAT_MODEL_PREFIX + "log-requests", Boolean.class))
+                .logResponses(environment.getProperty(CHAT_MODEL_PREFIX + "log-responses", Boolean.class))
+                .responseFormat("json_object")
+                .build();
+    }
+}
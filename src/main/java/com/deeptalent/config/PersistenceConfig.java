@@ -0,0 +1,68 @@
+package com.deeptalent.config;
+
+import com.deeptalent.service.PersistenceService;
+import com.deeptalent.service.impl.CachingPersistenceService;
+import com.deeptalent.service.impl.PersistenceServiceImpl;
+import com.deeptalent.service.impl.WriteBehindPersistenceService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+/**
+ * 持久化配置类
+ * 按配置在 PersistenceServiceImpl 外层组装装饰器（异步回写、本地缓存），
+ * 业务层注入的 PersistenceService 即为组装后的最外层实例
+ *
+ * @author 小阳
+ * @date 2026-10-18
+ * @version 1.0.0
+ */
+@Configuration
+public class PersistenceConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(PersistenceConfig.class);
+
+    /**
+     * 异步回写装饰器，单独注册为 Bean 以便容器关闭时写完队列
+     */
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnProperty(prefix = "deeptalent.persistence.write-behind", name = "enabled", havingValue = "true")
+    public WriteBehindPersistenceService writeBehindPersistenceService(PersistenceServiceImpl persistenceServiceImpl,
+                                                                       DeepTalentProperties properties,
+                                                                       MeterRegistry meterRegistry) {
+        DeepTalentProperties.WriteBehind writeBehind = properties.getPersistence().getWriteBehind();
+        WriteBehindPersistenceService service = new WriteBehindPersistenceService(persistenceServiceImpl,
+                writeBehind.getFlushInterval(), writeBehind.getMaxBatchSize(), writeBehind.getMaxPending(),
+                writeBehind.getMaxAttempts(), meterRegistry);
+        service.start();
+        return service;
+    }
+
+    @Bean
+    @Primary
+    public PersistenceService persistenceService(PersistenceServiceImpl persistenceServiceImpl,
+                                                 ObjectProvider<WriteBehindPersistenceService> writeBehind,
+                                                 DeepTalentProperties properties,
+                                                 MeterRegistry meterRegistry) {
+        PersistenceService service = persistenceServiceImpl;
+
+        WriteBehindPersistenceService writeBehindService = writeBehind.getIfAvailable();
+        if (writeBehindService != null) {
+            service = writeBehindService;
+        }
+
+        DeepTalentProperties.Cache cache = properties.getPersistence().getCache();
+        if (cache.isEnabled()) {
+            log.info("Session state cache enabled: maxEntries={}, maxMemory={}, ttl={}",
+                    cache.getMaxEntries(), cache.getMaxMemory(), cache.getTtl());
+            service = new CachingPersistenceService(service, cache.getMaxEntries(), cache.getMaxMemory().toBytes(),
+                    cache.getTtl(), properties.getPersistence().getHistoryWindow(), meterRegistry);
+        }
+        return service;
+    }
+}
@@ -0,0 +1,36 @@
+package com.deeptalent.controller;
+
+import com.deeptalent.service.LlmOverloadedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.Map;
+
+/**
+ * 接口异常处理
+ * 上游模型过载时快速失败：排队已满返回 429，排队超时返回 503，均带 Retry-After（秒），
+ * 同步接口与异步接口（DeferredResult 的异常结果）统一在这里转换
+ *
+ * @author 小阳
+ * @date 2026-10-18
+ * @version 1.0.0
+ */
+@RestControllerAdvice
+public class ApiExceptionHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(ApiExceptionHandler.class);
+
+    @ExceptionHandler(LlmOverloadedException.class)
+    public ResponseEntity<Map<String, String>> handleOverloaded(LlmOverloadedException e) {
+        HttpStatus status = e.isQueueFull() ? HttpStatus.TOO_MANY_REQUESTS : HttpStatus.SERVICE_UNAVAILABLE;
+        log.warn("Rejecting request with {}: {}", status.value(), e.getMessage());
+        return ResponseEntity.status(status)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfter().toSeconds()))
+                .body(Map.of("error", e.getMessage()));
+    }
+}
@@ -1,10 +1,28 @@
 package com.deeptalent.controller;
 
+import com.deeptalent.config.DeepTalentProperties;
+import com.deeptalent.service.ChatStreamListener;
 import com.deeptalent.service.InterviewService;
+import com.deeptalent.service.LlmOverloadedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * 面试控制器类，处理与面试对话相关的HTTP请求
@@ -15,17 +33,35 @@ import java.util.Map;
 @CrossOrigin(origins = "*") // 允许前端跨域访问
 public class InterviewController {
 
+    private static final Logger log = LoggerFactory.getLogger(InterviewController.class);
+
     /**
      * 面试服务实例，处理面试相关业务逻辑
      */
     private final InterviewService interviewService;
 
+    /**
+     * 对话执行线程池
+     */
+    private final TaskExecutor chatExecutor;
+
+    /**
+     * 应用配置
+     */
+    private final DeepTalentProperties properties;
+
     /**
      * 构造函数，通过依赖注入初始化InterviewService
      * @param interviewService 面试服务实例
+     * @param chatExecutor 对话执行线程池
+     * @param properties 应用配置
      */
-    public InterviewController(InterviewService interviewService) {
+    public InterviewController(InterviewService interviewService,
+                               @Qualifier("chatExecutor") TaskExecutor chatExecutor,
+                               DeepTalentProperties properties) {
         this.interviewService = interviewService;
+        this.chatExecutor = chatExecutor;
+        this.properties = properties;
     }
 
     /**
@@ -43,6 +79,7 @@ public class InterviewController {
 
     /**
      * 发送消息到面试会话并获取回复
+     * 开启报告后台生成时，进入报告阶段的那一轮立即返回，响应中的 reportJobId 用于查询报告
      * @param payload 包含threadId和message的请求体
      * @return 包含threadId和AI回复的响应实体
      */
@@ -57,9 +94,193 @@ public class InterviewController {
             return ResponseEntity.badRequest().build();
         }
         
-        // 调用服务层处理对话
-        String response = interviewService.chat(threadId, message);
-        // 返回包含会话ID和AI回复的JSON格式数据
-        return ResponseEntity.ok(Map.of("threadId", threadId, "message", response));
+        // 调用服务层处理对话，返回包含会话ID和AI回复的JSON格式数据
+        return ResponseEntity.ok(interviewService.sendMessage(threadId, message));
+    }
+
+    /**
+     * 异步启动新的面试会话
+     * 请求线程立即释放，会话在对话线程池中启动
+     * @param userName 用户姓名
+     * @param timeoutMs 本次请求的超时时间（毫秒），不超过配置的 request-timeout
+     * @return 包含threadId和欢迎消息的异步响应
+     */
+    @PostMapping("/async/start")
+    public DeferredResult<ResponseEntity<Map<String, String>>> startSessionAsync(@RequestParam String userName,
+                                                                                 @RequestParam(required = false) Long timeoutMs) {
+        return defer(timeoutMs, () -> interviewService.startSessionAsync(userName), result -> result);
+    }
+
+    /**
+     * 异步发送消息到面试会话
+     * 请求线程在评估与生成期间被释放；超时或客户端断开时取消本轮，本轮不会被保存，可直接重试
+     * @param payload 包含threadId和message的请求体
+     * @param timeoutMs 本次请求的超时时间（毫秒），不超过配置的 request-timeout
+     * @return 包含threadId和AI回复的异步响应，超时返回 504
+     */
+    @PostMapping("/async/message")
+    public DeferredResult<ResponseEntity<Map<String, String>>> sendMessageAsync(@RequestBody Map<String, String> payload,
+                                                                                @RequestParam(required = false) Long timeoutMs) {
+        String threadId = payload.get("threadId");
+        String message = payload.get("message");
+
+        if (threadId == null || message == null) {
+            DeferredResult<ResponseEntity<Map<String, String>>> badRequest = new DeferredResult<>();
+            badRequest.setResult(ResponseEntity.badRequest().build());
+            return badRequest;
+        }
+
+        return defer(timeoutMs, () -> interviewService.chatAsync(threadId, message), response -> response);
+    }
+
+    /**
+     * 查询报告生成任务
+     * 指定 waitMs 时任务结束才返回（不超过配置的 max-wait），到时仍未结束则返回当前状态；等待期间不占用请求线程
+     * @param jobId 报告生成任务ID
+     * @param waitMs 最长等待任务结束的时间（毫秒），不传或不大于 0 时立即返回
+     * @return 包含jobId、threadId、status的响应，成功时包含report，失败时包含error；任务不存在时返回 404
+     */
+    @GetMapping("/report/{jobId}")
+    public DeferredResult<ResponseEntity<Map<String, String>>> getReportJob(@PathVariable String jobId,
+                                                                            @RequestParam(required = false) Long waitMs) {
+        long maxWait = properties.getReport().getMaxWait().toMillis();
+        long timeout = waitMs != null && waitMs > 0 ? Math.min(waitMs, maxWait) : 0;
+        DeferredResult<ResponseEntity<Map<String, String>>> result = new DeferredResult<>(timeout > 0 ? timeout : null);
+        if (timeout == 0) {
+            result.setResult(reportJobResponse(interviewService.getReportJob(jobId)));
+            return result;
+        }
+        result.onTimeout(() -> result.setResult(reportJobResponse(interviewService.getReportJob(jobId))));
+        interviewService.awaitReportJob(jobId).whenComplete((job, error) -> {
+            if (error != null) {
+                result.setErrorResult(error);
+            } else {
+                result.setResult(reportJobResponse(job));
+            }
+        });
+        return result;
+    }
+
+    private static ResponseEntity<Map<String, String>> reportJobResponse(Map<String, String> job) {
+        return job != null ? ResponseEntity.ok(job) : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * 把异步结果适配为 DeferredResult，并把超时与客户端断开传递为取消
+     */
+    private <T> DeferredResult<ResponseEntity<Map<String, String>>> defer(Long timeoutMs,
+                                                                       Supplier<CompletableFuture<T>> call,
+                                                                       Function<T, Map<String, String>> body) {
+        long maxTimeout = properties.getSession().getRequestTimeout().toMillis();
+        long timeout = timeoutMs != null && timeoutMs > 0 ? Math.min(timeoutMs, maxTimeout) : maxTimeout;
+        DeferredResult<ResponseEntity<Map<String, String>>> result = new DeferredResult<>(timeout);
+        CompletableFuture<T> future = call.get();
+
+        result.onTimeout(() -> {
+            future.cancel(true);
+            result.setErrorResult(ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT)
+                    .body(Map.of("error", "Request timed out after " + timeout + " ms")));
+        });
+        // 客户端断开
+        result.onError(error -> future.cancel(true));
+        future.whenComplete((value, error) -> {
+            if (error == null) {
+                result.setResult(ResponseEntity.ok(body.apply(value)));
+                return;
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause instanceof CancellationException) {
+                return;
+            }
+            if (cause instanceof TaskRejectedException) {
+                log.warn("Chat executor saturated, rejecting async request");
+                result.setErrorResult(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+                return;
+            }
+            result.setErrorResult(cause);
+        });
+        return result;
+    }
+
+    /**
+     * 发送消息到面试会话，以 SSE 流式返回回复
+     * 事件类型：token（生成的片段）、report（报告已排队在后台生成）、done（本轮完成，回复已保存）、error（处理失败，模型过载时带 retryAfter）
+     * @param payload 包含threadId和message的请求体
+     * @return SSE 事件流
+     */
+    @PostMapping(value = "/message/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamMessage(@RequestBody Map<String, String> payload) {
+        String threadId = payload.get("threadId");
+        String message = payload.get("message");
+
+        if (threadId == null || message == null) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        SseEmitter emitter = new SseEmitter(properties.getSession().getStreamTimeout().toMillis());
+        try {
+            chatExecutor.execute(() -> interviewService.chatStream(threadId, message, new SseChatStreamListener(emitter, threadId)));
+        } catch (TaskRejectedException e) {
+            log.warn("Chat stream executor saturated, rejecting thread {}", threadId);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok(emitter);
+    }
+
+    /**
+     * 把流式回调转换为 SSE 事件
+     * 客户端断开后不再推送，但本轮对话照常完成并保存，重新进入会话即可看到回复
+     */
+    private static class SseChatStreamListener implements ChatStreamListener {
+
+        private final SseEmitter emitter;
+        private final String threadId;
+        private volatile boolean disconnected;
+
+        private SseChatStreamListener(SseEmitter emitter, String threadId) {
+            this.emitter = emitter;
+            this.threadId = threadId;
+        }
+
+        @Override
+        public void onToken(String token) {
+            // 片段以 JSON 发送，换行等字符不会破坏 SSE 帧格式
+            send("token", Map.of("token", token));
+        }
+
+        @Override
+        public void onReportQueued(String jobId) {
+            send("report", Map.of("threadId", threadId, "reportJobId", jobId));
+        }
+
+        @Override
+        public void onComplete(String message) {
+            send("done", Map.of("threadId", threadId, "message", message));
+            emitter.complete();
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            if (error instanceof LlmOverloadedException overloaded) {
+                // 模型过载：附带建议的重试间隔（秒）
+                send("error", Map.of("threadId", threadId, "error", String.valueOf(error.getMessage()),
+                        "retryAfter", String.valueOf(overloaded.getRetryAfter().toSeconds())));
+            } else {
+                send("error", Map.of("threadId", threadId, "error", String.valueOf(error.getMessage())));
+            }
+            emitter.complete();
+        }
+
+        private void send(String event, Map<String, String> data) {
+            if (disconnected) {
+                return;
+            }
+            try {
+                emitter.send(SseEmitter.event().name(event).data(data, MediaType.APPLICATION_JSON));
+            } catch (IOException | IllegalStateException e) {
+                disconnected = true;
+                log.debug("SSE client of thread {} disconnected: {}", threadId, e.getMessage());
+            }
+        }
     }
-}
\ No newline at end of file
+}
@@ -5,6 +5,7 @@ import com.baomidou.mybatisplus.annotation.TableName;
 import com.baomidou.mybatisplus.annotation.TableField;
 import com.baomidou.mybatisplus.annotation.FieldFill;
 import lombok.Getter;
+import org.apache.ibatis.type.ByteArrayTypeHandler;
 import lombok.Setter;
 
 import java.time.LocalDateTime;
@@ -23,7 +24,7 @@ import java.time.LocalDateTime;
  */
 @Setter
 @Getter
-@TableName("dt_conversation")
+@TableName(value = "dt_conversation", autoResultMap = true)
 public class ConversationEntity {
     
     /**
@@ -53,6 +54,19 @@ public class ConversationEntity {
      */
     private String finalReport;
 
+    /**
+     * 最近一次评估结果 (JSON)
+     */
+    private String lastEval;
+
+    /**
+     * 会话状态二进制快照
+     * 由 StateSnapshotCodec 编码，一次主键读取即可恢复完整会话。
+     * 显式使用 getBytes/setBytes 读写，SQLite 驱动不支持 Blob 接口
+     */
+    @TableField(typeHandler = ByteArrayTypeHandler.class)
+    private byte[] stateSnapshot;
+
     /**
      * 创建时间
      */
@@ -0,0 +1,60 @@
+package com.deeptalent.domain.entity;
+
+import com.baomidou.mybatisplus.annotation.FieldFill;
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 阶段摘要记录实体类
+ * 存储各阶段结束时生成的对话摘要，会话重新加载后无需重新生成
+ *
+ * @author 小阳
+ * @date 2026-10-18
+ * @version 1.0.0
+ */
+@Data
+@TableName("dt_phase_summary")
+public class PhaseSummaryEntity {
+
+    /**
+     * ID (自增主键)
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 所属会话ID (外键)
+     */
+    private String threadId;
+
+    /**
+     * 所属阶段 (Phase)
+     */
+    private String phase;
+
+    /**
+     * 摘要内容
+     */
+    private String summary;
+
+    /**
+     * 摘要覆盖的消息区间 [fromSequence, toSequence)
+     */
+    private Integer fromSequence;
+
+    private Integer toSequence;
+
+    /**
+     * 创建时间
+     */
+    @TableField(fill = FieldFill.INSERT)
+    private LocalDateTime createdAt;
+
+    public PhaseSummaryEntity() {
+    }
+}
@@ -0,0 +1,53 @@
+package com.deeptalent.domain.entity;
+
+import com.baomidou.mybatisplus.annotation.FieldFill;
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 题库问题实体类
+ * 存储按阶段预生成的访谈问题，与生成时使用的访谈提示词版本绑定，重启后无需重新生成
+ *
+ * @author 小阳
+ * @date 2026-10-18
+ * @version 1.0.0
+ */
+@Data
+@TableName("dt_question_bank")
+public class QuestionBankEntity {
+
+    /**
+     * ID (自增主键)
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 所属阶段 (Phase)
+     */
+    private String phase;
+
+    /**
+     * 生成时使用的访谈提示词版本
+     */
+    private Integer promptVersion;
+
+    /**
+     * 问题内容
+     */
+    private String question;
+
+    /**
+     * 创建时间
+     */
+    @TableField(fill = FieldFill.INSERT)
+    private LocalDateTime createdAt;
+
+    public QuestionBankEntity() {
+    }
+}
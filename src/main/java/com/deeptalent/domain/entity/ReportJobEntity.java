@@ -0,0 +1,93 @@
+package com.deeptalent.domain.entity;
+
+import com.baomidou.mybatisplus.annotation.FieldFill;
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 报告生成任务实体类
+ * 进入报告阶段后写作节点排队执行，任务状态落库，重启后未完成的任务重新入队；
+ * 执行中的任务带有所属实例与租约，多个实例共用一个库时只接管租约已过期的任务。
+ * 生成的报告不保存在本表，而是写入 dt_conversation.final_report
+ *
+ * @author 小阳
+ * @date 2026-10-18
+ * @version 1.0.0
+ */
+@Data
+@TableName("dt_report_job")
+public class ReportJobEntity {
+
+    public static final String PENDING = "PENDING";
+    public static final String RUNNING = "RUNNING";
+    public static final String SUCCEEDED = "SUCCEEDED";
+    public static final String FAILED = "FAILED";
+
+    /**
+     * 任务ID (UUID)
+     */
+    @TableId(type = IdType.INPUT)
+    private String jobId;
+
+    /**
+     * 会话唯一标识符
+     */
+    private String threadId;
+
+    /**
+     * 任务状态：PENDING / RUNNING / SUCCEEDED / FAILED
+     */
+    private String status;
+
+    /**
+     * 已执行次数
+     */
+    private Integer attempts;
+
+    /**
+     * 最近一次失败原因
+     */
+    private String errorMessage;
+
+    /**
+     * 执行该任务的实例标识
+     */
+    private String owner;
+
+    /**
+     * 租约到期时间，执行中的任务由所属实例定期续租，过期后可被其他实例接管
+     */
+    private LocalDateTime leaseUntil;
+
+    /**
+     * 创建时间
+     */
+    @TableField(fill = FieldFill.INSERT)
+    private LocalDateTime createdAt;
+
+    /**
+     * 更新时间
+     */
+    @TableField(fill = FieldFill.INSERT_UPDATE)
+    private LocalDateTime updatedAt;
+
+    /**
+     * 完成时间（成功或最终失败）
+     */
+    private LocalDateTime finishedAt;
+
+    public ReportJobEntity() {
+    }
+
+    /**
+     * 是否已结束（成功或最终失败）
+     */
+    public boolean isFinished() {
+        return SUCCEEDED.equals(status) || FAILED.equals(status);
+    }
+}
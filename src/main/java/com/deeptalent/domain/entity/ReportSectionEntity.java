@@ -0,0 +1,53 @@
+package com.deeptalent.domain.entity;
+
+import com.baomidou.mybatisplus.annotation.FieldFill;
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 报告分节草稿实体类
+ * 存储各阶段结束时在后台起草的阶段洞见，写作节点直接综合这些分节，重启后无需重新起草
+ *
+ * @author 小阳
+ * @date 2026-10-18
+ * @version 1.0.0
+ */
+@Data
+@TableName("dt_report_section")
+public class ReportSectionEntity {
+
+    /**
+     * ID (自增主键)
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 所属会话ID (外键)
+     */
+    private String threadId;
+
+    /**
+     * 所属阶段 (Phase)
+     */
+    private String phase;
+
+    /**
+     * 分节内容 (Markdown)
+     */
+    private String content;
+
+    /**
+     * 创建时间
+     */
+    @TableField(fill = FieldFill.INSERT)
+    private LocalDateTime createdAt;
+
+    public ReportSectionEntity() {
+    }
+}
@@ -0,0 +1,50 @@
+package com.deeptalent.domain.entity;
+
+import lombok.Data;
+
+/**
+ * 会话状态水合行
+ * StateHydrationMapper 用一条 UNION ALL 语句同时查询会话、消息、特征、阶段摘要四张表，
+ * 四类记录统一映射为本结构，通过 kind 区分：
+ *
+ * <table>
+ *     <tr><th>kind</th><th>seq</th><th>s1</th><th>s2</th><th>s3</th><th>num</th></tr>
+ *     <tr><td>C 会话</td><td>dialogue_count</td><td>current_phase</td><td>final_report</td><td>last_eval</td><td>need_followup</td></tr>
+ *     <tr><td>E 特征</td><td>id</td><td>phase</td><td>tag</td><td>evidence</td><td>confidence</td></tr>
+ *     <tr><td>M 消息</td><td>sequence</td><td>role</td><td>content</td><td>thread_name</td><td>-</td></tr>
+ *     <tr><td>S 阶段摘要</td><td>to_sequence</td><td>phase</td><td>summary</td><td>-</td><td>from_sequence</td></tr>
+ * </table>
+ *
+ * @author 小阳
+ * @date 2026-10-18
+ * @version 1.0.0
+ */
+@Data
+public class StateRow {
+
+    public static final String KIND_CONVERSATION = "C";
+    public static final String KIND_EXTRACTION = "E";
+    public static final String KIND_MESSAGE = "M";
+    public static final String KIND_SUMMARY = "S";
+
+    /**
+     * 记录类型 (C/E/M/S)
+     */
+    private String kind;
+
+    /**
+     * 排序字段
+     */
+    private Long seq;
+
+    private String s1;
+
+    private String s2;
+
+    private String s3;
+
+    private Double num;
+
+    public StateRow() {
+    }
+}
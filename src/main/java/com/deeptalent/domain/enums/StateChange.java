@@ -0,0 +1,42 @@
+package com.deeptalent.domain.enums;
+
+/**
+ * 会话状态变更部分枚举类
+ * 描述 DeepTalentState 自上次落库以来发生变化的部分，持久化层据此只发出必要的写语句
+ *
+ * @author 小阳
+ * @date 2026-10-18
+ * @version 1.0.0
+ */
+public enum StateChange {
+    /**
+     * 阶段与计数
+     * 当前阶段、对话轮数、追问标志或会话名称发生变化
+     */
+    PROGRESS,
+
+    /**
+     * 追加了新消息
+     */
+    MESSAGES,
+
+    /**
+     * 提取到新特征
+     */
+    EXTRACTIONS,
+
+    /**
+     * 最近一次评估结果被替换
+     */
+    LAST_EVAL,
+
+    /**
+     * 最终报告发生变化
+     */
+    FINAL_REPORT,
+
+    /**
+     * 生成了新的阶段摘要
+     */
+    SUMMARIES
+}
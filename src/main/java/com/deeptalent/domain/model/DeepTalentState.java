@@ -2,13 +2,17 @@ package com.deeptalent.domain.model;
 
 import com.deeptalent.domain.ai.Message;
 import com.deeptalent.domain.enums.Phase;
+import com.deeptalent.domain.enums.StateChange;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Getter;
 import lombok.Setter;
 
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 /**
  * 深度天赋分析状态类
@@ -27,6 +31,13 @@ public class DeepTalentState {
      */
     private List<Message> messages = new ArrayList<>();
 
+    /**
+     * messages 中第一条消息的 sequence
+     * 长会话只在内存中保留最近一段消息窗口，更早的消息均已落库，
+     * 需要完整历史时通过 PersistenceService.loadMessages 按需加载
+     */
+    private int messageOffset = 0;
+
     /**
      * 当前对话阶段
      * 默认为童年阶段(CHILDHOOD)，随着对话进行会流转到不同阶段
@@ -69,7 +80,128 @@ public class DeepTalentState {
      */
     private String threadName;
 
+    /**
+     * 已结束阶段的对话摘要，按消息区间先后排列且首尾相接
+     * 提示词中用摘要代替 [0, getSummarizedUpTo()) 的原始消息
+     */
+    private List<PhaseSummary> phaseSummaries = new ArrayList<>();
+
+    /**
+     * 持久化水位线
+     * 由持久化层维护，记录哪些消息和特征已经落库，业务代码无需关心
+     */
+    @JsonIgnore
+    private PersistenceWatermark watermark = new PersistenceWatermark();
+
     public DeepTalentState() {
     }
 
+    /**
+     * 复制状态
+     * 消息列表与用户画像复制为新的集合，调用方修改副本不会影响原状态；
+     * 水位线对象共享，因为它描述的是同一会话在数据库中的落库进度
+     *
+     * @return 状态副本
+     */
+    public DeepTalentState copy() {
+        DeepTalentState copy = new DeepTalentState();
+        List<Message> messageCopies = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            messageCopies.add(new Message(message.getRole(), message.getContent()));
+        }
+        copy.setMessages(messageCopies);
+        copy.setMessageOffset(messageOffset);
+        Map<String, List<Extraction>> profileCopy = new HashMap<>();
+        userProfile.forEach((phase, extractions) -> profileCopy.put(phase, new ArrayList<>(extractions)));
+        copy.setUserProfile(profileCopy);
+        copy.setCurrentPhase(currentPhase);
+        copy.setDialogueCount(dialogueCount);
+        copy.setNeedFollowup(needFollowup);
+        copy.setLastEval(lastEval);
+        copy.setFinalReport(finalReport);
+        copy.setThreadName(threadName);
+        copy.setPhaseSummaries(new ArrayList<>(phaseSummaries));
+        copy.setWatermark(watermark);
+        return copy;
+    }
+
+    /**
+     * 会话消息总数（含窗口之外、仅在数据库中的早期消息）
+     *
+     * @return 消息总数，即下一条消息的 sequence
+     */
+    @JsonIgnore
+    public int getTotalMessageCount() {
+        return messageOffset + messages.size();
+    }
+
+    /**
+     * 已被摘要覆盖的消息条数
+     *
+     * @return 最后一段摘要之后第一条消息的 sequence，没有摘要时为 0
+     */
+    @JsonIgnore
+    public int getSummarizedUpTo() {
+        return phaseSummaries.isEmpty() ? 0 : phaseSummaries.get(phaseSummaries.size() - 1).getToSequence();
+    }
+
+    /**
+     * 把内存中的消息裁剪为最近 window 条
+     * 只丢弃已经落库的消息（sequence 小于水位线），被丢弃的消息随时可以从数据库补回
+     *
+     * @param window 保留的消息条数，小于等于 0 表示不裁剪
+     * @return 丢弃的条数
+     */
+    public int trimHistory(int window) {
+        if (window <= 0 || messages.size() <= window) {
+            return 0;
+        }
+        int persisted = watermark.isTracked() ? watermark.getMessageCount() - messageOffset : 0;
+        int drop = Math.min(messages.size() - window, persisted);
+        if (drop <= 0) {
+            return 0;
+        }
+        messages = new ArrayList<>(messages.subList(drop, messages.size()));
+        messageOffset += drop;
+        return drop;
+    }
+
+    /**
+     * 检测自上次落库以来发生变化的部分
+     * 与水位线记录的落库进度比较得出；未与数据库同步过的状态视为全部变化
+     *
+     * @return 变化的部分，为空表示无需写库
+     */
+    public EnumSet<StateChange> detectChanges() {
+        if (!watermark.isTracked()) {
+            return EnumSet.allOf(StateChange.class);
+        }
+        EnumSet<StateChange> changes = EnumSet.noneOf(StateChange.class);
+        if (currentPhase != watermark.getPhase()
+                || dialogueCount != watermark.getDialogueCount()
+                || needFollowup != watermark.isNeedFollowup()
+                || !Objects.equals(threadName, watermark.getThreadName())) {
+            changes.add(StateChange.PROGRESS);
+        }
+        if (getTotalMessageCount() != watermark.getMessageCount()) {
+            changes.add(StateChange.MESSAGES);
+        }
+        for (Map.Entry<String, List<Extraction>> entry : userProfile.entrySet()) {
+            if (entry.getValue() != null && entry.getValue().size() != watermark.getExtractionCount(entry.getKey())) {
+                changes.add(StateChange.EXTRACTIONS);
+                break;
+            }
+        }
+        if (lastEval != watermark.getLastEval()) {
+            changes.add(StateChange.LAST_EVAL);
+        }
+        if (!Objects.equals(finalReport, watermark.getFinalReport())) {
+            changes.add(StateChange.FINAL_REPORT);
+        }
+        if (phaseSummaries.size() != watermark.getSummaryCount()) {
+            changes.add(StateChange.SUMMARIES);
+        }
+        return changes;
+    }
+
 }
@@ -1,6 +1,7 @@
 package com.deeptalent.domain.model;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.gson.annotations.SerializedName;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -28,6 +29,7 @@ public class EvaluationResult {
      * 标识是否需要根据用户的回答进行进一步的询问
      */
     @JsonProperty("need_followup")
+    @SerializedName("need_followup")
     private boolean needFollowup;
     
     /**
@@ -35,6 +37,7 @@ public class EvaluationResult {
      * 如果需要追问，此处存储具体的追问问题文本
      */
     @JsonProperty("followup_question")
+    @SerializedName("followup_question")
     private String followupQuestion;
     
     /**
@@ -0,0 +1,132 @@
+package com.deeptalent.domain.model;
+
+import com.deeptalent.domain.enums.Phase;
+import lombok.Getter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 持久化水位线
+ * 记录会话状态中已经落库的部分（消息条数、各阶段特征条数、阶段摘要条数，以及会话行上各字段的落库值），
+ * 保存时只需写入水位线之后新增或变化的数据，每轮的写入量不再随对话长度线性增长
+ *
+ * @author 小阳
+ * @date 2026-10-18
+ * @version 1.0.0
+ */
+@Getter
+public class PersistenceWatermark {
+
+    /**
+     * 是否与数据库同步过
+     * 只有从数据库加载或成功保存过的状态，水位线才可信
+     */
+    private boolean tracked;
+
+    /**
+     * 已落库的消息条数（即下一条消息的 sequence，含窗口之外的早期消息）
+     */
+    private int messageCount;
+
+    /**
+     * 各阶段已落库的特征条数
+     * Map<PhaseName, Count>
+     */
+    private final Map<String, Integer> extractionCounts = new HashMap<>();
+
+    /**
+     * 已落库的阶段摘要条数
+     */
+    private int summaryCount;
+
+    /**
+     * 已落库的阶段、轮数、追问标志与会话名称
+     */
+    private Phase phase;
+    private int dialogueCount;
+    private boolean needFollowup;
+    private String threadName;
+
+    /**
+     * 已落库的评估结果与最终报告
+     * 按引用比较：业务代码每次评估都会设置新的结果对象，报告也是整体替换
+     */
+    private EvaluationResult lastEval;
+    private String finalReport;
+
+    public PersistenceWatermark() {
+    }
+
+    /**
+     * 获取指定阶段已落库的特征条数
+     *
+     * @param phase 阶段名称
+     * @return 已落库条数
+     */
+    public int getExtractionCount(String phase) {
+        return extractionCounts.getOrDefault(phase, 0);
+    }
+
+    /**
+     * 推进消息水位线
+     *
+     * @param messageCount 已落库的消息条数
+     */
+    public void advanceMessages(int messageCount) {
+        this.messageCount = messageCount;
+        this.tracked = true;
+    }
+
+    /**
+     * 推进指定阶段的特征水位线
+     *
+     * @param phase 阶段名称
+     * @param count 已落库条数
+     */
+    public void advanceExtractions(String phase, int count) {
+        extractionCounts.put(phase, count);
+        this.tracked = true;
+    }
+
+    /**
+     * 推进阶段摘要水位线
+     *
+     * @param summaryCount 已落库的摘要条数
+     */
+    public void advanceSummaries(int summaryCount) {
+        this.summaryCount = summaryCount;
+        this.tracked = true;
+    }
+
+    /**
+     * 记录会话行上各字段的落库值
+     *
+     * @param state 已落库的会话状态
+     */
+    public void advanceConversation(DeepTalentState state) {
+        this.phase = state.getCurrentPhase();
+        this.dialogueCount = state.getDialogueCount();
+        this.needFollowup = state.isNeedFollowup();
+        this.threadName = state.getThreadName();
+        this.lastEval = state.getLastEval();
+        this.finalReport = state.getFinalReport();
+        this.tracked = true;
+    }
+
+    /**
+     * 重置水位线（数据库中没有该会话时调用）
+     */
+    public void reset() {
+        this.tracked = false;
+        this.messageCount = 0;
+        this.extractionCounts.clear();
+        this.summaryCount = 0;
+        this.phase = null;
+        this.dialogueCount = 0;
+        this.needFollowup = false;
+        this.threadName = null;
+        this.lastEval = null;
+        this.finalReport = null;
+    }
+}
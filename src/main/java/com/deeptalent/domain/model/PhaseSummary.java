@@ -0,0 +1,46 @@
+package com.deeptalent.domain.model;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * 阶段摘要类
+ * 某个阶段结束时，由 LLM 把该阶段的对话压缩为一段摘要，
+ * 之后的提示词用摘要代替这一段原始消息，上下文长度不再随轮次增长
+ *
+ * @author 小阳
+ * @date 2026-10-18
+ * @version 1.0.0
+ */
+@Setter
+@Getter
+public class PhaseSummary {
+    /**
+     * 已结束的阶段名称
+     */
+    private String phase;
+
+    /**
+     * 摘要内容
+     */
+    private String summary;
+
+    /**
+     * 被摘要的第一条消息的 sequence（含）
+     */
+    private int fromSequence;
+
+    /**
+     * 被摘要的最后一条消息之后的 sequence（不含）
+     */
+    private int toSequence;
+
+    public PhaseSummary(String phase, String summary, int fromSequence, int toSequence) {
+        this.phase = phase;
+        this.summary = summary;
+        this.fromSequence = fromSequence;
+        this.toSequence = toSequence;
+    }
+
+    public PhaseSummary() {}
+}
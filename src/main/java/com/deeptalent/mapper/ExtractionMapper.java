@@ -2,11 +2,31 @@ package com.deeptalent.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.deeptalent.domain.entity.ExtractionEntity;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
 
 /**
  * 特征提取数据访问层
  */
 @Mapper
 public interface ExtractionMapper extends BaseMapper<ExtractionEntity> {
+
+    /**
+     * 批量插入特征（单条多行 VALUES 语句，一次网络往返）
+     *
+     * @param list 特征实体列表，不能为空
+     * @return 插入行数
+     */
+    @Insert({
+            "<script>",
+            "INSERT INTO dt_extraction (thread_id, phase, tag, evidence, confidence, created_at) VALUES",
+            "<foreach collection='list' item='e' separator=','>",
+            "(#{e.threadId}, #{e.phase}, #{e.tag}, #{e.evidence}, #{e.confidence}, #{e.createdAt})",
+            "</foreach>",
+            "</script>"
+    })
+    int insertBatch(@Param("list") List<ExtractionEntity> list);
 }
@@ -2,11 +2,49 @@ package com.deeptalent.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.deeptalent.domain.entity.MessageEntity;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
 
 /**
  * 消息数据访问层
  */
 @Mapper
 public interface MessageMapper extends BaseMapper<MessageEntity> {
+
+    /**
+     * 批量插入消息（单条多行 VALUES 语句，一次网络往返）
+     *
+     * @param list 消息实体列表，不能为空
+     * @return 插入行数
+     */
+    @Insert({
+            "<script>",
+            "INSERT INTO dt_message (thread_id, role, content, sequence, thread_name, created_at) VALUES",
+            "<foreach collection='list' item='m' separator=','>",
+            "(#{m.threadId}, #{m.role}, #{m.content}, #{m.sequence}, #{m.threadName}, #{m.createdAt})",
+            "</foreach>",
+            "</script>"
+    })
+    int insertBatch(@Param("list") List<MessageEntity> list);
+
+    /**
+     * 按 sequence 键集分页读取消息，走 (thread_id, sequence) 索引，耗时与会话总长度无关
+     *
+     * @param threadId     会话唯一标识符
+     * @param fromSequence 起始 sequence（包含）
+     * @param toSequence   结束 sequence（不包含）
+     * @param limit        最多返回的行数
+     * @return 按 sequence 升序排列的消息
+     */
+    @Select({
+            "SELECT role, content, sequence FROM dt_message",
+            "WHERE thread_id = #{threadId} AND sequence >= #{fromSequence} AND sequence < #{toSequence}",
+            "ORDER BY sequence LIMIT #{limit}"
+    })
+    List<MessageEntity> selectRange(@Param("threadId") String threadId, @Param("fromSequence") int fromSequence,
+                                    @Param("toSequence") int toSequence, @Param("limit") int limit);
 }
@@ -0,0 +1,12 @@
+package com.deeptalent.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.deeptalent.domain.entity.PhaseSummaryEntity;
+import org.apache.ibatis.annotations.Mapper;
+
+/**
+ * 阶段摘要数据访问层
+ */
+@Mapper
+public interface PhaseSummaryMapper extends BaseMapper<PhaseSummaryEntity> {
+}
@@ -0,0 +1,12 @@
+package com.deeptalent.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.deeptalent.domain.entity.QuestionBankEntity;
+import org.apache.ibatis.annotations.Mapper;
+
+/**
+ * 题库数据访问层
+ */
+@Mapper
+public interface QuestionBankMapper extends BaseMapper<QuestionBankEntity> {
+}
@@ -0,0 +1,12 @@
+package com.deeptalent.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.deeptalent.domain.entity.ReportJobEntity;
+import org.apache.ibatis.annotations.Mapper;
+
+/**
+ * 报告生成任务数据访问层
+ */
+@Mapper
+public interface ReportJobMapper extends BaseMapper<ReportJobEntity> {
+}
@@ -0,0 +1,12 @@
+package com.deeptalent.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.deeptalent.domain.entity.ReportSectionEntity;
+import org.apache.ibatis.annotations.Mapper;
+
+/**
+ * 报告分节草稿数据访问层
+ */
+@Mapper
+public interface ReportSectionMapper extends BaseMapper<ReportSectionEntity> {
+}
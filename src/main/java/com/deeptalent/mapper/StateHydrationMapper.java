@@ -0,0 +1,49 @@
+package com.deeptalent.mapper;
+
+import com.deeptalent.domain.entity.StateRow;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.ResultType;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.session.ResultHandler;
+
+/**
+ * 会话状态水合数据访问层
+ * 一次数据库往返取回组装 DeepTalentState 所需的全部记录
+ *
+ * @author 小阳
+ * @date 2026-10-18
+ * @version 1.0.0
+ */
+@Mapper
+public interface StateHydrationMapper {
+
+    /**
+     * 按 kind、seq 排序流式返回会话行、特征行、消息行与阶段摘要行
+     * 会话行总是排在最前，消息行按 sequence 升序，且只返回最近 window 条；摘要行按覆盖区间先后排列
+     *
+     * @param threadId  会话唯一标识符
+     * @param window    返回的消息条数上限
+     * @param summaries 是否返回阶段摘要行，未启用摘要时不查询 dt_phase_summary
+     * @param handler   行处理器，逐行组装状态
+     */
+    @Select({
+            "<script>",
+            "SELECT 'C' AS kind, dialogue_count AS seq, current_phase AS s1, final_report AS s2, last_eval AS s3, need_followup AS num",
+            "FROM dt_conversation WHERE thread_id = #{threadId}",
+            "UNION ALL",
+            "SELECT 'E', id, phase, tag, evidence, confidence FROM dt_extraction WHERE thread_id = #{threadId}",
+            "UNION ALL",
+            "SELECT 'M', sequence, role, content, thread_name, NULL FROM dt_message WHERE thread_id = #{threadId}",
+            "AND sequence &gt; (SELECT COALESCE(MAX(sequence), -1) FROM dt_message WHERE thread_id = #{threadId}) - #{window}",
+            "<if test='summaries'>",
+            "UNION ALL",
+            "SELECT 'S', to_sequence, phase, summary, NULL, from_sequence FROM dt_phase_summary WHERE thread_id = #{threadId}",
+            "</if>",
+            "ORDER BY kind, seq",
+            "</script>"
+    })
+    @ResultType(StateRow.class)
+    void hydrate(@Param("threadId") String threadId, @Param("window") int window, @Param("summaries") boolean summaries,
+                 ResultHandler<StateRow> handler);
+}
@@ -0,0 +1,41 @@
+package com.deeptalent.service;
+
+/**
+ * 流式对话回调接口
+ * 大模型每生成一个片段即回调 onToken，整轮对话处理并落库后回调 onComplete
+ *
+ * @author 小阳
+ * @date 2026-10-18
+ * @version 1.0.0
+ */
+public interface ChatStreamListener {
+
+    /**
+     * 收到大模型生成的一个片段
+     *
+     * @param token 文本片段
+     */
+    void onToken(String token);
+
+    /**
+     * 本轮对话完成，回复已保存
+     *
+     * @param message 完整的回复内容
+     */
+    void onComplete(String message);
+
+    /**
+     * 本轮进入报告阶段，报告已排队在后台生成（在 onComplete 之前回调）
+     *
+     * @param jobId 报告生成任务ID
+     */
+    default void onReportQueued(String jobId) {
+    }
+
+    /**
+     * 本轮对话失败
+     *
+     * @param error 异常
+     */
+    void onError(Throwable error);
+}
@@ -1,6 +1,7 @@
 package com.deeptalent.service;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 面试服务接口
@@ -28,4 +29,58 @@ public interface InterviewService {
      * @return AI 的回复内容
      */
     String chat(String threadId, String userMessageContent);
+
+    /**
+     * 处理用户消息并推进对话流程，返回本轮的完整结果
+     *
+     * @param threadId           会话唯一标识符
+     * @param userMessageContent 用户输入的消息内容
+     * @return 包含 threadId 和 message 的 Map；报告转为后台生成时还包含 reportJobId
+     */
+    Map<String, String> sendMessage(String threadId, String userMessageContent);
+
+    /**
+     * 处理用户消息，并把访谈/报告节点的输出逐段推送给监听器
+     * 方法阻塞直到本轮结束；完整回复在流结束后与状态一起保存
+     *
+     * @param threadId           会话唯一标识符
+     * @param userMessageContent 用户输入的消息内容
+     * @param listener           流式回调
+     */
+    void chatStream(String threadId, String userMessageContent, ChatStreamListener listener);
+
+    /**
+     * 异步启动或恢复面试会话
+     * 在对话线程池中执行，调用线程立即返回；取消返回的 Future 会中止尚未完成的处理
+     *
+     * @param userName 用户姓名
+     * @return 包含 threadId 和 message 的 Map
+     */
+    CompletableFuture<Map<String, String>> startSessionAsync(String userName);
+
+    /**
+     * 异步处理用户消息
+     * 在对话线程池中执行，调用线程立即返回；取消返回的 Future 会中止本轮，已生成的回复不会保存
+     *
+     * @param threadId           会话唯一标识符
+     * @param userMessageContent 用户输入的消息内容
+     * @return 包含 threadId 和 message 的 Map；报告转为后台生成时还包含 reportJobId
+     */
+    CompletableFuture<Map<String, String>> chatAsync(String threadId, String userMessageContent);
+
+    /**
+     * 查询报告生成任务
+     *
+     * @param jobId 任务ID
+     * @return 包含 jobId、threadId、status 的 Map，成功时还包含 report，失败时包含 error；任务不存在时返回 null
+     */
+    Map<String, String> getReportJob(String jobId);
+
+    /**
+     * 等待报告生成任务结束
+     *
+     * @param jobId 任务ID
+     * @return 任务结束（或已经结束）时以 {@link #getReportJob} 的结果完成的 Future
+     */
+    CompletableFuture<Map<String, String>> awaitReportJob(String jobId);
 }
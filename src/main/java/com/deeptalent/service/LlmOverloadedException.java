@@ -0,0 +1,43 @@
+package com.deeptalent.service;
+
+import java.time.Duration;
+
+/**
+ * 上游模型过载，本次调用未被放行
+ * 两种情况：排队的调用已达上限，直接拒绝（对应 HTTP 429）；排队超过最长等待时间仍未获得许可（对应 HTTP 503）。
+ * 均附带建议的重试间隔（Retry-After）
+ *
+ * @author 小阳
+ * @date 2026-10-18
+ * @version 1.0.0
+ */
+public class LlmOverloadedException extends IllegalStateException {
+
+    private final String model;
+    private final boolean queueFull;
+    private final Duration retryAfter;
+
+    /**
+     * @param model      上游模型名称
+     * @param queueFull  true 表示排队已满被直接拒绝，false 表示排队超时
+     * @param retryAfter 建议的重试间隔
+     */
+    public LlmOverloadedException(String model, boolean queueFull, Duration retryAfter, String message) {
+        super(message);
+        this.model = model;
+        this.queueFull = queueFull;
+        this.retryAfter = retryAfter;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    public boolean isQueueFull() {
+        return queueFull;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
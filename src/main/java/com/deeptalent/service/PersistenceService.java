@@ -1,7 +1,10 @@
 package com.deeptalent.service;
 
+import com.deeptalent.domain.ai.Message;
 import com.deeptalent.domain.model.DeepTalentState;
 
+import java.util.List;
+
 /**
  * 持久化服务接口
  * 定义会话状态的保存与加载操作，负责将内存中的状态持久化到数据库
@@ -27,4 +30,15 @@ public interface PersistenceService {
      * @param state    要保存的状态对象
      */
     void saveState(String threadId, DeepTalentState state);
+
+    /**
+     * 按 sequence 区间加载历史消息
+     * loadState 只恢复最近的消息窗口，需要完整历史的节点通过本方法补齐窗口之前的消息
+     *
+     * @param threadId     会话唯一标识符
+     * @param fromSequence 起始 sequence（包含）
+     * @param toSequence   结束 sequence（不包含）
+     * @return 按 sequence 升序排列的消息
+     */
+    List<Message> loadMessages(String threadId, int fromSequence, int toSequence);
 }
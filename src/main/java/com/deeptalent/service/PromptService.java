@@ -2,7 +2,7 @@ package com.deeptalent.service;
 
 /**
  * 提示词服务接口
- * 提供提示词的动态加载、缓存管理和刷新功能
+ * 提供提示词的动态加载、预编译、缓存管理和刷新功能
  *
  * @author 小阳
  * @date 2025-12-28
@@ -27,6 +27,33 @@ public interface PromptService {
      */
     String getPrompt(String key, String language);
 
+    /**
+     * 获取指定 Key 的预编译提示词模板（默认语言 zh-CN）
+     * 需要代入占位符的调用方应使用模板渲染，而不是对 getPrompt 的结果逐个 replace
+     *
+     * @param key 提示词 Key
+     * @return 预编译模板
+     */
+    PromptTemplate getTemplate(String key);
+
+    /**
+     * 获取指定 Key 和语言的预编译提示词模板
+     *
+     * @param key 提示词 Key
+     * @param language 语言代码
+     * @return 预编译模板
+     */
+    PromptTemplate getTemplate(String key, String language);
+
+    /**
+     * 获取指定 Key 当前生效的提示词版本号（默认语言 zh-CN）
+     * 依赖该提示词生成的缓存内容可据此判断是否需要重新生成
+     *
+     * @param key 提示词 Key
+     * @return 版本号，未配置版本时为 0
+     */
+    int getPromptVersion(String key);
+
     /**
      * 强制刷新提示词缓存
      */
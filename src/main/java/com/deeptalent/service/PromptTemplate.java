@@ -0,0 +1,153 @@
+package com.deeptalent.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 预编译的提示词模板
+ * 模板文本在加载时解析一次，拆分为固定文本片段与 {name} 占位符交替排列的序列，
+ * 渲染时按序拼接到预估好容量的缓冲区中，不再对整段模板逐个占位符执行 String.replace。
+ *
+ * <ul>
+ *     <li>占位符名称只允许字母、数字与下划线，模板中的 JSON 示例等其他花括号按原文保留</li>
+ *     <li>未提供取值的占位符按原文保留，与 String.replace 的行为一致</li>
+ *     <li>代入的取值不会再被当作模板解析</li>
+ * </ul>
+ *
+ * 实例不可变，可在线程间共享
+ *
+ * @author 小阳
+ * @date 2026-10-18
+ * @version 1.0.0
+ */
+public final class PromptTemplate {
+
+    private final String text;
+    private final int version;
+    /**
+     * 固定文本片段，segments[i] 之后紧跟占位符 names[i]；segments 比 names 多一个元素
+     */
+    private final String[] segments;
+    private final String[] names;
+    private final int literalLength;
+
+    private PromptTemplate(String text, int version, String[] segments, String[] names) {
+        this.text = text;
+        this.version = version;
+        this.segments = segments;
+        this.names = names;
+        int length = 0;
+        for (String segment : segments) {
+            length += segment.length();
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * 解析模板
+     *
+     * @param text 模板文本
+     * @return 预编译模板，版本号为 0
+     */
+    public static PromptTemplate compile(String text) {
+        return compile(text, 0);
+    }
+
+    /**
+     * 解析模板
+     *
+     * @param text    模板文本
+     * @param version 模板对应的提示词配置版本
+     * @return 预编译模板
+     */
+    public static PromptTemplate compile(String text, int version) {
+        List<String> segments = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        int literalStart = 0;
+        int i = 0;
+        while (i < text.length()) {
+            int end = text.charAt(i) == '{' ? placeholderEnd(text, i) : -1;
+            if (end < 0) {
+                i++;
+                continue;
+            }
+            segments.add(text.substring(literalStart, i));
+            names.add(text.substring(i + 1, end));
+            literalStart = end + 1;
+            i = literalStart;
+        }
+        segments.add(text.substring(literalStart));
+        return new PromptTemplate(text, version, segments.toArray(new String[0]), names.toArray(new String[0]));
+    }
+
+    /**
+     * @return 与 open 处的 '{' 配对的 '}' 下标；不是合法占位符时返回 -1
+     */
+    private static int placeholderEnd(String text, int open) {
+        int i = open + 1;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (c == '}') {
+                return i > open + 1 ? i : -1;
+            }
+            if (!(c == '_' || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9'))) {
+                return -1;
+            }
+            i++;
+        }
+        return -1;
+    }
+
+    /**
+     * 渲染模板
+     *
+     * @param values 占位符名称 -> 取值，取值按 String.valueOf 转换
+     * @return 渲染结果
+     */
+    public String render(Map<String, ?> values) {
+        if (names.length == 0) {
+            return text;
+        }
+        String[] rendered = new String[names.length];
+        int capacity = literalLength;
+        for (int i = 0; i < names.length; i++) {
+            Object value = values.get(names[i]);
+            rendered[i] = value != null || values.containsKey(names[i]) ? String.valueOf(value) : "{" + names[i] + "}";
+            capacity += rendered[i].length();
+        }
+        StringBuilder builder = new StringBuilder(capacity);
+        for (int i = 0; i < names.length; i++) {
+            builder.append(segments[i]).append(rendered[i]);
+        }
+        return builder.append(segments[names.length]).toString();
+    }
+
+    /**
+     * 渲染只有一个占位符取值的模板
+     */
+    public String render(String name, Object value) {
+        return render(Map.of(name, String.valueOf(value)));
+    }
+
+    /**
+     * @return 原始模板文本
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * @return 模板对应的提示词配置版本
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * @return 模板中出现的占位符名称（按出现顺序，可能重复）
+     */
+    public List<String> getPlaceholders() {
+        return List.of(names);
+    }
+}
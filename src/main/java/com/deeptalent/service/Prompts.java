@@ -24,4 +24,24 @@ public class Prompts {
      * 报告生成分析师提示词 Key
      */
     public static final String WRITER_SYSTEM_PROMPT = "WRITER_SYSTEM_PROMPT";
+
+    /**
+     * 阶段对话摘要提示词 Key
+     */
+    public static final String SUMMARIZER_SYSTEM_PROMPT = "SUMMARIZER_SYSTEM_PROMPT";
+
+    /**
+     * 批量评估说明提示词 Key（附加在评估提示词之后）
+     */
+    public static final String EVALUATOR_BATCH_PROMPT = "EVALUATOR_BATCH_PROMPT";
+
+    /**
+     * 报告分节起草提示词 Key（阶段结束时起草该阶段的阶段洞见）
+     */
+    public static final String REPORT_SECTION_PROMPT = "REPORT_SECTION_PROMPT";
+
+    /**
+     * 报告综合提示词 Key（写作节点基于各阶段分节撰写摘要、核心天赋与建议）
+     */
+    public static final String REPORT_MERGE_PROMPT = "REPORT_MERGE_PROMPT";
 }
@@ -0,0 +1,92 @@
+package com.deeptalent.service.impl;
+
+import java.time.Duration;
+
+/**
+ * 自适应并发上限（AIMD：加性增、乘性减）
+ * 固定的并发上限在上游模型变慢时仍会放行同样多的调用，所有调用一起变慢直到超时。
+ * 这里按每次调用的结果调整舱壁的并发上限：
+ *
+ * <ul>
+ *     <li>调用因过载失败（超时、429、5xx，由 {@link LlmBulkhead} 判定）或耗时超过 latencyThreshold：
+ *     上限乘以 backoffRatio，不低于 minLimit；被取消的调用与其他失败不作为样本</li>
+ *     <li>调用成功且在途调用数不少于上限的一半：上限增加 1/limit，即每满负荷跑完一轮调用约加 1，不超过 maxLimit</li>
+ *     <li>同一轮过载中一起变慢或失败的调用只减一次：开始时间早于上一次减小的调用不再触发减小</li>
+ * </ul>
+ *
+ * 初始上限为 maxLimit，上游正常时与固定上限的行为一致
+ *
+ * @author 小阳
+ * @date 2026-10-18
+ * @version 1.0.0
+ */
+public class AimdLimit {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+
+    private double limit;
+    private boolean decreased;
+    private long lastDecreaseNanos;
+    private long decreases;
+
+    /**
+     * @param minLimit         上限的下界
+     * @param maxLimit         上限的上界，即舱壁配置的最大并发
+     * @param latencyThreshold 超过该耗时的调用视为过载信号
+     * @param backoffRatio     每次减小时上限乘以的系数，取值 (0, 1)
+     */
+    public AimdLimit(int minLimit, int maxLimit, Duration latencyThreshold, double backoffRatio) {
+        this.maxLimit = Math.max(1, maxLimit);
+        this.minLimit = Math.max(1, Math.min(minLimit, this.maxLimit));
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+        this.backoffRatio = Math.min(Math.max(backoffRatio, 0.1), 0.99);
+        this.limit = this.maxLimit;
+    }
+
+    /**
+     * @return 当前并发上限
+     */
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    /**
+     * 记录一次调用的结果
+     *
+     * @param startNanos   调用获得许可的时间（System.nanoTime）
+     * @param latencyNanos 调用耗时
+     * @param failed       调用是否因上游过载而失败
+     * @param inflight     调用结束时的在途调用数（含本次）
+     */
+    public synchronized void onSample(long startNanos, long latencyNanos, boolean failed, int inflight) {
+        if (failed || latencyNanos > latencyThresholdNanos) {
+            if (decreased && startNanos - lastDecreaseNanos < 0) {
+                return;
+            }
+            limit = Math.max(minLimit, limit * backoffRatio);
+            decreased = true;
+            lastDecreaseNanos = System.nanoTime();
+            decreases++;
+        } else if (inflight * 2 >= limit) {
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+    }
+
+    /**
+     * @return 上限被减小的次数
+     */
+    public synchronized long getDecreases() {
+        return decreases;
+    }
+
+    public int getMinLimit() {
+        return minLimit;
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+}
@@ -0,0 +1,115 @@
+package com.deeptalent.service.impl;
+
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.model.StreamingResponseHandler;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
+import dev.langchain4j.model.output.Response;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * 经过舱壁的流式对话模型（装饰器）
+ * 流式调用是异步的：发起时获取许可，直到流结束（完成或出错）才归还。
+ * 整个流的耗时取决于生成长度，作为自适应上限的样本时以首个片段的耗时代替
+ *
+ * @author 小阳
+ * @date 2026-10-18
+ * @version 1.0.0
+ */
+public class BulkheadStreamingChatModel implements StreamingChatLanguageModel {
+
+    private final StreamingChatLanguageModel delegate;
+    private final LlmBulkhead bulkhead;
+
+    public BulkheadStreamingChatModel(StreamingChatLanguageModel delegate, LlmBulkhead bulkhead) {
+        this.delegate = delegate;
+        this.bulkhead = bulkhead;
+    }
+
+    @Override
+    public void generate(List<ChatMessage> messages, StreamingResponseHandler<AiMessage> handler) {
+        guarded(handler, releasing -> delegate.generate(messages, releasing));
+    }
+
+    @Override
+    public void generate(List<ChatMessage> messages, List<ToolSpecification> toolSpecifications,
+                         StreamingResponseHandler<AiMessage> handler) {
+        guarded(handler, releasing -> delegate.generate(messages, toolSpecifications, releasing));
+    }
+
+    @Override
+    public void generate(List<ChatMessage> messages, ToolSpecification toolSpecification,
+                         StreamingResponseHandler<AiMessage> handler) {
+        guarded(handler, releasing -> delegate.generate(messages, toolSpecification, releasing));
+    }
+
+    /**
+     * 获取许可后发起流式调用；同步抛出的异常说明流没有开始，立即归还许可
+     */
+    private void guarded(StreamingResponseHandler<AiMessage> handler, Consumer<StreamingResponseHandler<AiMessage>> call) {
+        long acquiredAt = bulkhead.acquire();
+        ReleasingHandler releasing = new ReleasingHandler(handler, acquiredAt);
+        try {
+            call.accept(releasing);
+        } catch (RuntimeException e) {
+            releasing.release();
+            throw e;
+        }
+    }
+
+    /**
+     * 在流结束时归还许可，且只归还一次
+     */
+    private class ReleasingHandler implements StreamingResponseHandler<AiMessage> {
+
+        private final StreamingResponseHandler<AiMessage> handler;
+        private final long acquiredAt;
+        private final AtomicBoolean released = new AtomicBoolean();
+        private volatile long firstTokenLatency = -1;
+
+        private ReleasingHandler(StreamingResponseHandler<AiMessage> handler, long acquiredAt) {
+            this.handler = handler;
+            this.acquiredAt = acquiredAt;
+        }
+
+        @Override
+        public void onNext(String token) {
+            if (firstTokenLatency < 0) {
+                firstTokenLatency = System.nanoTime() - acquiredAt;
+            }
+            handler.onNext(token);
+        }
+
+        @Override
+        public void onComplete(Response<AiMessage> response) {
+            finish(null);
+            handler.onComplete(response);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            finish(error);
+            handler.onError(error);
+        }
+
+        private void finish(Throwable error) {
+            if (released.compareAndSet(false, true)) {
+                long latency = firstTokenLatency >= 0 ? firstTokenLatency : System.nanoTime() - acquiredAt;
+                bulkhead.release(acquiredAt, latency, error);
+            }
+        }
+
+        /**
+         * 流没有开始，归还许可且不作为样本
+         */
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                bulkhead.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package com.deeptalent.service.impl;
+
+import com.deeptalent.domain.ai.Message;
+import com.deeptalent.domain.model.DeepTalentState;
+import com.deeptalent.domain.model.EvaluationResult;
+import com.deeptalent.domain.model.Extraction;
+import com.deeptalent.domain.model.PhaseSummary;
+import com.deeptalent.service.PersistenceService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * 带本地缓存的持久化服务（装饰器）
+ * 在 PersistenceService 之前维护一个按 threadId 索引的有界 LRU 缓存，
+ * 热点会话的 loadState 直接命中内存，不再访问数据库。
+ *
+ * <ul>
+ *     <li>容量上限：条目数与估算内存占用双重限制，超出时按 LRU 淘汰</li>
+ *     <li>过期时间：写入后超过 TTL 的条目视为过期，限制多实例部署下的数据陈旧窗口</li>
+ *     <li>一致性：saveState 成功后写穿缓存；保存失败则剔除该会话，下次从数据库重新加载</li>
+ *     <li>隔离性：缓存中保存的是状态副本，调用方修改返回的对象不会污染缓存</li>
+ *     <li>尾部窗口：缓存的副本只保留最近 historyWindow 条已落库的消息，热点长会话的占用不随对话长度增长</li>
+ * </ul>
+ *
+ * @author 小阳
+ * @date 2026-10-18
+ * @version 1.0.0
+ */
+public class CachingPersistenceService implements PersistenceService {
+
+    private static final Logger log = LoggerFactory.getLogger(CachingPersistenceService.class);
+
+    private final PersistenceService delegate;
+    private final int maxEntries;
+    private final long maxWeightBytes;
+    private final long ttlNanos;
+    private final int historyWindow;
+    private final LongSupplier clock;
+
+    // accessOrder = true，迭代顺序即 LRU 顺序
+    private final LinkedHashMap<String, CacheEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalWeight;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    public CachingPersistenceService(PersistenceService delegate, int maxEntries, long maxWeightBytes, Duration ttl,
+                                     int historyWindow, MeterRegistry registry) {
+        this(delegate, maxEntries, maxWeightBytes, ttl, historyWindow, System::nanoTime, registry);
+    }
+
+    CachingPersistenceService(PersistenceService delegate, int maxEntries, long maxWeightBytes, Duration ttl,
+                              int historyWindow, LongSupplier clock, MeterRegistry registry) {
+        this.delegate = delegate;
+        this.maxEntries = maxEntries;
+        this.maxWeightBytes = maxWeightBytes;
+        this.ttlNanos = ttl.toNanos();
+        this.historyWindow = historyWindow;
+        this.clock = clock;
+        counter(registry, "deeptalent.persistence.cache.requests", "Session state cache lookups", "result", "hit", hits);
+        counter(registry, "deeptalent.persistence.cache.requests", "Session state cache lookups", "result", "miss", misses);
+        counter(registry, "deeptalent.persistence.cache.removals", "Session states removed from the cache", "cause", "eviction", evictions);
+        counter(registry, "deeptalent.persistence.cache.removals", "Session states removed from the cache", "cause", "expiration", expirations);
+        Gauge.builder("deeptalent.persistence.cache.size", this, CachingPersistenceService::getSize)
+                .description("Session states in the cache")
+                .register(registry);
+        Gauge.builder("deeptalent.persistence.cache.weight", this, CachingPersistenceService::getWeightBytes)
+                .description("Estimated heap usage of the cached session states")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    private static void counter(MeterRegistry registry, String name, String description, String tag, String value,
+                                LongAdder adder) {
+        FunctionCounter.builder(name, adder, LongAdder::sum)
+                .description(description)
+                .tag(tag, value)
+                .register(registry);
+    }
+
+    @Override
+    public DeepTalentState loadState(String threadId) {
+        synchronized (this) {
+            CacheEntry entry = entries.get(threadId);
+            if (entry != null) {
+                if (clock.getAsLong() - entry.writtenAt < ttlNanos) {
+                    hits.increment();
+                    return entry.state.copy();
+                }
+                remove(threadId);
+                expirations.increment();
+            }
+        }
+        misses.increment();
+        DeepTalentState state = delegate.loadState(threadId);
+        // 数据库中不存在的会话不缓存，等首次保存后再写入
+        if (state.getWatermark().isTracked()) {
+            put(threadId, state, false);
+        }
+        return state;
+    }
+
+    @Override
+    public void saveState(String threadId, DeepTalentState state) {
+        try {
+            delegate.saveState(threadId, state);
+        } catch (RuntimeException e) {
+            invalidate(threadId);
+            throw e;
+        }
+        put(threadId, state, true);
+    }
+
+    /**
+     * 窗口之外的早期消息不在缓存中，直接交给下层加载
+     */
+    @Override
+    public List<Message> loadMessages(String threadId, int fromSequence, int toSequence) {
+        return delegate.loadMessages(threadId, fromSequence, toSequence);
+    }
+
+    /**
+     * 剔除指定会话的缓存
+     *
+     * @param threadId 会话唯一标识符
+     */
+    public synchronized void invalidate(String threadId) {
+        remove(threadId);
+    }
+
+    /**
+     * 获取缓存统计信息
+     *
+     * @return 统计快照
+     */
+    public synchronized CacheStats getStats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), expirations.sum(), entries.size(), totalWeight);
+    }
+
+    private synchronized int getSize() {
+        return entries.size();
+    }
+
+    private synchronized long getWeightBytes() {
+        return totalWeight;
+    }
+
+    /**
+     * 写入缓存
+     *
+     * @param replace 是否覆盖已有条目；加载路径传 false，避免用较旧的数据库读结果覆盖并发保存写入的新状态
+     */
+    private void put(String threadId, DeepTalentState state, boolean replace) {
+        DeepTalentState copy = state.copy();
+        // 只裁掉已落库的消息，被裁掉的部分可通过 loadMessages 补回
+        copy.trimHistory(historyWindow);
+        long weight = estimateWeight(copy);
+        synchronized (this) {
+            if (!replace && entries.containsKey(threadId)) {
+                return;
+            }
+            remove(threadId);
+            if (weight > maxWeightBytes) {
+                log.warn("State of thread {} (~{} bytes) exceeds cache memory ceiling, not cached", threadId, weight);
+                return;
+            }
+            entries.put(threadId, new CacheEntry(copy, weight, clock.getAsLong()));
+            totalWeight += weight;
+            Iterator<Map.Entry<String, CacheEntry>> it = entries.entrySet().iterator();
+            while ((entries.size() > maxEntries || totalWeight > maxWeightBytes) && it.hasNext()) {
+                CacheEntry eldest = it.next().getValue();
+                it.remove();
+                totalWeight -= eldest.weight;
+                evictions.increment();
+            }
+        }
+    }
+
+    private void remove(String threadId) {
+        CacheEntry removed = entries.remove(threadId);
+        if (removed != null) {
+            totalWeight -= removed.weight;
+        }
+    }
+
+    /**
+     * 粗略估算状态对象占用的堆内存（字节）
+     * 字符串按 UTF-16 每字符 2 字节计算，再加上对象头等固定开销
+     */
+    static long estimateWeight(DeepTalentState state) {
+        long weight = 256;
+        for (Message message : state.getMessages()) {
+            weight += 64 + lengthOf(message.getContent()) * 2L;
+        }
+        for (List<Extraction> extractions : state.getUserProfile().values()) {
+            weight += estimateWeight(extractions);
+        }
+        // 阶段摘要不随历史窗口裁剪，长会话中占比会越来越大
+        for (PhaseSummary summary : state.getPhaseSummaries()) {
+            weight += 64 + (lengthOf(summary.getPhase()) + lengthOf(summary.getSummary())) * 2L;
+        }
+        EvaluationResult lastEval = state.getLastEval();
+        if (lastEval != null) {
+            weight += 64 + (lengthOf(lastEval.getReason()) + lengthOf(lastEval.getFollowupQuestion())) * 2L
+                    + estimateWeight(lastEval.getExtractions());
+        }
+        weight += lengthOf(state.getFinalReport()) * 2L;
+        return weight;
+    }
+
+    private static long estimateWeight(List<Extraction> extractions) {
+        long weight = 0;
+        if (extractions != null) {
+            for (Extraction extraction : extractions) {
+                weight += 96 + (lengthOf(extraction.getTag()) + lengthOf(extraction.getEvidence())) * 2L;
+            }
+        }
+        return weight;
+    }
+
+    private static int lengthOf(String s) {
+        return s == null ? 0 : s.length();
+    }
+
+    private static class CacheEntry {
+        private final DeepTalentState state;
+        private final long weight;
+        private final long writtenAt;
+
+        private CacheEntry(DeepTalentState state, long weight, long writtenAt) {
+            this.state = state;
+            this.weight = weight;
+            this.writtenAt = writtenAt;
+        }
+    }
+
+    /**
+     * 缓存统计快照
+     */
+    @Getter
+    public static class CacheStats {
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final long expirations;
+        private final int size;
+        private final long weightBytes;
+
+        public CacheStats(long hits, long misses, long evictions, long expirations, int size, long weightBytes) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.expirations = expirations;
+            this.size = size;
+            this.weightBytes = weightBytes;
+        }
+
+        @Override
+        public String toString() {
+            return "CacheStats{" +
+                    "hits=" + hits +
+                    ", misses=" + misses +
+                    ", evictions=" + evictions +
+                    ", expirations=" + expirations +
+                    ", size=" + size +
+                    ", weightBytes=" + weightBytes +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package com.deeptalent.service.impl;
+
+import com.deeptalent.domain.enums.Phase;
+import com.deeptalent.domain.model.EvaluationResult;
+import com.deeptalent.service.LlmOverloadedException;
+import com.deeptalent.service.PromptService;
+import com.deeptalent.service.Prompts;
+import com.deeptalent.service.ai.DeepTalentAgent;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.UserMessage;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 跨会话的评估调用微批处理
+ * 高并发时大量会话同时发起评估，每次只是“评估提示词 + 一条用户回答”的小请求，单次调用的固定开销（往返、排队、提示词）占了大头。
+ * 这里把同一阶段、在 window 时间内到达的评估合并为一次多条目请求，再把解析出的结果分发回各自的调用方：
+ *
+ * <ul>
+ *     <li>领导者/跟随者：打开批次的调用方等待 window（或批次攒满 maxSize）后在自己的线程上发起请求，不需要额外的线程</li>
+ *     <li>分组：同一阶段的评估提示词相同，按阶段分别攒批</li>
+ *     <li>单条批次直接按原方式评估，不附加批量说明</li>
+ *     <li>降级：整批请求失败或某条结果缺失时，相应调用方各自单独评估</li>
+ *     <li>过载：整批请求被模型舱壁拒绝时，每个调用方都以 {@link LlmOverloadedException} 失败，
+ *     不再各自单独评估（只会在同一个饱和的舱壁上再排一次队）</li>
+ * </ul>
+ *
+ * 一个批次只占用模型舱壁的一个许可
+ *
+ * @author 小阳
+ * @date 2026-10-18
+ * @version 1.0.0
+ */
+public class EvaluationBatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(EvaluationBatcher.class);
+
+    private final DeepTalentAgent deepTalentAgent;
+    private final PromptService promptService;
+    private final EvaluationParser evaluationParser;
+    private final long windowNanos;
+    private final int maxSize;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // 各阶段正在攒批的批次
+    private final Map<Phase, Batch> open = new EnumMap<>(Phase.class);
+
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchedItems = new LongAdder();
+    private final LongAdder singles = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+    private final AtomicLong largestBatch = new AtomicLong();
+
+    /**
+     * @param window  打开批次后等待更多评估加入的时间
+     * @param maxSize 单个批次的最大条目数，攒满后立即发送
+     */
+    public EvaluationBatcher(DeepTalentAgent deepTalentAgent, PromptService promptService,
+                             EvaluationParser evaluationParser, Duration window, int maxSize) {
+        this.deepTalentAgent = deepTalentAgent;
+        this.promptService = promptService;
+        this.evaluationParser = evaluationParser;
+        this.windowNanos = window.toNanos();
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * 评估一条用户回答，可能与其他会话的评估合并为一次请求
+     *
+     * @param phase        当前阶段
+     * @param systemPrompt 已渲染的评估提示词
+     * @param answer       用户回答
+     * @return 评估结果
+     * @throws LlmOverloadedException 所在批次或单独评估被模型舱壁拒绝
+     */
+    public EvaluationResult evaluate(Phase phase, String systemPrompt, String answer) {
+        Item item = new Item(systemPrompt, answer);
+        Batch batch;
+        boolean leader = false;
+        lock.lock();
+        try {
+            batch = open.get(phase);
+            if (batch == null) {
+                batch = new Batch(phase, lock.newCondition());
+                open.put(phase, batch);
+                leader = true;
+            }
+            batch.items.add(item);
+            if (batch.items.size() >= maxSize) {
+                open.remove(phase);
+                batch.full.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (leader) {
+            awaitBatch(batch);
+            if (batch.items.size() == 1) {
+                singles.increment();
+                return evaluateSingle(phase, systemPrompt, answer);
+            }
+            send(batch);
+        }
+        EvaluationResult result;
+        try {
+            result = item.result.join();
+        } catch (CompletionException e) {
+            // 只有过载会以异常结束条目
+            throw (LlmOverloadedException) e.getCause();
+        }
+        if (result == null) {
+            // 整批失败或本条结果缺失：单独评估
+            fallbacks.increment();
+            result = evaluateSingle(phase, systemPrompt, answer);
+        }
+        return result;
+    }
+
+    /**
+     * 领导者等待批次攒满或 window 到期，之后关闭批次，不再接受新的条目
+     */
+    private void awaitBatch(Batch batch) {
+        lock.lock();
+        try {
+            long remaining = windowNanos;
+            while (batch.items.size() < maxSize && remaining > 0) {
+                try {
+                    remaining = batch.full.awaitNanos(remaining);
+                } catch (InterruptedException e) {
+                    // 其他调用方在等待本批次的结果，保留中断标志后立即发送
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            if (open.get(batch.phase) == batch) {
+                open.remove(batch.phase);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 把批次合并为一次多条目请求，并把结果分发给各条目
+     */
+    private void send(Batch batch) {
+        List<Item> items = batch.items;
+        batches.increment();
+        batchedItems.add(items.size());
+        largestBatch.accumulateAndGet(items.size(), Math::max);
+        try {
+            String instruction = promptService.getTemplate(Prompts.EVALUATOR_BATCH_PROMPT).render("count", items.size());
+            StringBuilder answers = new StringBuilder();
+            for (int i = 0; i < items.size(); i++) {
+                answers.append("【").append(i + 1).append("】").append(items.get(i).answer).append("\n\n");
+            }
+            List<ChatMessage> messages = List.of(
+                    SystemMessage.from(items.get(0).systemPrompt + "\n\n" + instruction),
+                    UserMessage.from(answers.toString()));
+            List<EvaluationResult> results = evaluationParser.parseBatch(deepTalentAgent.evaluate(messages),
+                    batch.phase, items.size());
+            for (int i = 0; i < items.size(); i++) {
+                items.get(i).result.complete(results.get(i));
+            }
+        } catch (LlmOverloadedException e) {
+            log.warn("Batch evaluation of {} items rejected by the model bulkhead: {}", items.size(), e.getMessage());
+            for (Item item : items) {
+                item.result.completeExceptionally(e);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Batch evaluation of {} items failed, evaluating individually: {}", items.size(), e.toString());
+            for (Item item : items) {
+                item.result.complete(null);
+            }
+        }
+    }
+
+    private EvaluationResult evaluateSingle(Phase phase, String systemPrompt, String answer) {
+        List<ChatMessage> messages = List.of(SystemMessage.from(systemPrompt), UserMessage.from(answer));
+        return evaluationParser.parse(deepTalentAgent.evaluate(messages), phase);
+    }
+
+    /**
+     * 获取微批统计信息
+     *
+     * @return 统计快照
+     */
+    public BatchStats getStats() {
+        return new BatchStats(batches.sum(), batchedItems.sum(), singles.sum(), fallbacks.sum(), largestBatch.get());
+    }
+
+    /**
+     * 同一阶段在 window 内到达的评估
+     */
+    private static class Batch {
+        private final Phase phase;
+        private final Condition full;
+        private final List<Item> items = new ArrayList<>();
+
+        Batch(Phase phase, Condition full) {
+            this.phase = phase;
+            this.full = full;
+        }
+    }
+
+    /**
+     * 一条待评估的用户回答，结果为 null 表示需要调用方单独评估，以 LlmOverloadedException 结束表示批次被舱壁拒绝
+     */
+    private static class Item {
+        private final String systemPrompt;
+        private final String answer;
+        private final CompletableFuture<EvaluationResult> result = new CompletableFuture<>();
+
+        Item(String systemPrompt, String answer) {
+            this.systemPrompt = systemPrompt;
+            this.answer = answer;
+        }
+    }
+
+    /**
+     * 微批统计快照
+     */
+    @Getter
+    public static class BatchStats {
+        private final long batches;
+        private final long batchedItems;
+        private final long singles;
+        private final long fallbacks;
+        private final long largestBatch;
+
+        public BatchStats(long batches, long batchedItems, long singles, long fallbacks, long largestBatch) {
+            this.batches = batches;
+            this.batchedItems = batchedItems;
+            this.singles = singles;
+            this.fallbacks = fallbacks;
+            this.largestBatch = largestBatch;
+        }
+
+        /**
+         * 平均每个批次合并的评估数
+         */
+        public double getAverageBatchSize() {
+            return batches == 0 ? 0 : (double) batchedItems / batches;
+        }
+
+        @Override
+        public String toString() {
+            return "BatchStats{" +
+                    "batches=" + batches +
+                    ", batchedItems=" + batchedItems +
+                    ", singles=" + singles +
+                    ", fallbacks=" + fallbacks +
+                    ", largestBatch=" + largestBatch +
+                    ", averageBatchSize=" + String.format("%.2f", getAverageBatchSize()) +
+                    '}';
+        }
+    }
+}
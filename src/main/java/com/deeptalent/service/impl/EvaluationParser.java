@@ -0,0 +1,363 @@
+package com.deeptalent.service.impl;
+
+import com.deeptalent.domain.enums.Phase;
+import com.deeptalent.domain.model.EvaluationResult;
+import com.deeptalent.domain.model.Extraction;
+import com.fasterxml.jackson.core.json.JsonReadFeature;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 评估节点输出解析器
+ * 评估结果无法解析时评估节点只能默认追问，平白多出一轮访谈和两次 LLM 调用，
+ * 因此解析按代价从低到高逐级尝试，尽量把模型的输出救回来：
+ *
+ * <ul>
+ *     <li>直接解析：输出本身就是一个 JSON 对象（JSON 模式下的常态）</li>
+ *     <li>提取：从 Markdown 代码块或前后的说明文字中找出第一个完整的 JSON 对象再解析</li>
+ *     <li>修复：去掉多余的逗号、补齐被截断的字符串与括号，并以宽松模式（单引号、无引号字段名、注释）解析</li>
+ * </ul>
+ *
+ * 解析成功后按字段约束校验并规整：评分限制在 0-10，置信度限制在 0-1，丢弃没有标签的提取项，缺失的阶段补为当前阶段。
+ * 复用共享 ObjectMapper 派生的 ObjectReader，线程安全
+ *
+ * @author 小阳
+ * @date 2026-10-18
+ * @version 1.0.0
+ */
+public class EvaluationParser {
+
+    private static final Logger log = LoggerFactory.getLogger(EvaluationParser.class);
+
+    private final ObjectReader strictReader;
+    private final ObjectReader lenientReader;
+    private final ObjectReader strictTreeReader;
+    private final ObjectReader lenientTreeReader;
+
+    private final LongAdder parsed = new LongAdder();
+    private final LongAdder extracted = new LongAdder();
+    private final LongAdder repaired = new LongAdder();
+    private final LongAdder normalized = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    public EvaluationParser(ObjectMapper objectMapper) {
+        this.strictReader = objectMapper.readerFor(EvaluationResult.class)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        this.lenientReader = lenient(strictReader);
+        this.strictTreeReader = objectMapper.readerFor(JsonNode.class);
+        this.lenientTreeReader = lenient(strictTreeReader);
+    }
+
+    private static ObjectReader lenient(ObjectReader reader) {
+        return reader.withFeatures(
+                JsonReadFeature.ALLOW_SINGLE_QUOTES.mappedFeature(),
+                JsonReadFeature.ALLOW_UNQUOTED_FIELD_NAMES.mappedFeature(),
+                JsonReadFeature.ALLOW_TRAILING_COMMA.mappedFeature(),
+                JsonReadFeature.ALLOW_JAVA_COMMENTS.mappedFeature(),
+                JsonReadFeature.ALLOW_UNESCAPED_CONTROL_CHARS.mappedFeature());
+    }
+
+    /**
+     * 解析评估节点的输出
+     *
+     * @param raw   模型原始输出
+     * @param phase 当前阶段，用于补齐提取项的阶段
+     * @return 校验并规整后的评估结果
+     * @throws IllegalArgumentException 输出中找不到可解析的 JSON 对象
+     */
+    public EvaluationResult parse(String raw, Phase phase) {
+        EvaluationResult result = read(raw, strictReader, lenientReader);
+        if (result == null) {
+            failures.increment();
+            log.warn("Unparseable evaluator output: {}", abbreviate(raw));
+            throw new IllegalArgumentException("Unparseable evaluator output");
+        }
+        parsed.increment();
+        if (normalize(result, phase)) {
+            normalized.increment();
+        }
+        return result;
+    }
+
+    /**
+     * 解析批量评估的输出：{"results": [{"id": 编号, ...单条评估的字段}]}
+     * 缺失、编号越界或无法转换的条目在结果中为 null，由调用方单独补评
+     *
+     * @param raw   模型原始输出
+     * @param phase 当前阶段，用于补齐提取项的阶段
+     * @param count 本批的条目数，编号从 1 开始
+     * @return 按编号排列的评估结果，长度为 count
+     * @throws IllegalArgumentException 输出中找不到可解析的 JSON 对象
+     */
+    public List<EvaluationResult> parseBatch(String raw, Phase phase, int count) {
+        JsonNode root = read(raw, strictTreeReader, lenientTreeReader);
+        if (root == null) {
+            failures.increment();
+            log.warn("Unparseable batch evaluator output: {}", abbreviate(raw));
+            throw new IllegalArgumentException("Unparseable batch evaluator output");
+        }
+        List<EvaluationResult> results = new ArrayList<>(Collections.nCopies(count, null));
+        for (JsonNode node : root.path("results")) {
+            int id = node.path("id").asInt(0);
+            if (id < 1 || id > count || results.get(id - 1) != null) {
+                continue;
+            }
+            try {
+                EvaluationResult result = strictReader.readValue(node);
+                parsed.increment();
+                if (normalize(result, phase)) {
+                    normalized.increment();
+                }
+                results.set(id - 1, result);
+            } catch (IOException e) {
+                failures.increment();
+            }
+        }
+        return results;
+    }
+
+    private <T> T read(String raw, ObjectReader strictReader, ObjectReader lenientReader) {
+        if (raw == null) {
+            return null;
+        }
+        int open = raw.indexOf('{');
+        if (open < 0) {
+            return null;
+        }
+        int close = matchingBrace(raw, open);
+        // 直接解析：整段输出就是一个 JSON 对象，不复制字符串
+        if (close >= 0 && isBlank(raw, 0, open) && isBlank(raw, close + 1, raw.length())) {
+            T result = tryRead(strictReader, raw);
+            if (result != null) {
+                return result;
+            }
+        } else if (close >= 0) {
+            T result = tryRead(strictReader, raw.substring(open, close + 1));
+            if (result != null) {
+                extracted.increment();
+                return result;
+            }
+        }
+        String candidate = close >= 0 ? raw.substring(open, close + 1) : raw.substring(open);
+        T result = tryRead(lenientReader, repair(candidate));
+        if (result != null) {
+            repaired.increment();
+        }
+        return result;
+    }
+
+    private static boolean isBlank(String text, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (!Character.isWhitespace(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static <T> T tryRead(ObjectReader reader, String json) {
+        try {
+            return reader.readValue(json);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 查找与 open 处的 '{' 配对的 '}'，跳过字符串中的括号
+     *
+     * @return 配对的下标；输出被截断时返回 -1
+     */
+    static int matchingBrace(String text, int open) {
+        int depth = 0;
+        boolean inString = false;
+        for (int i = open; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (inString) {
+                if (c == '\\') {
+                    i++;
+                } else if (c == '"') {
+                    inString = false;
+                }
+            } else if (c == '"') {
+                inString = true;
+            } else if (c == '{') {
+                depth++;
+            } else if (c == '}' && --depth == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 修复常见的格式问题：去掉对象/数组末尾多余的逗号，补齐被截断的字符串、取值与括号
+     */
+    static String repair(String json) {
+        StringBuilder builder = new StringBuilder(json.length() + 8);
+        Deque<Character> closers = new ArrayDeque<>();
+        boolean inString = false;
+        for (int i = 0; i < json.length(); i++) {
+            char c = json.charAt(i);
+            if (inString) {
+                builder.append(c);
+                if (c == '\\' && i + 1 < json.length()) {
+                    builder.append(json.charAt(++i));
+                } else if (c == '"') {
+                    inString = false;
+                }
+                continue;
+            }
+            switch (c) {
+                case '"' -> inString = true;
+                case '{' -> closers.push('}');
+                case '[' -> closers.push(']');
+                case '}', ']' -> {
+                    if (!closers.isEmpty()) {
+                        closers.pop();
+                    }
+                    trimTrailingComma(builder);
+                }
+                default -> {
+                }
+            }
+            builder.append(c);
+        }
+        if (inString) {
+            builder.append('"');
+        }
+        trimTrailingComma(builder);
+        int last = lastNonWhitespace(builder);
+        if (last >= 0 && builder.charAt(last) == ':') {
+            builder.append("null");
+        }
+        for (Iterator<Character> it = closers.iterator(); it.hasNext(); ) {
+            builder.append(it.next());
+        }
+        return builder.toString();
+    }
+
+    private static void trimTrailingComma(StringBuilder builder) {
+        int last = lastNonWhitespace(builder);
+        if (last >= 0 && builder.charAt(last) == ',') {
+            builder.setLength(last);
+        }
+    }
+
+    private static int lastNonWhitespace(StringBuilder builder) {
+        int i = builder.length() - 1;
+        while (i >= 0 && Character.isWhitespace(builder.charAt(i))) {
+            i--;
+        }
+        return i;
+    }
+
+    /**
+     * 按字段约束规整评估结果
+     *
+     * @return 是否有字段被修改
+     */
+    private static boolean normalize(EvaluationResult result, Phase phase) {
+        boolean changed = false;
+        if (result.getScore() < 0 || result.getScore() > 10) {
+            result.setScore(Math.max(0, Math.min(10, result.getScore())));
+            changed = true;
+        }
+        if (result.getExtractions() != null) {
+            changed |= result.getExtractions().removeIf(e -> e == null || e.getTag() == null || e.getTag().isBlank());
+            for (Extraction extraction : result.getExtractions()) {
+                if (extraction.getPhase() == null || extraction.getPhase().isBlank()) {
+                    extraction.setPhase(phase.getValue());
+                    changed = true;
+                }
+                if (extraction.getConfidence() < 0 || extraction.getConfidence() > 1) {
+                    extraction.setConfidence(Math.max(0, Math.min(1, extraction.getConfidence())));
+                    changed = true;
+                }
+            }
+        }
+        return changed;
+    }
+
+    private static String abbreviate(String raw) {
+        if (raw == null) {
+            return "null";
+        }
+        return raw.length() <= 200 ? raw : raw.substring(0, 200) + "...";
+    }
+
+    /**
+     * 获取解析统计信息
+     *
+     * @return 统计快照
+     */
+    public ParseStats getStats() {
+        return new ParseStats(parsed.sum(), extracted.sum(), repaired.sum(), normalized.sum(), failures.sum());
+    }
+
+    public long getParsed() {
+        return parsed.sum();
+    }
+
+    public long getExtracted() {
+        return extracted.sum();
+    }
+
+    public long getRepaired() {
+        return repaired.sum();
+    }
+
+    public long getNormalized() {
+        return normalized.sum();
+    }
+
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    /**
+     * 解析统计快照
+     * parsed 为解析成功的总次数，其中 extracted 次需要从额外文本中提取、repaired 次需要修复
+     */
+    @Getter
+    public static class ParseStats {
+        private final long parsed;
+        private final long extracted;
+        private final long repaired;
+        private final long normalized;
+        private final long failures;
+
+        public ParseStats(long parsed, long extracted, long repaired, long normalized, long failures) {
+            this.parsed = parsed;
+            this.extracted = extracted;
+            this.repaired = repaired;
+            this.normalized = normalized;
+            this.failures = failures;
+        }
+
+        @Override
+        public String toString() {
+            return "ParseStats{" +
+                    "parsed=" + parsed +
+                    ", extracted=" + extracted +
+                    ", repaired=" + repaired +
+                    ", normalized=" + normalized +
+                    ", failures=" + failures +
+                    '}';
+        }
+    }
+}
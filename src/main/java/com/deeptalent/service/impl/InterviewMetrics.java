@@ -0,0 +1,314 @@
+package com.deeptalent.service.impl;
+
+import com.deeptalent.domain.enums.Phase;
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.output.Response;
+import dev.langchain4j.model.output.TokenUsage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 访谈流程监控指标
+ * 一轮对话的耗时分布在加载、评估、路由、访谈/写作、保存等节点和多次 LLM 调用上，这里按阶段打标签分别计时：
+ *
+ * <ul>
+ *     <li>deeptalent.workflow.node：各工作流节点的耗时直方图（node、phase、outcome）</li>
+ *     <li>deeptalent.llm.calls：DeepTalentAgent 各方法的调用耗时直方图（method、phase、outcome），不含舱壁排队时间</li>
+ *     <li>deeptalent.llm.tokens / deeptalent.llm.cost：提示词与生成 token 数及按单价折算的费用（type、phase）</li>
+ *     <li>deeptalent.evaluator.fallbacks、deeptalent.router.decisions、deeptalent.phase.transitions：评估降级、路由决策与阶段切换次数</li>
+ *     <li>deeptalent.llm.limit / inflight / queue / rejected：各模型舱壁的当前并发上限、在途与排队调用数、拒绝次数（model、reason）</li>
+ * </ul>
+ *
+ * 节点执行期间当前线程记录所在阶段，节点内发起的 LLM 调用与 token 统计沿用该阶段标签；
+ * 不在任何节点内的调用（如题库后台生成）标记为 none
+ *
+ * @author 小阳
+ * @date 2026-10-18
+ * @version 1.0.0
+ */
+public class InterviewMetrics {
+
+    private static final String NO_PHASE = "none";
+
+    private static final ThreadLocal<Phase> CURRENT_PHASE = new ThreadLocal<>();
+
+    private final MeterRegistry registry;
+    private final double promptPricePerMillion;
+    private final double completionPricePerMillion;
+
+    /**
+     * @param promptPricePerMillion     每百万提示词 token 的价格，与 completionPricePerMillion 均为 0 时不统计费用
+     * @param completionPricePerMillion 每百万生成 token 的价格
+     */
+    public InterviewMetrics(MeterRegistry registry, double promptPricePerMillion, double completionPricePerMillion) {
+        this.registry = registry;
+        this.promptPricePerMillion = promptPricePerMillion;
+        this.completionPricePerMillion = completionPricePerMillion;
+    }
+
+    /**
+     * 执行一个工作流节点并计时，执行期间当前线程的阶段标签为 phase
+     *
+     * @param node  节点名称
+     * @param phase 节点所处的阶段
+     * @param body  节点逻辑
+     * @return 节点的返回值
+     */
+    public <T> T node(String node, Phase phase, Supplier<T> body) {
+        Phase previous = CURRENT_PHASE.get();
+        CURRENT_PHASE.set(phase);
+        long start = System.nanoTime();
+        String outcome = "error";
+        try {
+            T result = body.get();
+            outcome = "success";
+            return result;
+        } finally {
+            recordNode(node, phase, outcome, System.nanoTime() - start);
+            if (previous != null) {
+                CURRENT_PHASE.set(previous);
+            } else {
+                CURRENT_PHASE.remove();
+            }
+        }
+    }
+
+    /**
+     * 记录一次已经完成的节点耗时（用于执行前还不知道阶段的节点，如加载状态）
+     */
+    public void recordNode(String node, Phase phase, String outcome, long nanos) {
+        Timer.builder("deeptalent.workflow.node")
+                .description("Duration of interview workflow nodes")
+                .tag("node", node)
+                .tag("phase", tagOf(phase))
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 评估失败、按默认追问处理
+     */
+    public void evaluatorFallback(Phase phase) {
+        Counter.builder("deeptalent.evaluator.fallbacks")
+                .description("Evaluations that failed and fell back to a follow-up question")
+                .tag("phase", tagOf(phase))
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * 路由节点的决策
+     *
+     * @param phase    路由前所处的阶段
+     * @param decision followup / continue / advance / writer
+     */
+    public void routerDecision(Phase phase, String decision) {
+        Counter.builder("deeptalent.router.decisions")
+                .description("Router decisions after each evaluated answer")
+                .tag("phase", tagOf(phase))
+                .tag("decision", decision)
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * 阶段切换
+     */
+    public void phaseTransition(Phase from, Phase to) {
+        Counter.builder("deeptalent.phase.transitions")
+                .description("Interview phase transitions")
+                .tag("from", tagOf(from))
+                .tag("to", tagOf(to))
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * 记录一次 LLM 响应的 token 用量，阶段取当前线程所在的节点
+     *
+     * @param usage token 用量，上游未返回时为 null
+     */
+    public void recordTokens(TokenUsage usage) {
+        if (usage == null) {
+            return;
+        }
+        String phase = tagOf(CURRENT_PHASE.get());
+        int prompt = usage.inputTokenCount() != null ? usage.inputTokenCount() : 0;
+        int completion = usage.outputTokenCount() != null ? usage.outputTokenCount() : 0;
+        tokens("prompt", phase).increment(prompt);
+        tokens("completion", phase).increment(completion);
+        if (promptPricePerMillion > 0 || completionPricePerMillion > 0) {
+            Counter.builder("deeptalent.llm.cost")
+                    .description("Estimated LLM cost from token usage and configured prices")
+                    .tag("phase", phase)
+                    .register(registry)
+                    .increment((prompt * promptPricePerMillion + completion * completionPricePerMillion) / 1_000_000);
+        }
+    }
+
+    private Counter tokens(String type, String phase) {
+        return Counter.builder("deeptalent.llm.tokens")
+                .description("LLM tokens consumed")
+                .baseUnit("tokens")
+                .tag("type", type)
+                .tag("phase", phase)
+                .register(registry);
+    }
+
+    /**
+     * 为 AI Service 接口创建计时代理，每个方法分别计时
+     * 使用 JDK 动态代理而不是实现类，避免 LangChain4j 按 AI Service 注解扫描时把实现类当作新的 AI Service
+     *
+     * @param type   接口类型
+     * @param target 被代理的实例
+     * @return 代理实例
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T timed(Class<T> type, T target) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return method.invoke(target, args);
+            }
+            long start = System.nanoTime();
+            String outcome = "error";
+            try {
+                Object result = method.invoke(target, args);
+                outcome = "success";
+                return result;
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            } finally {
+                Timer.builder("deeptalent.llm.calls")
+                        .description("Duration of AI service calls")
+                        .tag("method", method.getName())
+                        .tag("phase", tagOf(CURRENT_PHASE.get()))
+                        .tag("outcome", outcome)
+                        .publishPercentileHistogram()
+                        .register(registry)
+                        .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        });
+    }
+
+    /**
+     * 为对话模型创建代理，记录每次响应的 token 用量
+     * 包装的是同一个模型实例而不是新增实现类，LangChain4j 按类型自动装配模型时不会出现多个候选
+     *
+     * @param model 对话模型
+     * @return 代理实例
+     */
+    public ChatLanguageModel counting(ChatLanguageModel model) {
+        return (ChatLanguageModel) Proxy.newProxyInstance(ChatLanguageModel.class.getClassLoader(),
+                new Class<?>[]{ChatLanguageModel.class}, (proxy, method, args) -> {
+                    Object result;
+                    try {
+                        result = method.invoke(model, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                    if (result instanceof Response<?> response && method.getDeclaringClass() != Object.class) {
+                        recordTokens(response.tokenUsage());
+                    }
+                    return result;
+                });
+    }
+
+    /**
+     * 注册舱壁的准入指标，指标随舱壁实例读取，不需要额外更新
+     *
+     * @param bulkhead 上游模型的舱壁
+     */
+    public void bulkhead(LlmBulkhead bulkhead) {
+        String model = bulkhead.getModel();
+        Gauge.builder("deeptalent.llm.limit", bulkhead, LlmBulkhead::getLimit)
+                .description("Current concurrency limit of the model bulkhead")
+                .tag("model", model)
+                .register(registry);
+        Gauge.builder("deeptalent.llm.inflight", bulkhead, LlmBulkhead::getInflight)
+                .description("LLM calls in flight")
+                .tag("model", model)
+                .register(registry);
+        Gauge.builder("deeptalent.llm.queue", bulkhead, LlmBulkhead::getWaiting)
+                .description("LLM calls waiting for a permit")
+                .tag("model", model)
+                .register(registry);
+        FunctionCounter.builder("deeptalent.llm.rejected", bulkhead, LlmBulkhead::getRejectedQueueFull)
+                .description("LLM calls rejected by the model bulkhead")
+                .tag("model", model)
+                .tag("reason", "queue_full")
+                .register(registry);
+        FunctionCounter.builder("deeptalent.llm.rejected", bulkhead, LlmBulkhead::getRejectedTimeout)
+                .description("LLM calls rejected by the model bulkhead")
+                .tag("model", model)
+                .tag("reason", "timeout")
+                .register(registry);
+    }
+
+    /**
+     * 注册推测执行的结算指标，指标随推测执行器读取，不需要额外更新
+     * 节省的延迟按命中次数计数，平均值即命中时每轮节省的延迟
+     *
+     * @param speculator 访谈节点推测执行器
+     */
+    public void speculation(InterviewSpeculator speculator) {
+        FunctionCounter.builder("deeptalent.speculation", speculator, InterviewSpeculator::getHits)
+                .description("Settled interviewer speculations")
+                .tag("outcome", "hit")
+                .register(registry);
+        FunctionCounter.builder("deeptalent.speculation", speculator, InterviewSpeculator::getMisses)
+                .description("Settled interviewer speculations")
+                .tag("outcome", "miss")
+                .register(registry);
+        FunctionCounter.builder("deeptalent.speculation", speculator, InterviewSpeculator::getFailures)
+                .description("Settled interviewer speculations")
+                .tag("outcome", "failure")
+                .register(registry);
+        FunctionTimer.builder("deeptalent.speculation.saved", speculator, InterviewSpeculator::getHits,
+                        InterviewSpeculator::getSavedNanos, TimeUnit.NANOSECONDS)
+                .description("Turn latency saved by speculation hits")
+                .register(registry);
+    }
+
+    /**
+     * 注册评估输出的解析指标，指标随解析器读取，不需要额外更新
+     * 解析结果按成功/失败计数；成功中需要提取或修复的次数、被规整的次数单独计数，不与结果计数重复相加
+     *
+     * @param parser 评估输出解析器
+     */
+    public void evaluationParser(EvaluationParser parser) {
+        FunctionCounter.builder("deeptalent.evaluator.parse", parser, EvaluationParser::getParsed)
+                .description("Evaluator outputs parsed")
+                .tag("result", "success")
+                .register(registry);
+        FunctionCounter.builder("deeptalent.evaluator.parse", parser, EvaluationParser::getFailures)
+                .description("Evaluator outputs parsed")
+                .tag("result", "failure")
+                .register(registry);
+        FunctionCounter.builder("deeptalent.evaluator.parse.recovered", parser, EvaluationParser::getExtracted)
+                .description("Evaluator outputs that needed recovery before parsing")
+                .tag("method", "extracted")
+                .register(registry);
+        FunctionCounter.builder("deeptalent.evaluator.parse.recovered", parser, EvaluationParser::getRepaired)
+                .description("Evaluator outputs that needed recovery before parsing")
+                .tag("method", "repaired")
+                .register(registry);
+        FunctionCounter.builder("deeptalent.evaluator.parse.normalized", parser, EvaluationParser::getNormalized)
+                .description("Parsed evaluations whose fields were clamped or filled in")
+                .register(registry);
+    }
+
+    private static String tagOf(Phase phase) {
+        return phase != null ? phase.getValue() : NO_PHASE;
+    }
+}
@@ -1,22 +1,50 @@
 package com.deeptalent.service.impl;
 
+import com.deeptalent.config.DeepTalentProperties;
 import com.deeptalent.domain.ai.Message;
+import com.deeptalent.domain.entity.ReportJobEntity;
 import com.deeptalent.domain.enums.Phase;
 import com.deeptalent.domain.model.DeepTalentState;
 import com.deeptalent.domain.model.EvaluationResult;
 import com.deeptalent.domain.model.Extraction;
+import com.deeptalent.domain.model.PhaseSummary;
+import com.deeptalent.service.ChatStreamListener;
 import com.deeptalent.service.InterviewService;
+import com.deeptalent.service.LlmOverloadedException;
 import com.deeptalent.service.PersistenceService;
 import com.deeptalent.service.PromptService;
+import com.deeptalent.service.PromptTemplate;
 import com.deeptalent.service.Prompts;
 import com.deeptalent.service.ai.DeepTalentAgent;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.model.StreamingResponseHandler;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
+import dev.langchain4j.model.output.Response;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 
 /**
  * 访谈服务实现类
@@ -30,9 +58,32 @@ public class InterviewServiceImpl implements InterviewService {
 
     private static final Logger log = LoggerFactory.getLogger(InterviewServiceImpl.class);
 
+    /**
+     * 当前线程正在执行的异步调用，用于在中断标志被下游吞掉时仍能识别取消
+     */
+    private static final ThreadLocal<CompletableFuture<?>> ASYNC_CALL = new ThreadLocal<>();
+
+    /**
+     * 报告转为后台生成时，进入报告阶段的那一轮返回的提示
+     */
+    static final String REPORT_QUEUED_MESSAGE = "访谈已经完成，正在为你生成天赋画像报告，请稍候查看。";
+
     private final DeepTalentAgent deepTalentAgent;
     private final PersistenceService persistenceService;
     private final PromptService promptService;
+    private final SessionLocks sessionLocks;
+    private final EvaluationParser evaluationParser;
+    private final InterviewMetrics metrics;
+    private final StreamingChatLanguageModel streamingChatModel;
+    private final InterviewSpeculator speculator;
+    private final PhaseSummarizer summarizer;
+    private final QuestionBank questionBank;
+    private final EvaluationBatcher evaluationBatcher;
+    private final ReportJobQueue reportJobs;
+    private final ReportDrafter reportDrafter;
+    private final AsyncTaskExecutor chatExecutor;
+    // 流式生成的最长等待时间，与 SSE 连接的最长保持时间一致
+    private final Duration streamTimeout;
 
     /**
      * 构造函数
@@ -40,11 +91,46 @@ public class InterviewServiceImpl implements InterviewService {
      * @param deepTalentAgent    LangChain4j AI Agent
      * @param persistenceService 持久化服务
      * @param promptService      提示词服务
+     * @param sessionLocks       会话锁
+     * @param evaluationParser   评估节点输出解析器
+     * @param metrics            访谈流程监控指标
+     * @param streamingChatModel 流式对话模型，未配置时流式接口退化为生成完成后一次性推送
+     * @param speculator         访谈节点推测执行器，未启用时为 null
+     * @param summarizer         阶段摘要生成器，未启用时为 null，提示词携带全部历史消息
+     * @param questionBank       预生成题库，未启用时为 null，开场问题与降级均照常调用 LLM
+     * @param evaluationBatcher  评估微批处理，未启用时为 null，每次评估单独调用 LLM
+     * @param reportJobs         报告生成任务队列，未启用时为 null，写作节点在本轮内同步执行
+     * @param reportDrafter      报告分节起草器，未启用时为 null，写作节点携带完整对话一次性生成报告
+     * @param chatExecutor       异步接口的对话执行线程池
+     * @param properties         应用配置，流式生成最长等待 session.stream-timeout
      */
-    public InterviewServiceImpl(DeepTalentAgent deepTalentAgent, PersistenceService persistenceService, PromptService promptService) {
+    public InterviewServiceImpl(DeepTalentAgent deepTalentAgent, PersistenceService persistenceService,
+                                PromptService promptService, SessionLocks sessionLocks,
+                                EvaluationParser evaluationParser, InterviewMetrics metrics,
+                                @Nullable StreamingChatLanguageModel streamingChatModel,
+                                @Nullable InterviewSpeculator speculator,
+                                @Nullable PhaseSummarizer summarizer,
+                                @Nullable QuestionBank questionBank,
+                                @Nullable EvaluationBatcher evaluationBatcher,
+                                @Nullable ReportJobQueue reportJobs,
+                                @Nullable ReportDrafter reportDrafter,
+                                @Qualifier("chatExecutor") AsyncTaskExecutor chatExecutor,
+                                DeepTalentProperties properties) {
         this.deepTalentAgent = deepTalentAgent;
         this.persistenceService = persistenceService;
         this.promptService = promptService;
+        this.sessionLocks = sessionLocks;
+        this.evaluationParser = evaluationParser;
+        this.metrics = metrics;
+        this.streamingChatModel = streamingChatModel;
+        this.speculator = speculator;
+        this.summarizer = summarizer;
+        this.questionBank = questionBank;
+        this.evaluationBatcher = evaluationBatcher;
+        this.reportJobs = reportJobs;
+        this.reportDrafter = reportDrafter;
+        this.chatExecutor = chatExecutor;
+        this.streamTimeout = properties.getSession().getStreamTimeout();
     }
 
     /**
@@ -57,9 +143,13 @@ public class InterviewServiceImpl implements InterviewService {
     public Map<String, String> startSession(String userName) {
         // Generate threadId from userName
         String threadId = generateThreadId(userName);
+        // 同一用户并发启动（重复点击）时只生成一次开场问题
+        return sessionLocks.withLock(threadId, () -> doStartSession(threadId, userName));
+    }
 
+    private Map<String, String> doStartSession(String threadId, String userName) {
         // 1. 加载状态
-        DeepTalentState state = persistenceService.loadState(threadId);
+        DeepTalentState state = loadState(threadId);
         
         // 设置 threadName
         state.setThreadName(userName);
@@ -67,10 +157,11 @@ public class InterviewServiceImpl implements InterviewService {
         String response;
         // 2. 判断是否是新会话（无消息记录）
         if (state.getMessages().isEmpty()) {
-            // 冷启动：直接进入访谈节点生成第一个问题
-            state = interviewerNode(state);
+            // 冷启动：直接进入访谈节点生成第一个问题（启用题库时直接取题库中的开场问题）
+            metrics.node("interviewer", state.getCurrentPhase(), () -> interviewerNode(state, null, null));
             // 保存初始状态
-            persistenceService.saveState(threadId, state);
+            checkCancelled(threadId);
+            saveState(threadId, state);
             response = getLastAssistantMessage(state);
         } else {
             // 3. 如果是恢复会话，直接返回最后一条助手消息
@@ -80,15 +171,14 @@ public class InterviewServiceImpl implements InterviewService {
         return Map.of("threadId", threadId, "message", response);
     }
 
-    private String generateThreadId(String userName) {
+    /**
+     * 由用户名生成会话 ID（MD5 的十六进制表示），同一用户总是得到同一个会话
+     */
+    public static String generateThreadId(String userName) {
         try {
             java.security.MessageDigest md = java.security.MessageDigest.getInstance("MD5");
-            byte[] array = md.digest(userName.getBytes("UTF-8"));
-            StringBuilder sb = new StringBuilder();
-            for (byte b : array) {
-                sb.append(String.format("%02x", b));
-            }
-            return sb.toString();
+            // 一次性编码为小写十六进制，不再逐字节 String.format
+            return HexFormat.of().formatHex(md.digest(userName.getBytes(StandardCharsets.UTF_8)));
         } catch (Exception e) {
             throw new RuntimeException("MD5 generation failed", e);
         }
@@ -103,39 +193,242 @@ public class InterviewServiceImpl implements InterviewService {
      */
     @Override
     public String chat(String threadId, String userMessageContent) {
+        return sendMessage(threadId, userMessageContent).get("message");
+    }
+
+    @Override
+    public Map<String, String> sendMessage(String threadId, String userMessageContent) {
+        // 同一会话的 load → LLM → save 必须串行，否则并发的两轮会互相覆盖
+        return sessionLocks.withLock(threadId, () -> doChat(threadId, userMessageContent, null));
+    }
+
+    /**
+     * 流式处理用户消息
+     * 评估与路由照常同步执行，随后访谈/报告节点的输出边生成边推送，
+     * 用户感知的延迟从整段生成时间缩短为首个片段到达的时间
+     */
+    @Override
+    public void chatStream(String threadId, String userMessageContent, ChatStreamListener listener) {
+        Map<String, String> result;
+        try {
+            result = sessionLocks.withLock(threadId, () -> doChat(threadId, userMessageContent, listener));
+        } catch (Exception e) {
+            log.error("Streaming chat failed for thread {}", threadId, e);
+            listener.onError(e);
+            return;
+        }
+        if (result.containsKey("reportJobId")) {
+            listener.onReportQueued(result.get("reportJobId"));
+        }
+        listener.onComplete(result.get("message"));
+    }
+
+    @Override
+    public CompletableFuture<Map<String, String>> startSessionAsync(String userName) {
+        return submit(() -> startSession(userName));
+    }
+
+    @Override
+    public CompletableFuture<Map<String, String>> chatAsync(String threadId, String userMessageContent) {
+        return submit(() -> sendMessage(threadId, userMessageContent));
+    }
+
+    @Override
+    public Map<String, String> getReportJob(String jobId) {
+        return reportJobs != null ? describe(reportJobs.get(jobId)) : null;
+    }
+
+    @Override
+    public CompletableFuture<Map<String, String>> awaitReportJob(String jobId) {
+        if (reportJobs == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return reportJobs.watch(jobId).thenApply(this::describe);
+    }
+
+    /**
+     * 应用启动完成后开始执行报告任务，并恢复上次停机时未完成的任务
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startReportJobs() {
+        if (reportJobs != null) {
+            reportJobs.start(this::generateReport);
+        }
+    }
+
+    /**
+     * 报告任务：在会话锁内加载状态、执行写作节点并保存，报告写入 final_report
+     */
+    void generateReport(String threadId) {
+        sessionLocks.withLock(threadId, () -> {
+            DeepTalentState state = loadState(threadId);
+            if (state.getCurrentPhase() != Phase.GENERATING) {
+                throw new IllegalStateException("Thread " + threadId + " is not ready for report, phase: "
+                        + state.getCurrentPhase());
+            }
+            metrics.node("writer", state.getCurrentPhase(), () -> writerNode(threadId, state, null));
+            saveState(threadId, state);
+            return null;
+        });
+    }
+
+    private Map<String, String> describe(ReportJobEntity job) {
+        if (job == null) {
+            return null;
+        }
+        Map<String, String> result = new HashMap<>();
+        result.put("jobId", job.getJobId());
+        result.put("threadId", job.getThreadId());
+        result.put("status", job.getStatus());
+        if (ReportJobEntity.SUCCEEDED.equals(job.getStatus())) {
+            result.put("report", String.valueOf(persistenceService.loadState(job.getThreadId()).getFinalReport()));
+        } else if (job.getErrorMessage() != null) {
+            result.put("error", job.getErrorMessage());
+        }
+        return result;
+    }
+
+    /**
+     * 在对话线程池中执行任务
+     * 返回的 Future 被取消或超时时中断执行线程：仍在等待会话锁、模型许可的调用立即放弃，
+     * 已经拿到的 LLM 结果也不会再保存，客户端可以安全地重试本轮
+     */
+    private <T> CompletableFuture<T> submit(Supplier<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> running;
+        try {
+            running = chatExecutor.submit(() -> {
+                if (result.isDone()) {
+                    // 排队期间已被取消
+                    return;
+                }
+                ASYNC_CALL.set(result);
+                try {
+                    result.complete(task.get());
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                } finally {
+                    ASYNC_CALL.remove();
+                }
+            });
+        } catch (TaskRejectedException e) {
+            result.completeExceptionally(e);
+            return result;
+        }
+        result.whenComplete((value, error) -> {
+            if (error instanceof CancellationException || error instanceof TimeoutException) {
+                running.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 异步调用已被取消或超时时放弃本轮，不保存状态
+     * 中断标志可能被 LLM 客户端或评估节点的异常处理吞掉，因此同时检查调用方的 Future
+     */
+    private void checkCancelled(String threadId) {
+        CompletableFuture<?> call = ASYNC_CALL.get();
+        if (Thread.currentThread().isInterrupted() || (call != null && call.isDone())) {
+            throw new CancellationException("Turn of thread " + threadId + " was cancelled before saving");
+        }
+    }
+
+    private Map<String, String> doChat(String threadId, String userMessageContent, ChatStreamListener listener) {
         // 1. 加载当前状态
-        DeepTalentState state = persistenceService.loadState(threadId);
+        DeepTalentState state = loadState(threadId);
         
         // 2. 添加用户消息到历史记录
         state.getMessages().add(new Message("user", userMessageContent));
+
+        // 推测执行：评估开始的同时，按当前阶段提前生成下一个问题
+        InterviewSpeculator.Speculation speculation = speculate(state);
         
-        // 3. 执行评估节点 (Evaluator Node) - 分析用户回答质量并提取信息
-        state = evaluatorNode(state);
-        
-        // 4. 执行路由节点 (Router Node) - 决定下一步流程
-        String nextStep = routerNode(state);
-        
-        // 5. 根据路由结果执行相应节点
-        if ("writer".equals(nextStep)) {
-            // 生成报告阶段
-            state = writerNode(state);
-        } else {
-            // 继续访谈阶段
-            state = interviewerNode(state);
-        }
-        
-        // 6. 保存更新后的状态
-        persistenceService.saveState(threadId, state);
-        
-        // 7. 如果生成了最终报告，优先返回报告内容
-        if (state.getFinalReport() != null && "writer".equals(nextStep)) {
-            return state.getFinalReport();
+        try {
+            // 3. 执行评估节点 (Evaluator Node) - 分析用户回答质量并提取信息
+            Phase phaseBefore = state.getCurrentPhase();
+            metrics.node("evaluator", phaseBefore, () -> evaluatorNode(state));
+
+            // 4. 执行路由节点 (Router Node) - 决定下一步流程
+            boolean followup = state.isNeedFollowup();
+            String nextStep = metrics.node("router", phaseBefore, () -> routerNode(state));
+            Phase phaseAfter = state.getCurrentPhase();
+            if (phaseAfter != phaseBefore) {
+                metrics.routerDecision(phaseBefore, "advance");
+                metrics.phaseTransition(phaseBefore, phaseAfter);
+                // 阶段结束时在后台压缩该阶段的对话并起草报告分节，本轮不等待；摘要落库后提示词以摘要代替原始消息
+                summarizerNode(threadId, state, phaseBefore);
+            } else {
+                metrics.routerDecision(phaseBefore, followup ? "followup" : "writer".equals(nextStep) ? "writer" : "continue");
+            }
+
+            // 5. 根据路由结果执行相应节点
+            boolean queueReport = "writer".equals(nextStep) && reportJobs != null;
+            if ("writer".equals(nextStep)) {
+                // 生成报告阶段
+                if (speculation != null) {
+                    speculator.discard(speculation);
+                }
+                if (queueReport) {
+                    // 报告在后台生成，本轮只保存进入报告阶段的状态
+                    if (listener != null) {
+                        listener.onToken(REPORT_QUEUED_MESSAGE);
+                    }
+                } else {
+                    metrics.node("writer", phaseAfter, () -> writerNode(threadId, state, listener));
+                }
+            } else {
+                // 继续访谈阶段
+                metrics.node("interviewer", phaseAfter, () -> interviewerNode(state, listener, speculation));
+            }
+
+            // 6. 保存更新后的状态（异步调用已被取消时放弃本轮）
+            checkCancelled(threadId);
+            saveState(threadId, state);
+
+            // 7. 状态保存后再提交报告任务，任务执行时在会话锁内读取到的是本轮之后的状态
+            if (queueReport) {
+                String jobId = reportJobs.submit(threadId);
+                return Map.of("threadId", threadId, "message", REPORT_QUEUED_MESSAGE, "reportJobId", jobId);
+            }
+
+            // 8. 如果生成了最终报告，优先返回报告内容
+            if (state.getFinalReport() != null && "writer".equals(nextStep)) {
+                return Map.of("threadId", threadId, "message", state.getFinalReport());
+            }
+
+            // 9. 返回助手的最新回复
+            return Map.of("threadId", threadId, "message", getLastAssistantMessage(state));
+        } finally {
+            // 评估或后续节点失败、本轮被取消时推测结果未被采用：取消推测调用、归还其占用的许可并计入未命中
+            if (speculation != null) {
+                speculator.discard(speculation);
+            }
         }
-        
-        // 8. 返回助手的最新回复
-        return getLastAssistantMessage(state);
     }
     
+    /**
+     * 加载会话状态并计时，加载完成后才知道会话所处的阶段
+     */
+    private DeepTalentState loadState(String threadId) {
+        long start = System.nanoTime();
+        try {
+            DeepTalentState state = persistenceService.loadState(threadId);
+            metrics.recordNode("load", state.getCurrentPhase(), "success", System.nanoTime() - start);
+            return state;
+        } catch (RuntimeException e) {
+            metrics.recordNode("load", null, "error", System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    private void saveState(String threadId, DeepTalentState state) {
+        metrics.node("save", state.getCurrentPhase(), () -> {
+            persistenceService.saveState(threadId, state);
+            return null;
+        });
+    }
+
     /**
      * 获取对话历史中最后一条助手消息
      *
@@ -154,51 +447,137 @@ public class InterviewServiceImpl implements InterviewService {
 
     // --- 内部核心节点逻辑 ---
 
-    private String cleanJsonOutput(String text) {
-        if (text == null) return "";
-        text = text.trim();
-        // 移除 Markdown 代码块标记
-        if (text.startsWith("```json")) {
-            text = text.substring(7);
-        } else if (text.startsWith("```")) {
-            text = text.substring(3);
-        }
-        if (text.endsWith("```")) {
-            text = text.substring(0, text.length() - 3);
+    /**
+     * 启动访谈节点的推测执行
+     * 上下文在当前线程构建完毕后再提交，推测调用不会读取之后被评估节点修改的状态
+     *
+     * @return 推测句柄，未启用或未能启动时返回 null
+     */
+    private InterviewSpeculator.Speculation speculate(DeepTalentState state) {
+        if (speculator == null) {
+            return null;
         }
-        return text.trim();
+        List<dev.langchain4j.data.message.ChatMessage> history = buildInterviewerHistory(state);
+        Phase phase = state.getCurrentPhase();
+        return speculator.start(phase, state.getDialogueCount(),
+                () -> metrics.node("speculation", phase, () -> deepTalentAgent.chat(history)));
     }
 
     /**
      * 访谈节点：生成下一个面试问题
+     * 若推测执行的阶段与轮次和路由结果一致且无需追问，直接采用推测生成的问题；
+     * 新会话的开场问题从题库中取；模型过载（舱壁拒绝或排队超时）时降级为题库中的问题，
+     * 但追问轮次不降级，追问问题依赖本轮评估结果，题库中的通用问题无法代替
+     */
+    private DeepTalentState interviewerNode(DeepTalentState state, ChatStreamListener listener,
+                                            InterviewSpeculator.Speculation speculation) {
+        String response = null;
+        if (speculation != null) {
+            response = speculator.commit(speculation, state.getCurrentPhase(), state.getDialogueCount(),
+                    state.isNeedFollowup());
+        }
+        if (response == null) {
+            response = takeOpeningQuestion(state);
+        }
+        if (response != null) {
+            if (listener != null) {
+                listener.onToken(response);
+            }
+        } else {
+            try {
+                response = generate(buildInterviewerHistory(state), listener);
+            } catch (LlmOverloadedException e) {
+                // 舱壁拒绝时调用没有发出，流式输出也还没有推送任何片段，可以整体换成题库中的问题
+                response = takeDegraded(state);
+                if (response == null) {
+                    throw e;
+                }
+                log.warn("Interviewer model overloaded, serving question bank question instead: {}", e.getMessage());
+                if (listener != null) {
+                    listener.onToken(response);
+                }
+            }
+        }
+        
+        // 更新状态
+        state.getMessages().add(new Message("assistant", response));
+        state.setDialogueCount(state.getDialogueCount() + 1);
+        
+        return state;
+    }
+
+    /**
+     * 从题库取新会话的开场问题（与当前阶段第 1 轮、无评估结果时生成的问题等价）
+     *
+     * @return 题库中的问题；未启用题库、不是开场或没有可用题目时返回 null
+     */
+    private String takeOpeningQuestion(DeepTalentState state) {
+        if (questionBank == null || state.getDialogueCount() != 0 || state.getLastEval() != null) {
+            return null;
+        }
+        return questionBank.take(state.getCurrentPhase());
+    }
+
+    /**
+     * 模型过载时从题库取一个本会话尚未问过的问题
+     *
+     * @return 题库中的问题；未启用题库、本轮需要追问或没有可用题目时返回 null
      */
-    private DeepTalentState interviewerNode(DeepTalentState state) {
+    private String takeDegraded(DeepTalentState state) {
+        if (questionBank == null || state.isNeedFollowup()) {
+            return null;
+        }
+        return questionBank.takeDegraded(state.getCurrentPhase(), askedQuestions(state));
+    }
+
+    private List<String> askedQuestions(DeepTalentState state) {
+        List<String> asked = new ArrayList<>();
+        for (Message message : state.getMessages()) {
+            if ("assistant".equals(message.getRole())) {
+                asked.add(message.getContent());
+            }
+        }
+        return asked;
+    }
+
+    /**
+     * 填充访谈提示词模板
+     *
+     * @param template      访谈提示词模板
+     * @param phase         当前阶段
+     * @param dialogueCount 本轮的对话轮次
+     * @param lastEval      上一轮的评估结果，可为 null
+     * @return 系统提示词
+     */
+    static String renderInterviewerPrompt(PromptTemplate template, Phase phase, int dialogueCount, EvaluationResult lastEval) {
+        return template.render(Map.of(
+                "phase", phase.getValue(),
+                "dialogue_count", dialogueCount,
+                "last_eval", lastEval != null ? lastEval.toString() : "无"));
+    }
+
+    /**
+     * 构建访谈节点的上下文：系统提示词 + 已结束阶段的摘要 + 摘要之后、最近窗口内的原始消息
+     */
+    private List<dev.langchain4j.data.message.ChatMessage> buildInterviewerHistory(DeepTalentState state) {
         Phase currentPhase = state.getCurrentPhase();
-        int dialogueCount = state.getDialogueCount();
         EvaluationResult lastEval = state.getLastEval();
         
         // 对话轮次 + 1
-        int newCount = dialogueCount + 1;
+        int newCount = state.getDialogueCount() + 1;
         
         // 填充 Prompt 模板
-        String promptTemplate = promptService.getPrompt(Prompts.INTERVIEWER_SYSTEM_PROMPT);
-        String prompt = promptTemplate
-                .replace("{phase}", currentPhase.getValue())
-                .replace("{dialogue_count}", String.valueOf(newCount))
-                .replace("{last_eval}", lastEval != null ? lastEval.toString() : "无"); 
-        
-        // 构建上下文：历史消息 (将 System Prompt 加入到消息列表头部)
-        List<dev.langchain4j.data.message.ChatMessage> history = convertMessages(state.getMessages());
-        history.add(0, dev.langchain4j.data.message.SystemMessage.from(prompt));
-        
-        // 调用 LLM 生成问题
-        String response = deepTalentAgent.chat(history);
-        
-        // 更新状态
-        state.getMessages().add(new Message("assistant", response));
-        state.setDialogueCount(newCount);
+        PromptTemplate promptTemplate = promptService.getTemplate(Prompts.INTERVIEWER_SYSTEM_PROMPT);
+        String prompt = renderInterviewerPrompt(promptTemplate, currentPhase, newCount, lastEval);
         
-        return state;
+        // 构建上下文：最近窗口内尚未被摘要的历史消息 (将 System Prompt 加入到消息列表头部)
+        List<Message> messages = state.getMessages();
+        int unsummarized = Math.max(0, state.getSummarizedUpTo() - state.getMessageOffset());
+        List<dev.langchain4j.data.message.ChatMessage> history =
+                convertMessages(messages.subList(Math.min(unsummarized, messages.size()), messages.size()));
+        history.add(0, dev.langchain4j.data.message.SystemMessage.from(
+                PhaseSummarizer.withSummaries(prompt, state.getPhaseSummaries())));
+        return history;
     }
 
     /**
@@ -217,22 +596,24 @@ public class InterviewServiceImpl implements InterviewService {
         
         try {
             // 获取并处理 Prompt
-            String promptTemplate = promptService.getPrompt(Prompts.EVALUATOR_SYSTEM_PROMPT);
-            String systemPrompt = promptTemplate.replace("{phase}", currentPhase.getValue());
+            String systemPrompt = promptService.getTemplate(Prompts.EVALUATOR_SYSTEM_PROMPT)
+                    .render("phase", currentPhase.getValue());
 
-            // 调用 LLM (LangChain4j 自动处理结构化输出)
-            List<dev.langchain4j.data.message.ChatMessage> evalMessages = new ArrayList<>();
-            evalMessages.add(dev.langchain4j.data.message.SystemMessage.from(systemPrompt));
-            evalMessages.add(dev.langchain4j.data.message.UserMessage.from(lastUserContent));
-            
-            String rawResponse = deepTalentAgent.evaluate(evalMessages);
-            
-            // 清洗 Markdown 代码块标记
-            String jsonStr = cleanJsonOutput(rawResponse);
-            
-            // 手动解析
-            com.google.gson.Gson gson = new com.google.gson.Gson();
-            EvaluationResult result = gson.fromJson(jsonStr, EvaluationResult.class);
+            EvaluationResult result;
+            if (evaluationBatcher != null) {
+                // 与同一阶段的其他会话合并为一次请求
+                result = evaluationBatcher.evaluate(currentPhase, systemPrompt, lastUserContent);
+            } else {
+                // 调用 LLM（开启 JSON 模式时模型直接输出 JSON 对象）
+                List<dev.langchain4j.data.message.ChatMessage> evalMessages = new ArrayList<>();
+                evalMessages.add(dev.langchain4j.data.message.SystemMessage.from(systemPrompt));
+                evalMessages.add(dev.langchain4j.data.message.UserMessage.from(lastUserContent));
+
+                String rawResponse = deepTalentAgent.evaluate(evalMessages);
+
+                // 解析并校验（容忍代码块、说明文字与常见格式问题）
+                result = evaluationParser.parse(rawResponse, currentPhase);
+            }
             
             // 更新画像信息 (Extractions)
             Map<String, List<Extraction>> profile = state.getUserProfile();
@@ -247,8 +628,12 @@ public class InterviewServiceImpl implements InterviewService {
             state.setLastEval(result);
             state.setUserProfile(profile);
             
+        } catch (LlmOverloadedException e) {
+            // 模型过载时不按追问降级，本轮直接失败，客户端按 Retry-After 重试，不再为访谈节点排队
+            throw e;
         } catch (Exception e) {
             log.error("Evaluator failed", e);
+            metrics.evaluatorFallback(currentPhase);
             // 降级策略：如果解析失败，默认进行追问
             state.setNeedFollowup(true);
             EvaluationResult fallback = new EvaluationResult();
@@ -314,22 +699,102 @@ public class InterviewServiceImpl implements InterviewService {
         return "interviewer";
     }
 
+    /**
+     * 摘要节点：在后台把上一段摘要之后的对话压缩为已结束阶段的摘要，并以此起草该阶段的报告分节
+     * 本轮不等待摘要，摘要落库之前的提示词仍携带原始消息；摘要生成失败时分节以原始对话起草
+     *
+     * @param completedPhase 刚结束的阶段
+     */
+    private void summarizerNode(String threadId, DeepTalentState state, Phase completedPhase) {
+        if (summarizer == null && reportDrafter == null) {
+            return;
+        }
+        int from = state.getSummarizedUpTo();
+        int to = state.getTotalMessageCount();
+        // 输入在调用线程上复制，后台任务不会读取之后被修改的会话状态
+        List<Message> transcript = List.copyOf(loadTranscript(threadId, state, from));
+        List<Extraction> extractions = state.getUserProfile().get(completedPhase.getValue());
+        if (summarizer == null || from >= to) {
+            reportDrafter.draftAsync(threadId, completedPhase, PhaseSummarizer.transcriptText(transcript), extractions);
+            return;
+        }
+        CompletableFuture<String> summary = summarizer.summarizeAsync(completedPhase, transcript,
+                text -> saveSummary(threadId, new PhaseSummary(completedPhase.getValue(), text, from, to)));
+        if (reportDrafter != null) {
+            reportDrafter.draftAsync(threadId, completedPhase,
+                    summary.thenApply(text -> text != null ? text : PhaseSummarizer.transcriptText(transcript)), extractions);
+        }
+    }
+
+    /**
+     * 保存后台生成的阶段摘要
+     * 在会话锁内重新加载状态后追加，生成期间已经保存的后续轮次不受影响。
+     * 生成摘要的那一轮没有保存、或期间已有其他摘要落库时丢弃，该段消息保留原文，下一个阶段结束时一并摘要
+     */
+    private void saveSummary(String threadId, PhaseSummary summary) {
+        try {
+            sessionLocks.withLock(threadId, () -> {
+                DeepTalentState state = loadState(threadId);
+                if (state.getSummarizedUpTo() != summary.getFromSequence()
+                        || state.getTotalMessageCount() < summary.getToSequence()) {
+                    log.debug("Discarding stale summary of phase {} for thread {}", summary.getPhase(), threadId);
+                    return null;
+                }
+                state.getPhaseSummaries().add(summary);
+                saveState(threadId, state);
+                return null;
+            });
+        } catch (RuntimeException e) {
+            log.warn("Failed to save summary of phase {} for thread {}, keeping raw messages: {}",
+                    summary.getPhase(), threadId, e.toString());
+        }
+    }
+
+    /**
+     * 获取 sequence 从 from 开始的全部消息
+     * 尾部窗口之前、只保存在数据库中的部分按需补齐
+     */
+    private List<Message> loadTranscript(String threadId, DeepTalentState state, int from) {
+        int offset = state.getMessageOffset();
+        if (from >= offset) {
+            List<Message> messages = state.getMessages();
+            return messages.subList(Math.min(from - offset, messages.size()), messages.size());
+        }
+        List<Message> transcript = new ArrayList<>(persistenceService.loadMessages(threadId, from, offset));
+        transcript.addAll(state.getMessages());
+        return transcript;
+    }
+
     /**
      * 写作节点：生成最终天赋画像报告
+     * 各阶段分节都已起草时只生成综合部分，再与分节拼接；
+     * 否则上下文为已结束阶段的摘要加上摘要之后的原始消息，
+     * 没有摘要时需要完整的对话历史，先补齐尾部窗口之前、只保存在数据库中的早期消息
      */
-    private DeepTalentState writerNode(DeepTalentState state) {
+    private DeepTalentState writerNode(String threadId, DeepTalentState state, ChatStreamListener listener) {
+        if (reportDrafter != null) {
+            Map<Phase, String> sections = reportDrafter.awaitSections(threadId);
+            if (ReportDrafter.isComplete(sections)) {
+                String report = mergeSections(sections, listener);
+                state.setFinalReport(report);
+                state.getMessages().add(new Message("assistant", report));
+                return state;
+            }
+            log.info("Report sections of thread {} are incomplete ({}), writing the full report", threadId, sections.keySet());
+        }
         Map<String, List<Extraction>> profile = state.getUserProfile();
         
         // 填充 Prompt
-        String promptTemplate = promptService.getPrompt(Prompts.WRITER_SYSTEM_PROMPT);
-        String prompt = promptTemplate.replace("{user_profile}", String.valueOf(profile));
+        String prompt = promptService.getTemplate(Prompts.WRITER_SYSTEM_PROMPT).render("user_profile", profile);
         
-        // 构建上下文：历史消息
-        List<dev.langchain4j.data.message.ChatMessage> history = convertMessages(state.getMessages());
-        history.add(0, dev.langchain4j.data.message.SystemMessage.from(prompt));
+        // 构建上下文：阶段摘要 + 尚未被摘要的历史消息
+        List<Message> transcript = loadTranscript(threadId, state, state.getSummarizedUpTo());
+        List<dev.langchain4j.data.message.ChatMessage> history = convertMessages(transcript);
+        history.add(0, dev.langchain4j.data.message.SystemMessage.from(
+                PhaseSummarizer.withSummaries(prompt, state.getPhaseSummaries())));
         
         // 调用 LLM 生成报告
-        String response = deepTalentAgent.chat(history);
+        String response = generate(history, listener);
         
         // 保存报告
         state.setFinalReport(response);
@@ -338,10 +803,99 @@ public class InterviewServiceImpl implements InterviewService {
         return state;
     }
     
+    /**
+     * 综合各阶段分节：只生成摘要、核心天赋等综合部分，阶段洞见直接使用起草好的分节
+     * 流式输出时依次推送标题、综合部分与分节
+     */
+    private String mergeSections(Map<Phase, String> sections, ChatStreamListener listener) {
+        if (listener != null) {
+            listener.onToken(ReportDrafter.REPORT_TITLE);
+        }
+        String synthesis = generate(reportDrafter.buildMergeHistory(sections), listener);
+        if (listener != null) {
+            listener.onToken(ReportDrafter.sectionsAppendix(sections));
+        }
+        return ReportDrafter.assemble(synthesis, sections);
+    }
+
+    /**
+     * 调用 LLM 生成回复
+     * 没有监听器时走阻塞调用；有监听器且配置了流式模型时逐段推送，并阻塞到生成结束
+     *
+     * @param history  完整的上下文消息
+     * @param listener 流式回调，可为 null
+     * @return 完整的回复内容
+     */
+    private String generate(List<dev.langchain4j.data.message.ChatMessage> history, ChatStreamListener listener) {
+        if (listener == null) {
+            return deepTalentAgent.chat(history);
+        }
+        if (streamingChatModel == null) {
+            String response = deepTalentAgent.chat(history);
+            listener.onToken(response);
+            return response;
+        }
+
+        long start = System.nanoTime();
+        long[] firstToken = {0};
+        CompletableFuture<Response<AiMessage>> done = new CompletableFuture<>();
+        // 放弃等待后不再向客户端推送后续片段
+        AtomicBoolean abandoned = new AtomicBoolean();
+        streamingChatModel.generate(history, new StreamingResponseHandler<AiMessage>() {
+            @Override
+            public void onNext(String token) {
+                if (abandoned.get()) {
+                    return;
+                }
+                if (firstToken[0] == 0) {
+                    firstToken[0] = System.nanoTime();
+                }
+                listener.onToken(token);
+            }
+
+            @Override
+            public void onComplete(Response<AiMessage> response) {
+                done.complete(response);
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                done.completeExceptionally(error);
+            }
+        });
+        String response;
+        try {
+            // 模型既不结束也不报错时不能无限等待：请求线程还持有会话锁
+            Response<AiMessage> completed = done.get(streamTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            // 回到调用线程后记录 token 用量，沿用当前节点的阶段标签
+            metrics.recordTokens(completed.tokenUsage());
+            response = completed.content().text();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Streaming generation failed", e.getCause());
+        } catch (TimeoutException e) {
+            abandoned.set(true);
+            done.cancel(false);
+            throw new IllegalStateException("Streaming generation did not finish within " + streamTimeout, e);
+        } catch (InterruptedException e) {
+            // 异步调用被取消或超时
+            abandoned.set(true);
+            done.cancel(false);
+            Thread.currentThread().interrupt();
+            CancellationException cancelled = new CancellationException("Streaming generation was cancelled");
+            cancelled.initCause(e);
+            throw cancelled;
+        }
+        long end = System.nanoTime();
+        log.debug("Streamed {} chars: ttft={} ms, total={} ms", response.length(),
+                firstToken[0] == 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(firstToken[0] - start),
+                TimeUnit.NANOSECONDS.toMillis(end - start));
+        return response;
+    }
+
     /**
      * 将业务消息转换为 LangChain4j 消息
      */
-    private List<dev.langchain4j.data.message.ChatMessage> convertMessages(List<Message> messages) {
+    public static List<dev.langchain4j.data.message.ChatMessage> convertMessages(List<Message> messages) {
         List<dev.langchain4j.data.message.ChatMessage> chatMessages = new ArrayList<>();
         for (Message msg : messages) {
             if ("user".equals(msg.getRole())) {
@@ -0,0 +1,234 @@
+package com.deeptalent.service.impl;
+
+import com.deeptalent.domain.enums.Phase;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 访谈节点推测执行器
+ * 评估节点与访谈节点原本串行，每轮要等两次完整的 LLM 延迟。
+ * 绝大多数轮次路由结果仍是“同一阶段继续访谈”，因此在评估开始的同时
+ * 以评估前的状态提前生成下一个问题：
+ *
+ * <ul>
+ *     <li>命中：路由确认仍在同一阶段、同一轮次走访谈分支且无需追问，直接采用推测结果，本轮只等 max(评估, 访谈)</li>
+ *     <li>未命中：阶段切换、进入报告或评估要求追问，丢弃推测结果（尽量取消调用），按原流程重新生成</li>
+ *     <li>推测调用失败同样按未命中处理，不影响本轮结果</li>
+ *     <li>评估或后续节点失败、本轮被取消时，调用方在 finally 中丢弃推测；每次推测只结算一次，已采用的推测不受影响</li>
+ * </ul>
+ *
+ * 推测生成的问题看不到本轮评估结果：需要追问时追问问题正依赖这部分上下文，一律重新生成；
+ * 其余轮次以一次 LLM 延迟换取评估理由等上下文，因此默认关闭
+ *
+ * @author 小阳
+ * @date 2026-10-18
+ * @version 1.0.0
+ */
+public class InterviewSpeculator {
+
+    private static final Logger log = LoggerFactory.getLogger(InterviewSpeculator.class);
+
+    private final AsyncTaskExecutor executor;
+
+    private final LongAdder attempts = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder savedNanos = new LongAdder();
+
+    public InterviewSpeculator(AsyncTaskExecutor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * 提前发起访谈节点的 LLM 调用
+     *
+     * @param phase         推测所基于的阶段
+     * @param dialogueCount 推测所基于的轮次（调用前）
+     * @param call          生成问题的调用，需自带完整上下文，不能再读取会话状态
+     * @return 推测句柄；线程池已满时返回 null，本轮按原流程执行
+     */
+    public Speculation start(Phase phase, int dialogueCount, Supplier<String> call) {
+        long startNanos = System.nanoTime();
+        Future<Speculation.Result> future;
+        try {
+            future = executor.submit(() -> {
+                String response = call.get();
+                return new Speculation.Result(response, System.nanoTime() - startNanos);
+            });
+        } catch (TaskRejectedException e) {
+            log.debug("Speculation skipped, executor saturated");
+            return null;
+        }
+        attempts.increment();
+        return new Speculation(phase, dialogueCount, startNanos, future);
+    }
+
+    /**
+     * 路由确认走访谈分支后尝试采用推测结果
+     *
+     * @param speculation   推测句柄
+     * @param phase         路由后的阶段
+     * @param dialogueCount 路由后的轮次
+     * @param followup      本轮评估是否要求追问
+     * @return 推测生成的问题；需要追问、阶段或轮次不一致、调用失败时返回 null，调用方需重新生成
+     */
+    public String commit(Speculation speculation, Phase phase, int dialogueCount, boolean followup) {
+        // 追问问题来自本轮评估结果，推测调用构建上下文时还没有这部分内容
+        if (followup || speculation.phase != phase || speculation.dialogueCount != dialogueCount) {
+            discard(speculation);
+            return null;
+        }
+        if (!speculation.settle()) {
+            return null;
+        }
+        // 评估与路由已结束，此刻到推测开始的时间即串行执行时访谈节点之前的等待
+        long evaluationNanos = System.nanoTime() - speculation.startNanos;
+        Speculation.Result result;
+        try {
+            result = speculation.future.get();
+        } catch (InterruptedException e) {
+            misses.increment();
+            speculation.future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for speculative interviewer", e);
+        } catch (ExecutionException e) {
+            failures.increment();
+            log.warn("Speculative interviewer failed, falling back to sequential call: {}", e.getCause().toString());
+            return null;
+        }
+        hits.increment();
+        // 串行耗时 = 评估 + 访谈，并行耗时 ≈ max(评估, 访谈)，节省 min(评估, 访谈)
+        long saved = Math.min(evaluationNanos, result.nanos);
+        savedNanos.add(saved);
+        log.debug("Speculation hit: saved {} ms", TimeUnit.NANOSECONDS.toMillis(saved));
+        return result.response;
+    }
+
+    /**
+     * 丢弃推测结果并尽量取消仍在进行的调用，已结算（采用或丢弃过）的推测不再处理
+     *
+     * @param speculation 推测句柄
+     */
+    public void discard(Speculation speculation) {
+        if (!speculation.settle()) {
+            return;
+        }
+        misses.increment();
+        speculation.future.cancel(true);
+        log.debug("Speculation miss: phase {} / turn {} no longer applies", speculation.phase, speculation.dialogueCount);
+    }
+
+    /**
+     * 获取推测执行统计信息
+     *
+     * @return 统计快照
+     */
+    public SpeculationStats getStats() {
+        return new SpeculationStats(attempts.sum(), hits.sum(), misses.sum(), failures.sum(), savedNanos.sum());
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    /**
+     * @return 命中时累计节省的延迟（纳秒）
+     */
+    public long getSavedNanos() {
+        return savedNanos.sum();
+    }
+
+    /**
+     * 一次推测执行
+     */
+    public static class Speculation {
+        private final Phase phase;
+        private final int dialogueCount;
+        private final long startNanos;
+        private final Future<Result> future;
+        private final AtomicBoolean settled = new AtomicBoolean();
+
+        private Speculation(Phase phase, int dialogueCount, long startNanos, Future<Result> future) {
+            this.phase = phase;
+            this.dialogueCount = dialogueCount;
+            this.startNanos = startNanos;
+            this.future = future;
+        }
+
+        /**
+         * @return 首次结算时返回 true
+         */
+        private boolean settle() {
+            return settled.compareAndSet(false, true);
+        }
+
+        private record Result(String response, long nanos) {
+        }
+    }
+
+    /**
+     * 推测执行统计快照
+     */
+    @Getter
+    public static class SpeculationStats {
+        private final long attempts;
+        private final long hits;
+        private final long misses;
+        private final long failures;
+        private final long savedNanos;
+
+        public SpeculationStats(long attempts, long hits, long misses, long failures, long savedNanos) {
+            this.attempts = attempts;
+            this.hits = hits;
+            this.misses = misses;
+            this.failures = failures;
+            this.savedNanos = savedNanos;
+        }
+
+        /**
+         * 命中率 = 命中次数 / 已结算的推测次数
+         */
+        public double getHitRate() {
+            long settled = hits + misses + failures;
+            return settled == 0 ? 0 : (double) hits / settled;
+        }
+
+        /**
+         * 命中时平均每轮节省的延迟（毫秒）
+         */
+        public double getAvgSavedMillis() {
+            return hits == 0 ? 0 : savedNanos / 1_000_000.0 / hits;
+        }
+
+        @Override
+        public String toString() {
+            return "SpeculationStats{" +
+                    "attempts=" + attempts +
+                    ", hits=" + hits +
+                    ", misses=" + misses +
+                    ", failures=" + failures +
+                    ", hitRate=" + String.format("%.3f", getHitRate()) +
+                    ", avgSavedMillis=" + String.format("%.1f", getAvgSavedMillis()) +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.deeptalent.service.impl;
+
+import com.deeptalent.service.ai.DeepTalentAgent;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.model.chat.ChatLanguageModel;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.List;
+
+/**
+ * 评估调用的 JSON 模式
+ * 对话与评估共用同一个 AI Service，无法只对评估调用设置 response_format。
+ * 这里把 DeepTalentAgent 的 evaluate 转发给一个开启 JSON 模式（response_format=json_object）的模型实例，
+ * 其余方法仍由原 AI Service 处理，模型保证输出一个合法的 JSON 对象，评估结果不再因格式问题解析失败
+ *
+ * @author 小阳
+ * @date 2026-10-18
+ * @version 1.0.0
+ */
+public final class JsonModeEvaluation {
+
+    private JsonModeEvaluation() {
+    }
+
+    /**
+     * 创建 evaluate 走 JSON 模式模型的代理
+     * 使用 JDK 动态代理而不是实现类，避免 LangChain4j 按 AI Service 注解扫描时把实现类当作新的 AI Service
+     *
+     * @param agent     原 AI Service
+     * @param jsonModel 开启 JSON 模式的模型，不注册为 Bean，避免自动装配时出现多个模型候选
+     * @return 代理实例
+     */
+    @SuppressWarnings("unchecked")
+    public static DeepTalentAgent wrap(DeepTalentAgent agent, ChatLanguageModel jsonModel) {
+        return (DeepTalentAgent) Proxy.newProxyInstance(DeepTalentAgent.class.getClassLoader(),
+                new Class<?>[]{DeepTalentAgent.class}, (proxy, method, args) -> {
+                    if ("evaluate".equals(method.getName()) && method.getDeclaringClass() == DeepTalentAgent.class) {
+                        return jsonModel.generate((List<ChatMessage>) args[0]).content().text();
+                    }
+                    try {
+                        return method.invoke(agent, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+}
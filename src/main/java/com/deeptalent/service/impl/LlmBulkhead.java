@@ -0,0 +1,430 @@
+package com.deeptalent.service.impl;
+
+import com.deeptalent.service.LlmOverloadedException;
+import dev.ai4j.openai4j.OpenAiHttpException;
+import lombok.Getter;
+
+import java.io.InterruptedIOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.net.SocketTimeoutException;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * 单个上游模型的舱壁（并发隔离 + 准入控制）
+ * 限制同时发往同一模型的 LLM 请求数，超出的调用排队等待许可而不是直接打到上游：
+ *
+ * <ul>
+ *     <li>并发上限对应服务商的并发/速率配额；配置了 {@link AimdLimit} 时按调用耗时与过载类失败自适应调整，maxConcurrent 为其上界</li>
+ *     <li>公平排队：排队的会话按到达顺序获得许可，有会话排队时新到的调用不会插队</li>
+ *     <li>排队数达到 maxQueue 时直接拒绝，等待超过 maxWait 时放弃，均抛出 {@link LlmOverloadedException}，避免请求无限堆积</li>
+ * </ul>
+ *
+ * 配合虚拟线程使用时，成千上万个会话可以几乎零成本地排队等待许可
+ *
+ * @author 小阳
+ * @date 2026-10-18
+ * @version 1.0.0
+ */
+public class LlmBulkhead {
+
+    // 调用耗时滑动平均的权重，用于估算 Retry-After
+    private static final double LATENCY_WEIGHT = 0.1;
+
+    private static final long MIN_RETRY_AFTER_SECONDS = 1;
+
+    private final String model;
+    private final int maxConcurrent;
+    private final long maxWaitNanos;
+    private final int maxQueue;
+    private final AimdLimit adaptiveLimit;
+
+    private final ReentrantLock lock = new ReentrantLock(true);
+    private final Condition available = lock.newCondition();
+    private int inflight;
+    private int waiting;
+    private double averageLatencyNanos;
+
+    private final LongAdder acquired = new LongAdder();
+    private final LongAdder rejectedQueueFull = new LongAdder();
+    private final LongAdder rejectedTimeout = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final AtomicLong maxWaitObservedNanos = new AtomicLong();
+
+    /**
+     * 固定并发上限、不限排队数的舱壁
+     *
+     * @param model         上游模型名称
+     * @param maxConcurrent 最大并发调用数
+     * @param maxWait       等待许可的最长时间
+     */
+    public LlmBulkhead(String model, int maxConcurrent, Duration maxWait) {
+        this(model, maxConcurrent, maxWait, Integer.MAX_VALUE, null);
+    }
+
+    /**
+     * @param model         上游模型名称
+     * @param maxConcurrent 最大并发调用数
+     * @param maxWait       等待许可的最长时间（排队超时）
+     * @param maxQueue      排队等待许可的调用数上限，超出时直接拒绝
+     * @param adaptiveLimit 自适应并发上限，为 null 时上限固定为 maxConcurrent
+     */
+    public LlmBulkhead(String model, int maxConcurrent, Duration maxWait, int maxQueue, AimdLimit adaptiveLimit) {
+        this.model = model;
+        this.maxConcurrent = maxConcurrent;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.maxQueue = Math.max(0, maxQueue);
+        this.adaptiveLimit = adaptiveLimit;
+    }
+
+    /**
+     * 在舱壁内执行一次调用
+     *
+     * @param call LLM 调用
+     * @return 调用结果
+     * @throws LlmOverloadedException 排队已满或等待许可超时
+     * @throws IllegalStateException  等待期间线程被中断
+     */
+    public <T> T execute(Supplier<T> call) {
+        long start = acquire();
+        Throwable error = null;
+        try {
+            return call.get();
+        } catch (RuntimeException | Error e) {
+            error = e;
+            throw e;
+        } finally {
+            release(start, System.nanoTime() - start, error);
+        }
+    }
+
+    /**
+     * 获取一个许可，调用结束后必须 release
+     *
+     * @return 获得许可的时间（System.nanoTime），release 时用于计算调用耗时
+     * @throws LlmOverloadedException 排队已满或等待许可超时
+     * @throws IllegalStateException  等待期间线程被中断
+     */
+    public long acquire() {
+        long start = System.nanoTime();
+        lock.lock();
+        try {
+            if (waiting > 0 || inflight >= limit()) {
+                if (waiting >= maxQueue) {
+                    rejectedQueueFull.increment();
+                    throw new LlmOverloadedException(model, true, retryAfter(), "Model " + model + " is saturated ("
+                            + inflight + " concurrent calls, " + waiting + " queued), please retry later");
+                }
+                await(start);
+            }
+            inflight++;
+        } finally {
+            lock.unlock();
+        }
+        long granted = System.nanoTime();
+        recordWait(granted - start);
+        acquired.increment();
+        return granted;
+    }
+
+    /**
+     * 排队等待许可，调用方已持有锁
+     */
+    private void await(long start) {
+        waiting++;
+        try {
+            long remaining = maxWaitNanos - (System.nanoTime() - start);
+            while (inflight >= limit()) {
+                if (remaining <= 0) {
+                    // 让出可能收到的唤醒，交给下一个排队的调用
+                    available.signal();
+                    recordWait(System.nanoTime() - start);
+                    rejectedTimeout.increment();
+                    throw new LlmOverloadedException(model, false, retryAfter(), "Model " + model + " is saturated ("
+                            + limit() + " concurrent calls), please retry later");
+                }
+                remaining = available.awaitNanos(remaining);
+            }
+        } catch (InterruptedException e) {
+            available.signal();
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for model " + model, e);
+        } finally {
+            waiting--;
+        }
+    }
+
+    /**
+     * 归还许可，并以本次调用的结果调整自适应上限
+     *
+     * @param acquiredAt acquire 的返回值
+     * @param failed     调用是否因上游过载而失败
+     */
+    public void release(long acquiredAt, boolean failed) {
+        release(acquiredAt, System.nanoTime() - acquiredAt, failed);
+    }
+
+    /**
+     * 归还许可，并以给定的耗时调整自适应上限（流式调用以首个片段的耗时代替整个流的耗时）
+     *
+     * @param acquiredAt acquire 的返回值
+     * @param latency    作为样本的调用耗时（纳秒）
+     * @param failed     调用是否因上游过载而失败
+     */
+    public void release(long acquiredAt, long latency, boolean failed) {
+        lock.lock();
+        try {
+            if (!failed) {
+                averageLatencyNanos = averageLatencyNanos == 0 ? latency
+                        : averageLatencyNanos + LATENCY_WEIGHT * (latency - averageLatencyNanos);
+            }
+            if (adaptiveLimit != null) {
+                adaptiveLimit.onSample(acquiredAt, latency, failed, inflight);
+            }
+            inflight--;
+            signalAvailable();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 按调用结果归还许可：成功与过载类失败（超时、429、5xx）作为自适应上限的样本；
+     * 被取消或中断的调用、请求本身有误（其他 4xx）等与上游负载无关的失败不作为样本
+     *
+     * @param acquiredAt acquire 的返回值
+     * @param latency    作为样本的调用耗时（纳秒）
+     * @param error      调用抛出的异常，成功时为 null
+     */
+    public void release(long acquiredAt, long latency, Throwable error) {
+        if (error == null) {
+            release(acquiredAt, latency, false);
+        } else if (!isCancellation(error) && isOverload(error)) {
+            release(acquiredAt, latency, true);
+        } else {
+            release();
+        }
+    }
+
+    /**
+     * 调用是否被取消：推测调用被丢弃、异步调用被取消或超时都会中断执行调用的线程
+     */
+    static boolean isCancellation(Throwable error) {
+        if (Thread.currentThread().isInterrupted()) {
+            return true;
+        }
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof InterruptedException || t instanceof CancellationException
+                    || (t instanceof InterruptedIOException && !(t instanceof SocketTimeoutException))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 失败是否说明上游过载：连接或读取超时、HTTP 429 与 5xx
+     */
+    static boolean isOverload(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof SocketTimeoutException || t instanceof HttpTimeoutException || t instanceof TimeoutException) {
+                return true;
+            }
+            if (t instanceof OpenAiHttpException http) {
+                return http.code() == 429 || http.code() >= 500;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 归还许可，不作为自适应上限的样本（调用没有到达上游、或结果与上游负载无关时使用）
+     */
+    public void release() {
+        lock.lock();
+        try {
+            inflight--;
+            signalAvailable();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 按空闲许可数唤醒排队的调用，调用方已持有锁
+     */
+    private void signalAvailable() {
+        for (int free = limit() - inflight; free > 0 && lock.hasWaiters(available); free--) {
+            available.signal();
+        }
+    }
+
+    /**
+     * 为接口实现创建一个经过舱壁的代理，接口的每个方法调用都占用一个许可
+     * 使用 JDK 动态代理而不是实现类，避免 LangChain4j 按 AI Service 注解扫描时把实现类当作新的 AI Service
+     *
+     * @param type   接口类型
+     * @param target 被代理的实例
+     * @return 代理实例
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T guard(Class<T> type, T target) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return method.invoke(target, args);
+            }
+            long start = acquire();
+            Throwable error = null;
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                error = e.getCause();
+                throw error;
+            } finally {
+                release(start, System.nanoTime() - start, error);
+            }
+        });
+    }
+
+    /**
+     * 当前是否已无空闲许可，此时发起的调用需要排队
+     *
+     * @return 在途调用数达到当前上限时返回 true
+     */
+    public boolean isSaturated() {
+        lock.lock();
+        try {
+            return inflight >= limit();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return 当前并发上限
+     */
+    public int getLimit() {
+        return limit();
+    }
+
+    /**
+     * @return 在途调用数
+     */
+    public int getInflight() {
+        lock.lock();
+        try {
+            return inflight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return 排队等待许可的调用数
+     */
+    public int getWaiting() {
+        lock.lock();
+        try {
+            return waiting;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    public long getRejectedQueueFull() {
+        return rejectedQueueFull.sum();
+    }
+
+    public long getRejectedTimeout() {
+        return rejectedTimeout.sum();
+    }
+
+    private int limit() {
+        return adaptiveLimit != null ? adaptiveLimit.getLimit() : maxConcurrent;
+    }
+
+    /**
+     * 建议的重试间隔：成功调用的平均耗时，即大约一个许可被归还所需的时间，不少于 1 秒
+     */
+    private Duration retryAfter() {
+        long seconds = (long) Math.ceil(averageLatencyNanos / TimeUnit.SECONDS.toNanos(1));
+        return Duration.ofSeconds(Math.max(MIN_RETRY_AFTER_SECONDS, seconds));
+    }
+
+    private void recordWait(long waited) {
+        waitNanos.add(waited);
+        maxWaitObservedNanos.accumulateAndGet(waited, Math::max);
+    }
+
+    /**
+     * 获取舱壁统计信息
+     *
+     * @return 统计快照
+     */
+    public BulkheadStats getStats() {
+        lock.lock();
+        try {
+            return new BulkheadStats(model, maxConcurrent, limit(), inflight, waiting, acquired.sum(),
+                    rejectedQueueFull.sum() + rejectedTimeout.sum(), waitNanos.sum(), maxWaitObservedNanos.get());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 舱壁统计快照
+     */
+    @Getter
+    public static class BulkheadStats {
+        private final String model;
+        private final int maxConcurrent;
+        private final int limit;
+        private final int inflight;
+        private final int waiting;
+        private final long acquired;
+        private final long rejected;
+        private final long totalWaitNanos;
+        private final long maxWaitNanos;
+
+        public BulkheadStats(String model, int maxConcurrent, int limit, int inflight, int waiting, long acquired,
+                             long rejected, long totalWaitNanos, long maxWaitNanos) {
+            this.model = model;
+            this.maxConcurrent = maxConcurrent;
+            this.limit = limit;
+            this.inflight = inflight;
+            this.waiting = waiting;
+            this.acquired = acquired;
+            this.rejected = rejected;
+            this.totalWaitNanos = totalWaitNanos;
+            this.maxWaitNanos = maxWaitNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "BulkheadStats{" +
+                    "model='" + model + '\'' +
+                    ", maxConcurrent=" + maxConcurrent +
+                    ", limit=" + limit +
+                    ", inflight=" + inflight +
+                    ", waiting=" + waiting +
+                    ", acquired=" + acquired +
+                    ", rejected=" + rejected +
+                    ", totalWaitNanos=" + totalWaitNanos +
+                    ", maxWaitNanos=" + maxWaitNanos +
+                    '}';
+        }
+    }
+}
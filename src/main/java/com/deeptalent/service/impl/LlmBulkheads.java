@@ -0,0 +1,85 @@
+package com.deeptalent.service.impl;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * 按上游模型划分的舱壁集合
+ * 同一模型的所有调用（阻塞调用、流式调用、推测调用）共享一个舱壁，不同模型互不影响；
+ * 开启自适应上限时每个舱壁各自维护一个 {@link AimdLimit}，以该模型的最大并发为上界
+ *
+ * @author 小阳
+ * @date 2026-10-18
+ * @version 1.0.0
+ */
+public class LlmBulkheads {
+
+    private final int defaultMaxConcurrent;
+    private final Map<String, Integer> maxConcurrentByModel;
+    private final Duration maxWait;
+    private final int maxQueue;
+    private final IntFunction<AimdLimit> adaptiveLimits;
+    private final Consumer<LlmBulkhead> onCreate;
+    private final Map<String, LlmBulkhead> bulkheads = new ConcurrentHashMap<>();
+
+    /**
+     * 固定并发上限、不限排队数的舱壁集合
+     *
+     * @param defaultMaxConcurrent 未单独配置的模型的最大并发调用数
+     * @param maxConcurrentByModel 按模型名称单独配置的最大并发调用数
+     * @param maxWait              等待许可的最长时间
+     */
+    public LlmBulkheads(int defaultMaxConcurrent, Map<String, Integer> maxConcurrentByModel, Duration maxWait) {
+        this(defaultMaxConcurrent, maxConcurrentByModel, maxWait, Integer.MAX_VALUE, null, bulkhead -> {});
+    }
+
+    /**
+     * @param defaultMaxConcurrent 未单独配置的模型的最大并发调用数
+     * @param maxConcurrentByModel 按模型名称单独配置的最大并发调用数
+     * @param maxWait              等待许可的最长时间
+     * @param maxQueue             每个模型排队等待许可的调用数上限
+     * @param adaptiveLimits       按模型的最大并发创建自适应上限，为 null 时上限固定
+     * @param onCreate             舱壁创建后的回调，用于注册监控指标
+     */
+    public LlmBulkheads(int defaultMaxConcurrent, Map<String, Integer> maxConcurrentByModel, Duration maxWait,
+                        int maxQueue, IntFunction<AimdLimit> adaptiveLimits, Consumer<LlmBulkhead> onCreate) {
+        this.defaultMaxConcurrent = defaultMaxConcurrent;
+        this.maxConcurrentByModel = Map.copyOf(maxConcurrentByModel);
+        this.maxWait = maxWait;
+        this.maxQueue = maxQueue;
+        this.adaptiveLimits = adaptiveLimits;
+        this.onCreate = onCreate;
+    }
+
+    /**
+     * 获取指定模型的舱壁，首次访问时创建
+     *
+     * @param model 上游模型名称
+     * @return 舱壁
+     */
+    public LlmBulkhead forModel(String model) {
+        return bulkheads.computeIfAbsent(model, m -> {
+            int maxConcurrent = maxConcurrentByModel.getOrDefault(m, defaultMaxConcurrent);
+            LlmBulkhead bulkhead = new LlmBulkhead(m, maxConcurrent, maxWait, maxQueue,
+                    adaptiveLimits != null ? adaptiveLimits.apply(maxConcurrent) : null);
+            onCreate.accept(bulkhead);
+            return bulkhead;
+        });
+    }
+
+    /**
+     * 获取全部舱壁的统计信息
+     *
+     * @return 统计快照列表
+     */
+    public List<LlmBulkhead.BulkheadStats> getStats() {
+        List<LlmBulkhead.BulkheadStats> stats = new ArrayList<>();
+        bulkheads.values().forEach(bulkhead -> stats.add(bulkhead.getStats()));
+        return stats;
+    }
+}
@@ -1,31 +1,57 @@
 package com.deeptalent.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.deeptalent.config.DeepTalentProperties;
 import com.deeptalent.domain.ai.Message;
 import com.deeptalent.domain.entity.ConversationEntity;
 import com.deeptalent.domain.entity.ExtractionEntity;
 import com.deeptalent.domain.entity.MessageEntity;
-import com.deeptalent.domain.enums.Phase;
+import com.deeptalent.domain.entity.PhaseSummaryEntity;
+import com.deeptalent.domain.enums.StateChange;
 import com.deeptalent.domain.model.DeepTalentState;
+import com.deeptalent.domain.model.EvaluationResult;
 import com.deeptalent.domain.model.Extraction;
+import com.deeptalent.domain.model.PersistenceWatermark;
+import com.deeptalent.domain.model.PhaseSummary;
 import com.deeptalent.mapper.ConversationMapper;
 import com.deeptalent.mapper.ExtractionMapper;
 import com.deeptalent.mapper.MessageMapper;
+import com.deeptalent.mapper.PhaseSummaryMapper;
+import com.deeptalent.mapper.StateHydrationMapper;
 import com.deeptalent.service.PersistenceService;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
 
 /**
  * 持久化服务实现类
- * 基于 MyBatis Plus 实现会话状态的数据库存取
+ * 基于 MyBatis Plus 实现会话状态的数据库存取。
+ * dt_conversation.state_snapshot 保存状态快照用于快速恢复，
+ * dt_message / dt_extraction / dt_phase_summary 作为可查询的规范化投影同步维护。
+ * 长会话只在快照与内存中保留最近 historyWindow 条消息，更早的消息由 loadMessages 按 sequence 键集分页按需加载，
+ * 每轮的加载耗时与内存占用不再随对话长度增长。
+ * 写入统计以 deeptalent.persistence.saves / statements（result=executed|skipped）、
+ * deeptalent.persistence.skipped_columns 与 deeptalent.persistence.paged_messages 指标导出
  *
  * @author 小阳
  * @date 2025-12-28
@@ -33,146 +59,454 @@ import java.util.stream.Collectors;
  */
 @Service
 @Transactional
-public class PersistenceServiceImpl implements PersistenceService {
+public class PersistenceServiceImpl implements PersistenceService, MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(PersistenceServiceImpl.class);
+
+    /**
+     * 一次完整保存最多发出的写语句类别：会话行、消息批量插入、特征批量插入
+     */
+    private static final int WRITE_STATEMENTS = 3;
+
+    /**
+     * 会话行上可按需跳过的列：current_phase、dialogue_count、need_followup、last_eval、final_report
+     */
+    private static final int OPTIONAL_COLUMNS = 5;
+
+    /**
+     * 不限制窗口时传给水合查询的消息条数，足够大且 MAX(sequence) 减去它不会溢出 INT
+     */
+    private static final int UNBOUNDED_WINDOW = Integer.MAX_VALUE / 2;
 
     private final ConversationMapper conversationMapper;
     private final MessageMapper messageMapper;
     private final ExtractionMapper extractionMapper;
+    private final PhaseSummaryMapper phaseSummaryMapper;
+    private final StateHydrationMapper stateHydrationMapper;
     private final ObjectMapper objectMapper;
+    private final DeepTalentProperties properties;
+
+    private final LongAdder saves = new LongAdder();
+    private final LongAdder skippedSaves = new LongAdder();
+    private final LongAdder statements = new LongAdder();
+    private final LongAdder skippedStatements = new LongAdder();
+    private final LongAdder skippedColumns = new LongAdder();
+    private final LongAdder pagedMessages = new LongAdder();
 
     public PersistenceServiceImpl(
             ConversationMapper conversationMapper,
             MessageMapper messageMapper,
             ExtractionMapper extractionMapper,
-            ObjectMapper objectMapper) {
+            PhaseSummaryMapper phaseSummaryMapper,
+            StateHydrationMapper stateHydrationMapper,
+            ObjectMapper objectMapper,
+            DeepTalentProperties properties) {
         this.conversationMapper = conversationMapper;
         this.messageMapper = messageMapper;
         this.extractionMapper = extractionMapper;
+        this.phaseSummaryMapper = phaseSummaryMapper;
+        this.stateHydrationMapper = stateHydrationMapper;
         this.objectMapper = objectMapper;
+        this.properties = properties;
     }
 
     /**
      * 加载会话状态
-     * 从多个规范化表中组装 DeepTalentState 对象
+     * 优先通过主键读取 dt_conversation 中的状态快照一次性恢复；
+     * 没有快照的旧数据再用一条 UNION ALL 语句从规范化表中组装。
+     * 两种方式都只恢复最近 historyWindow 条消息；未启用阶段摘要时不恢复已生成的摘要
      */
     @Override
     @Transactional(readOnly = true)
     public DeepTalentState loadState(String threadId) {
-        // 1. 查询会话基础信息
         ConversationEntity convEntity = conversationMapper.selectById(threadId);
         if (convEntity == null) {
             return new DeepTalentState();
         }
 
-        DeepTalentState state = new DeepTalentState();
-        
-        // 2. 还原基础属性
-        state.setCurrentPhase(Phase.valueOf(convEntity.getCurrentPhase().toUpperCase()));
-        state.setDialogueCount(convEntity.getDialogueCount() != null ? convEntity.getDialogueCount() : 0);
-        state.setNeedFollowup(Boolean.TRUE.equals(convEntity.getNeedFollowup()));
-        state.setFinalReport(convEntity.getFinalReport());
-
-        // 3. 查询并组装消息列表
-        List<MessageEntity> msgEntities = messageMapper.selectList(
-                new LambdaQueryWrapper<MessageEntity>()
-                        .eq(MessageEntity::getThreadId, threadId)
-                        .orderByAsc(MessageEntity::getSequence)
-        );
-        List<Message> messages = msgEntities.stream()
-                .map(e -> new Message(e.getRole(), e.getContent()))
-                .collect(Collectors.toList());
-        state.setMessages(messages);
-        
-        // 恢复 threadName (取第一条消息的 threadName，如果存在)
-        if (!msgEntities.isEmpty()) {
-            state.setThreadName(msgEntities.get(0).getThreadName());
-        }
-
-        // 4. 查询并组装用户画像 (Extractions)
-        List<ExtractionEntity> extEntities = extractionMapper.selectList(
-                new LambdaQueryWrapper<ExtractionEntity>()
-                        .eq(ExtractionEntity::getThreadId, threadId)
-        );
-        
-        Map<String, List<Extraction>> userProfile = new HashMap<>();
-        for (ExtractionEntity ext : extEntities) {
-            String phase = ext.getPhase();
-            Extraction extraction = new Extraction(ext.getTag(), ext.getEvidence(), phase, ext.getConfidence());
-            userProfile.computeIfAbsent(phase, k -> new ArrayList<>()).add(extraction);
-        }
-        state.setUserProfile(userProfile);
-
-        return state;
+        if (convEntity.getStateSnapshot() != null) {
+            try {
+                DeepTalentState state = StateSnapshotCodec.decode(convEntity.getStateSnapshot());
+                state.setFinalReport(convEntity.getFinalReport());
+                if (!properties.getSummary().isEnabled()) {
+                    state.getPhaseSummaries().clear();
+                }
+                StateHydrator.markPersisted(state);
+                return state;
+            } catch (IllegalArgumentException e) {
+                log.warn("Unreadable state snapshot for thread {}, falling back to normalized tables: {}", threadId, e.getMessage());
+            }
+        }
+
+        int window = properties.getPersistence().getHistoryWindow();
+        StateHydrator hydrator = new StateHydrator(objectMapper);
+        stateHydrationMapper.hydrate(threadId, window > 0 ? window : UNBOUNDED_WINDOW,
+                properties.getSummary().isEnabled(), hydrator);
+        return hydrator.getState();
+    }
+
+    /**
+     * 按 sequence 区间加载历史消息
+     * 以上一页最后一条的 sequence 作为下一页起点（键集分页），每页都是一次索引范围扫描
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<Message> loadMessages(String threadId, int fromSequence, int toSequence) {
+        List<Message> messages = new ArrayList<>(Math.max(0, toSequence - fromSequence));
+        int pageSize = Math.max(1, properties.getPersistence().getHistoryPageSize());
+        int next = fromSequence;
+        while (next < toSequence) {
+            List<MessageEntity> page = messageMapper.selectRange(threadId, next, toSequence, pageSize);
+            for (MessageEntity entity : page) {
+                messages.add(new Message(entity.getRole(), entity.getContent()));
+            }
+            if (page.size() < pageSize) {
+                break;
+            }
+            next = page.get(page.size() - 1).getSequence() + 1;
+        }
+        pagedMessages.add(messages.size());
+        return messages;
     }
 
     /**
      * 保存会话状态
-     * 将 DeepTalentState 拆解并保存到多个表中
+     * 将 DeepTalentState 拆解并保存到多个表中。
+     * 根据 detectChanges 的结果只发出必要的写语句：没有变化时直接返回；
+     * 会话行只更新变化的列；消息与特征按水位线增量追加，只写入上次落库之后新增的记录
      */
     @Override
     @Transactional(rollbackFor = Exception.class)
     public void saveState(String threadId, DeepTalentState state) {
+        PersistenceWatermark watermark = state.getWatermark();
+        EnumSet<StateChange> changes = state.detectChanges();
+        saves.increment();
+        if (changes.isEmpty()) {
+            // 自上次落库以来没有任何变化
+            skippedSaves.increment();
+            skippedStatements.add(WRITE_STATEMENTS);
+            skippedColumns.add(OPTIONAL_COLUMNS);
+            return;
+        }
+        resetOnRollback(watermark);
+        int issued = 0;
+
         // 1. 保存或更新会话基础信息
-        ConversationEntity convEntity = conversationMapper.selectById(threadId);
-        boolean isNew = (convEntity == null);
-        
+        // 水位线已同步过说明会话行存在，直接更新，省去一次 selectById
+        boolean isNew;
+        if (watermark.isTracked()) {
+            isNew = updateConversation(threadId, state, changes) == 0;
+            issued++;
+        } else {
+            isNew = conversationMapper.selectById(threadId) == null;
+            issued++;
+            if (!isNew) {
+                updateConversation(threadId, state, changes);
+                issued++;
+            }
+        }
+
         if (isNew) {
-            convEntity = new ConversationEntity();
+            // 会话行不存在（新会话或已被外部删除），插入完整的一行
+            ConversationEntity convEntity = new ConversationEntity();
             convEntity.setThreadId(threadId);
+            convEntity.setCurrentPhase(state.getCurrentPhase().getValue());
+            convEntity.setDialogueCount(state.getDialogueCount());
+            convEntity.setNeedFollowup(state.isNeedFollowup());
+            convEntity.setFinalReport(state.getFinalReport());
+            convEntity.setLastEval(toJson(state.getLastEval()));
+            convEntity.setStateSnapshot(StateSnapshotCodec.encode(state, properties.getPersistence().getHistoryWindow()));
             convEntity.setCreatedAt(LocalDateTime.now());
-        }
-        
-        convEntity.setCurrentPhase(state.getCurrentPhase().getValue());
-        convEntity.setDialogueCount(state.getDialogueCount());
-        convEntity.setNeedFollowup(state.isNeedFollowup());
-        convEntity.setFinalReport(state.getFinalReport());
-        convEntity.setUpdatedAt(LocalDateTime.now());
-        
-        if (isNew) {
+            convEntity.setUpdatedAt(LocalDateTime.now());
             conversationMapper.insert(convEntity);
-        } else {
-            conversationMapper.updateById(convEntity);
+            issued++;
+            // 数据库中没有该会话，之前的水位线作废
+            watermark.reset();
+        } else if (!watermark.isTracked()) {
+            // 状态不是从数据库加载的，无法确定已落库的范围，退化为全量替换（窗口之前的消息只在数据库中，予以保留）
+            deleteMessagesFrom(threadId, state.getMessageOffset());
+            extractionMapper.delete(new LambdaQueryWrapper<ExtractionEntity>().eq(ExtractionEntity::getThreadId, threadId));
+            deleteSummaries(threadId);
+            issued += 3;
+            watermark.reset();
         }
 
-        // 2. 全量替换消息列表 (简化处理，实际生产可做增量)
-        // 删除旧消息
-        messageMapper.delete(new LambdaQueryWrapper<MessageEntity>().eq(MessageEntity::getThreadId, threadId));
-        // 插入新消息
+        // 2. 增量追加消息列表
+        int messageStatements = 0;
         List<Message> messages = state.getMessages();
         if (messages != null) {
-            for (int i = 0; i < messages.size(); i++) {
-                Message msg = messages.get(i);
+            // sequence 是消息在整个会话中的绝对位置，内存列表只是从 offset 开始的窗口
+            int offset = state.getMessageOffset();
+            int total = state.getTotalMessageCount();
+            int from = Math.max(watermark.getMessageCount(), offset);
+            if (watermark.getMessageCount() > total) {
+                // 内存中的历史比已落库的还短（被截断或回滚），重写窗口部分
+                deleteMessagesFrom(threadId, offset);
+                issued++;
+                from = offset;
+            }
+            List<MessageEntity> newMessages = new ArrayList<>(total - from);
+            for (int seq = from; seq < total; seq++) {
+                Message msg = messages.get(seq - offset);
                 MessageEntity msgEntity = new MessageEntity();
                 msgEntity.setThreadId(threadId);
                 msgEntity.setRole(msg.getRole());
                 msgEntity.setContent(msg.getContent());
-                msgEntity.setSequence(i);
+                msgEntity.setSequence(seq);
                 msgEntity.setThreadName(state.getThreadName());
                 msgEntity.setCreatedAt(LocalDateTime.now());
-                messageMapper.insert(msgEntity);
+                newMessages.add(msgEntity);
             }
+            messageStatements = insertInBatches(newMessages, messageMapper::insert, messageMapper::insertBatch);
+            watermark.advanceMessages(total);
         }
 
-        // 3. 全量替换特征提取记录
-        // 删除旧特征
-        extractionMapper.delete(new LambdaQueryWrapper<ExtractionEntity>().eq(ExtractionEntity::getThreadId, threadId));
-        // 插入新特征
+        // 3. 增量追加特征提取记录（各阶段新增的特征合并为一次批量写入）
+        int extractionStatements = 0;
         Map<String, List<Extraction>> profile = state.getUserProfile();
         if (profile != null) {
+            List<ExtractionEntity> newExtractions = new ArrayList<>();
+            for (Map.Entry<String, List<Extraction>> entry : profile.entrySet()) {
+                String phase = entry.getKey();
+                List<Extraction> extractions = entry.getValue();
+                if (extractions == null) {
+                    continue;
+                }
+                int from = watermark.getExtractionCount(phase);
+                if (from > extractions.size()) {
+                    // 该阶段的特征被删减过，重写该阶段
+                    extractionMapper.delete(new LambdaQueryWrapper<ExtractionEntity>()
+                            .eq(ExtractionEntity::getThreadId, threadId)
+                            .eq(ExtractionEntity::getPhase, phase));
+                    issued++;
+                    from = 0;
+                }
+                for (int i = from; i < extractions.size(); i++) {
+                    Extraction ext = extractions.get(i);
+                    ExtractionEntity extEntity = new ExtractionEntity();
+                    extEntity.setThreadId(threadId);
+                    extEntity.setPhase(phase);
+                    extEntity.setTag(ext.getTag());
+                    extEntity.setEvidence(ext.getEvidence());
+                    extEntity.setConfidence(ext.getConfidence());
+                    extEntity.setCreatedAt(LocalDateTime.now());
+                    newExtractions.add(extEntity);
+                }
+            }
+            extractionStatements = insertInBatches(newExtractions, extractionMapper::insert, extractionMapper::insertBatch);
             profile.forEach((phase, extractions) -> {
                 if (extractions != null) {
-                    for (Extraction ext : extractions) {
-                        ExtractionEntity extEntity = new ExtractionEntity();
-                        extEntity.setThreadId(threadId);
-                        extEntity.setPhase(phase);
-                        extEntity.setTag(ext.getTag());
-                        extEntity.setEvidence(ext.getEvidence());
-                        extEntity.setConfidence(ext.getConfidence());
-                        extEntity.setCreatedAt(LocalDateTime.now());
-                        extractionMapper.insert(extEntity);
-                    }
+                    watermark.advanceExtractions(phase, extractions.size());
                 }
             });
         }
+        // 4. 追加新的阶段摘要（每个阶段结束时才产生一条，不计入可跳过的写语句类别）
+        List<PhaseSummary> summaries = state.getPhaseSummaries();
+        if (summaries != null) {
+            int from = watermark.getSummaryCount();
+            if (from > summaries.size()) {
+                deleteSummaries(threadId);
+                issued++;
+                from = 0;
+            }
+            for (PhaseSummary summary : summaries.subList(from, summaries.size())) {
+                PhaseSummaryEntity entity = new PhaseSummaryEntity();
+                entity.setThreadId(threadId);
+                entity.setPhase(summary.getPhase());
+                entity.setSummary(summary.getSummary());
+                entity.setFromSequence(summary.getFromSequence());
+                entity.setToSequence(summary.getToSequence());
+                entity.setCreatedAt(LocalDateTime.now());
+                phaseSummaryMapper.insert(entity);
+                issued++;
+            }
+            watermark.advanceSummaries(summaries.size());
+        }
+        watermark.advanceConversation(state);
+
+        int skipped = (messageStatements == 0 ? 1 : 0) + (extractionStatements == 0 ? 1 : 0);
+        issued += messageStatements + extractionStatements;
+        statements.add(issued);
+        skippedStatements.add(skipped);
+        log.debug("Saved thread {}: changes={}, statements={}, skipped={}", threadId, changes, issued, skipped);
+    }
+
+    /**
+     * 按变化部分更新会话行
+     * 状态快照与更新时间总是写入，其余列只在对应部分变化时才出现在 SET 子句中，
+     * 避免每轮重复写入未变化的长文本（final_report）与评估 JSON
+     *
+     * @return 受影响行数，0 表示会话行不存在
+     */
+    private int updateConversation(String threadId, DeepTalentState state, EnumSet<StateChange> changes) {
+        LambdaUpdateWrapper<ConversationEntity> update = new LambdaUpdateWrapper<ConversationEntity>()
+                .eq(ConversationEntity::getThreadId, threadId)
+                .set(ConversationEntity::getStateSnapshot, StateSnapshotCodec.encode(state, properties.getPersistence().getHistoryWindow()))
+                .set(ConversationEntity::getUpdatedAt, LocalDateTime.now());
+        int skipped = 0;
+        if (changes.contains(StateChange.PROGRESS)) {
+            update.set(ConversationEntity::getCurrentPhase, state.getCurrentPhase().getValue())
+                    .set(ConversationEntity::getDialogueCount, state.getDialogueCount())
+                    .set(ConversationEntity::getNeedFollowup, state.isNeedFollowup());
+        } else {
+            skipped += 3;
+        }
+        if (changes.contains(StateChange.LAST_EVAL)) {
+            update.set(ConversationEntity::getLastEval, toJson(state.getLastEval()));
+        } else {
+            skipped++;
+        }
+        if (changes.contains(StateChange.FINAL_REPORT)) {
+            update.set(ConversationEntity::getFinalReport, state.getFinalReport());
+        } else {
+            skipped++;
+        }
+        skippedColumns.add(skipped);
+        return conversationMapper.update(null, update);
+    }
+
+    /**
+     * 删除 sequence 不小于 fromSequence 的消息
+     */
+    private void deleteMessagesFrom(String threadId, int fromSequence) {
+        messageMapper.delete(new LambdaQueryWrapper<MessageEntity>()
+                .eq(MessageEntity::getThreadId, threadId)
+                .ge(fromSequence > 0, MessageEntity::getSequence, fromSequence));
+    }
+
+    /**
+     * 删除会话的全部阶段摘要
+     */
+    private void deleteSummaries(String threadId) {
+        phaseSummaryMapper.delete(new LambdaQueryWrapper<PhaseSummaryEntity>().eq(PhaseSummaryEntity::getThreadId, threadId));
+    }
+
+    /**
+     * 注册写入统计指标，由 Spring Boot 在指标注册表创建后调用
+     * 指标直接读取计数器，不经过事务代理
+     */
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void bindTo(MeterRegistry registry) {
+        counter(registry, "deeptalent.persistence.saves", "Session state saves", "executed",
+                () -> saves.sum() - skippedSaves.sum());
+        counter(registry, "deeptalent.persistence.saves", "Session state saves", "skipped", skippedSaves::sum);
+        counter(registry, "deeptalent.persistence.statements", "Write statements per save", "executed", statements::sum);
+        counter(registry, "deeptalent.persistence.statements", "Write statements per save", "skipped", skippedStatements::sum);
+        FunctionCounter.builder("deeptalent.persistence.skipped_columns", skippedColumns, LongAdder::sum)
+                .description("Optional conversation columns left out of updates")
+                .register(registry);
+        FunctionCounter.builder("deeptalent.persistence.paged_messages", pagedMessages, LongAdder::sum)
+                .description("Messages loaded on demand outside the history window")
+                .register(registry);
+    }
+
+    private static void counter(MeterRegistry registry, String name, String description, String result,
+                                LongSupplier value) {
+        FunctionCounter.builder(name, value, LongSupplier::getAsLong)
+                .description(description)
+                .tag("result", result)
+                .register(registry);
+    }
+
+    /**
+     * 获取写入统计信息
+     * skippedStatements / saves 即平均每次保存省去的写语句数
+     *
+     * @return 统计快照
+     */
+    public PersistenceStats getStats() {
+        return new PersistenceStats(saves.sum(), skippedSaves.sum(), statements.sum(),
+                skippedStatements.sum(), skippedColumns.sum(), pagedMessages.sum());
+    }
+
+    /**
+     * 按配置的批大小分块写入，每块一条多行 INSERT 语句
+     * batchSize 小于等于 1 时逐行插入
+     *
+     * @return 发出的语句数
+     */
+    private <T> int insertInBatches(List<T> rows, Consumer<T> singleInsert, Consumer<List<T>> batchInsert) {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        int batchSize = properties.getPersistence().getBatchSize();
+        if (batchSize <= 1) {
+            rows.forEach(singleInsert);
+            return rows.size();
+        }
+        int issued = 0;
+        for (int start = 0; start < rows.size(); start += batchSize) {
+            batchInsert.accept(rows.subList(start, Math.min(start + batchSize, rows.size())));
+            issued++;
+        }
+        return issued;
+    }
+
+    private String toJson(EvaluationResult eval) {
+        if (eval == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(eval);
+        } catch (JsonProcessingException e) {
+            log.warn("Failed to serialize last evaluation", e);
+            return null;
+        }
+    }
+
+    /**
+     * 事务回滚时作废水位线，下次保存将按全量替换处理，避免漏写
+     */
+    private void resetOnRollback(PersistenceWatermark watermark) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    watermark.reset();
+                }
+            }
+        });
+    }
+
+    /**
+     * 写入统计快照
+     */
+    @Getter
+    public static class PersistenceStats {
+        private final long saves;
+        private final long skippedSaves;
+        private final long statements;
+        private final long skippedStatements;
+        private final long skippedColumns;
+        /**
+         * 通过 loadMessages 按需加载的窗口外消息条数
+         */
+        private final long pagedMessages;
+
+        public PersistenceStats(long saves, long skippedSaves, long statements, long skippedStatements,
+                                long skippedColumns, long pagedMessages) {
+            this.saves = saves;
+            this.skippedSaves = skippedSaves;
+            this.statements = statements;
+            this.skippedStatements = skippedStatements;
+            this.skippedColumns = skippedColumns;
+            this.pagedMessages = pagedMessages;
+        }
+
+        @Override
+        public String toString() {
+            return "PersistenceStats{" +
+                    "saves=" + saves +
+                    ", skippedSaves=" + skippedSaves +
+                    ", statements=" + statements +
+                    ", skippedStatements=" + skippedStatements +
+                    ", skippedColumns=" + skippedColumns +
+                    ", pagedMessages=" + pagedMessages +
+                    '}';
+        }
     }
 }
@@ -0,0 +1,217 @@
+package com.deeptalent.service.impl;
+
+import com.deeptalent.domain.ai.Message;
+import com.deeptalent.domain.enums.Phase;
+import com.deeptalent.domain.model.PhaseSummary;
+import com.deeptalent.service.PromptService;
+import com.deeptalent.service.Prompts;
+import com.deeptalent.service.ai.DeepTalentAgent;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.UserMessage;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 阶段摘要生成器
+ * 访谈节点与报告节点原本每次都携带全部历史消息，提示词长度、费用与延迟随轮次线性增长。
+ * 每个阶段结束时把该阶段的对话压缩为一段摘要并随会话状态落库，之后的提示词只携带：
+ *
+ * <ul>
+ *     <li>已结束阶段的摘要（每个阶段生成一次，重新加载会话后直接复用）</li>
+ *     <li>最后一段摘要之后的原始消息，即当前阶段的对话</li>
+ * </ul>
+ *
+ * 摘要在后台线程上生成，阶段切换的那一轮不等待它；摘要落库之前提示词仍携带原始消息。
+ * 摘要生成失败时该段消息保留原文，下一个阶段结束时与之一并摘要
+ *
+ * @author 小阳
+ * @date 2026-10-18
+ * @version 1.0.0
+ */
+public class PhaseSummarizer {
+
+    private static final Logger log = LoggerFactory.getLogger(PhaseSummarizer.class);
+
+    private final DeepTalentAgent deepTalentAgent;
+    private final PromptService promptService;
+    private final InterviewMetrics metrics;
+    private final ThreadPoolExecutor executor;
+
+    private final LongAdder summaries = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder inputChars = new LongAdder();
+    private final LongAdder summaryChars = new LongAdder();
+
+    /**
+     * @param threads 生成摘要的线程数，即同时进行中的摘要上限
+     */
+    public PhaseSummarizer(DeepTalentAgent deepTalentAgent, PromptService promptService, InterviewMetrics metrics,
+                           int threads) {
+        this.deepTalentAgent = deepTalentAgent;
+        this.promptService = promptService;
+        this.metrics = metrics;
+        AtomicInteger sequence = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(threads * 64), r -> {
+            Thread t = new Thread(r, "phase-summarizer-" + sequence.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * 停止摘要线程，进行中的摘要不再等待
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 在后台把一段对话压缩为摘要
+     * 调用方需传入不会再被修改的消息副本；onSummary 总在摘要线程上执行，不会回到持有会话锁的调用线程
+     *
+     * @param phase      已结束的阶段
+     * @param transcript 待摘要的原始消息
+     * @param onSummary  摘要生成成功后在摘要线程上执行，执行完毕后返回值才完成
+     * @return 摘要内容；生成失败或线程池已满时为 null，调用方保留原始消息
+     */
+    public CompletableFuture<String> summarizeAsync(Phase phase, List<Message> transcript, Consumer<String> onSummary) {
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                String summary = summarize(phase, transcript);
+                if (summary != null) {
+                    onSummary.accept(summary);
+                }
+                return summary;
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            failures.increment();
+            log.warn("Phase summarizer saturated, keeping raw messages of phase {}", phase.getValue());
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    /**
+     * 把一段对话压缩为摘要
+     * 对话整理为一条“访谈者/用户”逐行排列的文本交给模型，避免模型把它当作需要续写的对话
+     *
+     * @param phase      已结束的阶段
+     * @param transcript 待摘要的原始消息
+     * @return 摘要内容；生成失败时返回 null，调用方保留原始消息
+     */
+    public String summarize(Phase phase, List<Message> transcript) {
+        String text = transcriptText(transcript);
+        try {
+            String prompt = promptService.getTemplate(Prompts.SUMMARIZER_SYSTEM_PROMPT).render("phase", phase.getValue());
+            List<ChatMessage> messages = List.of(SystemMessage.from(prompt), UserMessage.from(text));
+            String summary = metrics.node("summarizer", phase, () -> deepTalentAgent.chat(messages));
+            if (summary == null || summary.isBlank()) {
+                throw new IllegalStateException("Empty summary");
+            }
+            summary = summary.trim();
+            summaries.increment();
+            inputChars.add(text.length());
+            summaryChars.add(summary.length());
+            log.debug("Summarized phase {}: {} messages, {} -> {} chars", phase.getValue(), transcript.size(),
+                    text.length(), summary.length());
+            return summary;
+        } catch (RuntimeException e) {
+            failures.increment();
+            log.warn("Failed to summarize phase {}, keeping raw messages: {}", phase.getValue(), e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * 把对话整理为“访谈者/用户”逐行排列的文本
+     *
+     * @param transcript 原始消息
+     * @return 对话文本
+     */
+    public static String transcriptText(List<Message> transcript) {
+        StringBuilder text = new StringBuilder();
+        for (Message message : transcript) {
+            if ("user".equals(message.getRole())) {
+                text.append("用户：").append(message.getContent()).append('\n');
+            } else if ("assistant".equals(message.getRole())) {
+                text.append("访谈者：").append(message.getContent()).append('\n');
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * 在系统提示词后附加已结束阶段的摘要
+     *
+     * @param prompt    系统提示词
+     * @param summaries 阶段摘要，为空时原样返回
+     * @return 附加摘要后的系统提示词
+     */
+    public static String withSummaries(String prompt, List<PhaseSummary> summaries) {
+        if (summaries == null || summaries.isEmpty()) {
+            return prompt;
+        }
+        StringBuilder builder = new StringBuilder(prompt).append("\n\n已结束阶段的对话摘要（代替这些阶段的原始对话）：");
+        for (PhaseSummary summary : summaries) {
+            builder.append("\n【").append(summary.getPhase()).append("】").append(summary.getSummary());
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 获取摘要统计信息
+     *
+     * @return 统计快照
+     */
+    public SummaryStats getStats() {
+        return new SummaryStats(summaries.sum(), failures.sum(), inputChars.sum(), summaryChars.sum());
+    }
+
+    /**
+     * 摘要统计快照
+     */
+    @Getter
+    public static class SummaryStats {
+        private final long summaries;
+        private final long failures;
+        private final long inputChars;
+        private final long summaryChars;
+
+        public SummaryStats(long summaries, long failures, long inputChars, long summaryChars) {
+            this.summaries = summaries;
+            this.failures = failures;
+            this.inputChars = inputChars;
+            this.summaryChars = summaryChars;
+        }
+
+        /**
+         * 压缩比 = 摘要字数 / 原始对话字数
+         */
+        public double getCompressionRatio() {
+            return inputChars == 0 ? 0 : (double) summaryChars / inputChars;
+        }
+
+        @Override
+        public String toString() {
+            return "SummaryStats{" +
+                    "summaries=" + summaries +
+                    ", failures=" + failures +
+                    ", inputChars=" + inputChars +
+                    ", summaryChars=" + summaryChars +
+                    ", compressionRatio=" + String.format("%.3f", getCompressionRatio()) +
+                    '}';
+        }
+    }
+}
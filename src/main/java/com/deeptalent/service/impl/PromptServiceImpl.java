@@ -4,19 +4,24 @@ import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.deeptalent.domain.entity.PromptConfigEntity;
 import com.deeptalent.mapper.PromptConfigMapper;
 import com.deeptalent.service.PromptService;
+import com.deeptalent.service.PromptTemplate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import jakarta.annotation.PostConstruct;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * 提示词服务实现类
- * 实现提示词的数据库加载、内存缓存及定期刷新
+ * 实现提示词的数据库加载、预编译、内存缓存及定期刷新
+ *
+ * 缓存以不可变快照的形式发布：每次刷新在旁路构建一份完整的新快照后整体替换，
+ * 读取方拿到的始终是某一次刷新的完整结果，不会看到刷新到一半的提示词组合
  *
  * @author 小阳
  * @date 2025-12-28
@@ -26,10 +31,12 @@ import java.util.concurrent.ConcurrentHashMap;
 public class PromptServiceImpl implements PromptService {
 
     private static final Logger log = LoggerFactory.getLogger(PromptServiceImpl.class);
-    
-    // 内存缓存: key -> content (Key 格式: promptKey_language)
-    private final Map<String, String> promptCache = new ConcurrentHashMap<>();
-    
+
+    private static final String DEFAULT_LANGUAGE = "zh-CN";
+
+    // 当前生效的快照: key -> 预编译模板 (Key 格式: promptKey_language)
+    private final AtomicReference<PromptSnapshot> snapshot = new AtomicReference<>(new PromptSnapshot(0, Map.of()));
+
     private final PromptConfigMapper promptConfigMapper;
 
     public PromptServiceImpl(PromptConfigMapper promptConfigMapper) {
@@ -57,26 +64,46 @@ public class PromptServiceImpl implements PromptService {
 
     @Override
     public String getPrompt(String key) {
-        return getPrompt(key, "zh-CN");
+        return getTemplate(key).getText();
     }
 
     @Override
     public String getPrompt(String key, String language) {
+        return getTemplate(key, language).getText();
+    }
+
+    @Override
+    public PromptTemplate getTemplate(String key) {
+        return getTemplate(key, DEFAULT_LANGUAGE);
+    }
+
+    @Override
+    public PromptTemplate getTemplate(String key, String language) {
         String cacheKey = buildCacheKey(key, language);
-        String content = promptCache.get(cacheKey);
-        
-        if (content == null) {
+        PromptTemplate template = snapshot.get().templates.get(cacheKey);
+
+        if (template == null) {
             log.warn("Prompt not found in cache for key: {}, lang: {}. Trying database fallback.", key, language);
-            // 缓存未命中（理论上初始化后不应发生，除非是新加的），尝试查库并更新缓存
-            content = loadFromDatabase(key, language);
-            if (content != null) {
-                promptCache.put(cacheKey, content);
-            } else {
+            // 缓存未命中（理论上初始化后不应发生，除非是新加的），尝试查库并把该条目合入新快照
+            PromptConfigEntity entity = loadFromDatabase(key, language);
+            if (entity == null) {
                 log.error("Prompt not found in database for key: {}, lang: {}", key, language);
                 throw new RuntimeException("Prompt not found: " + key);
             }
+            PromptTemplate loaded = compile(entity);
+            snapshot.updateAndGet(current -> {
+                Map<String, PromptTemplate> templates = new HashMap<>(current.templates);
+                templates.putIfAbsent(cacheKey, loaded);
+                return new PromptSnapshot(current.version + 1, templates);
+            });
+            template = snapshot.get().templates.get(cacheKey);
         }
-        return content;
+        return template;
+    }
+
+    @Override
+    public int getPromptVersion(String key) {
+        return getTemplate(key).getVersion();
     }
 
     @Override
@@ -93,29 +120,55 @@ public class PromptServiceImpl implements PromptService {
                 return;
             }
 
-            // 更新缓存
+            // 在旁路编译完整的新快照后整体替换
+            Map<String, PromptTemplate> templates = new HashMap<>(configs.size() * 2);
             for (PromptConfigEntity config : configs) {
-                String cacheKey = buildCacheKey(config.getPromptKey(), config.getLanguage());
-                promptCache.put(cacheKey, config.getContent());
+                templates.put(buildCacheKey(config.getPromptKey(), config.getLanguage()), compile(config));
             }
-            
-            log.info("Prompt Cache refreshed. Total items: {}", promptCache.size());
+            PromptSnapshot published = snapshot.updateAndGet(current -> new PromptSnapshot(current.version + 1, templates));
+
+            log.info("Prompt Cache refreshed. Snapshot version: {}, total items: {}", published.version, templates.size());
         } catch (Exception e) {
             log.error("Failed to refresh Prompt Cache", e);
         }
     }
-    
-    private String loadFromDatabase(String key, String language) {
-        PromptConfigEntity entity = promptConfigMapper.selectOne(
+
+    /**
+     * 获取当前快照的版本号，每次刷新或缓存未命中补录后递增
+     *
+     * @return 快照版本号
+     */
+    public long getSnapshotVersion() {
+        return snapshot.get().version;
+    }
+
+    private PromptConfigEntity loadFromDatabase(String key, String language) {
+        return promptConfigMapper.selectOne(
             new LambdaQueryWrapper<PromptConfigEntity>()
                 .eq(PromptConfigEntity::getPromptKey, key)
                 .eq(PromptConfigEntity::getLanguage, language)
                 .eq(PromptConfigEntity::getActive, true)
         );
-        return entity != null ? entity.getContent() : null;
+    }
+
+    private PromptTemplate compile(PromptConfigEntity config) {
+        return PromptTemplate.compile(config.getContent(), config.getVersion() != null ? config.getVersion() : 0);
     }
 
     private String buildCacheKey(String key, String language) {
         return key + "_" + language;
     }
+
+    /**
+     * 不可变的提示词快照
+     */
+    private static final class PromptSnapshot {
+        private final long version;
+        private final Map<String, PromptTemplate> templates;
+
+        PromptSnapshot(long version, Map<String, PromptTemplate> templates) {
+            this.version = version;
+            this.templates = Map.copyOf(templates);
+        }
+    }
 }
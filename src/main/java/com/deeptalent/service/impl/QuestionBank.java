@@ -0,0 +1,363 @@
+package com.deeptalent.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.deeptalent.domain.entity.QuestionBankEntity;
+import com.deeptalent.domain.enums.Phase;
+import com.deeptalent.mapper.QuestionBankMapper;
+import com.deeptalent.service.PromptService;
+import com.deeptalent.service.Prompts;
+import com.deeptalent.service.ai.DeepTalentAgent;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按阶段预生成的访谈题库
+ * 每个新会话的开场问题都由相同的输入（童年阶段、第 1 轮、无评估结果）生成，逐个会话调用 LLM 只是重复同一次往返。
+ * 题库在后台为每个阶段生成一组问题并落库，会话直接从题库取题：
+ *
+ * <ul>
+ *     <li>开场问题：新会话不再等待 LLM，直接按轮转顺序取出当前阶段的一道题</li>
+ *     <li>降级：模型舱壁已无空闲许可或调用失败时，从当前阶段取一道本会话尚未问过的题</li>
+ *     <li>版本：题目与生成时的访谈提示词版本绑定，提示词版本变化后旧题不再使用并在后台按新版本重新生成</li>
+ *     <li>轮转：超过 maxAge 的题目在后台逐个替换为新生成的题目，替换失败时保留旧题</li>
+ * </ul>
+ *
+ * 题目持久化在 dt_question_bank 中，重启后直接加载；也可以离线写入该表预置题目。
+ * 后台生成同样经过模型舱壁，且舱壁饱和时本轮不生成，不与在线请求争抢许可
+ *
+ * @author 小阳
+ * @date 2026-10-18
+ * @version 1.0.0
+ */
+public class QuestionBank {
+
+    private static final Logger log = LoggerFactory.getLogger(QuestionBank.class);
+
+    /**
+     * 需要题库的阶段（报告阶段不提问）
+     */
+    static final List<Phase> PHASES = List.of(Phase.CHILDHOOD, Phase.COMPETENCE, Phase.SHADOW);
+
+    private final DeepTalentAgent deepTalentAgent;
+    private final PromptService promptService;
+    private final QuestionBankMapper questionBankMapper;
+    private final LlmBulkhead bulkhead;
+    private final int size;
+    private final Duration refreshInterval;
+    private final Duration maxAge;
+
+    // 各阶段当前可用的题目，整体替换发布，读路径无锁
+    private final Map<Phase, Pool> pools = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "question-bank-refresher");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final LongAdder served = new LongAdder();
+    private final LongAdder degraded = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder generated = new LongAdder();
+    private final LongAdder rotated = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    /**
+     * @param bulkhead        访谈模型的舱壁，用于判断是否饱和；为 null 时视为永不饱和
+     * @param size            每个阶段保留的题目数
+     * @param refreshInterval 后台检查提示词版本、补齐与轮转题目的间隔
+     * @param maxAge          题目的最长使用时间，超过后在后台替换
+     */
+    public QuestionBank(DeepTalentAgent deepTalentAgent, PromptService promptService, QuestionBankMapper questionBankMapper,
+                        LlmBulkhead bulkhead, int size, Duration refreshInterval, Duration maxAge) {
+        this.deepTalentAgent = deepTalentAgent;
+        this.promptService = promptService;
+        this.questionBankMapper = questionBankMapper;
+        this.bulkhead = bulkhead;
+        this.size = size;
+        this.refreshInterval = refreshInterval;
+        this.maxAge = maxAge;
+    }
+
+    /**
+     * 启动后台刷新线程，启动后立即加载/补齐一次
+     */
+    public void start() {
+        refresher.scheduleWithFixedDelay(this::refreshQuietly, 0, refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+        log.info("Question bank started: size={}, refreshInterval={}, maxAge={}", size, refreshInterval, maxAge);
+    }
+
+    /**
+     * 停止后台刷新线程，正在进行的生成不再等待
+     */
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    /**
+     * 按轮转顺序取出指定阶段的一道题，用作开场问题
+     *
+     * @param phase 阶段
+     * @return 题目；该阶段暂无与当前提示词版本匹配的题目时返回 null
+     */
+    public String take(Phase phase) {
+        Pool pool = currentPool(phase);
+        if (pool == null) {
+            misses.increment();
+            return null;
+        }
+        served.increment();
+        return pool.questions.get(Math.floorMod(pool.cursor.getAndIncrement(), pool.questions.size()));
+    }
+
+    /**
+     * 降级取题：按轮转顺序取出指定阶段中本会话尚未问过的一道题
+     *
+     * @param phase 阶段
+     * @param asked 本会话已经问过的问题
+     * @return 题目；没有可用题目时返回 null，调用方照常调用 LLM 或返回错误
+     */
+    public String takeDegraded(Phase phase, Collection<String> asked) {
+        Pool pool = currentPool(phase);
+        if (pool != null) {
+            int start = pool.cursor.getAndIncrement();
+            for (int i = 0; i < pool.questions.size(); i++) {
+                String question = pool.questions.get(Math.floorMod(start + i, pool.questions.size()));
+                if (!asked.contains(question)) {
+                    degraded.increment();
+                    return question;
+                }
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * 访谈模型当前是否饱和（已无空闲许可），饱和时新的调用需要排队
+     */
+    public boolean isSaturated() {
+        return bulkhead != null && bulkhead.isSaturated();
+    }
+
+    /**
+     * 按当前访谈提示词版本加载、补齐并轮转各阶段的题目
+     */
+    public synchronized void refresh() {
+        for (Phase phase : PHASES) {
+            int version = promptService.getPromptVersion(Prompts.INTERVIEWER_SYSTEM_PROMPT);
+            Pool pool = pools.get(phase);
+            List<QuestionBankEntity> entries;
+            if (pool == null || pool.version != version) {
+                entries = load(phase, version);
+            } else {
+                entries = new ArrayList<>(pool.entries);
+            }
+            rotate(phase, version, entries);
+            fill(phase, version, entries);
+            publish(phase, version, entries, pool);
+        }
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (Exception e) {
+            log.warn("Question bank refresh failed: {}", e.toString());
+        }
+    }
+
+    /**
+     * 从库中加载该阶段当前版本的题目，并清理旧版本的题目
+     */
+    private List<QuestionBankEntity> load(Phase phase, int version) {
+        int removed = questionBankMapper.delete(new LambdaQueryWrapper<QuestionBankEntity>()
+                .eq(QuestionBankEntity::getPhase, phase.getValue())
+                .ne(QuestionBankEntity::getPromptVersion, version));
+        List<QuestionBankEntity> entries = new ArrayList<>(questionBankMapper.selectList(new LambdaQueryWrapper<QuestionBankEntity>()
+                .eq(QuestionBankEntity::getPhase, phase.getValue())
+                .eq(QuestionBankEntity::getPromptVersion, version)
+                .orderByAsc(QuestionBankEntity::getId)));
+        log.info("Loaded {} questions for phase {} (prompt version {}), removed {} outdated",
+                entries.size(), phase.getValue(), version, removed);
+        return entries;
+    }
+
+    /**
+     * 逐个替换过期的题目：新题生成成功后才删除旧题
+     */
+    private void rotate(Phase phase, int version, List<QuestionBankEntity> entries) {
+        LocalDateTime expiry = LocalDateTime.now().minus(maxAge);
+        for (int i = 0; i < entries.size(); i++) {
+            QuestionBankEntity entry = entries.get(i);
+            if (entry.getCreatedAt() == null || !entry.getCreatedAt().isBefore(expiry)) {
+                continue;
+            }
+            QuestionBankEntity replacement = generate(phase, version, entries);
+            if (replacement == null) {
+                return;
+            }
+            questionBankMapper.deleteById(entry.getId());
+            entries.set(i, replacement);
+            rotated.increment();
+        }
+    }
+
+    /**
+     * 把题目补齐到 size 道，连续生成失败或重复时本轮放弃
+     */
+    private void fill(Phase phase, int version, List<QuestionBankEntity> entries) {
+        int attempts = 0;
+        while (entries.size() < size && attempts++ < size * 2) {
+            QuestionBankEntity entry = generate(phase, version, entries);
+            if (entry != null) {
+                entries.add(entry);
+            } else if (isSaturated()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 生成一道题并落库
+     *
+     * @return 新题目；舱壁饱和、生成失败或与已有题目重复时返回 null
+     */
+    private QuestionBankEntity generate(Phase phase, int version, List<QuestionBankEntity> existing) {
+        if (isSaturated()) {
+            return null;
+        }
+        String question;
+        try {
+            String prompt = InterviewServiceImpl.renderInterviewerPrompt(
+                    promptService.getTemplate(Prompts.INTERVIEWER_SYSTEM_PROMPT), phase, 1, null);
+            List<ChatMessage> messages = List.of(SystemMessage.from(prompt));
+            question = deepTalentAgent.chat(messages);
+        } catch (RuntimeException e) {
+            failures.increment();
+            log.warn("Failed to generate question for phase {}: {}", phase.getValue(), e.toString());
+            return null;
+        }
+        if (question == null || question.isBlank()) {
+            failures.increment();
+            return null;
+        }
+        String trimmed = question.trim();
+        if (existing.stream().anyMatch(entry -> trimmed.equals(entry.getQuestion()))) {
+            return null;
+        }
+        QuestionBankEntity entry = new QuestionBankEntity();
+        entry.setPhase(phase.getValue());
+        entry.setPromptVersion(version);
+        entry.setQuestion(trimmed);
+        entry.setCreatedAt(LocalDateTime.now());
+        questionBankMapper.insert(entry);
+        generated.increment();
+        return entry;
+    }
+
+    private void publish(Phase phase, int version, List<QuestionBankEntity> entries, Pool previous) {
+        if (entries.isEmpty()) {
+            pools.remove(phase);
+            return;
+        }
+        int cursor = previous != null ? previous.cursor.get() : 0;
+        pools.put(phase, new Pool(version, List.copyOf(entries), cursor));
+    }
+
+    /**
+     * 取出与当前访谈提示词版本匹配的题目，提示词已更新而题库尚未重新生成时不使用旧题
+     */
+    private Pool currentPool(Phase phase) {
+        Pool pool = pools.get(phase);
+        if (pool == null || pool.version != promptService.getPromptVersion(Prompts.INTERVIEWER_SYSTEM_PROMPT)) {
+            return null;
+        }
+        return pool;
+    }
+
+    /**
+     * 获取题库统计信息
+     *
+     * @return 统计快照
+     */
+    public QuestionBankStats getStats() {
+        int available = 0;
+        for (Pool pool : pools.values()) {
+            available += pool.questions.size();
+        }
+        return new QuestionBankStats(available, served.sum(), degraded.sum(), misses.sum(), generated.sum(),
+                rotated.sum(), failures.sum());
+    }
+
+    /**
+     * 某个阶段的题目快照
+     */
+    private static class Pool {
+        private final int version;
+        private final List<QuestionBankEntity> entries;
+        private final List<String> questions;
+        private final AtomicInteger cursor;
+
+        Pool(int version, List<QuestionBankEntity> entries, int cursor) {
+            this.version = version;
+            this.entries = entries;
+            this.questions = entries.stream().map(QuestionBankEntity::getQuestion).toList();
+            this.cursor = new AtomicInteger(cursor);
+        }
+    }
+
+    /**
+     * 题库统计快照
+     */
+    @Getter
+    public static class QuestionBankStats {
+        private final int available;
+        private final long served;
+        private final long degraded;
+        private final long misses;
+        private final long generated;
+        private final long rotated;
+        private final long failures;
+
+        public QuestionBankStats(int available, long served, long degraded, long misses, long generated,
+                                 long rotated, long failures) {
+            this.available = available;
+            this.served = served;
+            this.degraded = degraded;
+            this.misses = misses;
+            this.generated = generated;
+            this.rotated = rotated;
+            this.failures = failures;
+        }
+
+        @Override
+        public String toString() {
+            return "QuestionBankStats{" +
+                    "available=" + available +
+                    ", served=" + served +
+                    ", degraded=" + degraded +
+                    ", misses=" + misses +
+                    ", generated=" + generated +
+                    ", rotated=" + rotated +
+                    ", failures=" + failures +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,367 @@
+package com.deeptalent.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.deeptalent.domain.entity.ReportSectionEntity;
+import com.deeptalent.domain.enums.Phase;
+import com.deeptalent.domain.model.Extraction;
+import com.deeptalent.mapper.ReportSectionMapper;
+import com.deeptalent.service.PromptService;
+import com.deeptalent.service.Prompts;
+import com.deeptalent.service.ai.DeepTalentAgent;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.UserMessage;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 报告分节起草器
+ * 写作节点原本在访谈结束时携带全部历史消息一次性生成整份报告，是整个流程中最慢、提示词最长的一次调用。
+ * 改为在每个阶段结束时于后台起草该阶段的“阶段洞见”并落库，写作节点只需：
+ *
+ * <ul>
+ *     <li>等待仍在起草中的分节（通常只有刚结束的阴影阶段）</li>
+ *     <li>以各分节为输入，生成摘要、核心天赋、阴影与代价、行动建议（提示词只含分节，不含对话）</li>
+ *     <li>把生成的综合部分与分节原文拼接为最终报告</li>
+ * </ul>
+ *
+ * 起草的输入为该阶段的摘要（未生成摘要时为该阶段的原始对话）以及该阶段抽取到的画像要素。
+ * 起草失败、或重启后丢失了进行中的起草时缺少对应分节，写作节点退回为携带完整对话一次性生成
+ *
+ * @author 小阳
+ * @date 2026-10-18
+ * @version 1.0.0
+ */
+public class ReportDrafter {
+
+    private static final Logger log = LoggerFactory.getLogger(ReportDrafter.class);
+
+    /**
+     * 需要起草分节的阶段，按报告中的顺序排列
+     */
+    static final List<Phase> PHASES = List.of(Phase.CHILDHOOD, Phase.COMPETENCE, Phase.SHADOW);
+
+    private static final Map<Phase, String> TITLES = Map.of(
+            Phase.CHILDHOOD, "童年挖掘",
+            Phase.COMPETENCE, "胜任力",
+            Phase.SHADOW, "阴影与代价");
+
+    /**
+     * 报告标题，先于综合部分推送
+     */
+    public static final String REPORT_TITLE = "# 天赋画像报告\n\n";
+
+    private final DeepTalentAgent deepTalentAgent;
+    private final PromptService promptService;
+    private final ReportSectionMapper reportSectionMapper;
+    private final InterviewMetrics metrics;
+    private final Duration maxWait;
+    private final ThreadPoolExecutor executor;
+
+    // 进行中的起草，key 为 threadId:phase
+    private final Map<String, CompletableFuture<Void>> drafting = new ConcurrentHashMap<>();
+
+    private final LongAdder drafts = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder inputChars = new LongAdder();
+    private final LongAdder sectionChars = new LongAdder();
+
+    /**
+     * @param threads 起草线程数，即同时进行中的起草上限
+     * @param maxWait 写作节点等待进行中的起草的最长时间，超时后按缺少该分节处理
+     */
+    public ReportDrafter(DeepTalentAgent deepTalentAgent, PromptService promptService, ReportSectionMapper reportSectionMapper,
+                         InterviewMetrics metrics, int threads, Duration maxWait) {
+        this.deepTalentAgent = deepTalentAgent;
+        this.promptService = promptService;
+        this.reportSectionMapper = reportSectionMapper;
+        this.metrics = metrics;
+        this.maxWait = maxWait;
+        AtomicInteger sequence = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(threads * 64), r -> {
+            Thread t = new Thread(r, "report-drafter-" + sequence.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * 停止起草线程，进行中的起草不再等待
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 在后台起草一个阶段的分节，完成后落库
+     * 输入在调用线程上准备好，后台任务不会读取之后被修改的会话状态
+     *
+     * @param threadId    会话唯一标识符
+     * @param phase       刚结束的阶段
+     * @param transcript  该阶段的摘要或原始对话文本
+     * @param extractions 该阶段抽取到的画像要素
+     */
+    public void draftAsync(String threadId, Phase phase, String transcript, List<Extraction> extractions) {
+        draftAsync(threadId, phase, CompletableFuture.completedFuture(transcript), extractions);
+    }
+
+    /**
+     * 输入尚未就绪（该阶段的摘要仍在后台生成）时先登记起草，输入就绪后再提交
+     * 写作节点在登记之后即会等待该分节，不会因摘要未完成而误判为缺少分节
+     *
+     * @param threadId    会话唯一标识符
+     * @param phase       刚结束的阶段
+     * @param transcript  该阶段的摘要或原始对话文本，异常完成时按起草失败处理
+     * @param extractions 该阶段抽取到的画像要素
+     */
+    public void draftAsync(String threadId, Phase phase, CompletionStage<String> transcript, List<Extraction> extractions) {
+        List<Extraction> snapshot = extractions != null ? List.copyOf(extractions) : List.of();
+        String key = key(threadId, phase);
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        drafting.put(key, future);
+        transcript.whenComplete((text, error) -> {
+            if (error != null || text == null) {
+                drafting.remove(key, future);
+                future.complete(null);
+                failures.increment();
+                log.warn("No input for report section {} of thread {}, it will be written at the end", phase.getValue(), threadId);
+                return;
+            }
+            submit(threadId, phase, key, future, text, snapshot);
+        });
+    }
+
+    private void submit(String threadId, Phase phase, String key, CompletableFuture<Void> future, String transcript,
+                        List<Extraction> snapshot) {
+        try {
+            executor.execute(() -> {
+                try {
+                    String section = draft(phase, transcript, snapshot);
+                    if (section != null) {
+                        save(threadId, phase, section);
+                    }
+                } catch (RuntimeException e) {
+                    log.warn("Failed to save report section {} of thread {}: {}", phase.getValue(), threadId, e.toString());
+                } finally {
+                    drafting.remove(key, future);
+                    future.complete(null);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            drafting.remove(key, future);
+            future.complete(null);
+            rejected.increment();
+            log.warn("Report drafter saturated, section {} of thread {} will be written at the end", phase.getValue(), threadId);
+        }
+    }
+
+    /**
+     * 起草一个阶段的分节
+     *
+     * @return 分节内容；生成失败时返回 null
+     */
+    String draft(Phase phase, String transcript, List<Extraction> extractions) {
+        try {
+            String prompt = promptService.getTemplate(Prompts.REPORT_SECTION_PROMPT)
+                    .render(Map.of("phase", phase.getValue(), "extractions", renderExtractions(extractions)));
+            List<ChatMessage> messages = List.of(SystemMessage.from(prompt), UserMessage.from(transcript));
+            String section = metrics.node("drafter", phase, () -> deepTalentAgent.chat(messages));
+            if (section == null || section.isBlank()) {
+                throw new IllegalStateException("Empty report section");
+            }
+            section = section.trim();
+            drafts.increment();
+            inputChars.add(transcript.length());
+            sectionChars.add(section.length());
+            return section;
+        } catch (RuntimeException e) {
+            failures.increment();
+            log.warn("Failed to draft report section {}: {}", phase.getValue(), e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * 等待会话仍在起草中的分节，返回已落库的全部分节
+     *
+     * @param threadId 会话唯一标识符
+     * @return 按报告顺序排列的分节，缺少的阶段不在其中
+     */
+    public Map<Phase, String> awaitSections(String threadId) {
+        long deadline = System.nanoTime() + maxWait.toNanos();
+        for (Phase phase : PHASES) {
+            CompletableFuture<Void> future = drafting.get(key(threadId, phase));
+            if (future == null) {
+                continue;
+            }
+            try {
+                future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                log.warn("Report section {} of thread {} is still drafting after {}", phase.getValue(), threadId, maxWait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for report sections", e);
+            } catch (ExecutionException e) {
+                // 起草任务自身不会异常完成
+            }
+        }
+        Map<Phase, String> sections = new EnumMap<>(Phase.class);
+        List<ReportSectionEntity> entities = reportSectionMapper.selectList(new LambdaQueryWrapper<ReportSectionEntity>()
+                .eq(ReportSectionEntity::getThreadId, threadId)
+                .orderByAsc(ReportSectionEntity::getId));
+        for (ReportSectionEntity entity : entities) {
+            for (Phase phase : PHASES) {
+                if (phase.getValue().equals(entity.getPhase())) {
+                    sections.put(phase, entity.getContent());
+                }
+            }
+        }
+        return sections;
+    }
+
+    /**
+     * @return 是否每个阶段都有分节
+     */
+    public static boolean isComplete(Map<Phase, String> sections) {
+        return sections.keySet().containsAll(PHASES);
+    }
+
+    /**
+     * 构建综合部分的上下文：综合提示词 + 各阶段分节
+     */
+    public List<ChatMessage> buildMergeHistory(Map<Phase, String> sections) {
+        String prompt = promptService.getTemplate(Prompts.REPORT_MERGE_PROMPT).render(Map.of());
+        List<ChatMessage> history = new ArrayList<>();
+        history.add(SystemMessage.from(prompt));
+        history.add(UserMessage.from(sectionsMarkdown(sections)));
+        return history;
+    }
+
+    /**
+     * 拼接最终报告：标题 + 综合部分 + 阶段洞见
+     *
+     * @param synthesis 综合部分（摘要、核心天赋、阴影与代价、行动建议）
+     * @param sections  各阶段分节
+     * @return 完整报告
+     */
+    public static String assemble(String synthesis, Map<Phase, String> sections) {
+        return REPORT_TITLE + synthesis.trim() + sectionsAppendix(sections);
+    }
+
+    /**
+     * 报告末尾的阶段洞见部分，在综合部分推送完毕后推送
+     */
+    public static String sectionsAppendix(Map<Phase, String> sections) {
+        return "\n\n## 5. 阶段洞见\n\n" + sectionsMarkdown(sections);
+    }
+
+    private static String sectionsMarkdown(Map<Phase, String> sections) {
+        StringBuilder builder = new StringBuilder();
+        for (Phase phase : PHASES) {
+            String section = sections.get(phase);
+            if (section == null) {
+                continue;
+            }
+            if (builder.length() > 0) {
+                builder.append("\n\n");
+            }
+            builder.append("### ").append(TITLES.get(phase)).append("\n").append(section);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 画像要素逐行列出（标签：原话证据），代替整个画像对象的 toString
+     */
+    static String renderExtractions(List<Extraction> extractions) {
+        if (extractions == null || extractions.isEmpty()) {
+            return "无";
+        }
+        StringBuilder builder = new StringBuilder();
+        for (Extraction extraction : extractions) {
+            if (builder.length() > 0) {
+                builder.append('\n');
+            }
+            builder.append("- ").append(extraction.getTag());
+            if (extraction.getEvidence() != null && !extraction.getEvidence().isBlank()) {
+                builder.append("：“").append(extraction.getEvidence()).append("”");
+            }
+        }
+        return builder.toString();
+    }
+
+    private void save(String threadId, Phase phase, String section) {
+        reportSectionMapper.delete(new LambdaQueryWrapper<ReportSectionEntity>()
+                .eq(ReportSectionEntity::getThreadId, threadId)
+                .eq(ReportSectionEntity::getPhase, phase.getValue()));
+        ReportSectionEntity entity = new ReportSectionEntity();
+        entity.setThreadId(threadId);
+        entity.setPhase(phase.getValue());
+        entity.setContent(section);
+        reportSectionMapper.insert(entity);
+    }
+
+    private static String key(String threadId, Phase phase) {
+        return threadId + ":" + phase.getValue();
+    }
+
+    /**
+     * 获取起草统计信息
+     *
+     * @return 统计快照
+     */
+    public DraftStats getStats() {
+        return new DraftStats(drafts.sum(), failures.sum(), rejected.sum(), inputChars.sum(), sectionChars.sum());
+    }
+
+    /**
+     * 起草统计快照
+     */
+    @Getter
+    public static class DraftStats {
+        private final long drafts;
+        private final long failures;
+        private final long rejected;
+        private final long inputChars;
+        private final long sectionChars;
+
+        public DraftStats(long drafts, long failures, long rejected, long inputChars, long sectionChars) {
+            this.drafts = drafts;
+            this.failures = failures;
+            this.rejected = rejected;
+            this.inputChars = inputChars;
+            this.sectionChars = sectionChars;
+        }
+
+        @Override
+        public String toString() {
+            return "DraftStats{" +
+                    "drafts=" + drafts +
+                    ", failures=" + failures +
+                    ", rejected=" + rejected +
+                    ", inputChars=" + inputChars +
+                    ", sectionChars=" + sectionChars +
+                    '}';
+        }
+    }
+}
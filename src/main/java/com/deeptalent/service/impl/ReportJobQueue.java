@@ -0,0 +1,368 @@
+package com.deeptalent.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.deeptalent.domain.entity.ReportJobEntity;
+import com.deeptalent.mapper.ReportJobMapper;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 报告生成任务队列
+ * 写作节点是整个流程中最慢的一次 LLM 调用，同步执行时会占用请求线程直到报告生成完毕。
+ * 进入报告阶段后改为提交一个任务，由固定大小的工作线程池在后台执行：
+ *
+ * <ul>
+ *     <li>任务先落库（PENDING）再入队，执行时标记为 RUNNING，结束后标记为 SUCCEEDED 或 FAILED</li>
+ *     <li>同一会话已有未完成的任务时直接返回该任务，不重复生成</li>
+ *     <li>失败的任务在 maxAttempts 次以内重新入队</li>
+ *     <li>队列已满时拒绝提交（TaskRejectedException），调用方本轮失败、可以重试</li>
+ *     <li>执行中的任务记录所属实例与租约到期时间，执行期间定期续租；
+ *     以条件更新领取任务，多个实例共用一个库时同一任务只会被一个实例执行</li>
+ *     <li>启动时以及每次续租时，把库中待执行的任务和租约已过期的执行中任务（所属实例已停机或崩溃）重新入队，
+ *     其他存活实例正在执行的任务不受影响</li>
+ * </ul>
+ *
+ * 任务结果即会话的 final_report，由 {@link ReportGenerator} 在会话锁内生成并随会话状态一起保存
+ *
+ * @author 小阳
+ * @date 2026-10-18
+ * @version 1.0.0
+ */
+public class ReportJobQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(ReportJobQueue.class);
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final ReportJobMapper reportJobMapper;
+    private final int maxAttempts;
+    private final Duration lease;
+    private final ThreadPoolExecutor workers;
+
+    // 本实例的标识，记录在执行中的任务上
+    @Getter
+    private final String owner = UUID.randomUUID().toString();
+
+    private final ScheduledExecutorService renewer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "report-lease-renewer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // 本实例中尚未结束的任务，用于通知等待结果的请求
+    private final Map<String, CompletableFuture<ReportJobEntity>> watchers = new ConcurrentHashMap<>();
+
+    private volatile ReportGenerator generator;
+
+    @Getter
+    private final LongAdder succeeded = new LongAdder();
+    @Getter
+    private final LongAdder failed = new LongAdder();
+    @Getter
+    private final LongAdder retried = new LongAdder();
+
+    /**
+     * @param workers       工作线程数，即同时生成中的报告上限
+     * @param queueCapacity 排队中的任务上限，超出时拒绝提交
+     * @param maxAttempts   每个任务最多执行的次数
+     * @param lease         执行中任务的租约时长，实例停止续租超过该时长后任务可被其他实例接管
+     */
+    public ReportJobQueue(ReportJobMapper reportJobMapper, int workers, int queueCapacity, int maxAttempts, Duration lease) {
+        this.reportJobMapper = reportJobMapper;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.lease = lease;
+        AtomicInteger sequence = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(Math.max(1, queueCapacity)), r -> {
+            Thread t = new Thread(r, "report-worker-" + sequence.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * 设置报告生成逻辑，把库中待执行和租约已过期的任务重新入队，并开始定期续租
+     * 在此之前提交的任务只落库，由本方法一并入队
+     *
+     * @param generator 报告生成逻辑
+     */
+    public void start(ReportGenerator generator) {
+        this.generator = generator;
+        int recovered = recover(true);
+        long period = Math.max(1, lease.toMillis() / 3);
+        renewer.scheduleWithFixedDelay(this::renewQuietly, period, period, TimeUnit.MILLISECONDS);
+        log.info("Report job queue started: owner={}, workers={}, maxAttempts={}, lease={}, recovered={}",
+                owner, workers.getCorePoolSize(), maxAttempts, lease, recovered);
+    }
+
+    /**
+     * 停止工作线程，正在执行的任务不再等待；未完成的任务保留在库中并释放租约，下次启动时立即重新入队
+     */
+    public void shutdown() {
+        renewer.shutdownNow();
+        workers.shutdownNow();
+        try {
+            reportJobMapper.update(null, new LambdaUpdateWrapper<ReportJobEntity>()
+                    .eq(ReportJobEntity::getOwner, owner)
+                    .eq(ReportJobEntity::getStatus, ReportJobEntity.RUNNING)
+                    .set(ReportJobEntity::getLeaseUntil, null));
+        } catch (RuntimeException e) {
+            log.warn("Failed to release report job leases of {}, they expire after {}", owner, lease, e);
+        }
+    }
+
+    /**
+     * 把库中的待执行任务（仅启动时）和租约已过期的执行中任务入队，本实例已在处理的任务除外
+     *
+     * @param pending 是否包括待执行的任务；运行期间待执行的任务都已在某个实例的队列中
+     * @return 入队的任务数
+     */
+    private int recover(boolean pending) {
+        LocalDateTime now = LocalDateTime.now();
+        List<ReportJobEntity> unfinished = reportJobMapper.selectList(new LambdaQueryWrapper<ReportJobEntity>()
+                .and(w -> w.eq(pending, ReportJobEntity::getStatus, ReportJobEntity.PENDING)
+                        .or(r -> r.eq(ReportJobEntity::getStatus, ReportJobEntity.RUNNING)
+                                .and(l -> l.isNull(ReportJobEntity::getLeaseUntil)
+                                        .or().lt(ReportJobEntity::getLeaseUntil, now))))
+                .orderByAsc(ReportJobEntity::getCreatedAt));
+        int recovered = 0;
+        for (ReportJobEntity job : unfinished) {
+            if (watchers.containsKey(job.getJobId())) {
+                continue;
+            }
+            try {
+                dispatch(job.getJobId(), job.getThreadId());
+                recovered++;
+            } catch (TaskRejectedException e) {
+                log.warn("Report queue is full, {} unfinished jobs stay in the database until recovered later",
+                        unfinished.size() - recovered);
+                break;
+            }
+        }
+        return recovered;
+    }
+
+    /**
+     * 为本实例执行中的任务续租，并接管租约已过期的任务
+     */
+    private void renewQuietly() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            reportJobMapper.update(null, new LambdaUpdateWrapper<ReportJobEntity>()
+                    .eq(ReportJobEntity::getOwner, owner)
+                    .eq(ReportJobEntity::getStatus, ReportJobEntity.RUNNING)
+                    .set(ReportJobEntity::getLeaseUntil, now.plus(lease)));
+            int recovered = recover(false);
+            if (recovered > 0) {
+                log.info("Recovered {} report job(s) with expired leases", recovered);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to renew report job leases of {}", owner, e);
+        }
+    }
+
+    /**
+     * 为会话提交报告生成任务
+     *
+     * @param threadId 会话唯一标识符
+     * @return 任务ID；该会话已有未完成的任务时返回该任务的ID
+     * @throws TaskRejectedException 队列已满
+     */
+    public String submit(String threadId) {
+        ReportJobEntity active = reportJobMapper.selectOne(new LambdaQueryWrapper<ReportJobEntity>()
+                .eq(ReportJobEntity::getThreadId, threadId)
+                .in(ReportJobEntity::getStatus, ReportJobEntity.PENDING, ReportJobEntity.RUNNING)
+                .last("LIMIT 1"));
+        if (active != null) {
+            return active.getJobId();
+        }
+
+        ReportJobEntity job = new ReportJobEntity();
+        job.setJobId(UUID.randomUUID().toString());
+        job.setThreadId(threadId);
+        job.setStatus(ReportJobEntity.PENDING);
+        job.setAttempts(0);
+        job.setCreatedAt(LocalDateTime.now());
+        job.setUpdatedAt(job.getCreatedAt());
+        reportJobMapper.insert(job);
+
+        if (generator != null) {
+            try {
+                dispatch(job.getJobId(), threadId);
+            } catch (TaskRejectedException e) {
+                reportJobMapper.deleteById(job.getJobId());
+                throw e;
+            }
+        }
+        return job.getJobId();
+    }
+
+    /**
+     * 查询任务
+     *
+     * @return 任务；不存在时返回 null
+     */
+    public ReportJobEntity get(String jobId) {
+        return reportJobMapper.selectById(jobId);
+    }
+
+    /**
+     * 等待任务结束
+     *
+     * @return 任务结束时完成的 Future；任务不存在、已经结束或不在本实例执行时立即以当前状态完成
+     */
+    public CompletableFuture<ReportJobEntity> watch(String jobId) {
+        CompletableFuture<ReportJobEntity> watcher = watchers.get(jobId);
+        if (watcher != null) {
+            return watcher;
+        }
+        return CompletableFuture.completedFuture(get(jobId));
+    }
+
+    /**
+     * @return 排队中的任务数
+     */
+    public int getQueued() {
+        return workers.getQueue().size();
+    }
+
+    /**
+     * @return 执行中的任务数
+     */
+    public int getRunning() {
+        return workers.getActiveCount();
+    }
+
+    private void dispatch(String jobId, String threadId) {
+        watchers.computeIfAbsent(jobId, id -> new CompletableFuture<>());
+        try {
+            workers.execute(() -> run(jobId, threadId));
+        } catch (RejectedExecutionException e) {
+            watchers.remove(jobId);
+            throw new TaskRejectedException("Report job queue is full", e);
+        }
+    }
+
+    private void run(String jobId, String threadId) {
+        ReportJobEntity job = get(jobId);
+        if (job == null || job.isFinished()) {
+            finish(jobId, job);
+            return;
+        }
+        int attempt = (job.getAttempts() != null ? job.getAttempts() : 0) + 1;
+        if (!claim(jobId, attempt)) {
+            // 其他实例已领取该任务且租约未过期
+            log.debug("Report job {} of thread {} is running on another instance", jobId, threadId);
+            finish(jobId, get(jobId));
+            return;
+        }
+        try {
+            generator.generate(threadId);
+            update(jobId, ReportJobEntity.SUCCEEDED, attempt, null, true);
+            succeeded.increment();
+            log.info("Report job {} of thread {} succeeded after {} attempt(s)", jobId, threadId, attempt);
+        } catch (Exception e) {
+            if (workers.isShutdown()) {
+                // 停机时被中断：保持 RUNNING，下次启动时重新入队
+                log.info("Report job {} of thread {} interrupted by shutdown", jobId, threadId);
+                return;
+            }
+            String error = String.valueOf(e.getMessage());
+            if (error.length() > MAX_ERROR_LENGTH) {
+                error = error.substring(0, MAX_ERROR_LENGTH);
+            }
+            if (attempt < maxAttempts) {
+                update(jobId, ReportJobEntity.PENDING, attempt, error, false);
+                retried.increment();
+                log.warn("Report job {} of thread {} failed (attempt {}/{}), retrying: {}",
+                        jobId, threadId, attempt, maxAttempts, e.toString());
+                try {
+                    workers.execute(() -> run(jobId, threadId));
+                    return;
+                } catch (RejectedExecutionException rejected) {
+                    log.warn("Report job {} stays pending until next start: queue is full", jobId);
+                    watchers.remove(jobId);
+                    return;
+                }
+            }
+            update(jobId, ReportJobEntity.FAILED, attempt, error, true);
+            failed.increment();
+            log.error("Report job {} of thread {} failed after {} attempt(s)", jobId, threadId, attempt, e);
+        }
+        finish(jobId, get(jobId));
+    }
+
+    /**
+     * 领取任务：仅当任务待执行、或执行中但租约已过期（或属于本实例）时标记为本实例执行
+     *
+     * @return 是否领取成功
+     */
+    private boolean claim(String jobId, int attempt) {
+        LocalDateTime now = LocalDateTime.now();
+        return reportJobMapper.update(null, new LambdaUpdateWrapper<ReportJobEntity>()
+                .eq(ReportJobEntity::getJobId, jobId)
+                .and(w -> w.eq(ReportJobEntity::getStatus, ReportJobEntity.PENDING)
+                        .or(r -> r.eq(ReportJobEntity::getStatus, ReportJobEntity.RUNNING)
+                                .and(l -> l.isNull(ReportJobEntity::getLeaseUntil)
+                                        .or().lt(ReportJobEntity::getLeaseUntil, now)
+                                        .or().eq(ReportJobEntity::getOwner, owner))))
+                .set(ReportJobEntity::getStatus, ReportJobEntity.RUNNING)
+                .set(ReportJobEntity::getAttempts, attempt)
+                .set(ReportJobEntity::getErrorMessage, null)
+                .set(ReportJobEntity::getOwner, owner)
+                .set(ReportJobEntity::getLeaseUntil, now.plus(lease))
+                .set(ReportJobEntity::getUpdatedAt, now)) == 1;
+    }
+
+    private void update(String jobId, String status, int attempts, String error, boolean finished) {
+        LocalDateTime now = LocalDateTime.now();
+        // 租约已被其他实例接管时不再覆盖任务状态
+        reportJobMapper.update(null, new LambdaUpdateWrapper<ReportJobEntity>()
+                .eq(ReportJobEntity::getJobId, jobId)
+                .eq(ReportJobEntity::getOwner, owner)
+                .set(ReportJobEntity::getStatus, status)
+                .set(ReportJobEntity::getAttempts, attempts)
+                .set(ReportJobEntity::getErrorMessage, error)
+                .set(ReportJobEntity::getLeaseUntil, null)
+                .set(ReportJobEntity::getUpdatedAt, now)
+                .set(finished, ReportJobEntity::getFinishedAt, now));
+    }
+
+    private void finish(String jobId, ReportJobEntity job) {
+        CompletableFuture<ReportJobEntity> watcher = watchers.remove(jobId);
+        if (watcher != null) {
+            watcher.complete(job);
+        }
+    }
+
+    /**
+     * 报告生成逻辑：加载会话、调用写作节点并保存 final_report
+     */
+    @FunctionalInterface
+    public interface ReportGenerator {
+
+        /**
+         * @param threadId 会话唯一标识符
+         */
+        void generate(String threadId);
+    }
+}
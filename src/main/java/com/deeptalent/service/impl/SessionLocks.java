@@ -0,0 +1,95 @@
+package com.deeptalent.service.impl;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * 会话锁
+ * 每个 threadId 独占一把锁：同一会话的 load → LLM → save 严格串行，避免多标签页或客户端重试导致某一轮被覆盖丢失；
+ * 不同会话永远使用不同的锁，彼此完全并行，不会因哈希碰撞而互相等待。
+ *
+ * <ul>
+ *     <li>引用计数：锁在第一个请求到达时创建，持有与等待的请求都结束后移除，内存占用只与进行中的会话数有关</li>
+ *     <li>公平锁：同一会话的并发请求按到达顺序依次处理</li>
+ *     <li>等待超时后放弃，避免一个卡住的 LLM 调用让后续请求无限堆积</li>
+ * </ul>
+ *
+ * 仅在单个进程内生效，多实例部署需配合会话粘滞路由
+ *
+ * @author 小阳
+ * @date 2026-10-18
+ * @version 1.0.0
+ */
+public class SessionLocks {
+
+    /**
+     * 会话锁及其引用计数（持有与等待中的请求数），引用计数只在 ConcurrentHashMap.compute 内修改
+     */
+    private static final class SessionLock {
+        private final ReentrantLock lock = new ReentrantLock(true);
+        private int references;
+    }
+
+    private final Map<String, SessionLock> locks = new ConcurrentHashMap<>();
+    private final long timeoutNanos;
+
+    /**
+     * @param timeout 获取锁的最长等待时间
+     */
+    public SessionLocks(Duration timeout) {
+        this.timeoutNanos = timeout.toNanos();
+    }
+
+    /**
+     * 持有会话锁执行操作
+     *
+     * @param threadId 会话唯一标识符
+     * @param action   需要串行执行的操作
+     * @return 操作结果
+     * @throws IllegalStateException 等待超时或等待期间线程被中断
+     */
+    public <T> T withLock(String threadId, Supplier<T> action) {
+        SessionLock sessionLock = acquire(threadId);
+        try {
+            ReentrantLock lock = sessionLock.lock;
+            try {
+                if (!lock.tryLock(timeoutNanos, TimeUnit.NANOSECONDS)) {
+                    throw new IllegalStateException("Session " + threadId + " is busy, please retry later");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for session " + threadId, e);
+            }
+            try {
+                return action.get();
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            release(threadId);
+        }
+    }
+
+    /**
+     * 当前持有或等待会话锁的会话数
+     */
+    public int getActiveSessions() {
+        return locks.size();
+    }
+
+    private SessionLock acquire(String threadId) {
+        return locks.compute(threadId, (key, sessionLock) -> {
+            SessionLock acquired = sessionLock != null ? sessionLock : new SessionLock();
+            acquired.references++;
+            return acquired;
+        });
+    }
+
+    private void release(String threadId) {
+        locks.computeIfPresent(threadId, (key, sessionLock) -> --sessionLock.references == 0 ? null : sessionLock);
+    }
+}
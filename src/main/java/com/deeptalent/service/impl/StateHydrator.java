@@ -0,0 +1,110 @@
+package com.deeptalent.service.impl;
+
+import com.deeptalent.domain.ai.Message;
+import com.deeptalent.domain.entity.StateRow;
+import com.deeptalent.domain.enums.Phase;
+import com.deeptalent.domain.model.DeepTalentState;
+import com.deeptalent.domain.model.EvaluationResult;
+import com.deeptalent.domain.model.Extraction;
+import com.deeptalent.domain.model.PersistenceWatermark;
+import com.deeptalent.domain.model.PhaseSummary;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+
+/**
+ * 会话状态水合器
+ * 逐行消费 StateHydrationMapper 的结果，一次遍历组装出 DeepTalentState
+ *
+ * @author 小阳
+ * @date 2026-10-18
+ * @version 1.0.0
+ */
+class StateHydrator implements ResultHandler<StateRow> {
+
+    private static final Logger log = LoggerFactory.getLogger(StateHydrator.class);
+
+    private final ObjectMapper objectMapper;
+    private final DeepTalentState state = new DeepTalentState();
+    private boolean found;
+
+    StateHydrator(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void handleResult(ResultContext<? extends StateRow> context) {
+        StateRow row = context.getResultObject();
+        switch (row.getKind()) {
+            case StateRow.KIND_CONVERSATION -> {
+                found = true;
+                state.setCurrentPhase(Phase.valueOf(row.getS1().toUpperCase()));
+                state.setDialogueCount(row.getSeq() != null ? row.getSeq().intValue() : 0);
+                state.setNeedFollowup(row.getNum() != null && row.getNum() != 0);
+                state.setFinalReport(row.getS2());
+                state.setLastEval(parseEval(row.getS3()));
+            }
+            case StateRow.KIND_EXTRACTION -> {
+                String phase = row.getS1();
+                state.getUserProfile().computeIfAbsent(phase, k -> new ArrayList<>())
+                        .add(new Extraction(row.getS2(), row.getS3(), phase, row.getNum()));
+            }
+            case StateRow.KIND_MESSAGE -> {
+                // 恢复 threadName (取第一条消息的 threadName，如果存在)
+                // 查询只返回尾部窗口，第一条消息的 sequence 即窗口起点
+                if (state.getMessages().isEmpty()) {
+                    state.setThreadName(row.getS3());
+                    state.setMessageOffset(row.getSeq().intValue());
+                }
+                state.getMessages().add(new Message(row.getS1(), row.getS2()));
+            }
+            case StateRow.KIND_SUMMARY -> state.getPhaseSummaries().add(
+                    new PhaseSummary(row.getS1(), row.getS2(), row.getNum().intValue(), row.getSeq().intValue()));
+            default -> throw new IllegalStateException("Unknown state row kind: " + row.getKind());
+        }
+    }
+
+    /**
+     * 获取组装结果
+     * 会话不存在时返回全新的空状态
+     *
+     * @return 会话状态
+     */
+    DeepTalentState getState() {
+        if (!found) {
+            return new DeepTalentState();
+        }
+        markPersisted(state);
+        return state;
+    }
+
+    /**
+     * 将水位线推进到状态的当前内容：从数据库加载到的数据均已落库
+     *
+     * @param state 刚加载的会话状态
+     */
+    static void markPersisted(DeepTalentState state) {
+        PersistenceWatermark watermark = state.getWatermark();
+        watermark.advanceMessages(state.getTotalMessageCount());
+        state.getUserProfile().forEach((phase, extractions) -> watermark.advanceExtractions(phase, extractions.size()));
+        watermark.advanceSummaries(state.getPhaseSummaries().size());
+        watermark.advanceConversation(state);
+    }
+
+    private EvaluationResult parseEval(String json) {
+        if (json == null || json.isEmpty()) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(json, EvaluationResult.class);
+        } catch (JsonProcessingException e) {
+            log.warn("Failed to parse stored last evaluation", e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,412 @@
+package com.deeptalent.service.impl;
+
+import com.deeptalent.domain.ai.Message;
+import com.deeptalent.domain.enums.Phase;
+import com.deeptalent.domain.model.DeepTalentState;
+import com.deeptalent.domain.model.EvaluationResult;
+import com.deeptalent.domain.model.Extraction;
+import com.deeptalent.domain.model.PhaseSummary;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 会话状态二进制快照编解码器
+ * 把 DeepTalentState（消息、画像、最近评估、阶段摘要、阶段与计数）编码为紧凑的二进制，
+ * 存入 dt_conversation.state_snapshot，一次主键读取即可恢复会话。
+ *
+ * <pre>
+ * 头部 (4 字节): 'D' 'T' 版本号 标志位(bit0 = 正文已 Deflate 压缩)
+ * 压缩时紧跟 rawLength(varint)，即解压后的正文字节数
+ * 正文 v3:
+ *   phase(str) dialogueCount(varint) needFollowup(bool) threadName(str?) messageOffset(varint)
+ *   messages:   count(varint) { role(byte) [role(str) 当 role=其他] content(str?) }
+ *   profile:    count(varint) { phase(str) count(varint) { tag(str?) evidence(str?) confidence(double) } }
+ *   lastEval:   present(bool) [ score(varint) needFollowup(bool) followupQuestion(str?) reason(str?) extractions ]
+ *   summaries:  count(varint) { phase(str) summary(str?) fromSequence(varint) toSequence(varint) }
+ * str? = varint(UTF-8 字节数 + 1，0 表示 null) + UTF-8 字节
+ * </pre>
+ * v1 没有 messageOffset，解码时视为 0；v1、v2 没有 summaries，解码时视为空。
+ * 快照只保存最近 window 条消息，大小不随对话长度增长；更早的消息在 dt_message 中按需加载。
+ *
+ * finalReport 不在快照内，它已单独保存在同一行的 final_report 列中
+ *
+ * @author 小阳
+ * @date 2026-10-18
+ * @version 1.0.0
+ */
+public final class StateSnapshotCodec {
+
+    /**
+     * 当前编码版本，格式变化时递增并保留旧版本的解码分支
+     */
+    public static final int VERSION = 3;
+
+    private static final byte MAGIC_0 = 'D';
+    private static final byte MAGIC_1 = 'T';
+    private static final int FLAG_DEFLATED = 1;
+    private static final int HEADER_SIZE = 4;
+
+    /**
+     * 正文超过该字节数才压缩，短会话压缩收益不抵开销
+     */
+    private static final int COMPRESS_THRESHOLD = 1024;
+
+    private static final byte ROLE_USER = 0;
+    private static final byte ROLE_ASSISTANT = 1;
+    private static final byte ROLE_SYSTEM = 2;
+    private static final byte ROLE_OTHER = 3;
+
+    private StateSnapshotCodec() {
+    }
+
+    /**
+     * 编码会话状态（包含内存中的全部消息）
+     *
+     * @param state 会话状态
+     * @return 快照字节
+     */
+    public static byte[] encode(DeepTalentState state) {
+        return encode(state, 0);
+    }
+
+    /**
+     * 编码会话状态，只保留最近 window 条消息
+     * 调用方需保证被略去的早期消息已经（或在同一事务中）写入 dt_message
+     *
+     * @param state  会话状态
+     * @param window 保留的消息条数，小于等于 0 表示全部保留
+     * @return 快照字节
+     */
+    public static byte[] encode(DeepTalentState state, int window) {
+        Writer body = new Writer(512);
+        writeBody(body, state, window);
+
+        if (body.size <= COMPRESS_THRESHOLD) {
+            byte[] out = new byte[HEADER_SIZE + body.size];
+            writeHeader(out, 0);
+            System.arraycopy(body.buf, 0, out, HEADER_SIZE, body.size);
+            return out;
+        }
+
+        Writer out = new Writer(body.size / 2 + 16);
+        out.ensure(HEADER_SIZE);
+        writeHeader(out.buf, FLAG_DEFLATED);
+        out.size = HEADER_SIZE;
+        out.writeVarInt(body.size);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(body.buf, 0, body.size);
+            deflater.finish();
+            while (!deflater.finished()) {
+                out.ensure(256);
+                out.size += deflater.deflate(out.buf, out.size, out.buf.length - out.size);
+            }
+        } finally {
+            deflater.end();
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 解码会话状态
+     * 返回的状态不含 finalReport，水位线也未设置，由调用方补齐
+     *
+     * @param bytes 快照字节
+     * @return 会话状态
+     * @throws IllegalArgumentException 快照格式或版本无法识别
+     */
+    public static DeepTalentState decode(byte[] bytes) {
+        if (bytes == null || bytes.length < HEADER_SIZE || bytes[0] != MAGIC_0 || bytes[1] != MAGIC_1) {
+            throw new IllegalArgumentException("Not a state snapshot");
+        }
+        int version = bytes[2];
+        if (version < 1 || version > VERSION) {
+            throw new IllegalArgumentException("Unsupported state snapshot version: " + version);
+        }
+        try {
+            Reader in = new Reader(bytes, HEADER_SIZE);
+            if ((bytes[3] & FLAG_DEFLATED) != 0) {
+                in = new Reader(inflate(bytes, in), 0);
+            }
+            return readBody(in, version);
+        } catch (IndexOutOfBoundsException | NegativeArraySizeException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Corrupted state snapshot", e);
+        }
+    }
+
+    private static void writeHeader(byte[] out, int flags) {
+        out[0] = MAGIC_0;
+        out[1] = MAGIC_1;
+        out[2] = VERSION;
+        out[3] = (byte) flags;
+    }
+
+    private static byte[] inflate(byte[] bytes, Reader in) {
+        int rawLength = in.readVarInt();
+        byte[] raw = new byte[rawLength];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(bytes, in.pos, bytes.length - in.pos);
+            int n = inflater.inflate(raw);
+            if (n != rawLength || !inflater.finished()) {
+                throw new IllegalArgumentException("Snapshot length mismatch");
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Corrupted state snapshot", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static void writeBody(Writer out, DeepTalentState state, int window) {
+        out.writeString(state.getCurrentPhase().getValue());
+        out.writeVarInt(state.getDialogueCount());
+        out.writeBoolean(state.isNeedFollowup());
+        out.writeString(state.getThreadName());
+
+        List<Message> messages = state.getMessages();
+        int skip = window > 0 ? Math.max(0, messages.size() - window) : 0;
+        out.writeVarInt(state.getMessageOffset() + skip);
+        out.writeVarInt(messages.size() - skip);
+        for (Message message : messages.subList(skip, messages.size())) {
+            String role = message.getRole();
+            byte code = roleCode(role);
+            out.writeByte(code);
+            if (code == ROLE_OTHER) {
+                out.writeString(role);
+            }
+            out.writeString(message.getContent());
+        }
+
+        Map<String, List<Extraction>> profile = state.getUserProfile();
+        out.writeVarInt(profile.size());
+        for (Map.Entry<String, List<Extraction>> entry : profile.entrySet()) {
+            out.writeString(entry.getKey());
+            writeExtractions(out, entry.getValue());
+        }
+
+        EvaluationResult eval = state.getLastEval();
+        out.writeBoolean(eval != null);
+        if (eval != null) {
+            out.writeVarInt(eval.getScore());
+            out.writeBoolean(eval.isNeedFollowup());
+            out.writeString(eval.getFollowupQuestion());
+            out.writeString(eval.getReason());
+            writeExtractions(out, eval.getExtractions() != null ? eval.getExtractions() : List.of());
+        }
+
+        List<PhaseSummary> summaries = state.getPhaseSummaries();
+        out.writeVarInt(summaries.size());
+        for (PhaseSummary summary : summaries) {
+            out.writeString(summary.getPhase());
+            out.writeString(summary.getSummary());
+            out.writeVarInt(summary.getFromSequence());
+            out.writeVarInt(summary.getToSequence());
+        }
+    }
+
+    private static DeepTalentState readBody(Reader in, int version) {
+        DeepTalentState state = new DeepTalentState();
+        state.setCurrentPhase(Phase.valueOf(in.readString().toUpperCase()));
+        state.setDialogueCount(in.readVarInt());
+        state.setNeedFollowup(in.readBoolean());
+        state.setThreadName(in.readString());
+        if (version >= 2) {
+            state.setMessageOffset(in.readVarInt());
+        }
+
+        int messageCount = in.readVarInt();
+        List<Message> messages = new ArrayList<>(messageCount);
+        for (int i = 0; i < messageCount; i++) {
+            byte code = in.readByte();
+            String role = code == ROLE_OTHER ? in.readString() : roleName(code);
+            messages.add(new Message(role, in.readString()));
+        }
+        state.setMessages(messages);
+
+        int phaseCount = in.readVarInt();
+        for (int i = 0; i < phaseCount; i++) {
+            String phase = in.readString();
+            state.getUserProfile().put(phase, readExtractions(in, phase));
+        }
+
+        if (in.readBoolean()) {
+            EvaluationResult eval = new EvaluationResult();
+            eval.setScore(in.readVarInt());
+            eval.setNeedFollowup(in.readBoolean());
+            eval.setFollowupQuestion(in.readString());
+            eval.setReason(in.readString());
+            eval.setExtractions(readExtractions(in, null));
+            state.setLastEval(eval);
+        }
+
+        if (version >= 3) {
+            int summaryCount = in.readVarInt();
+            for (int i = 0; i < summaryCount; i++) {
+                String phase = in.readString();
+                String summary = in.readString();
+                int from = in.readVarInt();
+                state.getPhaseSummaries().add(new PhaseSummary(phase, summary, from, in.readVarInt()));
+            }
+        }
+        return state;
+    }
+
+    private static void writeExtractions(Writer out, List<Extraction> extractions) {
+        out.writeVarInt(extractions.size());
+        for (Extraction extraction : extractions) {
+            out.writeString(extraction.getTag());
+            out.writeString(extraction.getEvidence());
+            out.writeString(extraction.getPhase());
+            out.writeDouble(extraction.getConfidence());
+        }
+    }
+
+    private static List<Extraction> readExtractions(Reader in, String defaultPhase) {
+        int count = in.readVarInt();
+        List<Extraction> extractions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String tag = in.readString();
+            String evidence = in.readString();
+            String phase = in.readString();
+            double confidence = in.readDouble();
+            extractions.add(new Extraction(tag, evidence, phase != null ? phase : defaultPhase, confidence));
+        }
+        return extractions;
+    }
+
+    private static byte roleCode(String role) {
+        if ("user".equals(role)) return ROLE_USER;
+        if ("assistant".equals(role)) return ROLE_ASSISTANT;
+        if ("system".equals(role)) return ROLE_SYSTEM;
+        return ROLE_OTHER;
+    }
+
+    private static String roleName(byte code) {
+        return switch (code) {
+            case ROLE_USER -> "user";
+            case ROLE_ASSISTANT -> "assistant";
+            case ROLE_SYSTEM -> "system";
+            default -> throw new IllegalArgumentException("Unknown role code: " + code);
+        };
+    }
+
+    /**
+     * 直接写入字节数组的编码缓冲区，避免流式 API 的逐字节同步开销
+     */
+    private static final class Writer {
+        private byte[] buf;
+        private int size;
+
+        Writer(int capacity) {
+            this.buf = new byte[capacity];
+        }
+
+        void ensure(int extra) {
+            if (size + extra > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length << 1, size + extra));
+            }
+        }
+
+        void writeByte(int value) {
+            ensure(1);
+            buf[size++] = (byte) value;
+        }
+
+        void writeBoolean(boolean value) {
+            writeByte(value ? 1 : 0);
+        }
+
+        void writeVarInt(int value) {
+            ensure(5);
+            while ((value & ~0x7F) != 0) {
+                buf[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buf[size++] = (byte) value;
+        }
+
+        void writeDouble(double value) {
+            long bits = Double.doubleToLongBits(value);
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buf[size++] = (byte) (bits >>> shift);
+            }
+        }
+
+        void writeString(String value) {
+            if (value == null) {
+                writeVarInt(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length + 1);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buf, size, bytes.length);
+            size += bytes.length;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buf, size);
+        }
+    }
+
+    /**
+     * 从字节数组按位置顺序读取，越界即视为快照损坏
+     */
+    private static final class Reader {
+        private final byte[] buf;
+        private int pos;
+
+        Reader(byte[] buf, int pos) {
+            this.buf = buf;
+            this.pos = pos;
+        }
+
+        byte readByte() {
+            return buf[pos++];
+        }
+
+        boolean readBoolean() {
+            return buf[pos++] != 0;
+        }
+
+        int readVarInt() {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                int b = buf[pos++] & 0xFF;
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+
+        double readDouble() {
+            long bits = 0;
+            for (int i = 0; i < 8; i++) {
+                bits = (bits << 8) | (buf[pos++] & 0xFF);
+            }
+            return Double.longBitsToDouble(bits);
+        }
+
+        String readString() {
+            int length = readVarInt();
+            if (length == 0) {
+                return null;
+            }
+            String value = new String(buf, pos, length - 1, StandardCharsets.UTF_8);
+            pos += length - 1;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,344 @@
+package com.deeptalent.service.impl;
+
+import com.deeptalent.domain.ai.Message;
+import com.deeptalent.domain.model.DeepTalentState;
+import com.deeptalent.service.PersistenceService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 异步回写持久化服务（装饰器）
+ * saveState 只把状态放入待写队列立即返回，由后台线程批量落库，用户不再等待同步写库。
+ *
+ * <ul>
+ *     <li>合并写：同一 threadId 的多次待写保存合并为最新状态，只产生一次事务</li>
+ *     <li>刷盘时机：距离上次刷盘达到 flushInterval，或待写会话数达到 maxBatchSize</li>
+ *     <li>读己之写：loadState 优先返回待写/正在写的状态，保证下一轮看到本轮结果</li>
+ *     <li>背压：待写会话数达到 maxPending 时由调用线程同步刷盘</li>
+ *     <li>毒状态：同一会话连续 maxAttempts 次写入失败后丢弃，快照写入死信日志（deeptalent.persistence.dead_letter）</li>
+ *     <li>停机：shutdown 时把队列全部写完</li>
+ * </ul>
+ *
+ * flushInterval 即持久化窗口：进程崩溃时最多丢失这段时间内的对话。
+ * 指标：deeptalent.persistence.write_behind.queue（待写会话数）、
+ * deeptalent.persistence.write_behind.flush（每次刷盘的耗时直方图）、
+ * deeptalent.persistence.write_behind.states（入队、合并、写入、失败、丢弃的状态数，result）
+ *
+ * @author 小阳
+ * @date 2026-10-18
+ * @version 1.0.0
+ */
+public class WriteBehindPersistenceService implements PersistenceService {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteBehindPersistenceService.class);
+    // 死信日志：被丢弃状态的 Base64 快照，可用 StateSnapshotCodec.decode 还原后人工补写
+    private static final Logger deadLetter = LoggerFactory.getLogger("deeptalent.persistence.dead_letter");
+
+    private final PersistenceService delegate;
+    private final Duration flushInterval;
+    private final int maxBatchSize;
+    private final int maxPending;
+    private final int maxAttempts;
+
+    // 待写队列：threadId -> 最新状态，按首次入队顺序刷盘
+    private final LinkedHashMap<String, DeepTalentState> pending = new LinkedHashMap<>();
+    // 已出队、正在写库的状态，写完之前仍需对 loadState 可见
+    private final Map<String, DeepTalentState> inflight = new HashMap<>();
+    // 保证同一时刻只有一个线程在刷盘，从而同一会话的写入严格有序
+    private final Object flushLock = new Object();
+    // 各会话连续写入失败的次数，只在持有 flushLock 时读写
+    private final Map<String, Integer> failedAttempts = new HashMap<>();
+
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "write-behind-flusher");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder flushedStates = new LongAdder();
+    private final LongAdder failedStates = new LongAdder();
+    private final LongAdder droppedStates = new LongAdder();
+    private final Timer flushTimer;
+
+    /**
+     * @param maxAttempts 同一会话连续写入失败的次数上限，达到后丢弃该状态
+     * @param registry    指标注册表，待写队列深度与刷盘耗时注册在其中
+     */
+    public WriteBehindPersistenceService(PersistenceService delegate, Duration flushInterval, int maxBatchSize, int maxPending,
+                                         int maxAttempts, MeterRegistry registry) {
+        this.delegate = delegate;
+        this.flushInterval = flushInterval;
+        this.maxBatchSize = maxBatchSize;
+        this.maxPending = maxPending;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.flushTimer = Timer.builder("deeptalent.persistence.write_behind.flush")
+                .description("Duration of write-behind flushes")
+                .publishPercentileHistogram()
+                .register(registry);
+        Gauge.builder("deeptalent.persistence.write_behind.queue", this, WriteBehindPersistenceService::getQueueDepth)
+                .description("Sessions waiting to be flushed")
+                .register(registry);
+        stateCounter(registry, "enqueued", enqueued);
+        stateCounter(registry, "coalesced", coalesced);
+        stateCounter(registry, "flushed", flushedStates);
+        stateCounter(registry, "failed", failedStates);
+        stateCounter(registry, "dropped", droppedStates);
+    }
+
+    private static void stateCounter(MeterRegistry registry, String result, LongAdder adder) {
+        FunctionCounter.builder("deeptalent.persistence.write_behind.states", adder, LongAdder::sum)
+                .description("Session states passing through the write-behind queue")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    /**
+     * 启动后台刷盘线程
+     */
+    public void start() {
+        long intervalMs = flushInterval.toMillis();
+        flusher.scheduleWithFixedDelay(this::flushQuietly, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        log.info("Write-behind persistence started: flushInterval={}, maxBatchSize={}, maxPending={}, maxAttempts={}",
+                flushInterval, maxBatchSize, maxPending, maxAttempts);
+    }
+
+    @Override
+    public DeepTalentState loadState(String threadId) {
+        synchronized (pending) {
+            DeepTalentState state = pending.get(threadId);
+            if (state == null) {
+                state = inflight.get(threadId);
+            }
+            if (state != null) {
+                return state.copy();
+            }
+        }
+        return delegate.loadState(threadId);
+    }
+
+    /**
+     * 待写状态中的消息可能尚未落库：区间与待写状态的消息窗口重叠的部分从内存取，其余部分从数据库取
+     */
+    @Override
+    public List<Message> loadMessages(String threadId, int fromSequence, int toSequence) {
+        DeepTalentState state;
+        synchronized (pending) {
+            state = pending.get(threadId);
+            if (state == null) {
+                state = inflight.get(threadId);
+            }
+            if (state != null) {
+                state = state.copy();
+            }
+        }
+        if (state == null || state.getMessageOffset() >= toSequence) {
+            return delegate.loadMessages(threadId, fromSequence, toSequence);
+        }
+        int offset = state.getMessageOffset();
+        List<Message> messages = new ArrayList<>(Math.max(0, toSequence - fromSequence));
+        if (fromSequence < offset) {
+            messages.addAll(delegate.loadMessages(threadId, fromSequence, offset));
+        }
+        int end = Math.min(toSequence, state.getTotalMessageCount());
+        for (int seq = Math.max(fromSequence, offset); seq < end; seq++) {
+            messages.add(state.getMessages().get(seq - offset));
+        }
+        return messages;
+    }
+
+    @Override
+    public void saveState(String threadId, DeepTalentState state) {
+        DeepTalentState copy = state.copy();
+        int depth;
+        synchronized (pending) {
+            if (pending.put(threadId, copy) != null) {
+                coalesced.increment();
+            }
+            depth = pending.size();
+        }
+        enqueued.increment();
+
+        if (depth >= maxPending) {
+            // 队列已满，调用线程直接刷盘，避免内存无限增长
+            flush();
+        } else if (depth >= maxBatchSize) {
+            flusher.execute(this::flushQuietly);
+        }
+    }
+
+    /**
+     * 把当前待写队列全部写入数据库
+     * 写入失败的状态会重新入队（若期间没有更新的状态），下次刷盘重试；
+     * 同一会话连续失败 maxAttempts 次后不再重试，避免无法写入的状态永远占据队列
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            Map<String, DeepTalentState> batch;
+            synchronized (pending) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = new LinkedHashMap<>(pending);
+                pending.clear();
+                inflight.putAll(batch);
+            }
+
+            long start = System.nanoTime();
+            for (Map.Entry<String, DeepTalentState> entry : batch.entrySet()) {
+                String threadId = entry.getKey();
+                try {
+                    delegate.saveState(threadId, entry.getValue());
+                    flushedStates.increment();
+                    failedAttempts.remove(threadId);
+                } catch (Exception e) {
+                    failedStates.increment();
+                    int attempts = failedAttempts.merge(threadId, 1, Integer::sum);
+                    if (attempts >= maxAttempts) {
+                        failedAttempts.remove(threadId);
+                        drop(threadId, entry.getValue(), attempts, e);
+                    } else {
+                        log.error("Write-behind flush failed for thread {} (attempt {}/{}), will retry",
+                                threadId, attempts, maxAttempts, e);
+                        synchronized (pending) {
+                            pending.putIfAbsent(threadId, entry.getValue());
+                        }
+                    }
+                } finally {
+                    synchronized (pending) {
+                        inflight.remove(threadId);
+                    }
+                }
+            }
+            long elapsed = System.nanoTime() - start;
+            flushTimer.record(elapsed, TimeUnit.NANOSECONDS);
+            log.debug("Write-behind flushed {} session(s) in {} ms", batch.size(), TimeUnit.NANOSECONDS.toMillis(elapsed));
+        }
+    }
+
+    /**
+     * 丢弃多次写入失败的状态：计数并把快照写入死信日志
+     * 期间入队的更新状态仍会照常写入，失败次数重新计算
+     */
+    private void drop(String threadId, DeepTalentState state, int attempts, Exception cause) {
+        droppedStates.increment();
+        log.error("Write-behind dropped state of thread {} after {} failed attempt(s)", threadId, attempts, cause);
+        try {
+            deadLetter.error("thread={} dialogueCount={} snapshot={}", threadId, state.getDialogueCount(),
+                    Base64.getEncoder().encodeToString(StateSnapshotCodec.encode(state)));
+        } catch (RuntimeException e) {
+            deadLetter.error("thread={} dialogueCount={} snapshot=<unencodable: {}>", threadId, state.getDialogueCount(), e.toString());
+        }
+    }
+
+    /**
+     * 停止后台线程并写完所有待写状态
+     */
+    public void shutdown() {
+        flusher.shutdown();
+        try {
+            if (!flusher.awaitTermination(30, TimeUnit.SECONDS)) {
+                log.warn("Write-behind flusher did not terminate in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        int remaining = getQueueDepth();
+        if (remaining > 0) {
+            log.error("Write-behind shutdown with {} unsaved session(s)", remaining);
+        } else {
+            log.info("Write-behind queue drained");
+        }
+    }
+
+    /**
+     * 当前待写会话数
+     */
+    public int getQueueDepth() {
+        synchronized (pending) {
+            return pending.size();
+        }
+    }
+
+    /**
+     * 获取回写统计信息
+     *
+     * @return 统计快照
+     */
+    public WriteBehindStats getStats() {
+        return new WriteBehindStats(getQueueDepth(), enqueued.sum(), coalesced.sum(), flushedStates.sum(),
+                failedStates.sum(), droppedStates.sum(), flushTimer.count(), (long) flushTimer.totalTime(TimeUnit.NANOSECONDS),
+                (long) flushTimer.max(TimeUnit.NANOSECONDS));
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("Write-behind flush failed", e);
+        }
+    }
+
+    /**
+     * 回写统计快照
+     */
+    @Getter
+    public static class WriteBehindStats {
+        private final int queueDepth;
+        private final long enqueued;
+        private final long coalesced;
+        private final long flushedStates;
+        private final long failedStates;
+        private final long droppedStates;
+        private final long flushes;
+        private final long totalFlushNanos;
+        private final long maxFlushNanos;
+
+        public WriteBehindStats(int queueDepth, long enqueued, long coalesced, long flushedStates,
+                                long failedStates, long droppedStates, long flushes, long totalFlushNanos, long maxFlushNanos) {
+            this.queueDepth = queueDepth;
+            this.enqueued = enqueued;
+            this.coalesced = coalesced;
+            this.flushedStates = flushedStates;
+            this.failedStates = failedStates;
+            this.droppedStates = droppedStates;
+            this.flushes = flushes;
+            this.totalFlushNanos = totalFlushNanos;
+            this.maxFlushNanos = maxFlushNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "WriteBehindStats{" +
+                    "queueDepth=" + queueDepth +
+                    ", enqueued=" + enqueued +
+                    ", coalesced=" + coalesced +
+                    ", flushedStates=" + flushedStates +
+                    ", failedStates=" + failedStates +
+                    ", droppedStates=" + droppedStates +
+                    ", flushes=" + flushes +
+                    ", totalFlushNanos=" + totalFlushNanos +
+                    ", maxFlushNanos=" + maxFlushNanos +
+                    '}';
+        }
+    }
+}
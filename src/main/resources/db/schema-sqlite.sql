@@ -0,0 +1,126 @@
+-- 嵌入式存储后端建表脚本 (SQLite)
+-- 日期: 2026-10-18
+-- 作者: 小阳
+-- 描述: 与 sql/schema_v2 ~ v12 (MySQL) 对应的最新表结构，由 spring.sql.init 在启动时执行，可重复执行。
+--       与 schema-h2.sql 的差异仅在自增主键的写法：SQLite 中 INTEGER PRIMARY KEY 即 rowid 别名
+
+-- ----------------------------
+-- 1. 会话主表 (dt_conversation)
+-- ----------------------------
+CREATE TABLE IF NOT EXISTS dt_conversation (
+  id INTEGER PRIMARY KEY AUTOINCREMENT,
+  thread_id VARCHAR(64) NOT NULL UNIQUE,
+  current_phase VARCHAR(32) DEFAULT 'childhood',
+  dialogue_count INT DEFAULT 0,
+  need_followup TINYINT DEFAULT 0,
+  last_eval TEXT,
+  final_report LONGTEXT,
+  state_snapshot LONGBLOB,
+  created_at DATETIME DEFAULT CURRENT_TIMESTAMP,
+  updated_at DATETIME DEFAULT CURRENT_TIMESTAMP
+);
+
+-- ----------------------------
+-- 2. 消息记录表 (dt_message)
+-- ----------------------------
+CREATE TABLE IF NOT EXISTS dt_message (
+  id INTEGER PRIMARY KEY AUTOINCREMENT,
+  thread_id VARCHAR(64) NOT NULL,
+  role VARCHAR(16) NOT NULL,
+  content LONGTEXT,
+  sequence INT DEFAULT 0,
+  thread_name VARCHAR(255),
+  created_at DATETIME DEFAULT CURRENT_TIMESTAMP,
+  FOREIGN KEY (thread_id) REFERENCES dt_conversation (thread_id) ON DELETE CASCADE ON UPDATE CASCADE
+);
+CREATE INDEX IF NOT EXISTS idx_message_thread_sequence ON dt_message (thread_id, sequence);
+
+-- ----------------------------
+-- 3. 特征提取表 (dt_extraction)
+-- ----------------------------
+CREATE TABLE IF NOT EXISTS dt_extraction (
+  id INTEGER PRIMARY KEY AUTOINCREMENT,
+  thread_id VARCHAR(64) NOT NULL,
+  phase VARCHAR(32),
+  tag VARCHAR(64),
+  evidence TEXT,
+  confidence DOUBLE,
+  created_at DATETIME DEFAULT CURRENT_TIMESTAMP,
+  FOREIGN KEY (thread_id) REFERENCES dt_conversation (thread_id) ON DELETE CASCADE ON UPDATE CASCADE
+);
+CREATE INDEX IF NOT EXISTS idx_extraction_thread_id_phase ON dt_extraction (thread_id, phase);
+
+-- ----------------------------
+-- 4. 提示词配置表 (dt_prompt_config)
+-- ----------------------------
+CREATE TABLE IF NOT EXISTS dt_prompt_config (
+  id INTEGER PRIMARY KEY AUTOINCREMENT,
+  prompt_key VARCHAR(64) NOT NULL,
+  language VARCHAR(16) NOT NULL DEFAULT 'zh-CN',
+  content LONGTEXT NOT NULL,
+  version INT NOT NULL DEFAULT 1,
+  is_active TINYINT NOT NULL DEFAULT 1,
+  description VARCHAR(255),
+  created_at DATETIME DEFAULT CURRENT_TIMESTAMP,
+  updated_at DATETIME DEFAULT CURRENT_TIMESTAMP
+);
+CREATE INDEX IF NOT EXISTS idx_prompt_key_lang_active ON dt_prompt_config (prompt_key, language, is_active);
+
+-- ----------------------------
+-- 5. 阶段摘要表 (dt_phase_summary)
+-- ----------------------------
+CREATE TABLE IF NOT EXISTS dt_phase_summary (
+  id INTEGER PRIMARY KEY AUTOINCREMENT,
+  thread_id VARCHAR(64) NOT NULL,
+  phase VARCHAR(32) NOT NULL,
+  summary TEXT,
+  from_sequence INT NOT NULL DEFAULT 0,
+  to_sequence INT NOT NULL DEFAULT 0,
+  created_at DATETIME DEFAULT CURRENT_TIMESTAMP,
+  FOREIGN KEY (thread_id) REFERENCES dt_conversation (thread_id) ON DELETE CASCADE ON UPDATE CASCADE
+);
+CREATE INDEX IF NOT EXISTS idx_summary_thread_to_sequence ON dt_phase_summary (thread_id, to_sequence);
+
+-- ----------------------------
+-- 6. 题库表 (dt_question_bank)
+-- ----------------------------
+CREATE TABLE IF NOT EXISTS dt_question_bank (
+  id INTEGER PRIMARY KEY AUTOINCREMENT,
+  phase VARCHAR(32) NOT NULL,
+  prompt_version INT NOT NULL DEFAULT 0,
+  question TEXT NOT NULL,
+  created_at DATETIME DEFAULT CURRENT_TIMESTAMP
+);
+CREATE INDEX IF NOT EXISTS idx_question_bank_phase_version ON dt_question_bank (phase, prompt_version);
+
+-- ----------------------------
+-- 7. 报告生成任务表 (dt_report_job)
+-- ----------------------------
+CREATE TABLE IF NOT EXISTS dt_report_job (
+  job_id VARCHAR(64) PRIMARY KEY,
+  thread_id VARCHAR(64) NOT NULL,
+  status VARCHAR(16) NOT NULL,
+  attempts INT NOT NULL DEFAULT 0,
+  error_message TEXT,
+  created_at DATETIME DEFAULT CURRENT_TIMESTAMP,
+  updated_at DATETIME DEFAULT CURRENT_TIMESTAMP,
+  finished_at DATETIME,
+  owner VARCHAR(64),
+  lease_until DATETIME,
+  FOREIGN KEY (thread_id) REFERENCES dt_conversation (thread_id) ON DELETE CASCADE ON UPDATE CASCADE
+);
+CREATE INDEX IF NOT EXISTS idx_report_job_thread_status ON dt_report_job (thread_id, status);
+CREATE INDEX IF NOT EXISTS idx_report_job_status ON dt_report_job (status);
+
+-- ----------------------------
+-- 8. 报告分节草稿表 (dt_report_section)
+-- ----------------------------
+CREATE TABLE IF NOT EXISTS dt_report_section (
+  id INTEGER PRIMARY KEY AUTOINCREMENT,
+  thread_id VARCHAR(64) NOT NULL,
+  phase VARCHAR(32) NOT NULL,
+  content TEXT NOT NULL,
+  created_at DATETIME DEFAULT CURRENT_TIMESTAMP,
+  FOREIGN KEY (thread_id) REFERENCES dt_conversation (thread_id) ON DELETE CASCADE ON UPDATE CASCADE
+);
+CREATE INDEX IF NOT EXISTS idx_report_section_thread_phase ON dt_report_section (thread_id, phase);
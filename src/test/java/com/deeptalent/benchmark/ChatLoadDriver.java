@@ -0,0 +1,196 @@
+package com.deeptalent.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 访谈接口压测驱动
+ * 模拟 users 个用户，每个用户先调用 /api/chat/start，再串行发送 turns 轮 /api/chat/message；
+ * 同时在线的用户数为 concurrency。按接口统计请求数、失败数、吞吐与 p50/p95/p99 延迟。
+ *
+ * 单独运行（压测已启动的实例）：
+ * java -cp target/test-classes:target/classes:... com.deeptalent.benchmark.ChatLoadDriver http://localhost:8080 1000 3 200
+ *
+ * @author 小阳
+ * @date 2026-10-18
+ * @version 1.0.0
+ */
+public class ChatLoadDriver {
+
+    private final String baseUrl;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+
+    private final Map<String, EndpointStats> endpoints = new ConcurrentHashMap<>();
+
+    /**
+     * @param baseUrl 被测实例地址，如 http://localhost:8080
+     */
+    public ChatLoadDriver(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    /**
+     * 运行压测并返回报告
+     *
+     * @param users       模拟的用户总数
+     * @param turns       每个用户发送的消息轮数
+     * @param concurrency 同时在线的用户数
+     */
+    public Report run(int users, int turns, int concurrency) throws Exception {
+        endpoints.clear();
+        ExecutorService pool = Executors.newFixedThreadPool(concurrency);
+        String runId = Long.toString(System.currentTimeMillis(), 36);
+        long begin = System.nanoTime();
+        try {
+            List<Future<?>> futures = new ArrayList<>(users);
+            for (int u = 0; u < users; u++) {
+                String userName = "load-" + runId + "-" + u;
+                futures.add(pool.submit(() -> {
+                    simulateUser(userName, turns);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.MINUTES);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        Map<String, EndpointReport> reports = new LinkedHashMap<>();
+        endpoints.forEach((path, stats) -> reports.put(path, stats.report(seconds)));
+        return new Report(users, turns, concurrency, seconds, reports);
+    }
+
+    private void simulateUser(String userName, int turns) {
+        Map<?, ?> session = call("/api/chat/start", "/api/chat/start?userName=" + URLEncoder.encode(userName, StandardCharsets.UTF_8), "");
+        if (session == null) {
+            return;
+        }
+        String threadId = (String) session.get("threadId");
+        for (int t = 0; t < turns; t++) {
+            String body;
+            try {
+                body = objectMapper.writeValueAsString(Map.of("threadId", threadId,
+                        "message", "第 " + (t + 1) + " 轮回答：小时候经常一个人画画，一画就是一下午"));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            if (call("/api/chat/message", "/api/chat/message", body) == null) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 发送请求并记录延迟
+     *
+     * @return 响应体；请求失败时返回 null，该用户不再继续
+     */
+    private Map<?, ?> call(String endpoint, String path, String body) {
+        EndpointStats stats = endpoints.computeIfAbsent(endpoint, key -> new EndpointStats());
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofMinutes(5))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        long start = System.nanoTime();
+        try {
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                stats.failed();
+                return null;
+            }
+            stats.succeeded(System.nanoTime() - start);
+            return objectMapper.readValue(response.body(), Map.class);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stats.failed();
+            return null;
+        } catch (Exception e) {
+            stats.failed();
+            return null;
+        }
+    }
+
+    /**
+     * 单个接口的延迟样本
+     */
+    private static class EndpointStats {
+        private final List<Long> samples = new ArrayList<>();
+        private final AtomicLong failures = new AtomicLong();
+
+        synchronized void succeeded(long nanos) {
+            samples.add(nanos);
+        }
+
+        void failed() {
+            failures.incrementAndGet();
+        }
+
+        synchronized EndpointReport report(double seconds) {
+            long[] sorted = samples.stream().mapToLong(Long::longValue).toArray();
+            Arrays.sort(sorted);
+            return new EndpointReport(sorted.length, failures.get(), sorted.length / seconds,
+                    percentile(sorted, 0.50), percentile(sorted, 0.95), percentile(sorted, 0.99));
+        }
+
+        private static double percentile(long[] sorted, double p) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(p * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1e6;
+        }
+    }
+
+    /**
+     * 单个接口的统计结果，延迟单位为毫秒
+     */
+    public record EndpointReport(long requests, long failures, double throughput, double p50, double p95, double p99) {
+    }
+
+    /**
+     * 压测报告
+     */
+    public record Report(int users, int turns, int concurrency, double seconds, Map<String, EndpointReport> endpoints) {
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder(String.format(
+                    "users=%d turns=%d concurrency=%d elapsed=%.2fs%n", users, turns, concurrency, seconds));
+            endpoints.forEach((path, report) -> builder.append(String.format(
+                    "  %-18s requests=%d failures=%d throughput=%.1f req/s p50=%.0fms p95=%.0fms p99=%.0fms%n",
+                    path, report.requests(), report.failures(), report.throughput(),
+                    report.p50(), report.p95(), report.p99())));
+            return builder.toString();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        int users = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int turns = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+        int concurrency = args.length > 3 ? Integer.parseInt(args[3]) : 200;
+        System.out.print(new ChatLoadDriver(baseUrl).run(users, turns, concurrency));
+    }
+}
@@ -0,0 +1,155 @@
+package com.deeptalent.benchmark;
+
+import com.deeptalent.service.ai.DeepTalentAgent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+
+/**
+ * 同步 / 异步对话接口负载测试
+ * 启动真实的 Web 容器（Tomcat 请求线程限制为 16），用固定延迟的模拟 LLM 代替上游模型，
+ * 由 SESSIONS 个并发会话各发送 TURNS 轮消息，对比两种接口的吞吐与同时在途的轮次数：
+ *
+ * <ul>
+ *     <li>同步接口：每个在途轮次占用一个 Tomcat 线程，在途轮次数不超过请求线程数</li>
+ *     <li>异步接口：请求线程在 LLM 调用期间被释放，在途轮次数只受对话线程池与模型舱壁限制</li>
+ * </ul>
+ *
+ * 在途轮次数即可持续服务的并发会话数（每个会话同一时刻只有一轮在途）。
+ * 运行方式：mvn test -Dtest=ChatLoadTest -Dloadtest=true
+ *
+ * @author 小阳
+ * @date 2026-10-18
+ * @version 1.0.0
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:deep_talent_load;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE;DB_CLOSE_DELAY=-1",
+        "server.tomcat.threads.max=16",
+        "deeptalent.session.chat-threads=256",
+        "deeptalent.llm.bulkhead.max-concurrent=1024",
+        "deeptalent.question-bank.enabled=false",
+        "deeptalent.llm.json-mode=false",
+        "mybatis-plus.configuration.log-impl=org.apache.ibatis.logging.nologging.NoLoggingImpl"
+})
+@ActiveProfiles("h2")
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+class ChatLoadTest {
+
+    private static final int SESSIONS = 128;
+    private static final int TURNS = 5;
+    private static final long LLM_LATENCY_MS = 100;
+
+    @LocalServerPort
+    private int port;
+
+    @MockBean
+    private DeepTalentAgent deepTalentAgent;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final AtomicInteger inflight = new AtomicInteger();
+    private final AtomicInteger maxInflight = new AtomicInteger();
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+
+    private String slowCall(String response) throws InterruptedException {
+        maxInflight.accumulateAndGet(inflight.incrementAndGet(), Math::max);
+        try {
+            Thread.sleep(LLM_LATENCY_MS);
+        } finally {
+            inflight.decrementAndGet();
+        }
+        return response;
+    }
+
+    private String post(String path, String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .timeout(Duration.ofMinutes(2))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode(), response.body());
+        return response.body();
+    }
+
+    /**
+     * 所有会话同时开始，各自串行发送 TURNS 轮消息
+     *
+     * @return 每秒完成的轮次数
+     */
+    private double runLoad(String label, String messagePath) throws Exception {
+        maxInflight.set(0);
+        ExecutorService sessions = Executors.newFixedThreadPool(SESSIONS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int s = 0; s < SESSIONS; s++) {
+            String userName = label + "-user-" + s;
+            futures.add(sessions.submit(() -> {
+                Map<?, ?> session = objectMapper.readValue(post("/api/chat/start?userName=" + userName, ""), Map.class);
+                String threadId = (String) session.get("threadId");
+                start.await();
+                for (int t = 0; t < TURNS; t++) {
+                    post(messagePath, objectMapper.writeValueAsString(Map.of("threadId", threadId, "message", "回答 " + t)));
+                }
+                return null;
+            }));
+        }
+        // 会话创建完毕后统一开始计时
+        Thread.sleep(2000);
+        maxInflight.set(0);
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(5, TimeUnit.MINUTES);
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        sessions.shutdown();
+
+        double throughput = SESSIONS * TURNS / seconds;
+        System.out.printf("%-6s sessions=%d turns=%d elapsed=%.2fs throughput=%.1f turns/s peak in-flight LLM calls=%d%n",
+                label, SESSIONS, SESSIONS * TURNS, seconds, throughput, maxInflight.get());
+        return throughput;
+    }
+
+    @Test
+    void testAsyncSustainsMoreConcurrentSessionsThanSync() throws Exception {
+        when(deepTalentAgent.evaluate(anyList())).thenAnswer(invocation -> slowCall("{\"need_followup\": true}"));
+        when(deepTalentAgent.chat(anyList())).thenAnswer(invocation -> slowCall("下一个问题"));
+
+        double sync = runLoad("sync", "/api/chat/message");
+        int syncPeak = maxInflight.get();
+        double async = runLoad("async", "/api/chat/async/message");
+        int asyncPeak = maxInflight.get();
+
+        // 同步接口受 Tomcat 请求线程数限制，异步接口不受
+        assertTrue(syncPeak <= 16, "sync path exceeded request threads: " + syncPeak);
+        assertTrue(asyncPeak > syncPeak, "async path did not raise concurrency");
+        assertTrue(async > sync, "async path did not raise throughput");
+    }
+}
@@ -0,0 +1,89 @@
+package com.deeptalent.benchmark;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 离线端到端负载测试
+ * 启动真实的 Web 容器与 H2 内存库，上游模型换成本地的 {@link FakeOpenAiServer}（首 token 延迟为对数正态分布、
+ * 按固定速率生成 token、评估返回预置 JSON），再由 {@link ChatLoadDriver} 模拟大量用户走完
+ * /api/chat/start 与 /api/chat/message，输出各接口的吞吐与 p50/p95/p99。
+ * 默认的评估结果每轮都推进阶段，3 轮后生成报告，覆盖评估、路由、摘要、访谈与写作全部节点。
+ *
+ * 运行方式：mvn test -Dtest=EndToEndLoadTest -Dloadtest=true [-Dloadtest.users=1000 -Dloadtest.turns=3 -Dloadtest.concurrency=200]
+ *
+ * @author 小阳
+ * @date 2026-10-18
+ * @version 1.0.0
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:deep_talent_e2e;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE;DB_CLOSE_DELAY=-1",
+        "langchain4j.open-ai.chat-model.api-key=fake",
+        "langchain4j.open-ai.chat-model.log-requests=false",
+        "langchain4j.open-ai.chat-model.log-responses=false",
+        "langchain4j.open-ai.streaming-chat-model.api-key=fake",
+        "langchain4j.open-ai.streaming-chat-model.log-requests=false",
+        "deeptalent.llm.bulkhead.models.deepseek-chat=256",
+        "mybatis-plus.configuration.log-impl=org.apache.ibatis.logging.nologging.NoLoggingImpl"
+})
+@ActiveProfiles("h2")
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+class EndToEndLoadTest {
+
+    private static final FakeOpenAiServer MODEL = startModel();
+
+    @LocalServerPort
+    private int port;
+
+    private static FakeOpenAiServer startModel() {
+        try {
+            return new FakeOpenAiServer()
+                    .latency(FakeOpenAiServer.LatencyModel.logNormal(200, 0.5))
+                    .tokensPerSecond(400)
+                    .completionTokens(40)
+                    .start(0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @DynamicPropertySource
+    static void modelProperties(DynamicPropertyRegistry registry) {
+        registry.add("langchain4j.open-ai.chat-model.base-url", MODEL::getBaseUrl);
+        registry.add("langchain4j.open-ai.streaming-chat-model.base-url", MODEL::getBaseUrl);
+    }
+
+    @AfterAll
+    static void stopModel() {
+        MODEL.close();
+    }
+
+    @Test
+    void testInterviewFlowUnderLoad() throws Exception {
+        int users = Integer.getInteger("loadtest.users", 1000);
+        int turns = Integer.getInteger("loadtest.turns", 3);
+        int concurrency = Integer.getInteger("loadtest.concurrency", 200);
+
+        ChatLoadDriver.Report report = new ChatLoadDriver("http://localhost:" + port).run(users, turns, concurrency);
+
+        System.out.print(report);
+        System.out.printf("fake model: requests=%d evaluations=%d%n", MODEL.getRequests(), MODEL.getEvaluated());
+        ChatLoadDriver.EndpointReport start = report.endpoints().get("/api/chat/start");
+        ChatLoadDriver.EndpointReport message = report.endpoints().get("/api/chat/message");
+        assertEquals(0, start.failures());
+        assertEquals(0, message.failures());
+        assertEquals(users, start.requests());
+        assertEquals((long) users * turns, message.requests());
+    }
+}
@@ -0,0 +1,147 @@
+package com.deeptalent.benchmark;
+
+import com.deeptalent.domain.enums.Phase;
+import com.deeptalent.domain.model.EvaluationResult;
+import com.deeptalent.service.PromptService;
+import com.deeptalent.service.PromptTemplate;
+import com.deeptalent.service.Prompts;
+import com.deeptalent.service.ai.DeepTalentAgent;
+import com.deeptalent.service.impl.EvaluationBatcher;
+import com.deeptalent.service.impl.EvaluationParser;
+import com.deeptalent.service.impl.LlmBulkhead;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.UserMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 评估微批处理吞吐测试
+ * 模拟模型每次调用有固定开销 CALL_OVERHEAD_MS，每多评估一条回答再增加 PER_ITEM_MS，
+ * 并经过最大并发为 MAX_CONCURRENT 的模型舱壁；SESSIONS 个并发会话各评估 TURNS 次，
+ * 对比逐条评估与微批处理的吞吐与模型调用次数：
+ *
+ * <ul>
+ *     <li>逐条评估：每次评估占用一个舱壁许可，吞吐上限约为 MAX_CONCURRENT / CALL_OVERHEAD_MS</li>
+ *     <li>微批处理：同一阶段在 window 内到达的评估合并为一次调用，固定开销与舱壁许可由整批分摊</li>
+ * </ul>
+ *
+ * 运行方式：mvn test -Dtest=EvaluationBatchingLoadTest -Dloadtest=true
+ *
+ * @author 小阳
+ * @date 2026-10-18
+ * @version 1.0.0
+ */
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+class EvaluationBatchingLoadTest {
+
+    private static final int SESSIONS = 128;
+    private static final int TURNS = 10;
+    private static final int MAX_CONCURRENT = 8;
+    private static final long CALL_OVERHEAD_MS = 50;
+    private static final long PER_ITEM_MS = 2;
+
+    private static final Pattern ITEM = Pattern.compile("【(\\d+)】(\\S+)");
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    private final EvaluationParser evaluationParser = new EvaluationParser(new ObjectMapper());
+
+    /**
+     * 固定开销的模拟模型：单条请求把回答写入 reason，批量请求按编号逐条回复
+     */
+    private DeepTalentAgent fakeAgent() {
+        DeepTalentAgent agent = mock(DeepTalentAgent.class);
+        when(agent.evaluate(anyList())).thenAnswer(invocation -> {
+            calls.incrementAndGet();
+            List<ChatMessage> messages = invocation.getArgument(0);
+            String answers = ((UserMessage) messages.get(1)).singleText();
+            Matcher matcher = ITEM.matcher(answers);
+            List<String> results = new ArrayList<>();
+            while (matcher.find()) {
+                results.add("{\"id\": " + matcher.group(1) + ", \"score\": 7, \"reason\": \"" + matcher.group(2) + "\"}");
+            }
+            Thread.sleep(CALL_OVERHEAD_MS + PER_ITEM_MS * Math.max(1, results.size()));
+            if (results.isEmpty()) {
+                return "{\"score\": 7, \"reason\": \"" + answers + "\"}";
+            }
+            return "{\"results\": [" + String.join(", ", results) + "]}";
+        });
+        return new LlmBulkhead("fake", MAX_CONCURRENT, Duration.ofMinutes(5)).guard(DeepTalentAgent.class, agent);
+    }
+
+    private static List<ChatMessage> single(String systemPrompt, String answer) {
+        return List.of(SystemMessage.from(systemPrompt), UserMessage.from(answer));
+    }
+
+    /**
+     * @return 每秒完成的评估数
+     */
+    private double run(String name, Evaluator evaluator) throws Exception {
+        calls.set(0);
+        ExecutorService pool = Executors.newFixedThreadPool(SESSIONS);
+        try {
+            long start = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int s = 0; s < SESSIONS; s++) {
+                int session = s;
+                futures.add(pool.submit(() -> {
+                    for (int turn = 0; turn < TURNS; turn++) {
+                        Phase phase = Phase.values()[turn % 3];
+                        String answer = "s" + session + "-t" + turn;
+                        EvaluationResult result = evaluator.evaluate(phase, "评估提示词 " + phase.getValue(), answer);
+                        assertEquals(answer, result.getReason());
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            double throughput = SESSIONS * TURNS / seconds;
+            System.out.printf("%-8s evaluations=%d, llmCalls=%d, elapsed=%.2fs, throughput=%.1f evals/s%n",
+                    name, SESSIONS * TURNS, calls.get(), seconds, throughput);
+            return throughput;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void testBatchingThroughput() throws Exception {
+        DeepTalentAgent agent = fakeAgent();
+        PromptService promptService = mock(PromptService.class);
+        when(promptService.getTemplate(Prompts.EVALUATOR_BATCH_PROMPT)).thenReturn(PromptTemplate.compile("批量评估 {count} 条"));
+        EvaluationBatcher batcher = new EvaluationBatcher(agent, promptService, evaluationParser, Duration.ofMillis(5), 16);
+
+        double direct = run("direct", (phase, systemPrompt, answer) ->
+                evaluationParser.parse(agent.evaluate(single(systemPrompt, answer)), phase));
+        double batched = run("batched", batcher::evaluate);
+
+        System.out.println(batcher.getStats());
+        System.out.printf("speedup=%.1fx%n", batched / direct);
+        assertTrue(batched > direct, "Micro-batching should raise throughput under a fixed per-call overhead");
+    }
+
+    @FunctionalInterface
+    private interface Evaluator {
+        EvaluationResult evaluate(Phase phase, String systemPrompt, String answer);
+    }
+}
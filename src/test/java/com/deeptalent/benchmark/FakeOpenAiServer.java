@@ -0,0 +1,311 @@
+package com.deeptalent.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 本地 OpenAI 兼容的模拟模型服务
+ * 压测整条访谈链路时代替 DeepSeek：通过 langchain4j.open-ai.chat-model.base-url（以及流式模型的 base-url）指向本服务，
+ * 不消耗上游额度，延迟与输出可复现：
+ *
+ * <ul>
+ *     <li>POST .../chat/completions，支持阻塞与 stream=true（SSE，按 token 速率逐段推送）</li>
+ *     <li>首 token 延迟按 {@link LatencyModel} 抽样，之后按 tokensPerSecond 生成 completionTokens 个 token</li>
+ *     <li>评估请求（response_format=json_object 或系统提示词要求输出 need_followup）按顺序轮流返回预置的评估 JSON；
+ *     批量评估（用户消息含【编号】）按编号逐条返回</li>
+ *     <li>usage 中的 token 数按字符数估算</li>
+ * </ul>
+ *
+ * 单独运行：java -cp target/test-classes:target/classes:... com.deeptalent.benchmark.FakeOpenAiServer [port]
+ *
+ * @author 小阳
+ * @date 2026-10-18
+ * @version 1.0.0
+ */
+public class FakeOpenAiServer implements AutoCloseable {
+
+    /**
+     * 默认的评估输出：回答充分、不追问，每轮都推进到下一阶段
+     */
+    public static final String ADVANCE_EVALUATION = "{\"score\": 8, \"need_followup\": false, \"followup_question\": \"\", "
+            + "\"extractions\": [{\"tag\": \"专注\", \"evidence\": \"一画就是一下午\", \"confidence\": 0.8}, "
+            + "{\"tag\": \"审美\", \"evidence\": \"在意配色\", \"confidence\": 0.7}], \"reason\": \"细节充分\"}";
+
+    /**
+     * 需要追问的评估输出
+     */
+    public static final String FOLLOWUP_EVALUATION = "{\"score\": 3, \"need_followup\": true, "
+            + "\"followup_question\": \"可以具体说说当时的场景吗？\", \"extractions\": [], \"reason\": \"信息不足\"}";
+
+    private static final Pattern BATCH_ITEM = Pattern.compile("【(\\d+)】");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private LatencyModel latency = LatencyModel.fixed(0);
+    private double tokensPerSecond = 0;
+    private int completionTokens = 40;
+    private List<String> evaluations = List.of(ADVANCE_EVALUATION);
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong streamed = new AtomicLong();
+    private final AtomicLong evaluated = new AtomicLong();
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * 首 token 延迟分布
+     */
+    public FakeOpenAiServer latency(LatencyModel latency) {
+        this.latency = latency;
+        return this;
+    }
+
+    /**
+     * 生成速率（token/秒），<= 0 表示首 token 之后立即生成完毕
+     */
+    public FakeOpenAiServer tokensPerSecond(double tokensPerSecond) {
+        this.tokensPerSecond = tokensPerSecond;
+        return this;
+    }
+
+    /**
+     * 非评估请求的输出 token 数
+     */
+    public FakeOpenAiServer completionTokens(int completionTokens) {
+        this.completionTokens = completionTokens;
+        return this;
+    }
+
+    /**
+     * 评估请求按顺序轮流返回的 JSON
+     */
+    public FakeOpenAiServer evaluations(List<String> evaluations) {
+        this.evaluations = List.copyOf(evaluations);
+        return this;
+    }
+
+    /**
+     * 在指定端口启动，0 表示随机端口
+     */
+    public FakeOpenAiServer start(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 1024);
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "fake-openai");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+        return this;
+    }
+
+    /**
+     * @return 供 langchain4j.open-ai.*.base-url 使用的地址
+     */
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/v1/";
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    public long getStreamed() {
+        return streamed.get();
+    }
+
+    public long getEvaluated() {
+        return evaluated.get();
+    }
+
+    @Override
+    public void close() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"POST".equals(exchange.getRequestMethod()) || !exchange.getRequestURI().getPath().endsWith("/chat/completions")) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            requests.incrementAndGet();
+            JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+            String system = "";
+            String user = "";
+            int promptChars = 0;
+            for (JsonNode message : request.path("messages")) {
+                String content = message.path("content").asText("");
+                promptChars += content.length();
+                if ("system".equals(message.path("role").asText()) && system.isEmpty()) {
+                    system = content;
+                } else if ("user".equals(message.path("role").asText())) {
+                    user = content;
+                }
+            }
+
+            String content;
+            if ("json_object".equals(request.path("response_format").path("type").asText())
+                    || system.contains("need_followup")) {
+                long n = evaluated.getAndIncrement();
+                content = evaluation(user, evaluations.get((int) (n % evaluations.size())));
+            } else {
+                content = "模拟回复".repeat(Math.max(1, completionTokens / 2));
+            }
+            int outputTokens = Math.max(1, content.length() / 2);
+            String model = request.path("model").asText("fake");
+
+            sleepMillis(latency.sampleMillis());
+            if (request.path("stream").asBoolean(false)) {
+                streamed.incrementAndGet();
+                stream(exchange, model, content, outputTokens);
+            } else {
+                sleepMillis(generationMillis(outputTokens));
+                byte[] body = objectMapper.writeValueAsBytes(completion(model, content, promptChars / 2, outputTokens));
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 批量评估按编号逐条返回，单条评估原样返回
+     */
+    private String evaluation(String user, String single) throws IOException {
+        Matcher matcher = BATCH_ITEM.matcher(user);
+        if (!matcher.find()) {
+            return single;
+        }
+        ObjectNode root = objectMapper.createObjectNode();
+        ArrayNode results = root.putArray("results");
+        do {
+            ObjectNode item = (ObjectNode) objectMapper.readTree(single);
+            item.put("id", Integer.parseInt(matcher.group(1)));
+            results.add(item);
+        } while (matcher.find());
+        return objectMapper.writeValueAsString(root);
+    }
+
+    private ObjectNode completion(String model, String content, int promptTokens, int outputTokens) {
+        ObjectNode root = objectMapper.createObjectNode();
+        root.put("id", "chatcmpl-fake");
+        root.put("object", "chat.completion");
+        root.put("created", System.currentTimeMillis() / 1000);
+        root.put("model", model);
+        ObjectNode choice = root.putArray("choices").addObject();
+        choice.put("index", 0);
+        choice.putObject("message").put("role", "assistant").put("content", content);
+        choice.put("finish_reason", "stop");
+        root.putObject("usage")
+                .put("prompt_tokens", promptTokens)
+                .put("completion_tokens", outputTokens)
+                .put("total_tokens", promptTokens + outputTokens);
+        return root;
+    }
+
+    private void stream(HttpExchange exchange, String model, String content, int outputTokens)
+            throws IOException, InterruptedException {
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream out = exchange.getResponseBody();
+        // 每个片段 2 个字符，约等于 1 个 token
+        List<String> chunks = new ArrayList<>();
+        for (int i = 0; i < content.length(); i += 2) {
+            chunks.add(content.substring(i, Math.min(content.length(), i + 2)));
+        }
+        long perChunk = chunks.isEmpty() ? 0 : generationMillis(outputTokens) / chunks.size();
+        for (String chunk : chunks) {
+            writeChunk(out, model, objectMapper.createObjectNode().put("content", chunk), null);
+            sleepMillis(perChunk);
+        }
+        writeChunk(out, model, objectMapper.createObjectNode(), "stop");
+        out.write("data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private void writeChunk(OutputStream out, String model, ObjectNode delta, String finishReason) throws IOException {
+        ObjectNode root = objectMapper.createObjectNode();
+        root.put("id", "chatcmpl-fake");
+        root.put("object", "chat.completion.chunk");
+        root.put("created", System.currentTimeMillis() / 1000);
+        root.put("model", model);
+        ObjectNode choice = root.putArray("choices").addObject();
+        choice.put("index", 0);
+        choice.set("delta", delta);
+        choice.put("finish_reason", finishReason);
+        out.write(("data: " + objectMapper.writeValueAsString(root) + "\n\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private long generationMillis(int outputTokens) {
+        return tokensPerSecond > 0 ? (long) (outputTokens * 1000 / tokensPerSecond) : 0;
+    }
+
+    private static void sleepMillis(long millis) throws InterruptedException {
+        if (millis > 0) {
+            Thread.sleep(millis);
+        }
+    }
+
+    /**
+     * 首 token 延迟分布
+     */
+    @FunctionalInterface
+    public interface LatencyModel {
+
+        long sampleMillis();
+
+        static LatencyModel fixed(long millis) {
+            return () -> millis;
+        }
+
+        static LatencyModel uniform(long minMillis, long maxMillis) {
+            return () -> ThreadLocalRandom.current().nextLong(minMillis, maxMillis + 1);
+        }
+
+        /**
+         * 对数正态分布：大部分调用接近中位数，少数调用明显更慢（长尾）
+         *
+         * @param medianMillis 中位数
+         * @param sigma        对数标准差，越大尾部越长
+         */
+        static LatencyModel logNormal(long medianMillis, double sigma) {
+            return () -> Math.round(medianMillis * Math.exp(sigma * ThreadLocalRandom.current().nextGaussian()));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 18080;
+        FakeOpenAiServer server = new FakeOpenAiServer()
+                .latency(LatencyModel.logNormal(400, 0.5))
+                .tokensPerSecond(50)
+                .start(port);
+        System.out.println("Fake OpenAI server listening on " + server.getBaseUrl());
+        Thread.currentThread().join();
+    }
+}
@@ -0,0 +1,159 @@
+package com.deeptalent.benchmark;
+
+import com.deeptalent.config.DeepTalentProperties;
+import com.deeptalent.domain.ai.Message;
+import com.deeptalent.domain.entity.MessageEntity;
+import com.deeptalent.domain.enums.Phase;
+import com.deeptalent.domain.model.EvaluationResult;
+import com.deeptalent.domain.model.Extraction;
+import com.deeptalent.mapper.ConversationMapper;
+import com.deeptalent.mapper.ExtractionMapper;
+import com.deeptalent.mapper.MessageMapper;
+import com.deeptalent.mapper.PhaseSummaryMapper;
+import com.deeptalent.mapper.StateHydrationMapper;
+import com.deeptalent.service.PromptTemplate;
+import com.deeptalent.service.impl.EvaluationParser;
+import com.deeptalent.service.impl.InterviewServiceImpl;
+import com.deeptalent.service.impl.PersistenceServiceImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.langchain4j.data.message.ChatMessage;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每轮对话都会执行的 CPU 侧热点路径基准测试
+ * 不涉及 LLM 与数据库往返，只测量按会话长度 messages 增长的纯计算开销：
+ *
+ * <ul>
+ *     <li>convertMessages：业务消息转换为 LangChain4j 消息（访谈与写作节点构建上下文）</li>
+ *     <li>generateThreadId：用户名的 MD5 十六进制编码（每次开始会话）</li>
+ *     <li>parseEvaluation / parseFencedEvaluation：评估输出的直接解析与从代码块、说明文字中提取</li>
+ *     <li>renderWriterPrompt：写作提示词代入 user_profile（特征数随会话长度增长）</li>
+ *     <li>mapMessagePage：按 sequence 分页加载历史消息时的实体到消息的映射循环</li>
+ * </ul>
+ *
+ * 数据库写入路径的实体映射见 SaveStateBenchmark（rttMicros=0 时只剩 CPU 开销）。
+ * 运行方式：mvn test-compile 后执行本类的 main 方法，或 mvn -Pjmh verify 运行全部基准并输出 JSON 结果
+ *
+ * @author 小阳
+ * @date 2026-10-18
+ * @version 1.0.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class InterviewHotPathBenchmark {
+
+    @Param({"10", "40", "200"})
+    private int messages;
+
+    private static final String EVALUATION = "{\"score\": 8, \"need_followup\": false, \"followup_question\": \"\", "
+            + "\"extractions\": [{\"tag\": \"专注\", \"evidence\": \"一画就是一下午\", \"phase\": \"childhood\", \"confidence\": 0.8}, "
+            + "{\"tag\": \"审美\", \"evidence\": \"很在意配色是否协调\", \"phase\": \"childhood\", \"confidence\": 0.7}], "
+            + "\"reason\": \"回答包含具体情境与行为细节\"}";
+
+    private static final String WRITER_PROMPT = "你是一位专业的天赋画像分析师。请基于用户访谈内容与画像信息，生成一份“天赋画像报告”。\n"
+            + "画像信息：{user_profile}\n输出要求：使用 Markdown，包含核心天赋、证据与发展建议，不要编造访谈中没有出现的事实。";
+
+    private final EvaluationParser evaluationParser = new EvaluationParser(new ObjectMapper());
+    private final PromptTemplate writerTemplate = PromptTemplate.compile(WRITER_PROMPT);
+
+    private List<Message> history;
+    private Map<String, List<Extraction>> profile;
+    private String fencedEvaluation;
+    private String userName;
+    private PersistenceServiceImpl persistenceService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        history = new ArrayList<>(messages);
+        profile = new LinkedHashMap<>();
+        List<MessageEntity> page = new ArrayList<>(messages);
+        for (int i = 0; i < messages; i++) {
+            Message message = new Message(i % 2 == 0 ? "assistant" : "user",
+                    "第 " + i + " 条消息：那次比赛我负责协调整个小组，大家意见不一致的时候我会先听完每个人的想法。");
+            history.add(message);
+            MessageEntity entity = new MessageEntity();
+            entity.setRole(message.getRole());
+            entity.setContent(message.getContent());
+            entity.setSequence(i);
+            page.add(entity);
+            if (i % 4 == 3) {
+                Phase phase = Phase.values()[(i / 4) % 3];
+                profile.computeIfAbsent(phase.getValue(), key -> new ArrayList<>())
+                        .add(new Extraction("组织协调", "我负责协调整个小组", phase.getValue(), 0.8));
+            }
+        }
+        fencedEvaluation = "好的，以下是评估结果：\n```json\n" + EVALUATION + "\n```\n如有需要可以继续追问。";
+        userName = "benchmark-user-" + messages;
+
+        DeepTalentProperties properties = new DeepTalentProperties();
+        properties.getPersistence().setHistoryPageSize(Math.max(1, messages));
+        persistenceService = new PersistenceServiceImpl(mapper(ConversationMapper.class, null),
+                mapper(MessageMapper.class, page), mapper(ExtractionMapper.class, null),
+                mapper(PhaseSummaryMapper.class, null), mapper(StateHydrationMapper.class, null),
+                new ObjectMapper(), properties);
+    }
+
+    @Benchmark
+    public List<ChatMessage> convertMessages() {
+        return InterviewServiceImpl.convertMessages(history);
+    }
+
+    @Benchmark
+    public String generateThreadId() {
+        return InterviewServiceImpl.generateThreadId(userName);
+    }
+
+    @Benchmark
+    public EvaluationResult parseEvaluation() {
+        return evaluationParser.parse(EVALUATION, Phase.CHILDHOOD);
+    }
+
+    @Benchmark
+    public EvaluationResult parseFencedEvaluation() {
+        return evaluationParser.parse(fencedEvaluation, Phase.CHILDHOOD);
+    }
+
+    @Benchmark
+    public String renderWriterPrompt() {
+        return writerTemplate.render("user_profile", profile);
+    }
+
+    @Benchmark
+    public List<Message> mapMessagePage() {
+        return persistenceService.loadMessages("bench", 0, messages);
+    }
+
+    /**
+     * 构造模拟 Mapper：select 开头的方法返回 selectResult，其余方法什么也不做
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T mapper(Class<T> type, Object selectResult) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return method.getName().equals("hashCode") ? System.identityHashCode(proxy) : null;
+            }
+            if (method.getName().startsWith("select")) {
+                return selectResult;
+            }
+            return method.getReturnType() == int.class ? 1 : null;
+        });
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(InterviewHotPathBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,86 @@
+package com.deeptalent.benchmark;
+
+import com.deeptalent.service.PromptTemplate;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 提示词模板渲染基准测试
+ * 以访谈节点的提示词为样本，对比逐个占位符链式 String.replace 与预编译模板渲染的吞吐
+ *
+ * 运行方式：mvn test-compile 后执行本类的 main 方法
+ *
+ * @author 小阳
+ * @date 2026-10-18
+ * @version 1.0.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PromptTemplateBenchmark {
+
+    /**
+     * 与 data-embedded.sql 中的 INTERVIEWER_SYSTEM_PROMPT 一致
+     */
+    private static final String INTERVIEWER_TEMPLATE = """
+            你是一位温和、专业、尊重边界的访谈主持人。你的目标是通过阶段化访谈，帮助用户把“隐性优势/天赋”具象化。
+
+            当前阶段：{phase}
+            当前问题轮次计数：{dialogue_count}
+
+            上一轮质检结果（仅供你参考，不要把评分展示给用户）：
+            {last_eval}
+
+            对话要求：
+            - 全程使用中文，不要出现英文提问。
+            - 一次只问 1 个主问题；如果需要追问，也只追问 1 个点。
+            - 先共情与降压，再把问题变得更具体（时间/地点/人物/发生了什么/当时感受/你怎么做/别人怎么反馈）。
+            - 用户说“不知道/想不起来”时，先肯定这种状态很正常，再提供降低难度的提示（例如给 2-3 个方向供选择，但不要替用户回答）。
+            - 不做医学/心理诊断，不使用“治疗/处方”式语言。
+
+            阶段侧重点：
+            - childhood：童年经历里“被奖励/被否定”的代表性事件、情绪体验、自我应对。
+            - competence：高峰体验、外界反馈、可迁移能力与适用场景。
+            - shadow：反复困扰的模式、触发条件、代价/损失、想改变的方向。""";
+
+    private static final String LAST_EVAL = "EvaluationResult{score=7, reason='有具体场景，但缺少当时的感受', "
+            + "extractions=[Extraction{tag='协调能力', evidence='我会先听完每个人的想法'}], needFollowup=true}";
+
+    private PromptTemplate template;
+    private int dialogueCount;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        template = PromptTemplate.compile(INTERVIEWER_TEMPLATE);
+    }
+
+    @Benchmark
+    public String replaceChain() {
+        dialogueCount = (dialogueCount + 1) & 15;
+        return INTERVIEWER_TEMPLATE
+                .replace("{phase}", "competence")
+                .replace("{dialogue_count}", String.valueOf(dialogueCount))
+                .replace("{last_eval}", LAST_EVAL);
+    }
+
+    @Benchmark
+    public String compiledRender() {
+        dialogueCount = (dialogueCount + 1) & 15;
+        return template.render(Map.of(
+                "phase", "competence",
+                "dialogue_count", dialogueCount,
+                "last_eval", LAST_EVAL));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(PromptTemplateBenchmark.class.getSimpleName()).build()).run();
+    }
+}
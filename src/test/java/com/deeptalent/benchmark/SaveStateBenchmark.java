@@ -0,0 +1,144 @@
+package com.deeptalent.benchmark;
+
+import com.deeptalent.config.DeepTalentProperties;
+import com.deeptalent.domain.ai.Message;
+import com.deeptalent.domain.entity.ConversationEntity;
+import com.deeptalent.domain.model.DeepTalentState;
+import com.deeptalent.domain.model.Extraction;
+import com.deeptalent.mapper.ConversationMapper;
+import com.deeptalent.mapper.ExtractionMapper;
+import com.deeptalent.mapper.MessageMapper;
+import com.deeptalent.mapper.PhaseSummaryMapper;
+import com.deeptalent.mapper.StateHydrationMapper;
+import com.deeptalent.service.impl.PersistenceServiceImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * saveState 写入路径基准测试
+ * 使用模拟固定网络往返延迟 (RTT) 的 Mapper 代替真实 MySQL，统计每次保存的往返次数与耗时，
+ * 对比逐行插入 (batchSize=1) 与多行 VALUES 批量写入 (batchSize=100)
+ *
+ * <ul>
+ *     <li>fullSave：首次保存一段长度为 messages 的完整会话（新会话或全量重写）</li>
+ *     <li>turnSave：已有 messages 条历史的会话追加一轮（一问一答 + 一个特征）</li>
+ * </ul>
+ *
+ * 运行方式：mvn test-compile 后执行本类的 main 方法
+ *
+ * @author 小阳
+ * @date 2026-10-18
+ * @version 1.0.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SaveStateBenchmark {
+
+    @Param({"10", "50", "200"})
+    private int messages;
+
+    @Param({"1", "100"})
+    private int batchSize;
+
+    /**
+     * 0 表示不模拟往返延迟，只测量实体映射等 CPU 开销
+     */
+    @Param({"0", "500"})
+    private long rttMicros;
+
+    private final AtomicLong roundTrips = new AtomicLong();
+    private final AtomicLong saves = new AtomicLong();
+
+    private PersistenceServiceImpl newConversationService;
+    private PersistenceServiceImpl existingConversationService;
+    private DeepTalentState state;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        DeepTalentProperties properties = new DeepTalentProperties();
+        properties.getPersistence().setBatchSize(batchSize);
+        long rttNanos = TimeUnit.MICROSECONDS.toNanos(rttMicros);
+
+        MessageMapper messageMapper = mapper(MessageMapper.class, rttNanos, null);
+        ExtractionMapper extractionMapper = mapper(ExtractionMapper.class, rttNanos, null);
+        PhaseSummaryMapper summaryMapper = mapper(PhaseSummaryMapper.class, rttNanos, null);
+        StateHydrationMapper hydrationMapper = mapper(StateHydrationMapper.class, rttNanos, null);
+        ConversationEntity existing = new ConversationEntity();
+        existing.setThreadId("bench");
+        newConversationService = new PersistenceServiceImpl(mapper(ConversationMapper.class, rttNanos, null),
+                messageMapper, extractionMapper, summaryMapper, hydrationMapper, new ObjectMapper(), properties);
+        existingConversationService = new PersistenceServiceImpl(mapper(ConversationMapper.class, rttNanos, existing),
+                messageMapper, extractionMapper, summaryMapper, hydrationMapper, new ObjectMapper(), properties);
+
+        state = new DeepTalentState();
+        state.setThreadName("bench-user");
+        List<Extraction> extractions = new ArrayList<>();
+        for (int i = 0; i < messages; i++) {
+            state.getMessages().add(new Message(i % 2 == 0 ? "assistant" : "user", "第 " + i + " 条消息：当时我在学校组织了一次活动，大家都很投入。"));
+            if (i % 4 == 3) {
+                extractions.add(new Extraction("组织协调", "我在学校组织了一次活动", "childhood", 0.8));
+            }
+        }
+        state.getUserProfile().put("childhood", extractions);
+    }
+
+    @TearDown(Level.Trial)
+    public void report() {
+        System.out.printf("%n[messages=%d, batchSize=%d] round trips per save: %.2f%n",
+                messages, batchSize, (double) roundTrips.get() / Math.max(1, saves.get()));
+    }
+
+    @Benchmark
+    public void fullSave() {
+        state.getWatermark().reset();
+        newConversationService.saveState("bench", state);
+        saves.incrementAndGet();
+    }
+
+    @Benchmark
+    public void turnSave() {
+        int extractions = state.getUserProfile().get("childhood").size();
+        state.getWatermark().advanceMessages(messages - 2);
+        state.getWatermark().advanceExtractions("childhood", Math.max(0, extractions - 1));
+        existingConversationService.saveState("bench", state);
+        saves.incrementAndGet();
+    }
+
+    /**
+     * 构造模拟 Mapper：每次方法调用计为一次网络往返，并忙等 rttNanos 模拟延迟
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T mapper(Class<T> type, long rttNanos, Object selectResult) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return method.getName().equals("hashCode") ? System.identityHashCode(proxy) : null;
+            }
+            roundTrips.incrementAndGet();
+            long deadline = System.nanoTime() + rttNanos;
+            while (System.nanoTime() < deadline) {
+                Thread.onSpinWait();
+            }
+            if (method.getName().startsWith("select")) {
+                return selectResult;
+            }
+            return method.getReturnType() == int.class ? 1 : null;
+        });
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(SaveStateBenchmark.class.getSimpleName()).build()).run();
+    }
+}
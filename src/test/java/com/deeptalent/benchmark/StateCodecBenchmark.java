@@ -0,0 +1,114 @@
+package com.deeptalent.benchmark;
+
+import com.deeptalent.domain.ai.Message;
+import com.deeptalent.domain.enums.Phase;
+import com.deeptalent.domain.model.DeepTalentState;
+import com.deeptalent.domain.model.EvaluationResult;
+import com.deeptalent.domain.model.Extraction;
+import com.deeptalent.service.impl.StateSnapshotCodec;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 会话状态快照编解码基准测试
+ * 对比 StateSnapshotCodec 与 Jackson JSON 的编码体积、编码耗时与解码耗时
+ *
+ * 运行方式：mvn test-compile 后执行本类的 main 方法
+ *
+ * @author 小阳
+ * @date 2026-10-18
+ * @version 1.0.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StateCodecBenchmark {
+
+    @Param({"10", "50", "200"})
+    private int messages;
+
+    /**
+     * 轮换使用的回答片段，避免同一句话重复导致压缩率失真
+     */
+    private static final String[] SENTENCES = {
+            "那次比赛我负责协调整个小组，大家意见不一致的时候我会先听完每个人的想法，再提出一个折中方案。",
+            "小时候我特别喜欢拆家里的收音机，拆完再装回去，经常装不回去被我爸骂。",
+            "我不太喜欢重复性的工作，做久了就会走神，但如果是没做过的新问题我可以一直钻研到半夜。",
+            "大学时我自学了摄影，后来给学院的活动拍照，很多人说我的照片有故事感。",
+            "压力大的时候我会一个人去跑步，跑完之后脑子里的事情就理清楚了。",
+            "同事遇到难题第一个想到的就是来问我，我也很享受帮别人把复杂的事讲明白。",
+            "你刚才问到的那件事，其实最让我有成就感的是最后把方案落地，而不是前期的讨论。"
+    };
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private DeepTalentState state;
+    private byte[] snapshot;
+    private byte[] json;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        state = new DeepTalentState();
+        state.setCurrentPhase(Phase.COMPETENCE);
+        state.setDialogueCount(2);
+        state.setThreadName("bench-user");
+        List<Extraction> extractions = new ArrayList<>();
+        for (int i = 0; i < messages; i++) {
+            state.getMessages().add(new Message(i % 2 == 0 ? "assistant" : "user",
+                    SENTENCES[i % SENTENCES.length] + SENTENCES[(i * 3 + 1) % SENTENCES.length]));
+            if (i % 4 == 3) {
+                extractions.add(new Extraction("协调能力", "我会先听完每个人的想法", "competence", 0.8));
+            }
+        }
+        state.getUserProfile().put("competence", extractions);
+        EvaluationResult eval = new EvaluationResult();
+        eval.setScore(7);
+        eval.setReason("有具体场景");
+        eval.setExtractions(List.of(new Extraction("协调能力", "提出一个折中方案", "competence", 0.7)));
+        state.setLastEval(eval);
+
+        snapshot = StateSnapshotCodec.encode(state);
+        json = objectMapper.writeValueAsBytes(state);
+    }
+
+    @TearDown(Level.Trial)
+    public void report() {
+        System.out.printf("%n[messages=%d] snapshot=%d bytes, json=%d bytes (%.1f%%)%n",
+                messages, snapshot.length, json.length, 100.0 * snapshot.length / json.length);
+    }
+
+    @Benchmark
+    public byte[] snapshotEncode() {
+        return StateSnapshotCodec.encode(state);
+    }
+
+    @Benchmark
+    public DeepTalentState snapshotDecode() {
+        return StateSnapshotCodec.decode(snapshot);
+    }
+
+    @Benchmark
+    public byte[] jsonEncode() throws IOException {
+        return objectMapper.writeValueAsBytes(state);
+    }
+
+    @Benchmark
+    public DeepTalentState jsonDecode() throws IOException {
+        return objectMapper.readValue(json, DeepTalentState.class);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(StateCodecBenchmark.class.getSimpleName()).build()).run();
+    }
+}
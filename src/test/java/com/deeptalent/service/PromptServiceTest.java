@@ -15,6 +15,7 @@ import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
@@ -106,4 +107,41 @@ class PromptServiceTest {
         // selectOne 应该一次都没调用，因为直接从 refreshCache 填充了
         verify(promptConfigMapper, never()).selectOne(any(LambdaQueryWrapper.class));
     }
+
+    @Test
+    void testRefreshCache_PublishesCompiledSnapshot() {
+        PromptConfigEntity updated = new PromptConfigEntity();
+        updated.setPromptKey("TEST_KEY");
+        updated.setLanguage("zh-CN");
+        updated.setContent("阶段 {phase}");
+        updated.setVersion(2);
+        updated.setActive(true);
+        when(promptConfigMapper.selectList(any(LambdaQueryWrapper.class))).thenReturn(List.of(mockEntity), List.of(updated));
+
+        promptService.refreshCache();
+        long firstSnapshot = promptService.getSnapshotVersion();
+        PromptTemplate before = promptService.getTemplate("TEST_KEY");
+        promptService.refreshCache();
+
+        // 刷新发布新快照，之前取得的模板不受影响
+        assertTrue(promptService.getSnapshotVersion() > firstSnapshot);
+        assertEquals("Test Content", before.getText());
+        assertEquals(1, before.getVersion());
+        assertEquals("阶段 childhood", promptService.getTemplate("TEST_KEY").render("phase", "childhood"));
+        assertEquals(2, promptService.getPromptVersion("TEST_KEY"));
+    }
+
+    @Test
+    void testRefreshCache_FailureKeepsPreviousSnapshot() {
+        when(promptConfigMapper.selectList(any(LambdaQueryWrapper.class)))
+                .thenReturn(List.of(mockEntity))
+                .thenThrow(new RuntimeException("database unavailable"));
+
+        promptService.refreshCache();
+        long snapshotVersion = promptService.getSnapshotVersion();
+        promptService.refreshCache();
+
+        assertEquals(snapshotVersion, promptService.getSnapshotVersion());
+        assertEquals("Test Content", promptService.getPrompt("TEST_KEY"));
+    }
 }
@@ -0,0 +1,58 @@
+package com.deeptalent.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * PromptTemplate 单元测试
+ *
+ * @author 小阳
+ * @date 2026-10-18
+ * @version 1.0.0
+ */
+class PromptTemplateTest {
+
+    @Test
+    void testRender_MatchesChainedReplace() {
+        String text = "阶段：{phase}\n轮次：{dialogue_count}\n评估：{last_eval}\n再次提到阶段 {phase}";
+        PromptTemplate template = PromptTemplate.compile(text, 3);
+
+        String rendered = template.render(Map.of("phase", "childhood", "dialogue_count", 2, "last_eval", "无"));
+
+        assertEquals(text.replace("{phase}", "childhood").replace("{dialogue_count}", "2").replace("{last_eval}", "无"),
+                rendered);
+        assertEquals(List.of("phase", "dialogue_count", "last_eval", "phase"), template.getPlaceholders());
+        assertEquals(3, template.getVersion());
+    }
+
+    @Test
+    void testCompile_KeepsJsonBracesAndUnknownPlaceholders() {
+        String text = "输出格式：{\"score\": 8, \"tags\": []}，阶段 {phase}，未知 {unknown}，空 {}，不闭合 {phase";
+        PromptTemplate template = PromptTemplate.compile(text);
+
+        assertEquals(List.of("phase", "unknown"), template.getPlaceholders());
+        assertEquals("输出格式：{\"score\": 8, \"tags\": []}，阶段 shadow，未知 {unknown}，空 {}，不闭合 {phase",
+                template.render("phase", "shadow"));
+    }
+
+    @Test
+    void testRender_ValuesAreNotReparsed() {
+        PromptTemplate template = PromptTemplate.compile("{user_profile} / {phase}");
+        Map<String, Object> values = new HashMap<>();
+        values.put("user_profile", "{phase}");
+        values.put("phase", null);
+
+        assertEquals("{phase} / null", template.render(values));
+    }
+
+    @Test
+    void testRender_WithoutPlaceholdersReturnsText() {
+        String text = "没有占位符的提示词";
+        assertSame(text, PromptTemplate.compile(text).render(Map.of()));
+    }
+}
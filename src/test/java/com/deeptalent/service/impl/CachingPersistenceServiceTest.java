@@ -0,0 +1,209 @@
+package com.deeptalent.service.impl;
+
+import com.deeptalent.domain.ai.Message;
+import com.deeptalent.domain.model.DeepTalentState;
+import com.deeptalent.domain.model.EvaluationResult;
+import com.deeptalent.domain.model.PhaseSummary;
+import com.deeptalent.service.PersistenceService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * CachingPersistenceService 单元测试
+ *
+ * @author 小阳
+ * @date 2026-10-18
+ * @version 1.0.0
+ */
+@ExtendWith(MockitoExtension.class)
+class CachingPersistenceServiceTest {
+
+    @Mock
+    private PersistenceService delegate;
+
+    private final AtomicLong now = new AtomicLong();
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private CachingPersistenceService cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new CachingPersistenceService(delegate, 2, 1024 * 1024, Duration.ofMinutes(1), 0, now::get, registry);
+    }
+
+    private DeepTalentState persistedState(String content) {
+        DeepTalentState state = new DeepTalentState();
+        state.getMessages().add(new Message("assistant", content));
+        state.getWatermark().advanceMessages(1);
+        return state;
+    }
+
+    @Test
+    void testLoad_HitAfterFirstMiss() {
+        when(delegate.loadState("t1")).thenReturn(persistedState("Q1"));
+
+        cache.loadState("t1");
+        DeepTalentState second = cache.loadState("t1");
+
+        assertEquals("Q1", second.getMessages().get(0).getContent());
+        verify(delegate, times(1)).loadState("t1");
+        assertEquals(1, cache.getStats().getHits());
+        assertEquals(1, cache.getStats().getMisses());
+    }
+
+    @Test
+    void testSave_CachedCopyKeepsOnlyPersistedTailWindow() {
+        cache = new CachingPersistenceService(delegate, 2, 1024 * 1024, Duration.ofMinutes(1), 2, now::get, registry);
+        DeepTalentState state = persistedState("Q1");
+        state.getMessages().add(new Message("user", "A1"));
+        state.getMessages().add(new Message("assistant", "Q2"));
+        // 模拟下层落库成功后推进水位线
+        doAnswer(invocation -> {
+            state.getWatermark().advanceMessages(3);
+            return null;
+        }).when(delegate).saveState("t1", state);
+
+        cache.saveState("t1", state);
+        DeepTalentState cached = cache.loadState("t1");
+
+        assertEquals(3, state.getMessages().size());
+        assertEquals(2, cached.getMessages().size());
+        assertEquals(1, cached.getMessageOffset());
+        assertEquals("A1", cached.getMessages().get(0).getContent());
+    }
+
+    @Test
+    void testLoad_ReturnsIsolatedCopy() {
+        when(delegate.loadState("t1")).thenReturn(persistedState("Q1"));
+
+        // 调用方修改后未保存（例如 LLM 调用失败），缓存不应受影响
+        cache.loadState("t1").getMessages().add(new Message("user", "unsaved"));
+
+        assertEquals(1, cache.loadState("t1").getMessages().size());
+    }
+
+    @Test
+    void testSave_WritesThrough() {
+        when(delegate.loadState("t1")).thenReturn(persistedState("Q1"));
+        DeepTalentState state = cache.loadState("t1");
+        state.getMessages().add(new Message("user", "A1"));
+
+        cache.saveState("t1", state);
+
+        assertEquals(2, cache.loadState("t1").getMessages().size());
+        verify(delegate, times(1)).loadState("t1");
+    }
+
+    @Test
+    void testSave_FailureInvalidates() {
+        when(delegate.loadState("t1")).thenReturn(persistedState("Q1"));
+        cache.loadState("t1");
+        doThrow(new RuntimeException("db down")).when(delegate).saveState(anyString(), any(DeepTalentState.class));
+
+        assertThrows(RuntimeException.class, () -> cache.saveState("t1", persistedState("Q2")));
+
+        cache.loadState("t1");
+        verify(delegate, times(2)).loadState("t1");
+    }
+
+    @Test
+    void testLoad_NewSessionNotCached() {
+        when(delegate.loadState("t1")).thenReturn(new DeepTalentState());
+
+        cache.loadState("t1");
+        cache.loadState("t1");
+
+        verify(delegate, times(2)).loadState("t1");
+        assertEquals(0, cache.getStats().getSize());
+    }
+
+    @Test
+    void testEviction_LeastRecentlyUsed() {
+        cache.saveState("t1", persistedState("Q1"));
+        cache.saveState("t2", persistedState("Q2"));
+        cache.loadState("t1");
+        cache.saveState("t3", persistedState("Q3"));
+
+        assertEquals(1, cache.getStats().getEvictions());
+        when(delegate.loadState("t2")).thenReturn(persistedState("Q2"));
+        cache.loadState("t2");
+        verify(delegate).loadState("t2");
+        verify(delegate, never()).loadState("t1");
+    }
+
+    @Test
+    void testEviction_MemoryCeiling() {
+        long oneEntry = CachingPersistenceService.estimateWeight(persistedState("Q1"));
+        cache = new CachingPersistenceService(delegate, 100, oneEntry * 2, Duration.ofMinutes(1), 0, now::get, registry);
+
+        cache.saveState("t1", persistedState("Q1"));
+        cache.saveState("t2", persistedState("Q2"));
+        cache.saveState("t3", persistedState("Q3"));
+
+        assertEquals(2, cache.getStats().getSize());
+        assertTrue(cache.getStats().getWeightBytes() <= oneEntry * 2);
+    }
+
+    @Test
+    void testEstimateWeight_CountsSummariesAndLastEval() {
+        DeepTalentState state = persistedState("Q1");
+        long base = CachingPersistenceService.estimateWeight(state);
+
+        String summary = "童年".repeat(500);
+        state.getPhaseSummaries().add(new PhaseSummary("childhood", summary, 0, 8));
+        long withSummary = CachingPersistenceService.estimateWeight(state);
+        assertTrue(withSummary >= base + summary.length() * 2L);
+
+        EvaluationResult eval = new EvaluationResult();
+        eval.setReason("回答具体".repeat(100));
+        eval.setFollowupQuestion("当时你在想什么？".repeat(50));
+        state.setLastEval(eval);
+        long withEval = CachingPersistenceService.estimateWeight(state);
+        assertTrue(withEval >= withSummary + (eval.getReason().length() + eval.getFollowupQuestion().length()) * 2L);
+    }
+
+    @Test
+    void testStatsExportedAsMeters() {
+        when(delegate.loadState("t1")).thenReturn(persistedState("Q1"));
+        cache.loadState("t1");
+        cache.loadState("t1");
+        cache.saveState("t2", persistedState("Q2"));
+        cache.saveState("t3", persistedState("Q3"));
+
+        assertEquals(1, registry.get("deeptalent.persistence.cache.requests").tag("result", "hit").functionCounter().count());
+        assertEquals(1, registry.get("deeptalent.persistence.cache.requests").tag("result", "miss").functionCounter().count());
+        assertEquals(1, registry.get("deeptalent.persistence.cache.removals").tag("cause", "eviction").functionCounter().count());
+        assertEquals(2, registry.get("deeptalent.persistence.cache.size").gauge().value());
+        assertEquals(cache.getStats().getWeightBytes(), registry.get("deeptalent.persistence.cache.weight").gauge().value());
+
+        now.addAndGet(Duration.ofMinutes(2).toNanos());
+        when(delegate.loadState("t2")).thenReturn(persistedState("Q2"));
+        cache.loadState("t2");
+        assertEquals(1, registry.get("deeptalent.persistence.cache.removals").tag("cause", "expiration").functionCounter().count());
+    }
+
+    @Test
+    void testExpiration() {
+        when(delegate.loadState("t1")).thenReturn(persistedState("Q1"));
+        cache.loadState("t1");
+
+        now.addAndGet(Duration.ofMinutes(2).toNanos());
+        cache.loadState("t1");
+
+        verify(delegate, times(2)).loadState("t1");
+        assertEquals(1, cache.getStats().getExpirations());
+    }
+}
@@ -0,0 +1,198 @@
+package com.deeptalent.service.impl;
+
+import com.deeptalent.domain.enums.Phase;
+import com.deeptalent.domain.model.EvaluationResult;
+import com.deeptalent.service.LlmOverloadedException;
+import com.deeptalent.service.PromptService;
+import com.deeptalent.service.PromptTemplate;
+import com.deeptalent.service.Prompts;
+import com.deeptalent.service.ai.DeepTalentAgent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.UserMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * EvaluationBatcher 单元测试
+ *
+ * @author 小阳
+ * @date 2026-10-18
+ * @version 1.0.0
+ */
+@ExtendWith(MockitoExtension.class)
+class EvaluationBatcherTest {
+
+    private static final Pattern ITEM = Pattern.compile("【(\\d+)】(\\S+)");
+
+    @Mock
+    private DeepTalentAgent deepTalentAgent;
+
+    @Mock
+    private PromptService promptService;
+
+    private final EvaluationParser evaluationParser = new EvaluationParser(new ObjectMapper());
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(promptService.getTemplate(Prompts.EVALUATOR_BATCH_PROMPT))
+                .thenReturn(PromptTemplate.compile("批量评估 {count} 条"));
+    }
+
+    /**
+     * 模拟模型：单条请求把回答原样写入 reason，批量请求按编号逐条回复，skipId 对应的条目不回复
+     */
+    private void answerWith(int skipId) {
+        when(deepTalentAgent.evaluate(anyList())).thenAnswer(invocation -> {
+            List<ChatMessage> messages = invocation.getArgument(0);
+            String answers = ((UserMessage) messages.get(1)).singleText();
+            Matcher matcher = ITEM.matcher(answers);
+            if (!matcher.find()) {
+                return "{\"score\": 6, \"reason\": \"" + answers + "\"}";
+            }
+            List<String> results = new ArrayList<>();
+            do {
+                int id = Integer.parseInt(matcher.group(1));
+                if (id != skipId) {
+                    results.add("{\"id\": " + id + ", \"score\": 7, \"reason\": \"" + matcher.group(2) + "\"}");
+                }
+            } while (matcher.find());
+            return "{\"results\": [" + String.join(", ", results) + "]}";
+        });
+    }
+
+    private List<EvaluationResult> evaluateConcurrently(EvaluationBatcher batcher, int count) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(count);
+        try {
+            List<Future<EvaluationResult>> futures = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                String answer = "answer-" + i;
+                futures.add(pool.submit(() -> batcher.evaluate(Phase.CHILDHOOD, "评估提示词", answer)));
+            }
+            List<EvaluationResult> results = new ArrayList<>();
+            for (Future<EvaluationResult> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void testEvaluate_FansBatchResultsBackToCallers() throws Exception {
+        answerWith(0);
+        EvaluationBatcher batcher = new EvaluationBatcher(deepTalentAgent, promptService, evaluationParser,
+                Duration.ofSeconds(10), 4);
+
+        List<EvaluationResult> results = evaluateConcurrently(batcher, 4);
+
+        for (int i = 0; i < 4; i++) {
+            assertEquals("answer-" + i, results.get(i).getReason());
+            assertEquals(7, results.get(i).getScore());
+        }
+        // 攒满 maxSize 立即发送，不等 window 到期，整批只调用一次模型
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<ChatMessage>> captor = ArgumentCaptor.forClass(List.class);
+        verify(deepTalentAgent, times(1)).evaluate(captor.capture());
+        assertTrue(((SystemMessage) captor.getValue().get(0)).text().startsWith("评估提示词"));
+        assertTrue(((SystemMessage) captor.getValue().get(0)).text().endsWith("批量评估 4 条"));
+
+        EvaluationBatcher.BatchStats stats = batcher.getStats();
+        assertEquals(1, stats.getBatches());
+        assertEquals(4, stats.getBatchedItems());
+        assertEquals(4, stats.getLargestBatch());
+        assertEquals(0, stats.getFallbacks());
+    }
+
+    @Test
+    void testEvaluate_MissingItemFallsBackToSingleCall() throws Exception {
+        answerWith(2);
+        EvaluationBatcher batcher = new EvaluationBatcher(deepTalentAgent, promptService, evaluationParser,
+                Duration.ofSeconds(10), 3);
+
+        List<EvaluationResult> results = evaluateConcurrently(batcher, 3);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals("answer-" + i, results.get(i).getReason());
+        }
+        // 编号 2 的结果缺失，由对应调用方单独评估一次
+        verify(deepTalentAgent, times(2)).evaluate(anyList());
+        assertEquals(1, batcher.getStats().getFallbacks());
+    }
+
+    @Test
+    void testEvaluate_BatchFailureFallsBackForEveryCaller() throws Exception {
+        when(deepTalentAgent.evaluate(anyList())).thenAnswer(invocation -> {
+            List<ChatMessage> messages = invocation.getArgument(0);
+            String answer = ((UserMessage) messages.get(1)).singleText();
+            if (answer.contains("【")) {
+                throw new IllegalStateException("upstream error");
+            }
+            return "{\"score\": 6, \"reason\": \"" + answer + "\"}";
+        });
+        EvaluationBatcher batcher = new EvaluationBatcher(deepTalentAgent, promptService, evaluationParser,
+                Duration.ofSeconds(10), 2);
+
+        List<EvaluationResult> results = evaluateConcurrently(batcher, 2);
+
+        assertEquals("answer-0", results.get(0).getReason());
+        assertEquals("answer-1", results.get(1).getReason());
+        verify(deepTalentAgent, times(3)).evaluate(anyList());
+        assertEquals(2, batcher.getStats().getFallbacks());
+    }
+
+    @Test
+    void testEvaluate_OverloadedBatchFailsEveryCallerWithoutFallback() {
+        when(deepTalentAgent.evaluate(anyList())).thenThrow(new LlmOverloadedException("deepseek-chat", true,
+                Duration.ofSeconds(3), "Model deepseek-chat is saturated"));
+        EvaluationBatcher batcher = new EvaluationBatcher(deepTalentAgent, promptService, evaluationParser,
+                Duration.ofSeconds(10), 2);
+
+        ExecutionException error = assertThrows(ExecutionException.class, () -> evaluateConcurrently(batcher, 2));
+
+        LlmOverloadedException overloaded = assertInstanceOf(LlmOverloadedException.class, error.getCause());
+        assertEquals(Duration.ofSeconds(3), overloaded.getRetryAfter());
+        // 整批被拒绝后不再逐条重试，舱壁上只有这一次调用
+        verify(deepTalentAgent, times(1)).evaluate(anyList());
+        assertEquals(0, batcher.getStats().getFallbacks());
+    }
+
+    @Test
+    void testEvaluate_LoneCallerUsesSingleRequest() {
+        answerWith(0);
+        EvaluationBatcher batcher = new EvaluationBatcher(deepTalentAgent, promptService, evaluationParser,
+                Duration.ofMillis(1), 16);
+
+        EvaluationResult result = batcher.evaluate(Phase.SHADOW, "评估提示词", "独自回答");
+
+        assertEquals("独自回答", result.getReason());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<ChatMessage>> captor = ArgumentCaptor.forClass(List.class);
+        verify(deepTalentAgent).evaluate(captor.capture());
+        // 单条批次不附加批量说明，也不加编号
+        assertEquals("评估提示词", ((SystemMessage) captor.getValue().get(0)).text());
+        assertEquals(1, batcher.getStats().getSingles());
+        assertEquals(0, batcher.getStats().getBatches());
+        verifyNoInteractions(promptService);
+    }
+}
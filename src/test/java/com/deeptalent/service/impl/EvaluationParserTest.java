@@ -0,0 +1,144 @@
+package com.deeptalent.service.impl;
+
+import com.deeptalent.domain.enums.Phase;
+import com.deeptalent.domain.model.EvaluationResult;
+import com.deeptalent.service.ai.DeepTalentAgent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.output.Response;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * EvaluationParser 单元测试
+ *
+ * @author 小阳
+ * @date 2026-10-18
+ * @version 1.0.0
+ */
+class EvaluationParserTest {
+
+    private final EvaluationParser parser = new EvaluationParser(new ObjectMapper());
+
+    @Test
+    void testParse_PlainJson() {
+        EvaluationResult result = parser.parse("{\"score\": 8, \"need_followup\": false, \"followup_question\": \"\", "
+                + "\"extractions\": [{\"tag\": \"专注\", \"evidence\": \"一画就是一下午\", \"phase\": \"childhood\", \"confidence\": 0.8}], "
+                + "\"reason\": \"细节充分\", \"unknown_field\": 1}", Phase.CHILDHOOD);
+
+        assertEquals(8, result.getScore());
+        assertFalse(result.isNeedFollowup());
+        assertEquals("专注", result.getExtractions().get(0).getTag());
+        EvaluationParser.ParseStats stats = parser.getStats();
+        assertEquals(1, stats.getParsed());
+        assertEquals(0, stats.getExtracted());
+        assertEquals(0, stats.getRepaired());
+        assertEquals(0, stats.getNormalized());
+    }
+
+    @Test
+    void testStatsExportedAsMeters() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        new InterviewMetrics(registry, 0, 0).evaluationParser(parser);
+
+        parser.parse("{\"score\": 8}", Phase.CHILDHOOD);
+        parser.parse("```json\n{\"score\": 3}\n```", Phase.CHILDHOOD);
+        parser.parse("{'score': 4,}", Phase.CHILDHOOD);
+        parser.parse("{\"score\": 42}", Phase.CHILDHOOD);
+        assertThrows(IllegalArgumentException.class, () -> parser.parse("无法评估", Phase.CHILDHOOD));
+
+        assertEquals(4, registry.get("deeptalent.evaluator.parse").tag("result", "success").functionCounter().count());
+        assertEquals(1, registry.get("deeptalent.evaluator.parse").tag("result", "failure").functionCounter().count());
+        assertEquals(1, registry.get("deeptalent.evaluator.parse.recovered").tag("method", "extracted").functionCounter().count());
+        assertEquals(1, registry.get("deeptalent.evaluator.parse.recovered").tag("method", "repaired").functionCounter().count());
+        assertEquals(1, registry.get("deeptalent.evaluator.parse.normalized").functionCounter().count());
+    }
+
+    @Test
+    void testParse_ExtractsFromFencesAndProse() {
+        EvaluationResult fenced = parser.parse("```json\n{\"score\": 3, \"need_followup\": true}\n```", Phase.CHILDHOOD);
+        EvaluationResult prose = parser.parse("好的，评估如下：{\"score\": 6, \"reason\": \"提到了{具体}场景\"} 以上。", Phase.CHILDHOOD);
+
+        assertTrue(fenced.isNeedFollowup());
+        assertEquals(6, prose.getScore());
+        assertEquals("提到了{具体}场景", prose.getReason());
+        assertEquals(2, parser.getStats().getExtracted());
+    }
+
+    @Test
+    void testParse_RepairsTrailingCommasQuotesAndTruncation() {
+        EvaluationResult trailing = parser.parse("{\"score\": 5, \"extractions\": [{\"tag\": \"审美\",},],}", Phase.SHADOW);
+        EvaluationResult singleQuoted = parser.parse("{'score': 4, need_followup: true}", Phase.SHADOW);
+        EvaluationResult truncated = parser.parse("{\"score\": 7, \"need_followup\": false, \"reason\": \"信息较", Phase.SHADOW);
+        EvaluationResult danglingKey = parser.parse("{\"score\": 2, \"reason\":", Phase.SHADOW);
+
+        assertEquals("审美", trailing.getExtractions().get(0).getTag());
+        assertTrue(singleQuoted.isNeedFollowup());
+        assertEquals(7, truncated.getScore());
+        assertEquals("信息较", truncated.getReason());
+        assertNull(danglingKey.getReason());
+        assertEquals(4, parser.getStats().getRepaired());
+    }
+
+    @Test
+    void testParse_NormalizesOutOfRangeFields() {
+        EvaluationResult result = parser.parse("{\"score\": 15, \"extractions\": ["
+                + "{\"tag\": \"\", \"evidence\": \"无标签\"},"
+                + "{\"tag\": \"协调\", \"evidence\": \"先听完每个人的想法\", \"confidence\": 1.6}]}", Phase.COMPETENCE);
+
+        assertEquals(10, result.getScore());
+        assertEquals(1, result.getExtractions().size());
+        assertEquals("competence", result.getExtractions().get(0).getPhase());
+        assertEquals(1.0, result.getExtractions().get(0).getConfidence());
+        assertEquals(1, parser.getStats().getNormalized());
+    }
+
+    @Test
+    void testParse_UnparseableThrowsAndCounts() {
+        assertThrows(IllegalArgumentException.class, () -> parser.parse("我无法给出评估", Phase.CHILDHOOD));
+        assertThrows(IllegalArgumentException.class, () -> parser.parse(null, Phase.CHILDHOOD));
+        assertThrows(IllegalArgumentException.class, () -> parser.parse("{\"score\": [1, 2}", Phase.CHILDHOOD));
+        assertEquals(3, parser.getStats().getFailures());
+        assertEquals(0, parser.getStats().getParsed());
+    }
+
+    @Test
+    void testParseBatch_OrdersByIdAndLeavesGapsForMissingItems() {
+        List<EvaluationResult> results = parser.parseBatch("```json\n{\"results\": ["
+                + "{\"id\": 3, \"score\": 4, \"reason\": \"三\"}, "
+                + "{\"id\": 1, \"score\": 12, \"reason\": \"一\"}, "
+                + "{\"id\": 9, \"score\": 5}, "
+                + "{\"score\": 5}]}\n```", Phase.COMPETENCE, 3);
+
+        assertEquals(3, results.size());
+        assertEquals("一", results.get(0).getReason());
+        assertEquals(10, results.get(0).getScore());
+        assertNull(results.get(1));
+        assertEquals("三", results.get(2).getReason());
+        assertThrows(IllegalArgumentException.class, () -> parser.parseBatch("无法评估", Phase.COMPETENCE, 3));
+    }
+
+    @Test
+    void testJsonModeEvaluation_RoutesOnlyEvaluateToJsonModel() {
+        DeepTalentAgent agent = mock(DeepTalentAgent.class);
+        ChatLanguageModel jsonModel = mock(ChatLanguageModel.class);
+        when(agent.chat(anyList())).thenReturn("下一个问题");
+        when(jsonModel.generate(anyList())).thenReturn(Response.from(AiMessage.from("{\"score\": 9}")));
+        DeepTalentAgent wrapped = JsonModeEvaluation.wrap(agent, jsonModel);
+        List<ChatMessage> messages = List.of(UserMessage.from("画画"));
+
+        assertEquals("{\"score\": 9}", wrapped.evaluate(messages));
+        assertEquals("下一个问题", wrapped.chat(messages));
+        verify(agent, never()).evaluate(anyList());
+        verify(jsonModel).generate(messages);
+    }
+}
@@ -0,0 +1,66 @@
+package com.deeptalent.service.impl;
+
+import com.deeptalent.domain.enums.Phase;
+import com.deeptalent.service.ai.DeepTalentAgent;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.output.Response;
+import dev.langchain4j.model.output.TokenUsage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * InterviewMetrics 单元测试
+ *
+ * @author 小阳
+ * @date 2026-10-18
+ * @version 1.0.0
+ */
+class InterviewMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final InterviewMetrics metrics = new InterviewMetrics(registry, 2, 8);
+
+    @Test
+    void testTimed_TagsCallsWithMethodAndCurrentPhase() {
+        DeepTalentAgent agent = mock(DeepTalentAgent.class);
+        when(agent.chat(anyList())).thenReturn("问题");
+        when(agent.evaluate(anyList())).thenThrow(new IllegalStateException("upstream error"));
+        DeepTalentAgent timed = metrics.timed(DeepTalentAgent.class, agent);
+        List<ChatMessage> messages = List.of(UserMessage.from("画画"));
+
+        assertEquals("问题", metrics.node("interviewer", Phase.SHADOW, () -> timed.chat(messages)));
+        assertThrows(IllegalStateException.class, () -> metrics.node("evaluator", Phase.SHADOW, () -> timed.evaluate(messages)));
+        timed.chat(messages);
+
+        assertEquals(1, registry.get("deeptalent.llm.calls").tags("method", "chat", "phase", "shadow", "outcome", "success").timer().count());
+        assertEquals(1, registry.get("deeptalent.llm.calls").tags("method", "evaluate", "phase", "shadow", "outcome", "error").timer().count());
+        assertEquals(1, registry.get("deeptalent.llm.calls").tags("method", "chat", "phase", "none").timer().count());
+        assertEquals(1, registry.get("deeptalent.workflow.node").tags("node", "evaluator", "outcome", "error").timer().count());
+    }
+
+    @Test
+    void testCounting_RecordsTokensAndCostPerPhase() {
+        ChatLanguageModel model = mock(ChatLanguageModel.class);
+        when(model.generate(anyList())).thenReturn(Response.from(AiMessage.from("{}"), new TokenUsage(1000, 250)));
+        ChatLanguageModel counting = metrics.counting(model);
+
+        metrics.node("evaluator", Phase.CHILDHOOD, () -> counting.generate(List.of(UserMessage.from("画画"))));
+        metrics.node("evaluator", Phase.CHILDHOOD, () -> counting.generate(List.of(UserMessage.from("唱歌"))));
+
+        assertEquals(2000, registry.get("deeptalent.llm.tokens").tags("type", "prompt", "phase", "childhood").counter().count());
+        assertEquals(500, registry.get("deeptalent.llm.tokens").tags("type", "completion", "phase", "childhood").counter().count());
+        // 2000 * 2 / 1e6 + 500 * 8 / 1e6
+        assertEquals(0.008, registry.get("deeptalent.llm.cost").tag("phase", "childhood").counter().count(), 1e-9);
+    }
+}
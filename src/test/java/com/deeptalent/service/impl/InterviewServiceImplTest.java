@@ -1,19 +1,43 @@
 package com.deeptalent.service.impl;
 
+import com.deeptalent.config.DeepTalentProperties;
+import com.deeptalent.domain.ai.Message;
 import com.deeptalent.domain.model.DeepTalentState;
-import com.deeptalent.domain.model.EvaluationResult;
 import com.deeptalent.domain.enums.Phase;
+import com.deeptalent.domain.model.PhaseSummary;
+import com.deeptalent.service.ChatStreamListener;
+import com.deeptalent.service.LlmOverloadedException;
 import com.deeptalent.service.PersistenceService;
 import com.deeptalent.service.PromptService;
+import com.deeptalent.service.PromptTemplate;
+import com.deeptalent.service.Prompts;
 import com.deeptalent.service.ai.DeepTalentAgent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.model.StreamingResponseHandler;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
+import dev.langchain4j.model.output.Response;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -40,6 +64,20 @@ public class InterviewServiceImplTest {
     @Mock
     private PromptService promptService;
 
+    @Spy
+    private SessionLocks sessionLocks = new SessionLocks(Duration.ofSeconds(5));
+
+    @Spy
+    private EvaluationParser evaluationParser = new EvaluationParser(new ObjectMapper());
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private InterviewMetrics metrics = new InterviewMetrics(meterRegistry, 1, 2);
+
+    @Spy
+    private DeepTalentProperties properties = new DeepTalentProperties();
+
     @InjectMocks
     private InterviewServiceImpl interviewService;
 
@@ -54,7 +92,7 @@ public class InterviewServiceImplTest {
         
         // Leniently mock prompt service because not all tests use it in the same way, 
         // but we want to avoid NullPointerException if it is called.
-        lenient().when(promptService.getPrompt(anyString())).thenReturn("Prompt Template");
+        lenient().when(promptService.getTemplate(anyString())).thenReturn(PromptTemplate.compile("Prompt Template"));
     }
 
     @Test
@@ -77,16 +115,18 @@ public class InterviewServiceImplTest {
         verify(persistenceService, times(1)).saveState(anyString(), any(DeepTalentState.class));
     }
 
+    @Test
+    void testGenerateThreadId_IsLowercaseMd5Hex() {
+        assertEquals("74178fc9bc10964b606b7bb78608ac53", InterviewServiceImpl.generateThreadId("小阳"));
+    }
+
     @Test
     void testProcessMessage_NormalFlow() {
         // Arrange
         when(persistenceService.loadState(threadId)).thenReturn(mockState);
         
         // Mock Evaluator response
-        EvaluationResult evalResult = new EvaluationResult();
-        evalResult.setScore(8);
-        evalResult.setNeedFollowup(false);
-        when(deepTalentAgent.evaluate(anyList())).thenReturn(evalResult);
+        when(deepTalentAgent.evaluate(anyList())).thenReturn("{\"score\": 8, \"need_followup\": false}");
 
         // Mock Chat response
         when(deepTalentAgent.chat(anyList())).thenReturn("这是下一个问题");
@@ -105,16 +145,40 @@ public class InterviewServiceImplTest {
         assertEquals(2, mockState.getMessages().size()); // User + Assistant
     }
 
+    @Test
+    void testMetrics_NodesAndDecisionsTaggedByPhase() {
+        mockState.setDialogueCount(4);
+        when(persistenceService.loadState(threadId)).thenReturn(mockState);
+        when(deepTalentAgent.evaluate(anyList())).thenReturn("{\"score\": 8, \"need_followup\": false}");
+        when(deepTalentAgent.chat(anyList())).thenReturn("进入能力阶段的问题");
+
+        interviewService.chat(threadId, "我小时候喜欢画画");
+
+        // 评估与路由在切换前的阶段，访谈节点与保存已在新阶段
+        assertEquals(1, meterRegistry.get("deeptalent.workflow.node").tags("node", "load", "phase", "childhood").timer().count());
+        assertEquals(1, meterRegistry.get("deeptalent.workflow.node").tags("node", "evaluator", "phase", "childhood").timer().count());
+        assertEquals(1, meterRegistry.get("deeptalent.workflow.node").tags("node", "router", "phase", "childhood").timer().count());
+        assertEquals(1, meterRegistry.get("deeptalent.workflow.node").tags("node", "interviewer", "phase", "competence").timer().count());
+        assertEquals(1, meterRegistry.get("deeptalent.workflow.node").tags("node", "save", "phase", "competence").timer().count());
+        assertEquals(1, meterRegistry.get("deeptalent.router.decisions").tags("phase", "childhood", "decision", "advance").counter().count());
+        assertEquals(1, meterRegistry.get("deeptalent.phase.transitions").tags("from", "childhood", "to", "competence").counter().count());
+        assertNull(meterRegistry.find("deeptalent.evaluator.fallbacks").counter());
+
+        when(deepTalentAgent.evaluate(anyList())).thenReturn("无法解析");
+        interviewService.chat(threadId, "嗯");
+
+        assertEquals(1, meterRegistry.get("deeptalent.evaluator.fallbacks").tag("phase", "competence").counter().count());
+        assertEquals(1, meterRegistry.get("deeptalent.router.decisions").tags("phase", "competence", "decision", "followup").counter().count());
+    }
+
     @Test
     void testProcessMessage_NeedFollowup() {
         // Arrange
         when(persistenceService.loadState(threadId)).thenReturn(mockState);
 
         // Mock Evaluator response (Need Followup)
-        EvaluationResult evalResult = new EvaluationResult();
-        evalResult.setNeedFollowup(true);
-        evalResult.setFollowupQuestion("具体画了什么？");
-        when(deepTalentAgent.evaluate(anyList())).thenReturn(evalResult);
+        when(deepTalentAgent.evaluate(anyList()))
+                .thenReturn("{\"need_followup\": true, \"followup_question\": \"具体画了什么？\"}");
         
         // Mock Chat response (Interviewer generates the followup question based on eval)
         when(deepTalentAgent.chat(anyList())).thenReturn("具体画了什么？");
@@ -127,4 +191,585 @@ public class InterviewServiceImplTest {
         verify(deepTalentAgent).chat(anyList()); // Should call chat to generate the followup
         assertTrue(mockState.isNeedFollowup());
     }
+
+    /**
+     * 收集流式回调的监听器
+     */
+    private static class RecordingListener implements ChatStreamListener {
+        private final List<String> tokens = new ArrayList<>();
+        private String completed;
+        private Throwable error;
+
+        @Override
+        public void onToken(String token) {
+            tokens.add(token);
+        }
+
+        @Override
+        public void onComplete(String message) {
+            completed = message;
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            this.error = error;
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testChatStream_PushesTokensThenPersistsAssembledMessage() {
+        StreamingChatLanguageModel streamingModel = mock(StreamingChatLanguageModel.class);
+        doAnswer(invocation -> {
+            StreamingResponseHandler<AiMessage> handler = invocation.getArgument(1);
+            handler.onNext("具体");
+            handler.onNext("画了什么？");
+            handler.onComplete(Response.from(AiMessage.from("具体画了什么？")));
+            return null;
+        }).when(streamingModel).generate(anyList(), any(StreamingResponseHandler.class));
+        InterviewServiceImpl service = new InterviewServiceImpl(deepTalentAgent, persistenceService, promptService,
+                sessionLocks, evaluationParser, metrics, streamingModel, null, null, null, null, null, null, null, properties);
+        when(persistenceService.loadState(threadId)).thenReturn(mockState);
+        when(deepTalentAgent.evaluate(anyList())).thenReturn("{\"need_followup\": true}");
+        RecordingListener listener = new RecordingListener();
+
+        service.chatStream(threadId, "我喜欢画画", listener);
+
+        assertEquals(List.of("具体", "画了什么？"), listener.tokens);
+        assertEquals("具体画了什么？", listener.completed);
+        assertNull(listener.error);
+        verify(deepTalentAgent, never()).chat(anyList());
+        verify(persistenceService).saveState(threadId, mockState);
+        assertEquals("具体画了什么？", mockState.getMessages().get(1).getContent());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testChatStream_StreamErrorIsReportedAndNothingSaved() {
+        StreamingChatLanguageModel streamingModel = mock(StreamingChatLanguageModel.class);
+        doAnswer(invocation -> {
+            StreamingResponseHandler<AiMessage> handler = invocation.getArgument(1);
+            handler.onNext("具体");
+            handler.onError(new RuntimeException("connection reset"));
+            return null;
+        }).when(streamingModel).generate(anyList(), any(StreamingResponseHandler.class));
+        InterviewServiceImpl service = new InterviewServiceImpl(deepTalentAgent, persistenceService, promptService,
+                sessionLocks, evaluationParser, metrics, streamingModel, null, null, null, null, null, null, null, properties);
+        when(persistenceService.loadState(threadId)).thenReturn(mockState);
+        when(deepTalentAgent.evaluate(anyList())).thenReturn("{\"need_followup\": true}");
+        RecordingListener listener = new RecordingListener();
+
+        service.chatStream(threadId, "我喜欢画画", listener);
+
+        assertNull(listener.completed);
+        assertNotNull(listener.error);
+        verify(persistenceService, never()).saveState(anyString(), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testChatStream_StalledStreamTimesOutAndNothingSaved() {
+        // 模型推送一个片段后既不结束也不报错
+        StreamingChatLanguageModel streamingModel = mock(StreamingChatLanguageModel.class);
+        AtomicReference<StreamingResponseHandler<AiMessage>> stalled = new AtomicReference<>();
+        doAnswer(invocation -> {
+            StreamingResponseHandler<AiMessage> handler = invocation.getArgument(1);
+            handler.onNext("具体");
+            stalled.set(handler);
+            return null;
+        }).when(streamingModel).generate(anyList(), any(StreamingResponseHandler.class));
+        properties.getSession().setStreamTimeout(Duration.ofMillis(100));
+        InterviewServiceImpl service = new InterviewServiceImpl(deepTalentAgent, persistenceService, promptService,
+                sessionLocks, evaluationParser, metrics, streamingModel, null, null, null, null, null, null, null, properties);
+        when(persistenceService.loadState(threadId)).thenReturn(mockState);
+        when(deepTalentAgent.evaluate(anyList())).thenReturn("{\"need_followup\": true}");
+        RecordingListener listener = new RecordingListener();
+
+        service.chatStream(threadId, "我喜欢画画", listener);
+        // 超时之后迟到的片段不再推送
+        stalled.get().onNext("画了什么？");
+
+        assertNull(listener.completed);
+        assertNotNull(listener.error);
+        assertEquals(List.of("具体"), listener.tokens);
+        verify(persistenceService, never()).saveState(anyString(), any());
+        assertTrue(sessionLocks.withLock(threadId, () -> true));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testChatStream_InterruptCancelsStalledStream() throws Exception {
+        StreamingChatLanguageModel streamingModel = mock(StreamingChatLanguageModel.class);
+        CountDownLatch streaming = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            streaming.countDown();
+            return null;
+        }).when(streamingModel).generate(anyList(), any(StreamingResponseHandler.class));
+        InterviewServiceImpl service = new InterviewServiceImpl(deepTalentAgent, persistenceService, promptService,
+                sessionLocks, evaluationParser, metrics, streamingModel, null, null, null, null, null, null, null, properties);
+        when(persistenceService.loadState(threadId)).thenReturn(mockState);
+        when(deepTalentAgent.evaluate(anyList())).thenReturn("{\"need_followup\": true}");
+        RecordingListener listener = new RecordingListener();
+
+        Thread caller = new Thread(() -> service.chatStream(threadId, "我喜欢画画", listener));
+        caller.start();
+        assertTrue(streaming.await(5, TimeUnit.SECONDS));
+        caller.interrupt();
+        caller.join(5_000);
+
+        assertFalse(caller.isAlive());
+        assertNull(listener.completed);
+        assertInstanceOf(java.util.concurrent.CancellationException.class, listener.error);
+        verify(persistenceService, never()).saveState(anyString(), any());
+    }
+
+    @Test
+    void testChatStream_WithoutStreamingModelSendsWholeReply() {
+        when(persistenceService.loadState(threadId)).thenReturn(mockState);
+        when(deepTalentAgent.evaluate(anyList())).thenReturn("{\"need_followup\": true}");
+        when(deepTalentAgent.chat(anyList())).thenReturn("具体画了什么？");
+        RecordingListener listener = new RecordingListener();
+
+        interviewService.chatStream(threadId, "我喜欢画画", listener);
+
+        assertEquals(List.of("具体画了什么？"), listener.tokens);
+        assertEquals("具体画了什么？", listener.completed);
+    }
+
+    /**
+     * 按系统提示词中的阶段生成问题，便于区分推测结果与重新生成的结果
+     */
+    private InterviewServiceImpl speculativeService(InterviewSpeculator speculator) {
+        when(promptService.getTemplate(anyString())).thenReturn(PromptTemplate.compile("Prompt {phase}"));
+        when(deepTalentAgent.chat(anyList())).thenAnswer(invocation -> {
+            List<ChatMessage> history = invocation.getArgument(0);
+            return "问题@" + ((SystemMessage) history.get(0)).text();
+        });
+        return new InterviewServiceImpl(deepTalentAgent, persistenceService, promptService, sessionLocks, evaluationParser, metrics, null, speculator, null, null, null, null, null, null, properties);
+    }
+
+    @Test
+    void testSpeculation_HitWhenRouterStaysInPhase() {
+        InterviewSpeculator speculator = new InterviewSpeculator(new SimpleAsyncTaskExecutor());
+        InterviewServiceImpl service = speculativeService(speculator);
+        when(persistenceService.loadState(threadId)).thenReturn(mockState);
+        when(deepTalentAgent.evaluate(anyList())).thenReturn("{\"need_followup\": false}");
+
+        String response = service.chat(threadId, "我喜欢画画");
+
+        assertEquals("问题@Prompt childhood", response);
+        verify(deepTalentAgent, times(1)).chat(anyList());
+        assertEquals(1, mockState.getDialogueCount());
+        InterviewSpeculator.SpeculationStats stats = speculator.getStats();
+        assertEquals(1, stats.getHits());
+        assertEquals(1.0, stats.getHitRate());
+    }
+
+    @Test
+    void testSpeculation_DiscardedWhenEvaluatorAsksFollowup() {
+        InterviewSpeculator speculator = new InterviewSpeculator(new SimpleAsyncTaskExecutor());
+        InterviewServiceImpl service = speculativeService(speculator);
+        when(promptService.getTemplate(anyString())).thenReturn(PromptTemplate.compile("Prompt {phase} {last_eval}"));
+        when(persistenceService.loadState(threadId)).thenReturn(mockState);
+        // 追问问题来自本轮评估结果，推测调用看不到，必须重新生成
+        when(deepTalentAgent.evaluate(anyList())).thenReturn(
+                "{\"need_followup\": true, \"followup_question\": \"画画时你最享受哪个瞬间？\"}");
+
+        String response = service.chat(threadId, "我喜欢画画");
+
+        assertTrue(response.contains("画画时你最享受哪个瞬间？"), response);
+        assertEquals(Phase.CHILDHOOD, mockState.getCurrentPhase());
+        InterviewSpeculator.SpeculationStats stats = speculator.getStats();
+        assertEquals(0, stats.getHits());
+        assertEquals(1, stats.getMisses());
+    }
+
+    @Test
+    void testSpeculation_DiscardedWhenEvaluatorOverloaded() throws Exception {
+        InterviewSpeculator speculator = new InterviewSpeculator(new SimpleAsyncTaskExecutor());
+        InterviewServiceImpl service = new InterviewServiceImpl(deepTalentAgent, persistenceService, promptService,
+                sessionLocks, evaluationParser, metrics, null, speculator, null, null, null, null, null, null, properties);
+        when(promptService.getTemplate(anyString())).thenReturn(PromptTemplate.compile("Prompt {phase}"));
+        // 推测调用一直阻塞，直到被取消（中断）
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        when(deepTalentAgent.chat(anyList())).thenAnswer(invocation -> {
+            started.countDown();
+            try {
+                new CountDownLatch(1).await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return "too late";
+        });
+        when(persistenceService.loadState(threadId)).thenReturn(mockState);
+        when(deepTalentAgent.evaluate(anyList())).thenAnswer(invocation -> {
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            throw new LlmOverloadedException("deepseek-chat", false, Duration.ofSeconds(3), "Model deepseek-chat is saturated");
+        });
+
+        assertThrows(LlmOverloadedException.class, () -> service.chat(threadId, "我喜欢画画"));
+
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        InterviewSpeculator.SpeculationStats stats = speculator.getStats();
+        assertEquals(0, stats.getHits());
+        assertEquals(1, stats.getMisses());
+    }
+
+    @Test
+    void testSpeculation_OutcomesExportedAsMeters() {
+        InterviewSpeculator speculator = new InterviewSpeculator(new SimpleAsyncTaskExecutor());
+        metrics.speculation(speculator);
+        InterviewServiceImpl service = speculativeService(speculator);
+        when(persistenceService.loadState(threadId)).thenReturn(mockState);
+        when(deepTalentAgent.evaluate(anyList())).thenReturn("{\"need_followup\": false}");
+
+        service.chat(threadId, "我喜欢画画");
+
+        assertEquals(1.0, meterRegistry.get("deeptalent.speculation").tag("outcome", "hit").functionCounter().count());
+        assertEquals(0.0, meterRegistry.get("deeptalent.speculation").tag("outcome", "miss").functionCounter().count());
+        assertEquals(0.0, meterRegistry.get("deeptalent.speculation").tag("outcome", "failure").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("deeptalent.speculation.saved").functionTimer().count());
+        assertEquals(speculator.getSavedNanos(),
+                meterRegistry.get("deeptalent.speculation.saved").functionTimer().totalTime(TimeUnit.NANOSECONDS), 1.0);
+    }
+
+    @Test
+    void testSpeculation_DiscardedWhenPhaseAdvances() {
+        InterviewSpeculator speculator = new InterviewSpeculator(new SimpleAsyncTaskExecutor());
+        InterviewServiceImpl service = speculativeService(speculator);
+        when(persistenceService.loadState(threadId)).thenReturn(mockState);
+        // 提取到两个特征，路由切换到下一阶段，推测结果作废
+        when(deepTalentAgent.evaluate(anyList())).thenReturn("{\"need_followup\": false, \"extractions\": ["
+                + "{\"tag\": \"审美\", \"evidence\": \"画画\"}, {\"tag\": \"专注\", \"evidence\": \"一下午\"}]}");
+
+        String response = service.chat(threadId, "我喜欢画画，一画就是一下午");
+
+        assertEquals("问题@Prompt competence", response);
+        assertEquals(Phase.COMPETENCE, mockState.getCurrentPhase());
+        assertEquals(1, mockState.getDialogueCount());
+        InterviewSpeculator.SpeculationStats stats = speculator.getStats();
+        assertEquals(0, stats.getHits());
+        assertEquals(1, stats.getMisses());
+        assertEquals(0.0, stats.getHitRate());
+    }
+
+    @Test
+    void testChatAsync_CompletesOnChatExecutor() throws Exception {
+        InterviewServiceImpl service = new InterviewServiceImpl(deepTalentAgent, persistenceService, promptService,
+                sessionLocks, evaluationParser, metrics, null, null, null, null, null, null, null, new SimpleAsyncTaskExecutor("chat-"), properties);
+        when(persistenceService.loadState(threadId)).thenReturn(mockState);
+        when(deepTalentAgent.evaluate(anyList())).thenReturn("{\"need_followup\": true}");
+        when(deepTalentAgent.chat(anyList())).thenAnswer(invocation -> Thread.currentThread().getName());
+
+        String response = service.chatAsync(threadId, "我喜欢画画").get(5, TimeUnit.SECONDS).get("message");
+
+        assertTrue(response.startsWith("chat-"));
+        verify(persistenceService).saveState(threadId, mockState);
+    }
+
+    @Test
+    void testChatAsync_CancelledTurnIsNotSaved() throws Exception {
+        InterviewServiceImpl service = new InterviewServiceImpl(deepTalentAgent, persistenceService, promptService,
+                sessionLocks, evaluationParser, metrics, null, null, null, null, null, null, null, new SimpleAsyncTaskExecutor("chat-"), properties);
+        CountDownLatch evaluating = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(1);
+        when(persistenceService.loadState(threadId)).thenReturn(mockState);
+        when(deepTalentAgent.evaluate(anyList())).thenAnswer(invocation -> {
+            evaluating.countDown();
+            // 模拟耗时的 LLM 调用；被取消时中断抛出，评估节点降级后继续执行
+            new CountDownLatch(1).await(5, TimeUnit.SECONDS);
+            return "{\"need_followup\": true}";
+        });
+        when(deepTalentAgent.chat(anyList())).thenAnswer(invocation -> {
+            finished.countDown();
+            return "具体画了什么？";
+        });
+
+        CompletableFuture<Map<String, String>> future = service.chatAsync(threadId, "我喜欢画画");
+        assertTrue(evaluating.await(5, TimeUnit.SECONDS));
+        future.cancel(true);
+
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        // 会话锁随本轮结束释放后才能再次获取，借此等待本轮处理完毕
+        sessionLocks.withLock(threadId, () -> null);
+        verify(persistenceService, never()).saveState(anyString(), any());
+    }
+
+    /**
+     * 摘要请求返回固定摘要，访谈请求记录收到的上下文
+     */
+    private InterviewServiceImpl summarizingService(List<List<ChatMessage>> interviewerCalls) {
+        when(promptService.getTemplate(Prompts.SUMMARIZER_SYSTEM_PROMPT)).thenReturn(PromptTemplate.compile("Summarize {phase}"));
+        when(deepTalentAgent.chat(anyList())).thenAnswer(invocation -> {
+            List<ChatMessage> history = invocation.getArgument(0);
+            if (((SystemMessage) history.get(0)).text().startsWith("Summarize")) {
+                return "童年时常被夸画画专注";
+            }
+            interviewerCalls.add(history);
+            return "下一个问题";
+        });
+        return new InterviewServiceImpl(deepTalentAgent, persistenceService, promptService, sessionLocks, evaluationParser, metrics, null, null,
+                new PhaseSummarizer(deepTalentAgent, promptService, metrics, 1), null, null, null, null, null, properties);
+    }
+
+    @Test
+    void testSummarizer_SummaryReplacesRawHistoryOnceSaved() {
+        List<List<ChatMessage>> interviewerCalls = new ArrayList<>();
+        InterviewServiceImpl service = summarizingService(interviewerCalls);
+        mockState.getMessages().add(new Message("assistant", "小时候常做什么？"));
+        mockState.getMessages().add(new Message("user", "画画"));
+        mockState.getMessages().add(new Message("assistant", "画画时是什么感觉？"));
+        when(persistenceService.loadState(threadId)).thenReturn(mockState);
+        // 提取到两个特征，路由切换到下一阶段，童年阶段的对话被压缩
+        when(deepTalentAgent.evaluate(anyList())).thenReturn("{\"need_followup\": false, \"extractions\": ["
+                + "{\"tag\": \"审美\", \"evidence\": \"画画\"}, {\"tag\": \"专注\", \"evidence\": \"一下午\"}]}");
+
+        service.chat(threadId, "很专注，一画就是一下午");
+
+        // 阶段切换的这一轮不等待摘要，新阶段的第一个问题仍携带原始消息
+        assertEquals(5, interviewerCalls.get(0).size());
+        // 摘要在后台生成后于会话锁内重新加载状态、追加并落库
+        verify(persistenceService, timeout(5000).times(2)).saveState(threadId, mockState);
+        List<PhaseSummary> summaries = mockState.getPhaseSummaries();
+        assertEquals(1, summaries.size());
+        assertEquals("childhood", summaries.get(0).getPhase());
+        assertEquals(0, summaries.get(0).getFromSequence());
+        assertEquals(4, summaries.get(0).getToSequence());
+
+        // 下一轮：摘要 + 当前阶段的原始消息
+        when(deepTalentAgent.evaluate(anyList())).thenReturn("{\"need_followup\": true}");
+        service.chat(threadId, "同学常找我帮忙出板报");
+        List<ChatMessage> history = interviewerCalls.get(1);
+        assertEquals(3, history.size());
+        assertTrue(((SystemMessage) history.get(0)).text().contains("【childhood】童年时常被夸画画专注"));
+        assertEquals(1, mockState.getPhaseSummaries().size());
+    }
+
+    @Test
+    void testSummarizer_FailureKeepsRawMessages() throws Exception {
+        when(promptService.getTemplate(Prompts.SUMMARIZER_SYSTEM_PROMPT)).thenThrow(new RuntimeException("Prompt not found"));
+        when(deepTalentAgent.chat(anyList())).thenReturn("下一个问题");
+        PhaseSummarizer summarizer = new PhaseSummarizer(deepTalentAgent, promptService, metrics, 1);
+        InterviewServiceImpl service = new InterviewServiceImpl(deepTalentAgent, persistenceService, promptService,
+                sessionLocks, evaluationParser, metrics, null, null, summarizer, null, null, null, null, null, properties);
+        mockState.getMessages().add(new Message("assistant", "小时候常做什么？"));
+        mockState.setDialogueCount(4);
+        when(persistenceService.loadState(threadId)).thenReturn(mockState);
+        when(deepTalentAgent.evaluate(anyList())).thenReturn("{\"need_followup\": false}");
+
+        String response = service.chat(threadId, "画画");
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (summarizer.getStats().getFailures() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertEquals("下一个问题", response);
+        assertEquals(Phase.COMPETENCE, mockState.getCurrentPhase());
+        assertTrue(mockState.getPhaseSummaries().isEmpty());
+        assertEquals(1, summarizer.getStats().getFailures());
+        verify(deepTalentAgent).chat(argThat(history -> history.size() == 3));
+    }
+
+    private InterviewServiceImpl questionBankService(QuestionBank questionBank) {
+        return new InterviewServiceImpl(deepTalentAgent, persistenceService, promptService, sessionLocks, evaluationParser, metrics, null, null,
+                null, questionBank, null, null, null, null, properties);
+    }
+
+    @Test
+    void testQuestionBank_ServesOpeningQuestionWithoutLlm() {
+        QuestionBank questionBank = mock(QuestionBank.class);
+        when(questionBank.take(Phase.CHILDHOOD)).thenReturn("小时候最喜欢做什么？");
+        when(persistenceService.loadState(anyString())).thenReturn(new DeepTalentState());
+
+        java.util.Map<String, String> result = questionBankService(questionBank).startSession("TestUser");
+
+        assertEquals("小时候最喜欢做什么？", result.get("message"));
+        verify(deepTalentAgent, never()).chat(anyList());
+        verify(persistenceService).saveState(anyString(), argThat(state -> state.getDialogueCount() == 1));
+    }
+
+    @Test
+    void testQuestionBank_EmptyBankFallsBackToLlm() {
+        QuestionBank questionBank = mock(QuestionBank.class);
+        when(persistenceService.loadState(anyString())).thenReturn(new DeepTalentState());
+        when(deepTalentAgent.chat(anyList())).thenReturn("你好！我是深度天赋挖掘机");
+
+        java.util.Map<String, String> result = questionBankService(questionBank).startSession("TestUser");
+
+        assertEquals("你好！我是深度天赋挖掘机", result.get("message"));
+        verify(questionBank).take(Phase.CHILDHOOD);
+    }
+
+    @Test
+    void testQuestionBank_DegradesOnlyWhenOverloaded() {
+        QuestionBank questionBank = mock(QuestionBank.class);
+        InterviewServiceImpl service = questionBankService(questionBank);
+        mockState.getMessages().add(new Message("assistant", "小时候常做什么？"));
+        mockState.setDialogueCount(1);
+        when(persistenceService.loadState(threadId)).thenReturn(mockState);
+        when(deepTalentAgent.evaluate(anyList())).thenReturn("{\"need_followup\": false}");
+        when(questionBank.takeDegraded(eq(Phase.CHILDHOOD), argThat(asked -> asked.contains("小时候常做什么？"))))
+                .thenReturn("小时候常被夸什么？");
+
+        // 普通失败不降级
+        when(deepTalentAgent.chat(anyList())).thenThrow(new IllegalStateException("upstream 400"));
+        assertThrows(IllegalStateException.class, () -> service.chat(threadId, "画画"));
+        verify(questionBank, never()).takeDegraded(any(), any());
+
+        // 舱壁拒绝：降级为题库中尚未问过的问题
+        reset(deepTalentAgent);
+        when(deepTalentAgent.evaluate(anyList())).thenReturn("{\"need_followup\": false}");
+        when(deepTalentAgent.chat(anyList())).thenThrow(new LlmOverloadedException("deepseek-chat", false,
+                Duration.ofSeconds(3), "Model deepseek-chat is saturated"));
+        assertEquals("小时候常被夸什么？", service.chat(threadId, "也喜欢搭积木"));
+        assertEquals(2, mockState.getDialogueCount());
+        verify(questionBank, never()).isSaturated();
+    }
+
+    @Test
+    void testQuestionBank_NeverDegradesFollowupTurn() {
+        QuestionBank questionBank = mock(QuestionBank.class);
+        InterviewServiceImpl service = questionBankService(questionBank);
+        mockState.getMessages().add(new Message("assistant", "小时候常做什么？"));
+        mockState.setDialogueCount(1);
+        when(persistenceService.loadState(threadId)).thenReturn(mockState);
+        when(deepTalentAgent.evaluate(anyList())).thenReturn(
+                "{\"need_followup\": true, \"followup_question\": \"画画时你最享受哪个瞬间？\"}");
+        when(deepTalentAgent.chat(anyList())).thenThrow(new LlmOverloadedException("deepseek-chat", true,
+                Duration.ofSeconds(3), "Model deepseek-chat is saturated"));
+
+        // 追问问题依赖本轮评估结果，过载时本轮失败，不用题库中的通用问题代替
+        assertThrows(LlmOverloadedException.class, () -> service.chat(threadId, "画画"));
+        verifyNoInteractions(questionBank);
+        verify(persistenceService, never()).saveState(anyString(), any());
+    }
+
+    private InterviewServiceImpl reportJobService(ReportJobQueue reportJobs) {
+        return new InterviewServiceImpl(deepTalentAgent, persistenceService, promptService, sessionLocks, evaluationParser, metrics, null, null,
+                null, null, null, reportJobs, null, null, properties);
+    }
+
+    @Test
+    void testReportJob_WriterTurnReturnsJobIdWithoutCallingWriter() {
+        ReportJobQueue reportJobs = mock(ReportJobQueue.class);
+        when(reportJobs.submit(threadId)).thenReturn("job-1");
+        mockState.setCurrentPhase(Phase.SHADOW);
+        mockState.setDialogueCount(4);
+        when(persistenceService.loadState(threadId)).thenReturn(mockState);
+        when(deepTalentAgent.evaluate(anyList())).thenReturn("{\"score\": 8, \"need_followup\": false}");
+
+        Map<String, String> result = reportJobService(reportJobs).sendMessage(threadId, "最怕别人否定我的想法");
+
+        assertEquals("job-1", result.get("reportJobId"));
+        assertEquals(InterviewServiceImpl.REPORT_QUEUED_MESSAGE, result.get("message"));
+        assertEquals(Phase.GENERATING, mockState.getCurrentPhase());
+        assertNull(mockState.getFinalReport());
+        verify(deepTalentAgent, never()).chat(anyList());
+        // 先保存进入报告阶段的状态，再提交任务
+        InOrder inOrder = inOrder(persistenceService, reportJobs);
+        inOrder.verify(persistenceService).saveState(threadId, mockState);
+        inOrder.verify(reportJobs).submit(threadId);
+    }
+
+    @Test
+    void testReportJob_GenerateReportSavesFinalReport() {
+        InterviewServiceImpl service = reportJobService(mock(ReportJobQueue.class));
+        mockState.setCurrentPhase(Phase.GENERATING);
+        mockState.getMessages().add(new Message("user", "最怕别人否定我的想法"));
+        when(persistenceService.loadState(threadId)).thenReturn(mockState);
+        when(deepTalentAgent.chat(anyList())).thenReturn("# 天赋画像报告");
+
+        service.generateReport(threadId);
+
+        assertEquals("# 天赋画像报告", mockState.getFinalReport());
+        assertEquals("# 天赋画像报告", getLast(mockState));
+        verify(persistenceService).saveState(threadId, mockState);
+        assertEquals(1, meterRegistry.get("deeptalent.workflow.node").tags("node", "writer", "phase", "generating").timer().count());
+    }
+
+    @Test
+    void testReportJob_GenerateReportRejectsThreadNotInGeneratingPhase() {
+        InterviewServiceImpl service = reportJobService(mock(ReportJobQueue.class));
+        when(persistenceService.loadState(threadId)).thenReturn(mockState);
+
+        assertThrows(IllegalStateException.class, () -> service.generateReport(threadId));
+        verify(persistenceService, never()).saveState(anyString(), any());
+    }
+
+    @Test
+    void testProcessMessage_OverloadedEvaluatorFailsTurnWithoutFallback() {
+        when(persistenceService.loadState(threadId)).thenReturn(mockState);
+        when(deepTalentAgent.evaluate(anyList())).thenThrow(new LlmOverloadedException("deepseek-chat", true,
+                Duration.ofSeconds(3), "Model deepseek-chat is saturated"));
+
+        LlmOverloadedException error = assertThrows(LlmOverloadedException.class, () -> interviewService.chat(threadId, "画画"));
+
+        assertEquals(Duration.ofSeconds(3), error.getRetryAfter());
+        verify(deepTalentAgent, never()).chat(anyList());
+        verify(persistenceService, never()).saveState(anyString(), any());
+        assertNull(meterRegistry.find("deeptalent.evaluator.fallbacks").counter());
+    }
+
+    private InterviewServiceImpl draftingService(ReportDrafter reportDrafter) {
+        return new InterviewServiceImpl(deepTalentAgent, persistenceService, promptService, sessionLocks, evaluationParser, metrics, null, null,
+                null, null, null, null, reportDrafter, null, properties);
+    }
+
+    @Test
+    void testReportDrafter_PhaseAdvanceDraftsCompletedPhase() {
+        ReportDrafter reportDrafter = mock(ReportDrafter.class);
+        mockState.getMessages().add(new Message("assistant", "小时候常做什么？"));
+        mockState.setDialogueCount(4);
+        when(persistenceService.loadState(threadId)).thenReturn(mockState);
+        when(deepTalentAgent.evaluate(anyList())).thenReturn("{\"need_followup\": false, \"extractions\": ["
+                + "{\"tag\": \"专注\", \"evidence\": \"一画就是一下午\"}]}");
+        when(deepTalentAgent.chat(anyList())).thenReturn("下一个问题");
+
+        draftingService(reportDrafter).chat(threadId, "一画就是一下午");
+
+        // 没有摘要时以该阶段的原始对话起草
+        verify(reportDrafter).draftAsync(eq(threadId), eq(Phase.CHILDHOOD),
+                eq("访谈者：小时候常做什么？\n用户：一画就是一下午\n"),
+                argThat(extractions -> extractions.size() == 1 && "专注".equals(extractions.get(0).getTag())));
+    }
+
+    @Test
+    void testReportDrafter_WriterMergesDraftedSections() {
+        ReportDrafter reportDrafter = mock(ReportDrafter.class);
+        Map<Phase, String> sections = Map.of(Phase.CHILDHOOD, "沉浸于绘画。", Phase.COMPETENCE, "擅长组织协调。",
+                Phase.SHADOW, "害怕被否定。");
+        List<ChatMessage> mergeHistory = List.of(SystemMessage.from("Merge"));
+        when(reportDrafter.awaitSections(threadId)).thenReturn(sections);
+        when(reportDrafter.buildMergeHistory(sections)).thenReturn(mergeHistory);
+        when(deepTalentAgent.chat(mergeHistory)).thenReturn("## 1. 摘要\n善于专注与协调。");
+        mockState.setCurrentPhase(Phase.GENERATING);
+        when(persistenceService.loadState(threadId)).thenReturn(mockState);
+
+        draftingService(reportDrafter).generateReport(threadId);
+
+        assertEquals(ReportDrafter.assemble("## 1. 摘要\n善于专注与协调。", sections), mockState.getFinalReport());
+        assertTrue(mockState.getFinalReport().startsWith("# 天赋画像报告\n\n## 1. 摘要"));
+        verify(deepTalentAgent, times(1)).chat(anyList());
+    }
+
+    @Test
+    void testReportDrafter_IncompleteSectionsFallBackToFullWriter() {
+        ReportDrafter reportDrafter = mock(ReportDrafter.class);
+        when(reportDrafter.awaitSections(threadId)).thenReturn(Map.of(Phase.CHILDHOOD, "沉浸于绘画。"));
+        mockState.setCurrentPhase(Phase.GENERATING);
+        mockState.getMessages().add(new Message("user", "最怕别人否定我的想法"));
+        when(persistenceService.loadState(threadId)).thenReturn(mockState);
+        when(deepTalentAgent.chat(anyList())).thenReturn("# 天赋画像报告");
+
+        draftingService(reportDrafter).generateReport(threadId);
+
+        assertEquals("# 天赋画像报告", mockState.getFinalReport());
+        verify(reportDrafter, never()).buildMergeHistory(any());
+        verify(deepTalentAgent).chat(argThat(history -> history.size() == 2));
+    }
+
+    private static String getLast(DeepTalentState state) {
+        return state.getMessages().get(state.getMessages().size() - 1).getContent();
+    }
 }
@@ -0,0 +1,322 @@
+package com.deeptalent.service.impl;
+
+import com.deeptalent.domain.enums.Phase;
+import com.deeptalent.service.LlmOverloadedException;
+import com.deeptalent.service.ai.DeepTalentAgent;
+import dev.ai4j.openai4j.OpenAiHttpException;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.model.StreamingResponseHandler;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
+import dev.langchain4j.model.output.Response;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * LlmBulkhead 单元测试
+ *
+ * @author 小阳
+ * @date 2026-10-18
+ * @version 1.0.0
+ */
+class LlmBulkheadTest {
+
+    /**
+     * 模拟耗时的 LLM 调用并统计最大并发
+     */
+    private static class ConcurrencyProbe {
+        private final AtomicInteger inflight = new AtomicInteger();
+        private final AtomicInteger maxInflight = new AtomicInteger();
+
+        String call() {
+            maxInflight.accumulateAndGet(inflight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inflight.decrementAndGet();
+            }
+            return "ok";
+        }
+    }
+
+    private static void runSessions(SimpleAsyncTaskExecutor executor, int sessions, LlmBulkhead bulkhead,
+                                    ConcurrencyProbe probe) throws Exception {
+        List<Future<String>> futures = new ArrayList<>();
+        for (int i = 0; i < sessions; i++) {
+            futures.add(executor.submit(() -> bulkhead.execute(probe::call)));
+        }
+        for (Future<String> future : futures) {
+            assertEquals("ok", future.get(60, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void testExecute_LimitsConcurrentCalls() throws Exception {
+        LlmBulkhead bulkhead = new LlmBulkhead("deepseek-chat", 4, Duration.ofSeconds(30));
+        ConcurrencyProbe probe = new ConcurrencyProbe();
+
+        runSessions(new SimpleAsyncTaskExecutor(), 64, bulkhead, probe);
+
+        assertTrue(probe.maxInflight.get() <= 4);
+        LlmBulkhead.BulkheadStats stats = bulkhead.getStats();
+        assertEquals(64, stats.getAcquired());
+        assertEquals(0, stats.getInflight());
+        assertEquals(0, stats.getRejected());
+    }
+
+    @Test
+    void testExecute_RejectsAfterMaxWait() throws Exception {
+        LlmBulkhead bulkhead = new LlmBulkhead("deepseek-chat", 1, Duration.ofMillis(50));
+        CountDownLatch held = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = new Thread(() -> bulkhead.execute(() -> {
+            held.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        }));
+        holder.start();
+        held.await();
+
+        assertThrows(IllegalStateException.class, () -> bulkhead.execute(() -> "second"));
+        release.countDown();
+        holder.join();
+        assertEquals("third", bulkhead.execute(() -> "third"));
+        assertEquals(1, bulkhead.getStats().getRejected());
+    }
+
+    @Test
+    void testGuard_ProxyReleasesPermitOnFailure() {
+        LlmBulkhead bulkhead = new LlmBulkhead("deepseek-chat", 1, Duration.ofMillis(50));
+        DeepTalentAgent target = mock(DeepTalentAgent.class);
+        when(target.chat(anyList())).thenThrow(new RuntimeException("upstream 500")).thenReturn("问题");
+        DeepTalentAgent guarded = bulkhead.guard(DeepTalentAgent.class, target);
+
+        RuntimeException error = assertThrows(RuntimeException.class, () -> guarded.chat(List.of()));
+        assertEquals("upstream 500", error.getMessage());
+        // 许可已归还，后续调用不会因等待许可而失败
+        assertEquals("问题", guarded.chat(List.of()));
+        assertEquals(0, bulkhead.getStats().getInflight());
+        assertNotNull(guarded.toString());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testStreamingModel_HoldsPermitUntilStreamEnds() {
+        LlmBulkhead bulkhead = new LlmBulkhead("deepseek-chat", 1, Duration.ofMillis(50));
+        StreamingChatLanguageModel target = mock(StreamingChatLanguageModel.class);
+        AtomicReference<StreamingResponseHandler<AiMessage>> pending = new AtomicReference<>();
+        doAnswer(invocation -> {
+            pending.set(invocation.getArgument(1));
+            return null;
+        }).when(target).generate(anyList(), any(StreamingResponseHandler.class));
+        BulkheadStreamingChatModel model = new BulkheadStreamingChatModel(target, bulkhead);
+
+        model.generate(List.of(), mock(StreamingResponseHandler.class));
+        assertEquals(1, bulkhead.getStats().getInflight());
+        // 流尚未结束，第二个流式调用拿不到许可
+        assertThrows(IllegalStateException.class, () -> model.generate(List.of(), mock(StreamingResponseHandler.class)));
+
+        pending.get().onComplete(Response.from(AiMessage.from("完成")));
+        pending.get().onError(new RuntimeException("late error"));
+        assertEquals(0, bulkhead.getStats().getInflight());
+    }
+
+    @Test
+    void testBulkheads_PerModelLimits() {
+        LlmBulkheads bulkheads = new LlmBulkheads(8, Map.of("deepseek-reasoner", 2), Duration.ofSeconds(1));
+
+        assertSame(bulkheads.forModel("deepseek-chat"), bulkheads.forModel("deepseek-chat"));
+        assertEquals(8, bulkheads.forModel("deepseek-chat").getStats().getMaxConcurrent());
+        assertEquals(2, bulkheads.forModel("deepseek-reasoner").getStats().getMaxConcurrent());
+        assertEquals(2, bulkheads.getStats().size());
+    }
+
+    @Test
+    void testExecute_RejectsImmediatelyWhenQueueIsFull() throws Exception {
+        LlmBulkhead bulkhead = new LlmBulkhead("deepseek-chat", 1, Duration.ofSeconds(5), 1, null);
+        bulkhead.execute(() -> sleep(20));
+        long held = bulkhead.acquire();
+        Thread queued = new Thread(() -> bulkhead.execute(() -> "queued"));
+        queued.start();
+        while (bulkhead.getWaiting() == 0) {
+            Thread.sleep(1);
+        }
+
+        // 排队已满：不等待 maxWait，直接拒绝并给出重试间隔
+        long start = System.nanoTime();
+        LlmOverloadedException error = assertThrows(LlmOverloadedException.class, () -> bulkhead.execute(() -> "third"));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+        assertTrue(error.isQueueFull());
+        assertEquals(Duration.ofSeconds(1), error.getRetryAfter());
+
+        bulkhead.release(held, false);
+        queued.join(5000);
+        assertEquals(0, bulkhead.getStats().getInflight());
+        assertEquals(1, bulkhead.getRejectedQueueFull());
+        assertEquals(0, bulkhead.getRejectedTimeout());
+    }
+
+    @Test
+    void testAimdLimit_BacksOffOncePerOverloadAndRecoversAdditively() {
+        AimdLimit limit = new AimdLimit(2, 10, Duration.ofMillis(100), 0.5);
+        long before = System.nanoTime();
+
+        limit.onSample(before, TimeUnit.MILLISECONDS.toNanos(10), true, 10);
+        assertEquals(5, limit.getLimit());
+        // 与上一次失败同一轮的调用不再减小上限
+        limit.onSample(before, TimeUnit.SECONDS.toNanos(1), false, 5);
+        assertEquals(5, limit.getLimit());
+        // 之后开始的慢调用再次触发减小，且不低于下界
+        limit.onSample(System.nanoTime(), TimeUnit.SECONDS.toNanos(1), false, 5);
+        limit.onSample(System.nanoTime(), TimeUnit.SECONDS.toNanos(1), false, 5);
+        assertEquals(2, limit.getLimit());
+        assertEquals(3, limit.getDecreases());
+
+        // 空闲时的成功调用不增加上限，满负荷时每轮约加 1
+        limit.onSample(System.nanoTime(), TimeUnit.MILLISECONDS.toNanos(10), false, 0);
+        assertEquals(2, limit.getLimit());
+        for (int i = 0; i < 3; i++) {
+            limit.onSample(System.nanoTime(), TimeUnit.MILLISECONDS.toNanos(10), false, 2);
+        }
+        assertEquals(3, limit.getLimit());
+        for (int i = 0; i < 1000; i++) {
+            limit.onSample(System.nanoTime(), TimeUnit.MILLISECONDS.toNanos(10), false, 10);
+        }
+        assertEquals(10, limit.getLimit());
+    }
+
+    @Test
+    void testAdaptiveBulkhead_DiscardedSpeculationsLeaveLimitUnchanged() throws Exception {
+        AimdLimit limit = new AimdLimit(2, 8, Duration.ofSeconds(10), 0.5);
+        LlmBulkhead bulkhead = new LlmBulkhead("deepseek-chat", 8, Duration.ofSeconds(1), 16, limit);
+        InterviewSpeculator speculator = new InterviewSpeculator(new SimpleAsyncTaskExecutor());
+
+        for (int i = 0; i < 3; i++) {
+            CountDownLatch started = new CountDownLatch(1);
+            InterviewSpeculator.Speculation speculation = speculator.start(Phase.CHILDHOOD, i, () -> bulkhead.execute(() -> {
+                started.countDown();
+                try {
+                    Thread.sleep(5000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("interrupted", e);
+                }
+                return "问题";
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            // 阶段切换或追问：推测结果作废，进行中的调用被中断
+            speculator.discard(speculation);
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (bulkhead.getInflight() > 0 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals(0, bulkhead.getInflight());
+        }
+
+        assertEquals(8, bulkhead.getLimit());
+        assertEquals(0, limit.getDecreases());
+    }
+
+    @Test
+    void testAdaptiveBulkhead_OnlyOverloadFailuresShrinkLimit() {
+        AimdLimit limit = new AimdLimit(2, 8, Duration.ofSeconds(10), 0.5);
+        LlmBulkhead bulkhead = new LlmBulkhead("deepseek-chat", 8, Duration.ofSeconds(1), 16, limit);
+
+        // 请求本身有误（4xx）与上游负载无关
+        assertThrows(OpenAiHttpException.class, () -> bulkhead.execute(() -> {
+            throw new OpenAiHttpException(400, "bad request");
+        }));
+        assertThrows(RuntimeException.class, () -> bulkhead.execute(() -> {
+            throw new RuntimeException(new OpenAiHttpException(401, "invalid api key"));
+        }));
+        assertEquals(8, bulkhead.getLimit());
+
+        // 限流与上游故障说明过载
+        assertThrows(OpenAiHttpException.class, () -> bulkhead.execute(() -> {
+            throw new OpenAiHttpException(429, "rate limited");
+        }));
+        assertEquals(4, bulkhead.getLimit());
+        assertThrows(RuntimeException.class, () -> bulkhead.execute(() -> {
+            throw new RuntimeException(new SocketTimeoutException("timeout"));
+        }));
+        assertEquals(2, bulkhead.getLimit());
+        assertEquals(0, bulkhead.getInflight());
+    }
+
+    @Test
+    void testAdaptiveBulkhead_ShrinksAdmissionWhenUpstreamSlowsDown() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        LlmBulkheads bulkheads = new LlmBulkheads(8, Map.of(), Duration.ofMillis(50), 16,
+                maxConcurrent -> new AimdLimit(2, maxConcurrent, Duration.ofMillis(30), 0.5),
+                new InterviewMetrics(registry, 0, 0)::bulkhead);
+        LlmBulkhead bulkhead = bulkheads.forModel("deepseek-chat");
+        assertEquals(8, registry.get("deeptalent.llm.limit").tag("model", "deepseek-chat").gauge().value());
+
+        // 上游变慢：并发上限依次减半到下界
+        for (int i = 0; i < 3; i++) {
+            bulkhead.execute(() -> sleep(40));
+        }
+        assertEquals(2, bulkhead.getLimit());
+        assertEquals(2, registry.get("deeptalent.llm.limit").tag("model", "deepseek-chat").gauge().value());
+
+        // 只放行 2 个调用，第三个排队直到超时
+        long first = bulkhead.acquire();
+        long second = bulkhead.acquire();
+        assertTrue(bulkhead.isSaturated());
+        LlmOverloadedException error = assertThrows(LlmOverloadedException.class, bulkhead::acquire);
+        assertFalse(error.isQueueFull());
+        assertEquals(1, registry.get("deeptalent.llm.rejected").tags("model", "deepseek-chat", "reason", "timeout")
+                .functionCounter().count());
+        assertEquals(2, registry.get("deeptalent.llm.inflight").tag("model", "deepseek-chat").gauge().value());
+        bulkhead.release(first, false);
+        bulkhead.release(second, false);
+        assertEquals(0, registry.get("deeptalent.llm.queue").tag("model", "deepseek-chat").gauge().value());
+    }
+
+    private static String sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "ok";
+    }
+
+    @Test
+    @EnabledForJreRange(min = JRE.JAVA_21)
+    void testVirtualThreads_ThousandsOfSessionsWaitCheaply() throws Exception {
+        LlmBulkhead bulkhead = new LlmBulkhead("deepseek-chat", 16, Duration.ofSeconds(60));
+        ConcurrencyProbe probe = new ConcurrencyProbe();
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("vt-");
+        executor.setVirtualThreads(true);
+
+        runSessions(executor, 2000, bulkhead, probe);
+
+        assertTrue(probe.maxInflight.get() <= 16);
+        assertEquals(2000, bulkhead.getStats().getAcquired());
+    }
+}
@@ -0,0 +1,260 @@
+package com.deeptalent.service.impl;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.deeptalent.config.DeepTalentProperties;
+import com.deeptalent.domain.ai.Message;
+import com.deeptalent.domain.entity.ConversationEntity;
+import com.deeptalent.domain.entity.MessageEntity;
+import com.deeptalent.domain.enums.Phase;
+import com.deeptalent.domain.enums.StateChange;
+import com.deeptalent.domain.model.DeepTalentState;
+import com.deeptalent.domain.model.EvaluationResult;
+import com.deeptalent.domain.model.Extraction;
+import com.deeptalent.mapper.ConversationMapper;
+import com.deeptalent.mapper.ExtractionMapper;
+import com.deeptalent.mapper.MessageMapper;
+import com.deeptalent.mapper.PhaseSummaryMapper;
+import com.deeptalent.mapper.StateHydrationMapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+/**
+ * PersistenceServiceImpl 脏跟踪单元测试
+ * 使用 Mock Mapper 验证每次保存只发出必要的写语句
+ *
+ * @author 小阳
+ * @date 2026-10-18
+ * @version 1.0.0
+ */
+@ExtendWith(MockitoExtension.class)
+class PersistenceServiceDirtyTrackingTest {
+
+    @Mock
+    private ConversationMapper conversationMapper;
+    @Mock
+    private MessageMapper messageMapper;
+    @Mock
+    private ExtractionMapper extractionMapper;
+    @Mock
+    private PhaseSummaryMapper phaseSummaryMapper;
+    @Mock
+    private StateHydrationMapper stateHydrationMapper;
+
+    private PersistenceServiceImpl service;
+
+    @BeforeAll
+    static void initTableInfo() {
+        // Lambda 条件构造器依赖实体的表元数据，脱离 Spring 时需手动注册
+        TableInfoHelper.initTableInfo(new MapperBuilderAssistant(new MybatisConfiguration(), ""), ConversationEntity.class);
+    }
+
+    @BeforeEach
+    void setUp() {
+        service = new PersistenceServiceImpl(conversationMapper, messageMapper, extractionMapper, phaseSummaryMapper,
+                stateHydrationMapper, new ObjectMapper(), new DeepTalentProperties());
+    }
+
+    /**
+     * 构造一个“刚从数据库加载”的状态
+     */
+    private DeepTalentState loadedState() {
+        DeepTalentState state = new DeepTalentState();
+        state.setCurrentPhase(Phase.COMPETENCE);
+        state.setDialogueCount(2);
+        state.setThreadName("小明");
+        state.getMessages().add(new Message("assistant", "Q1"));
+        state.getMessages().add(new Message("user", "A1"));
+        state.getUserProfile().put("competence", new ArrayList<>(List.of(new Extraction("协调", "证据", "competence", 0.8))));
+        state.setLastEval(new EvaluationResult());
+        StateHydrator.markPersisted(state);
+        return state;
+    }
+
+    @SuppressWarnings("unchecked")
+    private String capturedSqlSet() {
+        ArgumentCaptor<Wrapper<ConversationEntity>> captor = ArgumentCaptor.forClass(Wrapper.class);
+        verify(conversationMapper, atLeastOnce()).update(isNull(), captor.capture());
+        return captor.getValue().getSqlSet();
+    }
+
+    @Test
+    void testDetectChanges_LoadedStateIsClean() {
+        DeepTalentState state = loadedState();
+
+        assertTrue(state.detectChanges().isEmpty());
+        assertEquals(EnumSet.allOf(StateChange.class), new DeepTalentState().detectChanges());
+
+        state.getMessages().add(new Message("assistant", "Q2"));
+        state.setDialogueCount(3);
+        assertEquals(EnumSet.of(StateChange.PROGRESS, StateChange.MESSAGES), state.detectChanges());
+    }
+
+    @Test
+    void testSave_UnchangedStateIssuesNoStatements() {
+        service.saveState("t1", loadedState());
+
+        verifyNoInteractions(conversationMapper, messageMapper, extractionMapper);
+        PersistenceServiceImpl.PersistenceStats stats = service.getStats();
+        assertEquals(1, stats.getSkippedSaves());
+        assertEquals(3, stats.getSkippedStatements());
+    }
+
+    @Test
+    void testBindTo_ExportsExecutedAndSkippedStatements() {
+        when(conversationMapper.update(isNull(), any())).thenReturn(1);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        service.bindTo(registry);
+        DeepTalentState state = loadedState();
+        service.saveState("t1", state);
+        state.getMessages().add(new Message("assistant", "Q2"));
+
+        service.saveState("t1", state);
+
+        assertEquals(1, registry.get("deeptalent.persistence.saves").tag("result", "skipped").functionCounter().count());
+        assertEquals(1, registry.get("deeptalent.persistence.saves").tag("result", "executed").functionCounter().count());
+        assertEquals(2, registry.get("deeptalent.persistence.statements").tag("result", "executed").functionCounter().count());
+        assertEquals(4, registry.get("deeptalent.persistence.statements").tag("result", "skipped").functionCounter().count());
+        assertEquals(10, registry.get("deeptalent.persistence.skipped_columns").functionCounter().count());
+    }
+
+    @Test
+    void testSave_OnlyMessagesAppended() {
+        when(conversationMapper.update(isNull(), any())).thenReturn(1);
+        DeepTalentState state = loadedState();
+        state.getMessages().add(new Message("assistant", "Q2"));
+
+        service.saveState("t1", state);
+
+        String sqlSet = capturedSqlSet();
+        assertTrue(sqlSet.contains("state_snapshot"));
+        assertFalse(sqlSet.contains("final_report"));
+        assertFalse(sqlSet.contains("last_eval"));
+        assertFalse(sqlSet.contains("current_phase"));
+        verify(messageMapper).insertBatch(anyList());
+        verify(extractionMapper, never()).insertBatch(anyList());
+        verify(conversationMapper, never()).selectById(any());
+
+        PersistenceServiceImpl.PersistenceStats stats = service.getStats();
+        assertEquals(2, stats.getStatements());
+        assertEquals(1, stats.getSkippedStatements());
+        assertEquals(5, stats.getSkippedColumns());
+        assertTrue(state.detectChanges().isEmpty());
+    }
+
+    @Test
+    void testSave_FinalReportWrittenOnlyOnce() {
+        when(conversationMapper.update(isNull(), any())).thenReturn(1);
+        DeepTalentState state = loadedState();
+        state.setCurrentPhase(Phase.GENERATING);
+        state.setFinalReport("很长的报告");
+
+        service.saveState("t1", state);
+        assertTrue(capturedSqlSet().contains("final_report"));
+
+        clearInvocations(conversationMapper);
+        state.getMessages().add(new Message("assistant", "报告已生成"));
+        service.saveState("t1", state);
+        assertFalse(capturedSqlSet().contains("final_report"));
+    }
+
+    @Test
+    void testSave_MissingRowFallsBackToInsert() {
+        when(conversationMapper.update(isNull(), any())).thenReturn(0);
+        DeepTalentState state = loadedState();
+        state.getMessages().add(new Message("assistant", "Q2"));
+
+        service.saveState("t1", state);
+
+        ArgumentCaptor<ConversationEntity> captor = ArgumentCaptor.forClass(ConversationEntity.class);
+        verify(conversationMapper).insert(captor.capture());
+        assertEquals("competence", captor.getValue().getCurrentPhase());
+        assertNotNull(captor.getValue().getLastEval());
+        // 会话行被删除后水位线作废，全部消息与特征重新写入
+        verify(messageMapper).insertBatch(argThat(list -> list.size() == 3));
+        verify(extractionMapper).insertBatch(argThat(list -> list.size() == 1));
+    }
+
+    @Test
+    void testTrimHistory_OnlyDropsPersistedMessages() {
+        DeepTalentState state = loadedState();
+        state.getMessages().add(new Message("assistant", "Q2"));
+        state.getMessages().add(new Message("user", "A2"));
+
+        // 只有前两条已落库，未落库的消息不能被裁掉
+        assertEquals(2, state.trimHistory(1));
+        assertEquals(2, state.getMessageOffset());
+        assertEquals(4, state.getTotalMessageCount());
+        assertEquals("Q2", state.getMessages().get(0).getContent());
+        assertEquals(EnumSet.of(StateChange.MESSAGES), state.detectChanges());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void testSave_WindowedStateUsesAbsoluteSequence() {
+        when(conversationMapper.update(isNull(), any())).thenReturn(1);
+        DeepTalentState state = new DeepTalentState();
+        state.setMessageOffset(60);
+        state.getMessages().add(new Message("assistant", "Q31"));
+        StateHydrator.markPersisted(state);
+        state.getMessages().add(new Message("user", "A31"));
+
+        service.saveState("t1", state);
+
+        ArgumentCaptor<List<MessageEntity>> captor = ArgumentCaptor.forClass(List.class);
+        verify(messageMapper).insertBatch(captor.capture());
+        assertEquals(1, captor.getValue().size());
+        assertEquals(61, captor.getValue().get(0).getSequence());
+        assertEquals(62, state.getWatermark().getMessageCount());
+    }
+
+    @Test
+    void testLoadMessages_PagesByKeyset() {
+        DeepTalentProperties properties = new DeepTalentProperties();
+        properties.getPersistence().setHistoryPageSize(2);
+        service = new PersistenceServiceImpl(conversationMapper, messageMapper, extractionMapper, phaseSummaryMapper,
+                stateHydrationMapper, new ObjectMapper(), properties);
+        when(messageMapper.selectRange(eq("t1"), anyInt(), eq(5), eq(2))).thenAnswer(invocation -> {
+            int from = invocation.getArgument(1);
+            List<MessageEntity> page = new ArrayList<>();
+            for (int seq = from; seq < Math.min(from + 2, 5); seq++) {
+                MessageEntity entity = new MessageEntity();
+                entity.setRole("user");
+                entity.setContent("M" + seq);
+                entity.setSequence(seq);
+                page.add(entity);
+            }
+            return page;
+        });
+
+        List<Message> messages = service.loadMessages("t1", 0, 5);
+
+        assertEquals(List.of("M0", "M1", "M2", "M3", "M4"), messages.stream().map(Message::getContent).toList());
+        // 每页以上一页最后一条的 sequence 为起点
+        verify(messageMapper).selectRange("t1", 0, 5, 2);
+        verify(messageMapper).selectRange("t1", 2, 5, 2);
+        verify(messageMapper).selectRange("t1", 4, 5, 2);
+        assertEquals(5, service.getStats().getPagedMessages());
+    }
+}
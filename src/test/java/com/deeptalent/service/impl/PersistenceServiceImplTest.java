@@ -1,23 +1,42 @@
 package com.deeptalent.service.impl;
 
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.deeptalent.config.DeepTalentProperties;
+import com.deeptalent.domain.entity.ConversationEntity;
+import com.deeptalent.domain.entity.MessageEntity;
+import com.deeptalent.domain.entity.PhaseSummaryEntity;
 import com.deeptalent.domain.model.DeepTalentState;
+import com.deeptalent.domain.model.EvaluationResult;
 import com.deeptalent.domain.model.Extraction;
+import com.deeptalent.domain.model.PhaseSummary;
 import com.deeptalent.domain.ai.Message;
 import com.deeptalent.domain.enums.Phase;
 import com.deeptalent.mapper.ConversationMapper;
 import com.deeptalent.mapper.ExtractionMapper;
 import com.deeptalent.mapper.MessageMapper;
+import com.deeptalent.mapper.PhaseSummaryMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
-@SpringBootTest
+/**
+ * PersistenceServiceImpl 集成测试
+ * 使用嵌入式 H2 内存库，不依赖外部 MySQL
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:deep_talent_test;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE;DB_CLOSE_DELAY=-1",
+        "deeptalent.question-bank.enabled=false"
+})
+@ActiveProfiles("h2")
 class PersistenceServiceImplTest {
 
     @Autowired
@@ -32,6 +51,22 @@ class PersistenceServiceImplTest {
     @Autowired
     private ExtractionMapper extractionMapper;
 
+    @Autowired
+    private PhaseSummaryMapper phaseSummaryMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private DeepTalentProperties properties;
+
+    @Test
+    void testStatementCountersAreRegistered() {
+        // 写入统计随 MeterBinder 注册到应用的指标注册表
+        Assertions.assertNotNull(meterRegistry.find("deeptalent.persistence.statements").tag("result", "skipped").functionCounter());
+        Assertions.assertNotNull(meterRegistry.find("deeptalent.persistence.saves").tag("result", "executed").functionCounter());
+    }
+
     @Test
     @Transactional // 测试完成后自动回滚
     void testSaveAndLoadState() {
@@ -57,6 +92,12 @@ class PersistenceServiceImplTest {
         extractions.add(new Extraction("Leadership", "Led a team", "competence", 0.9));
         originalState.getUserProfile().put("competence", extractions);
 
+        // 设置最近一次评估
+        EvaluationResult lastEval = new EvaluationResult();
+        lastEval.setScore(7);
+        lastEval.setFollowupQuestion("Tell me more");
+        originalState.setLastEval(lastEval);
+
         // 2. 执行保存
         persistenceService.saveState(threadId, originalState);
 
@@ -78,5 +119,141 @@ class PersistenceServiceImplTest {
         Assertions.assertTrue(loadedState.getUserProfile().containsKey("competence"));
         Assertions.assertEquals(1, loadedState.getUserProfile().get("competence").size());
         Assertions.assertEquals("Leadership", loadedState.getUserProfile().get("competence").get(0).getTag());
+
+        // 验证评估结果随会话恢复
+        Assertions.assertNotNull(loadedState.getLastEval());
+        Assertions.assertEquals(7, loadedState.getLastEval().getScore());
+        Assertions.assertEquals("Tell me more", loadedState.getLastEval().getFollowupQuestion());
+    }
+
+    @Test
+    @Transactional
+    void testIncrementalSave() {
+        String threadId = UUID.randomUUID().toString();
+        DeepTalentState state = new DeepTalentState();
+        state.getMessages().add(new Message("assistant", "Q1"));
+        state.getMessages().add(new Message("user", "A1"));
+        state.getUserProfile().put("childhood", new ArrayList<>(List.of(new Extraction("T1", "E1", "childhood", 0.8))));
+        persistenceService.saveState(threadId, state);
+
+        // 模拟下一轮：加载后追加一问一答和一个特征
+        DeepTalentState next = persistenceService.loadState(threadId);
+        next.getMessages().add(new Message("assistant", "Q2"));
+        next.getMessages().add(new Message("user", "A2"));
+        next.getUserProfile().get("childhood").add(new Extraction("T2", "E2", "childhood", 0.7));
+        persistenceService.saveState(threadId, next);
+
+        // 已落库的记录不应被重复写入
+        DeepTalentState loaded = persistenceService.loadState(threadId);
+        Assertions.assertEquals(4, loaded.getMessages().size());
+        Assertions.assertEquals("Q2", loaded.getMessages().get(2).getContent());
+        Assertions.assertEquals(2, loaded.getUserProfile().get("childhood").size());
+        Assertions.assertEquals("T2", loaded.getUserProfile().get("childhood").get(1).getTag());
+    }
+
+    @Test
+    @Transactional
+    void testLongSession_LoadsTailWindowAndPagesOlderMessages() {
+        String threadId = UUID.randomUUID().toString();
+        DeepTalentState state = new DeepTalentState();
+        for (int i = 0; i < 100; i++) {
+            state.getMessages().add(new Message(i % 2 == 0 ? "assistant" : "user", "M" + i));
+        }
+        persistenceService.saveState(threadId, state);
+        Assertions.assertEquals(100, messageMapper.selectCount(
+                new LambdaQueryWrapper<MessageEntity>().eq(MessageEntity::getThreadId, threadId)));
+
+        // 默认窗口 40 条：只恢复 M60..M99
+        DeepTalentState loaded = persistenceService.loadState(threadId);
+        Assertions.assertEquals(40, loaded.getMessages().size());
+        Assertions.assertEquals(60, loaded.getMessageOffset());
+        Assertions.assertEquals("M60", loaded.getMessages().get(0).getContent());
+
+        // 在窗口上追加一轮，sequence 接着绝对位置递增
+        loaded.getMessages().add(new Message("assistant", "M100"));
+        loaded.getMessages().add(new Message("user", "M101"));
+        persistenceService.saveState(threadId, loaded);
+
+        DeepTalentState next = persistenceService.loadState(threadId);
+        Assertions.assertEquals(62, next.getMessageOffset());
+        Assertions.assertEquals("M101", next.getMessages().get(39).getContent());
+
+        // 窗口之前的消息按需分页补齐
+        List<Message> older = persistenceService.loadMessages(threadId, 0, next.getMessageOffset());
+        Assertions.assertEquals(62, older.size());
+        Assertions.assertEquals("M0", older.get(0).getContent());
+        Assertions.assertEquals("M61", older.get(61).getContent());
+
+        // 没有快照的旧数据走水合查询，同样只取尾部窗口
+        conversationMapper.update(null, new LambdaUpdateWrapper<ConversationEntity>()
+                .eq(ConversationEntity::getThreadId, threadId)
+                .set(ConversationEntity::getStateSnapshot, null));
+        DeepTalentState hydrated = persistenceService.loadState(threadId);
+        Assertions.assertEquals(40, hydrated.getMessages().size());
+        Assertions.assertEquals(62, hydrated.getMessageOffset());
+        Assertions.assertEquals("M62", hydrated.getMessages().get(0).getContent());
+        Assertions.assertTrue(hydrated.detectChanges().isEmpty());
+    }
+
+    @Test
+    @Transactional
+    void testPhaseSummaries_PersistedOnceAndRestored() {
+        String threadId = UUID.randomUUID().toString();
+        DeepTalentState state = new DeepTalentState();
+        state.getMessages().add(new Message("assistant", "Q1"));
+        state.getMessages().add(new Message("user", "A1"));
+        persistenceService.saveState(threadId, state);
+
+        // 阶段结束：生成摘要并进入下一阶段
+        DeepTalentState next = persistenceService.loadState(threadId);
+        next.setCurrentPhase(Phase.COMPETENCE);
+        next.getPhaseSummaries().add(new PhaseSummary("childhood", "童年摘要", 0, 2));
+        next.getMessages().add(new Message("assistant", "Q2"));
+        persistenceService.saveState(threadId, next);
+
+        DeepTalentState loaded = persistenceService.loadState(threadId);
+        Assertions.assertEquals(2, loaded.getSummarizedUpTo());
+        Assertions.assertEquals("童年摘要", loaded.getPhaseSummaries().get(0).getSummary());
+        loaded.getMessages().add(new Message("user", "A2"));
+        persistenceService.saveState(threadId, loaded);
+        // 已落库的摘要不会重复写入
+        Assertions.assertEquals(1, phaseSummaryMapper.selectCount(
+                new LambdaQueryWrapper<PhaseSummaryEntity>().eq(PhaseSummaryEntity::getThreadId, threadId)));
+
+        // 没有快照时从 dt_phase_summary 恢复
+        conversationMapper.update(null, new LambdaUpdateWrapper<ConversationEntity>()
+                .eq(ConversationEntity::getThreadId, threadId)
+                .set(ConversationEntity::getStateSnapshot, null));
+        DeepTalentState hydrated = persistenceService.loadState(threadId);
+        Assertions.assertEquals("childhood", hydrated.getPhaseSummaries().get(0).getPhase());
+        Assertions.assertEquals(0, hydrated.getPhaseSummaries().get(0).getFromSequence());
+        Assertions.assertEquals(2, hydrated.getSummarizedUpTo());
+        Assertions.assertTrue(hydrated.detectChanges().isEmpty());
+    }
+
+    @Test
+    @Transactional
+    void testPhaseSummaries_NotLoadedWhenSummaryDisabled() {
+        String threadId = UUID.randomUUID().toString();
+        DeepTalentState state = new DeepTalentState();
+        state.getMessages().add(new Message("assistant", "Q1"));
+        state.getMessages().add(new Message("user", "A1"));
+        state.getPhaseSummaries().add(new PhaseSummary("childhood", "童年摘要", 0, 2));
+        persistenceService.saveState(threadId, state);
+
+        properties.getSummary().setEnabled(false);
+        try {
+            Assertions.assertTrue(persistenceService.loadState(threadId).getPhaseSummaries().isEmpty());
+            // 没有快照时水合查询不读取 dt_phase_summary
+            conversationMapper.update(null, new LambdaUpdateWrapper<ConversationEntity>()
+                    .eq(ConversationEntity::getThreadId, threadId)
+                    .set(ConversationEntity::getStateSnapshot, null));
+            DeepTalentState hydrated = persistenceService.loadState(threadId);
+            Assertions.assertTrue(hydrated.getPhaseSummaries().isEmpty());
+            Assertions.assertEquals(0, hydrated.getSummarizedUpTo());
+            Assertions.assertEquals(2, hydrated.getMessages().size());
+        } finally {
+            properties.getSummary().setEnabled(true);
+        }
     }
 }
@@ -0,0 +1,179 @@
+package com.deeptalent.service.impl;
+
+import com.deeptalent.domain.entity.QuestionBankEntity;
+import com.deeptalent.domain.enums.Phase;
+import com.deeptalent.mapper.QuestionBankMapper;
+import com.deeptalent.service.PromptService;
+import com.deeptalent.service.PromptTemplate;
+import com.deeptalent.service.Prompts;
+import com.deeptalent.service.ai.DeepTalentAgent;
+import dev.langchain4j.data.message.SystemMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * QuestionBank 单元测试
+ *
+ * @author 小阳
+ * @date 2026-10-18
+ * @version 1.0.0
+ */
+@ExtendWith(MockitoExtension.class)
+class QuestionBankTest {
+
+    private static final int SIZE = 3;
+
+    @Mock
+    private DeepTalentAgent deepTalentAgent;
+
+    @Mock
+    private PromptService promptService;
+
+    @Mock
+    private QuestionBankMapper questionBankMapper;
+
+    private final AtomicInteger generatedCount = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(promptService.getTemplate(Prompts.INTERVIEWER_SYSTEM_PROMPT)).thenReturn(PromptTemplate.compile("phase={phase}, count={dialogue_count}, eval={last_eval}"));
+        lenient().when(promptService.getPromptVersion(Prompts.INTERVIEWER_SYSTEM_PROMPT)).thenReturn(1);
+        lenient().when(deepTalentAgent.chat(anyList())).thenAnswer(invocation -> {
+            List<?> history = invocation.getArgument(0);
+            String prompt = ((SystemMessage) history.get(0)).text();
+            return prompt + " #" + generatedCount.incrementAndGet();
+        });
+    }
+
+    private QuestionBank bank(LlmBulkhead bulkhead, Duration maxAge) {
+        return new QuestionBank(deepTalentAgent, promptService, questionBankMapper, bulkhead, SIZE,
+                Duration.ofMinutes(5), maxAge);
+    }
+
+    private static QuestionBankEntity entity(long id, Phase phase, int version, String question, LocalDateTime createdAt) {
+        QuestionBankEntity entity = new QuestionBankEntity();
+        entity.setId(id);
+        entity.setPhase(phase.getValue());
+        entity.setPromptVersion(version);
+        entity.setQuestion(question);
+        entity.setCreatedAt(createdAt);
+        return entity;
+    }
+
+    @Test
+    void testRefresh_GeneratesOpeningQuestionsPerPhaseAndRotates() {
+        QuestionBank bank = bank(null, Duration.ofDays(1));
+        assertNull(bank.take(Phase.CHILDHOOD));
+
+        bank.refresh();
+
+        // 每个阶段生成 SIZE 道题，均以第 1 轮、无评估结果的提示词生成并落库
+        verify(deepTalentAgent, times(SIZE * QuestionBank.PHASES.size())).chat(anyList());
+        verify(questionBankMapper, times(SIZE * QuestionBank.PHASES.size())).insert(any(QuestionBankEntity.class));
+        Set<String> served = new HashSet<>();
+        for (int i = 0; i < SIZE; i++) {
+            String question = bank.take(Phase.CHILDHOOD);
+            assertTrue(question.startsWith("phase=childhood, count=1, eval=无"));
+            served.add(question);
+        }
+        assertEquals(SIZE, served.size());
+        // 轮转：取完一圈后回到第一道
+        assertTrue(served.contains(bank.take(Phase.CHILDHOOD)));
+
+        // 题库已满，再次刷新不再调用模型
+        bank.refresh();
+        verify(deepTalentAgent, times(SIZE * QuestionBank.PHASES.size())).chat(anyList());
+        assertEquals(SIZE * QuestionBank.PHASES.size(), bank.getStats().getAvailable());
+        assertEquals(SIZE + 1, bank.getStats().getServed());
+        assertEquals(1, bank.getStats().getMisses());
+    }
+
+    @Test
+    void testRefresh_LoadsPersistedQuestionsWithoutGenerating() {
+        LocalDateTime now = LocalDateTime.now();
+        when(questionBankMapper.selectList(any())).thenReturn(List.of(
+                entity(1, Phase.CHILDHOOD, 1, "小时候最喜欢做什么？", now),
+                entity(2, Phase.CHILDHOOD, 1, "小时候常被夸什么？", now),
+                entity(3, Phase.CHILDHOOD, 1, "小时候最难忘的一件事？", now)));
+        QuestionBank bank = bank(null, Duration.ofDays(1));
+
+        bank.refresh();
+
+        verify(deepTalentAgent, never()).chat(anyList());
+        assertEquals("小时候最喜欢做什么？", bank.take(Phase.CHILDHOOD));
+        assertEquals("小时候常被夸什么？", bank.take(Phase.CHILDHOOD));
+    }
+
+    @Test
+    void testPromptVersionChange_StopsServingOutdatedQuestionsUntilRegenerated() {
+        QuestionBank bank = bank(null, Duration.ofDays(1));
+        bank.refresh();
+        assertNotNull(bank.take(Phase.CHILDHOOD));
+
+        when(promptService.getPromptVersion(Prompts.INTERVIEWER_SYSTEM_PROMPT)).thenReturn(2);
+        assertNull(bank.take(Phase.CHILDHOOD));
+
+        bank.refresh();
+
+        // 旧版本的题目被删除，按新版本重新生成
+        verify(questionBankMapper, times(2 * QuestionBank.PHASES.size())).delete(any());
+        verify(deepTalentAgent, times(2 * SIZE * QuestionBank.PHASES.size())).chat(anyList());
+        assertNotNull(bank.take(Phase.CHILDHOOD));
+    }
+
+    @Test
+    void testRefresh_ReplacesExpiredQuestions() {
+        when(questionBankMapper.selectList(any())).thenReturn(List.of(
+                entity(1, Phase.CHILDHOOD, 1, "旧题", LocalDateTime.now().minusDays(2)),
+                entity(2, Phase.CHILDHOOD, 1, "新题 A", LocalDateTime.now()),
+                entity(3, Phase.CHILDHOOD, 1, "新题 B", LocalDateTime.now())), List.of());
+        QuestionBank bank = bank(null, Duration.ofDays(1));
+
+        bank.refresh();
+
+        verify(questionBankMapper).deleteById(1L);
+        assertEquals(1, bank.getStats().getRotated());
+        for (int i = 0; i < SIZE; i++) {
+            assertNotEquals("旧题", bank.take(Phase.CHILDHOOD));
+        }
+    }
+
+    @Test
+    void testSaturatedBulkhead_SkipsGenerationAndServesUnaskedQuestions() {
+        LlmBulkhead bulkhead = new LlmBulkhead("test-model", 1, Duration.ofMillis(10));
+        when(questionBankMapper.selectList(any())).thenReturn(List.of(
+                entity(1, Phase.SHADOW, 1, "问题一", LocalDateTime.now()),
+                entity(2, Phase.SHADOW, 1, "问题二", LocalDateTime.now())));
+        QuestionBank bank = bank(bulkhead, Duration.ofDays(1));
+        bulkhead.acquire();
+        try {
+            assertTrue(bank.isSaturated());
+            bank.refresh();
+
+            // 舱壁饱和时不补齐题目，不与在线请求争抢许可
+            verify(deepTalentAgent, never()).chat(anyList());
+            assertEquals("问题二", bank.takeDegraded(Phase.SHADOW, List.of("问题一")));
+            assertEquals("问题二", bank.takeDegraded(Phase.SHADOW, List.of("问题一")));
+            assertNull(bank.takeDegraded(Phase.SHADOW, List.of("问题一", "问题二")));
+            assertEquals(2, bank.getStats().getDegraded());
+        } finally {
+            bulkhead.release();
+        }
+        assertFalse(bank.isSaturated());
+    }
+}
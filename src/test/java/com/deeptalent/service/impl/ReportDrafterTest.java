@@ -0,0 +1,164 @@
+package com.deeptalent.service.impl;
+
+import com.deeptalent.domain.entity.ReportSectionEntity;
+import com.deeptalent.domain.enums.Phase;
+import com.deeptalent.domain.model.Extraction;
+import com.deeptalent.mapper.ReportSectionMapper;
+import com.deeptalent.service.PromptService;
+import com.deeptalent.service.PromptTemplate;
+import com.deeptalent.service.Prompts;
+import com.deeptalent.service.ai.DeepTalentAgent;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.UserMessage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * ReportDrafter 单元测试
+ *
+ * @author 小阳
+ * @date 2026-10-18
+ * @version 1.0.0
+ */
+@ExtendWith(MockitoExtension.class)
+class ReportDrafterTest {
+
+    @Mock
+    private DeepTalentAgent deepTalentAgent;
+
+    @Mock
+    private PromptService promptService;
+
+    @Mock
+    private ReportSectionMapper reportSectionMapper;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final List<ReportSectionEntity> saved = new CopyOnWriteArrayList<>();
+
+    private ReportDrafter drafter;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(promptService.getTemplate(Prompts.REPORT_SECTION_PROMPT))
+                .thenReturn(PromptTemplate.compile("Draft {phase}: {extractions}"));
+        lenient().when(promptService.getTemplate(Prompts.REPORT_MERGE_PROMPT)).thenReturn(PromptTemplate.compile("Merge"));
+        lenient().when(reportSectionMapper.insert(any(ReportSectionEntity.class))).thenAnswer(invocation -> {
+            ReportSectionEntity entity = invocation.getArgument(0);
+            entity.setId((long) saved.size() + 1);
+            saved.add(entity);
+            return 1;
+        });
+        lenient().when(reportSectionMapper.selectList(any())).thenAnswer(invocation -> List.copyOf(saved));
+        drafter = new ReportDrafter(deepTalentAgent, promptService, reportSectionMapper,
+                new InterviewMetrics(meterRegistry, 0, 0), 2, Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        drafter.shutdown();
+    }
+
+    @Test
+    void testDraftAsync_AwaitSectionsWaitsForDraftInFlight() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(deepTalentAgent.chat(anyList())).thenAnswer(invocation -> {
+            List<ChatMessage> messages = invocation.getArgument(0);
+            assertEquals("Draft childhood: - 专注：“一画就是一下午”", ((SystemMessage) messages.get(0)).text());
+            assertEquals("用户：小时候一画就是一下午", ((UserMessage) messages.get(1)).singleText());
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return "  童年时常独自沉浸于绘画。  ";
+        });
+
+        drafter.draftAsync("t1", Phase.CHILDHOOD, "用户：小时候一画就是一下午",
+                List.of(new Extraction("专注", "一画就是一下午", "childhood", 0.8)));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        new Thread(() -> {
+            sleepQuietly(100);
+            release.countDown();
+        }).start();
+
+        Map<Phase, String> sections = drafter.awaitSections("t1");
+
+        assertEquals(Map.of(Phase.CHILDHOOD, "童年时常独自沉浸于绘画。"), sections);
+        assertFalse(ReportDrafter.isComplete(sections));
+        assertEquals(1, drafter.getStats().getDrafts());
+        assertEquals(1, meterRegistry.get("deeptalent.workflow.node").tags("node", "drafter", "phase", "childhood").timer().count());
+    }
+
+    @Test
+    void testDraftAsync_AwaitSectionsWaitsForPendingInput() {
+        when(deepTalentAgent.chat(anyList())).thenReturn("擅长组织协调。");
+        CompletableFuture<String> summary = new CompletableFuture<>();
+
+        // 摘要仍在生成中，起草已登记
+        drafter.draftAsync("t1", Phase.COMPETENCE, summary, List.of());
+        new Thread(() -> {
+            sleepQuietly(100);
+            summary.complete("常组织班级活动");
+        }).start();
+
+        assertEquals(Map.of(Phase.COMPETENCE, "擅长组织协调。"), drafter.awaitSections("t1"));
+        verify(deepTalentAgent).chat(argThat(messages -> "常组织班级活动".equals(((UserMessage) messages.get(1)).singleText())));
+    }
+
+    @Test
+    void testDraftAsync_FailureLeavesSectionMissing() {
+        when(deepTalentAgent.chat(anyList())).thenThrow(new IllegalStateException("upstream 500"));
+
+        drafter.draftAsync("t1", Phase.SHADOW, "用户：最怕被否定", List.of());
+
+        assertTrue(drafter.awaitSections("t1").isEmpty());
+        assertEquals(1, drafter.getStats().getFailures());
+        verify(reportSectionMapper, never()).insert(any(ReportSectionEntity.class));
+    }
+
+    @Test
+    void testAssemble_MergesSynthesisWithSectionsInReportOrder() {
+        Map<Phase, String> sections = new EnumMap<>(Phase.class);
+        sections.put(Phase.SHADOW, "害怕被否定。");
+        sections.put(Phase.CHILDHOOD, "沉浸于绘画。");
+        sections.put(Phase.COMPETENCE, "擅长组织协调。");
+
+        List<ChatMessage> history = drafter.buildMergeHistory(sections);
+        String report = ReportDrafter.assemble("## 1. 摘要\n善于专注与协调。\n", sections);
+
+        assertTrue(ReportDrafter.isComplete(sections));
+        assertEquals("Merge", ((SystemMessage) history.get(0)).text());
+        assertEquals("### 童年挖掘\n沉浸于绘画。\n\n### 胜任力\n擅长组织协调。\n\n### 阴影与代价\n害怕被否定。",
+                ((UserMessage) history.get(1)).singleText());
+        assertEquals("# 天赋画像报告\n\n## 1. 摘要\n善于专注与协调。\n\n## 5. 阶段洞见\n\n"
+                + "### 童年挖掘\n沉浸于绘画。\n\n### 胜任力\n擅长组织协调。\n\n### 阴影与代价\n害怕被否定。", report);
+        assertEquals("无", ReportDrafter.renderExtractions(List.of()));
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.deeptalent.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.deeptalent.domain.entity.ConversationEntity;
+import com.deeptalent.domain.entity.ReportJobEntity;
+import com.deeptalent.mapper.ConversationMapper;
+import com.deeptalent.mapper.ReportJobMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ReportJobQueue 集成测试
+ * 使用嵌入式 H2 内存库，任务状态真实落库
+ *
+ * @author 小阳
+ * @date 2026-10-18
+ * @version 1.0.0
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:deep_talent_test;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE;DB_CLOSE_DELAY=-1",
+        "deeptalent.question-bank.enabled=false"
+})
+@ActiveProfiles("h2")
+class ReportJobQueueTest {
+
+    @Autowired
+    private ReportJobMapper reportJobMapper;
+
+    @Autowired
+    private ConversationMapper conversationMapper;
+
+    private final List<ReportJobQueue> queues = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        queues.forEach(ReportJobQueue::shutdown);
+    }
+
+    private ReportJobQueue queue(int workers, int queueCapacity, int maxAttempts) {
+        ReportJobQueue queue = new ReportJobQueue(reportJobMapper, workers, queueCapacity, maxAttempts, Duration.ofMinutes(1));
+        queues.add(queue);
+        return queue;
+    }
+
+    private String conversation() {
+        ConversationEntity entity = new ConversationEntity();
+        entity.setThreadId(UUID.randomUUID().toString());
+        entity.setCurrentPhase("generating");
+        entity.setDialogueCount(0);
+        entity.setNeedFollowup(false);
+        conversationMapper.insert(entity);
+        return entity.getThreadId();
+    }
+
+    @Test
+    void testSubmit_RunsJobAndNotifiesWatcher() throws Exception {
+        ReportJobQueue queue = queue(2, 10, 1);
+        List<String> generated = new ArrayList<>();
+        queue.start(generated::add);
+        String threadId = conversation();
+
+        String jobId = queue.submit(threadId);
+        ReportJobEntity job = queue.watch(jobId).get(5, TimeUnit.SECONDS);
+
+        assertEquals(ReportJobEntity.SUCCEEDED, job.getStatus());
+        assertEquals(1, job.getAttempts());
+        assertNotNull(job.getFinishedAt());
+        assertEquals(List.of(threadId), generated);
+        // 已结束的任务直接以库中的状态完成
+        assertEquals(ReportJobEntity.SUCCEEDED, queue.watch(jobId).get(1, TimeUnit.SECONDS).getStatus());
+    }
+
+    @Test
+    void testSubmit_ReturnsUnfinishedJobOfSameThread() throws Exception {
+        ReportJobQueue queue = queue(1, 10, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        queue.start(threadId -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        String threadId = conversation();
+
+        String first = queue.submit(threadId);
+        String second = queue.submit(threadId);
+        release.countDown();
+
+        assertEquals(first, second);
+        assertEquals(ReportJobEntity.SUCCEEDED, queue.watch(first).get(5, TimeUnit.SECONDS).getStatus());
+    }
+
+    @Test
+    void testRun_RetriesThenFails() throws Exception {
+        ReportJobQueue queue = queue(1, 10, 2);
+        AtomicInteger calls = new AtomicInteger();
+        queue.start(threadId -> {
+            calls.incrementAndGet();
+            throw new IllegalStateException("upstream 500");
+        });
+
+        String jobId = queue.submit(conversation());
+        ReportJobEntity job = queue.watch(jobId).get(5, TimeUnit.SECONDS);
+
+        assertEquals(ReportJobEntity.FAILED, job.getStatus());
+        assertEquals(2, job.getAttempts());
+        assertEquals("upstream 500", job.getErrorMessage());
+        assertEquals(2, calls.get());
+        assertEquals(1, queue.getRetried().sum());
+        assertEquals(1, queue.getFailed().sum());
+    }
+
+    @Test
+    void testStart_RecoversPendingAndInterruptedJobs() throws Exception {
+        // 上一个实例：提交后尚未启动即停机，另一个任务执行到一半时停机
+        ReportJobQueue previous = queue(1, 10, 3);
+        String pendingThread = conversation();
+        String runningThread = conversation();
+        String pending = previous.submit(pendingThread);
+        String running = previous.submit(runningThread);
+        reportJobMapper.update(null, new LambdaUpdateWrapper<ReportJobEntity>()
+                .eq(ReportJobEntity::getJobId, running)
+                .set(ReportJobEntity::getStatus, ReportJobEntity.RUNNING)
+                .set(ReportJobEntity::getAttempts, 1));
+        previous.shutdown();
+        assertEquals(ReportJobEntity.PENDING, reportJobMapper.selectById(pending).getStatus());
+
+        List<String> generated = new ArrayList<>();
+        ReportJobQueue restarted = queue(1, 10, 3);
+        restarted.start(threadId -> {
+            synchronized (generated) {
+                generated.add(threadId);
+            }
+        });
+
+        assertEquals(ReportJobEntity.SUCCEEDED, restarted.watch(pending).get(5, TimeUnit.SECONDS).getStatus());
+        ReportJobEntity recovered = restarted.watch(running).get(5, TimeUnit.SECONDS);
+        assertEquals(ReportJobEntity.SUCCEEDED, recovered.getStatus());
+        assertEquals(2, recovered.getAttempts());
+        assertTrue(generated.containsAll(List.of(pendingThread, runningThread)));
+    }
+
+    @Test
+    void testStart_SkipsJobsLeasedByAnotherInstance() throws Exception {
+        // 另一个存活的实例正在执行的任务，以及一个已崩溃实例留下的、租约已过期的任务
+        ReportJobQueue other = queue(1, 10, 3);
+        String liveThread = conversation();
+        String expiredThread = conversation();
+        String live = other.submit(liveThread);
+        String expired = other.submit(expiredThread);
+        lease(live, "other-instance", LocalDateTime.now().plusMinutes(1));
+        lease(expired, "crashed-instance", LocalDateTime.now().minusMinutes(1));
+
+        List<String> generated = new ArrayList<>();
+        ReportJobQueue restarted = queue(1, 10, 3);
+        restarted.start(threadId -> {
+            synchronized (generated) {
+                generated.add(threadId);
+            }
+        });
+
+        ReportJobEntity recovered = restarted.watch(expired).get(5, TimeUnit.SECONDS);
+        assertEquals(ReportJobEntity.SUCCEEDED, recovered.getStatus());
+        assertEquals(restarted.getOwner(), recovered.getOwner());
+        ReportJobEntity untouched = restarted.watch(live).get(1, TimeUnit.SECONDS);
+        assertEquals(ReportJobEntity.RUNNING, untouched.getStatus());
+        assertEquals("other-instance", untouched.getOwner());
+        assertEquals(1, untouched.getAttempts());
+        assertEquals(List.of(expiredThread), generated);
+    }
+
+    private void lease(String jobId, String owner, LocalDateTime leaseUntil) {
+        reportJobMapper.update(null, new LambdaUpdateWrapper<ReportJobEntity>()
+                .eq(ReportJobEntity::getJobId, jobId)
+                .set(ReportJobEntity::getStatus, ReportJobEntity.RUNNING)
+                .set(ReportJobEntity::getAttempts, 1)
+                .set(ReportJobEntity::getOwner, owner)
+                .set(ReportJobEntity::getLeaseUntil, leaseUntil));
+    }
+
+    @Test
+    void testSubmit_RejectsWhenQueueIsFull() throws Exception {
+        ReportJobQueue queue = queue(1, 1, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        queue.start(threadId -> {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        String running = queue.submit(conversation());
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        String queued = queue.submit(conversation());
+        String rejectedThread = conversation();
+
+        assertThrows(TaskRejectedException.class, () -> queue.submit(rejectedThread));
+        release.countDown();
+        assertEquals(ReportJobEntity.SUCCEEDED, queue.watch(running).get(5, TimeUnit.SECONDS).getStatus());
+        assertEquals(ReportJobEntity.SUCCEEDED, queue.watch(queued).get(5, TimeUnit.SECONDS).getStatus());
+        // 被拒绝的任务不留在库中，重启后不会被执行
+        assertEquals(0, reportJobMapper.selectCount(new LambdaQueryWrapper<ReportJobEntity>()
+                .eq(ReportJobEntity::getThreadId, rejectedThread)));
+    }
+}
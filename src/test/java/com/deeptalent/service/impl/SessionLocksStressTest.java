@@ -0,0 +1,213 @@
+package com.deeptalent.service.impl;
+
+import com.deeptalent.config.DeepTalentProperties;
+import com.deeptalent.domain.ai.Message;
+import com.deeptalent.domain.model.DeepTalentState;
+import com.deeptalent.service.PersistenceService;
+import com.deeptalent.service.PromptService;
+import com.deeptalent.service.PromptTemplate;
+import com.deeptalent.service.ai.DeepTalentAgent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 会话锁压力测试
+ * 大量线程并发驱动少量会话，验证同一会话的轮次不丢失、不同会话仍然并行且互不等待
+ *
+ * @author 小阳
+ * @date 2026-10-18
+ * @version 1.0.0
+ */
+class SessionLocksStressTest {
+
+    private static final int SESSIONS = 4;
+    private static final int THREADS = 32;
+    private static final int TURNS_PER_THREAD = 10;
+
+    /**
+     * 内存持久化：读写之间留出时间窗口，没有锁保护时极易出现后写覆盖先写
+     */
+    private static class InMemoryPersistence implements PersistenceService {
+        private final Map<String, DeepTalentState> store = new ConcurrentHashMap<>();
+
+        @Override
+        public DeepTalentState loadState(String threadId) {
+            DeepTalentState state = store.get(threadId);
+            return state != null ? state.copy() : new DeepTalentState();
+        }
+
+        @Override
+        public void saveState(String threadId, DeepTalentState state) {
+            store.put(threadId, state.copy());
+        }
+
+        @Override
+        public List<Message> loadMessages(String threadId, int fromSequence, int toSequence) {
+            return List.of();
+        }
+    }
+
+    /**
+     * 模拟 LLM：每次调用耗时数毫秒，并统计最大并发
+     * 注意不要在测试源码中直接实现 DeepTalentAgent：LangChain4j 按注解扫描 AI Service 时会连同实现类一起扫到
+     */
+    private static class SlowAgent {
+        private final AtomicInteger inflight = new AtomicInteger();
+        private final AtomicInteger maxInflight = new AtomicInteger();
+        private final DeepTalentAgent agent = mock(DeepTalentAgent.class);
+
+        SlowAgent() {
+            when(agent.chat(anyList())).thenAnswer(invocation -> call("下一个问题"));
+            when(agent.evaluate(anyList())).thenAnswer(invocation -> call("{\"score\":5,\"need_followup\":true,\"extractions\":[]}"));
+        }
+
+        private String call(String response) {
+            maxInflight.accumulateAndGet(inflight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inflight.decrementAndGet();
+            }
+            return response;
+        }
+    }
+
+    @Test
+    void testConcurrentTurns_NoLostUpdatesAndSessionsRunInParallel() throws Exception {
+        InMemoryPersistence persistence = new InMemoryPersistence();
+        SlowAgent agent = new SlowAgent();
+        PromptService promptService = mock(PromptService.class);
+        when(promptService.getTemplate(anyString())).thenReturn(PromptTemplate.compile("Prompt {phase}"));
+        SessionLocks locks = new SessionLocks(Duration.ofSeconds(30));
+        InterviewServiceImpl service = new InterviewServiceImpl(agent.agent, persistence, promptService,
+                locks, new EvaluationParser(new ObjectMapper()),
+                new InterviewMetrics(new SimpleMeterRegistry(), 0, 0),
+                null, null, null, null, null, null, null, null, new DeepTalentProperties());
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            String threadId = "session-" + (t % SESSIONS);
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < TURNS_PER_THREAD; i++) {
+                    service.chat(threadId, "回答 " + i);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        int turnsPerSession = THREADS / SESSIONS * TURNS_PER_THREAD;
+        for (int s = 0; s < SESSIONS; s++) {
+            DeepTalentState state = persistence.loadState("session-" + s);
+            // 每一轮追加一条用户消息与一条助手消息，任何一轮被覆盖都会导致条数不足
+            assertEquals(2 * turnsPerSession, state.getMessages().size(), "lost turns in session-" + s);
+        }
+        // 会话之间并行：LLM 调用的全局并发大于 1，且不超过会话数（同一会话内串行）
+        assertTrue(agent.maxInflight.get() > 1, "sessions were serialized");
+        assertTrue(agent.maxInflight.get() <= SESSIONS, "turns of one session overlapped");
+        // 所有请求结束后会话锁全部移除
+        assertEquals(0, locks.getActiveSessions());
+    }
+
+    @Test
+    void testWithLock_DistinctSessionsNeverWait() throws Exception {
+        // 等待时间为 0：任何一次需要等待其他会话的加锁都会立即失败
+        SessionLocks locks = new SessionLocks(Duration.ZERO);
+        CountDownLatch held = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = new Thread(() -> locks.withLock("busy", () -> {
+            held.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        }));
+        holder.start();
+        held.await();
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger busy = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int worker = t;
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < 2000; i++) {
+                    try {
+                        locks.withLock("session-" + worker + "-" + i, () -> null);
+                    } catch (IllegalStateException e) {
+                        busy.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(0, busy.get(), "distinct sessions waited on each other");
+        assertThrows(IllegalStateException.class, () -> locks.withLock("busy", () -> null));
+        assertEquals(1, locks.getActiveSessions());
+        release.countDown();
+        holder.join();
+        assertEquals(0, locks.getActiveSessions());
+    }
+
+    @Test
+    void testWithLock_TimesOutWhenSessionIsBusy() throws Exception {
+        SessionLocks locks = new SessionLocks(Duration.ofMillis(50));
+        CountDownLatch held = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = new Thread(() -> locks.withLock("t1", () -> {
+            held.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        }));
+        holder.start();
+        held.await();
+
+        assertThrows(IllegalStateException.class, () -> locks.withLock("t1", () -> "second"));
+        release.countDown();
+        holder.join();
+        assertEquals("third", locks.withLock("t1", () -> "third"));
+        assertEquals(0, locks.getActiveSessions());
+    }
+}
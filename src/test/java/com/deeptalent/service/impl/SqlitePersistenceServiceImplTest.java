@@ -0,0 +1,20 @@
+package com.deeptalent.service.impl;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * PersistenceServiceImpl 集成测试（SQLite 后端）
+ * 复用 PersistenceServiceImplTest 的全部用例，数据库文件写在 target 目录下
+ *
+ * @author 小阳
+ * @date 2026-10-18
+ * @version 1.0.0
+ */
+@SpringBootTest(properties = {
+        "deeptalent.storage.sqlite-path=target/deep_talent_test.sqlite",
+        "deeptalent.question-bank.enabled=false"
+})
+@ActiveProfiles(value = "sqlite", inheritProfiles = false)
+class SqlitePersistenceServiceImplTest extends PersistenceServiceImplTest {
+}
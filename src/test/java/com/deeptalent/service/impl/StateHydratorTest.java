@@ -0,0 +1,81 @@
+package com.deeptalent.service.impl;
+
+import com.deeptalent.domain.entity.StateRow;
+import com.deeptalent.domain.enums.Phase;
+import com.deeptalent.domain.model.DeepTalentState;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.ibatis.executor.result.DefaultResultContext;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * StateHydrator 单元测试
+ *
+ * @author 小阳
+ * @date 2026-10-18
+ * @version 1.0.0
+ */
+class StateHydratorTest {
+
+    private static StateRow row(String kind, long seq, String s1, String s2, String s3, Double num) {
+        StateRow row = new StateRow();
+        row.setKind(kind);
+        row.setSeq(seq);
+        row.setS1(s1);
+        row.setS2(s2);
+        row.setS3(s3);
+        row.setNum(num);
+        return row;
+    }
+
+    private static void feed(StateHydrator hydrator, StateRow... rows) {
+        DefaultResultContext<StateRow> context = new DefaultResultContext<>();
+        for (StateRow row : rows) {
+            context.nextResultObject(row);
+            hydrator.handleResult(context);
+        }
+    }
+
+    @Test
+    void testHydrate_AssemblesStateInOnePass() {
+        StateHydrator hydrator = new StateHydrator(new ObjectMapper());
+        feed(hydrator,
+                row(StateRow.KIND_CONVERSATION, 3, "competence", "report", "{\"score\":7,\"need_followup\":true}", 1.0),
+                row(StateRow.KIND_EXTRACTION, 10, "childhood", "好奇心", "我总是拆东西", 0.9),
+                row(StateRow.KIND_EXTRACTION, 11, "childhood", "专注", "一坐就是一下午", 0.7),
+                row(StateRow.KIND_MESSAGE, 0, "assistant", "Q1", "小明", null),
+                row(StateRow.KIND_MESSAGE, 1, "user", "A1", "小明", null),
+                row(StateRow.KIND_SUMMARY, 2, "childhood", "童年摘要", null, 0.0));
+
+        DeepTalentState state = hydrator.getState();
+
+        assertEquals(Phase.COMPETENCE, state.getCurrentPhase());
+        assertEquals(3, state.getDialogueCount());
+        assertTrue(state.isNeedFollowup());
+        assertEquals("report", state.getFinalReport());
+        assertEquals(7, state.getLastEval().getScore());
+        assertTrue(state.getLastEval().isNeedFollowup());
+        assertEquals("小明", state.getThreadName());
+        assertEquals(2, state.getMessages().size());
+        assertEquals("A1", state.getMessages().get(1).getContent());
+        assertEquals("专注", state.getUserProfile().get("childhood").get(1).getTag());
+        assertTrue(state.getWatermark().isTracked());
+        assertEquals(2, state.getWatermark().getMessageCount());
+        assertEquals(2, state.getWatermark().getExtractionCount("childhood"));
+        assertEquals("童年摘要", state.getPhaseSummaries().get(0).getSummary());
+        assertEquals(2, state.getSummarizedUpTo());
+        assertEquals(1, state.getWatermark().getSummaryCount());
+    }
+
+    @Test
+    void testHydrate_MissingConversationReturnsFreshState() {
+        StateHydrator hydrator = new StateHydrator(new ObjectMapper());
+
+        DeepTalentState state = hydrator.getState();
+
+        assertEquals(Phase.CHILDHOOD, state.getCurrentPhase());
+        assertTrue(state.getMessages().isEmpty());
+        assertFalse(state.getWatermark().isTracked());
+    }
+}
@@ -0,0 +1,102 @@
+package com.deeptalent.service.impl;
+
+import com.deeptalent.domain.ai.Message;
+import com.deeptalent.domain.enums.Phase;
+import com.deeptalent.domain.model.DeepTalentState;
+import com.deeptalent.domain.model.EvaluationResult;
+import com.deeptalent.domain.model.Extraction;
+import com.deeptalent.domain.model.PhaseSummary;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * StateSnapshotCodec 单元测试
+ *
+ * @author 小阳
+ * @date 2026-10-18
+ * @version 1.0.0
+ */
+class StateSnapshotCodecTest {
+
+    private DeepTalentState sampleState(int messageCount) {
+        DeepTalentState state = new DeepTalentState();
+        state.setCurrentPhase(Phase.SHADOW);
+        state.setDialogueCount(3);
+        state.setNeedFollowup(true);
+        state.setThreadName("小明");
+        for (int i = 0; i < messageCount; i++) {
+            state.getMessages().add(new Message(i % 2 == 0 ? "assistant" : "user", "第 " + i + " 条：我小时候喜欢画画"));
+        }
+        state.getMessages().add(new Message("tool", null));
+        state.getUserProfile().put("childhood", new ArrayList<>(List.of(new Extraction("审美", "喜欢画画", "childhood", 0.85))));
+
+        EvaluationResult eval = new EvaluationResult();
+        eval.setScore(6);
+        eval.setNeedFollowup(true);
+        eval.setFollowupQuestion("具体画了什么？");
+        eval.setReason("缺少细节");
+        eval.setExtractions(List.of(new Extraction("专注", "一画就是一下午", "shadow", 0.6)));
+        state.setLastEval(eval);
+        state.getPhaseSummaries().add(new PhaseSummary("childhood", "童年时常被夸画画专注", 0, 2));
+        return state;
+    }
+
+    @Test
+    void testRoundTrip() {
+        DeepTalentState original = sampleState(4);
+
+        DeepTalentState decoded = StateSnapshotCodec.decode(StateSnapshotCodec.encode(original));
+
+        assertEquals(Phase.SHADOW, decoded.getCurrentPhase());
+        assertEquals(3, decoded.getDialogueCount());
+        assertTrue(decoded.isNeedFollowup());
+        assertEquals("小明", decoded.getThreadName());
+        assertEquals(5, decoded.getMessages().size());
+        assertEquals("第 1 条：我小时候喜欢画画", decoded.getMessages().get(1).getContent());
+        assertEquals("tool", decoded.getMessages().get(4).getRole());
+        assertNull(decoded.getMessages().get(4).getContent());
+        assertEquals(0.85, decoded.getUserProfile().get("childhood").get(0).getConfidence());
+        assertEquals("具体画了什么？", decoded.getLastEval().getFollowupQuestion());
+        assertEquals("专注", decoded.getLastEval().getExtractions().get(0).getTag());
+        assertEquals("童年时常被夸画画专注", decoded.getPhaseSummaries().get(0).getSummary());
+        assertEquals(2, decoded.getSummarizedUpTo());
+    }
+
+    @Test
+    void testRoundTrip_LargeStateIsCompressed() {
+        DeepTalentState original = sampleState(200);
+
+        byte[] bytes = StateSnapshotCodec.encode(original);
+        DeepTalentState decoded = StateSnapshotCodec.decode(bytes);
+
+        assertEquals(1, bytes[3] & 1);
+        assertEquals(201, decoded.getMessages().size());
+        assertEquals("第 199 条：我小时候喜欢画画", decoded.getMessages().get(199).getContent());
+    }
+
+    @Test
+    void testEncode_KeepsOnlyTailWindow() {
+        DeepTalentState original = sampleState(200);
+        original.setMessageOffset(10);
+
+        DeepTalentState decoded = StateSnapshotCodec.decode(StateSnapshotCodec.encode(original, 40));
+
+        assertEquals(40, decoded.getMessages().size());
+        assertEquals(171, decoded.getMessageOffset());
+        assertEquals(211, decoded.getTotalMessageCount());
+        assertEquals("第 161 条：我小时候喜欢画画", decoded.getMessages().get(0).getContent());
+    }
+
+    @Test
+    void testDecode_RejectsUnknownVersion() {
+        byte[] bytes = StateSnapshotCodec.encode(sampleState(1));
+        bytes[2] = (byte) (StateSnapshotCodec.VERSION + 1);
+
+        assertThrows(IllegalArgumentException.class, () -> StateSnapshotCodec.decode(bytes));
+        assertThrows(IllegalArgumentException.class, () -> StateSnapshotCodec.decode(new byte[]{1, 2, 3}));
+    }
+}
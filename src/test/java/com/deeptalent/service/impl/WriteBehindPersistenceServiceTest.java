@@ -0,0 +1,193 @@
+package com.deeptalent.service.impl;
+
+import com.deeptalent.domain.ai.Message;
+import com.deeptalent.domain.model.DeepTalentState;
+import com.deeptalent.service.PersistenceService;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * WriteBehindPersistenceService 单元测试
+ * 不启动后台线程，通过手动 flush 验证合并写、读己之写与失败重试
+ *
+ * @author 小阳
+ * @date 2026-10-18
+ * @version 1.0.0
+ */
+@ExtendWith(MockitoExtension.class)
+class WriteBehindPersistenceServiceTest {
+
+    @Mock
+    private PersistenceService delegate;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private WriteBehindPersistenceService writeBehind;
+
+    @BeforeEach
+    void setUp() {
+        writeBehind = new WriteBehindPersistenceService(delegate, Duration.ofHours(1), 100, 1000, 3, registry);
+    }
+
+    private DeepTalentState stateWithMessages(int count) {
+        DeepTalentState state = new DeepTalentState();
+        for (int i = 0; i < count; i++) {
+            state.getMessages().add(new Message(i % 2 == 0 ? "assistant" : "user", "m" + i));
+        }
+        return state;
+    }
+
+    @Test
+    void testSave_DoesNotWriteSynchronously() {
+        writeBehind.saveState("t1", stateWithMessages(1));
+
+        verifyNoInteractions(delegate);
+        assertEquals(1, writeBehind.getQueueDepth());
+    }
+
+    @Test
+    void testFlush_CoalescesSavesOfSameThread() {
+        writeBehind.saveState("t1", stateWithMessages(1));
+        writeBehind.saveState("t1", stateWithMessages(3));
+        writeBehind.saveState("t1", stateWithMessages(5));
+        writeBehind.saveState("t2", stateWithMessages(1));
+
+        writeBehind.flush();
+
+        ArgumentCaptor<DeepTalentState> captor = ArgumentCaptor.forClass(DeepTalentState.class);
+        verify(delegate, times(1)).saveState(eq("t1"), captor.capture());
+        assertEquals(5, captor.getValue().getMessages().size());
+        verify(delegate, times(1)).saveState(eq("t2"), any(DeepTalentState.class));
+        assertEquals(2, writeBehind.getStats().getCoalesced());
+        assertEquals(0, writeBehind.getQueueDepth());
+    }
+
+    @Test
+    void testLoad_SeesPendingState() {
+        writeBehind.saveState("t1", stateWithMessages(3));
+
+        DeepTalentState loaded = writeBehind.loadState("t1");
+
+        assertEquals(3, loaded.getMessages().size());
+        verify(delegate, never()).loadState("t1");
+    }
+
+    @Test
+    void testFlush_FailureIsRetried() {
+        doThrow(new RuntimeException("db down")).doNothing().when(delegate).saveState(eq("t1"), any(DeepTalentState.class));
+        writeBehind.saveState("t1", stateWithMessages(1));
+
+        writeBehind.flush();
+        assertEquals(1, writeBehind.getQueueDepth());
+        assertEquals(1, writeBehind.getStats().getFailedStates());
+
+        writeBehind.flush();
+        assertEquals(0, writeBehind.getQueueDepth());
+        verify(delegate, times(2)).saveState(eq("t1"), any(DeepTalentState.class));
+    }
+
+    @Test
+    void testFlush_PoisonStateDroppedAfterMaxAttempts() {
+        doThrow(new IllegalArgumentException("value too long")).when(delegate).saveState(eq("t1"), any(DeepTalentState.class));
+        writeBehind.saveState("t1", stateWithMessages(1));
+        writeBehind.saveState("t2", stateWithMessages(1));
+
+        writeBehind.flush();
+        writeBehind.flush();
+        assertEquals(1, writeBehind.getQueueDepth());
+
+        // 第三次失败后丢弃，不再占据队列
+        writeBehind.flush();
+        assertEquals(0, writeBehind.getQueueDepth());
+        writeBehind.flush();
+        verify(delegate, times(3)).saveState(eq("t1"), any(DeepTalentState.class));
+        verify(delegate, times(1)).saveState(eq("t2"), any(DeepTalentState.class));
+        assertEquals(3, writeBehind.getStats().getFailedStates());
+        assertEquals(1, writeBehind.getStats().getDroppedStates());
+        assertEquals(1, registry.get("deeptalent.persistence.write_behind.states").tag("result", "dropped").functionCounter().count());
+
+        // 之后的新状态重新计算失败次数
+        writeBehind.saveState("t1", stateWithMessages(3));
+        writeBehind.flush();
+        assertEquals(1, writeBehind.getQueueDepth());
+    }
+
+    @Test
+    void testFlush_SuccessResetsFailedAttempts() {
+        doThrow(new RuntimeException("db down")).doThrow(new RuntimeException("db down")).doNothing()
+                .doThrow(new RuntimeException("db down")).doThrow(new RuntimeException("db down")).doNothing()
+                .when(delegate).saveState(eq("t1"), any(DeepTalentState.class));
+
+        writeBehind.saveState("t1", stateWithMessages(1));
+        writeBehind.flush();
+        writeBehind.flush();
+        writeBehind.flush();
+        writeBehind.saveState("t1", stateWithMessages(3));
+        writeBehind.flush();
+        writeBehind.flush();
+        writeBehind.flush();
+
+        assertEquals(0, writeBehind.getQueueDepth());
+        assertEquals(4, writeBehind.getStats().getFailedStates());
+        assertEquals(0, writeBehind.getStats().getDroppedStates());
+    }
+
+    @Test
+    void testMetrics_QueueDepthAndFlushLatency() {
+        doThrow(new RuntimeException("db down")).doNothing().when(delegate).saveState(eq("t1"), any(DeepTalentState.class));
+        writeBehind.saveState("t1", stateWithMessages(1));
+        writeBehind.saveState("t1", stateWithMessages(3));
+        writeBehind.saveState("t2", stateWithMessages(1));
+        assertEquals(2, registry.get("deeptalent.persistence.write_behind.queue").gauge().value());
+
+        writeBehind.flush();
+        writeBehind.flush();
+
+        assertEquals(0, registry.get("deeptalent.persistence.write_behind.queue").gauge().value());
+        Timer flush = registry.get("deeptalent.persistence.write_behind.flush").timer();
+        assertEquals(2, flush.count());
+        assertTrue(flush.max(TimeUnit.NANOSECONDS) > 0);
+        assertEquals(3, registry.get("deeptalent.persistence.write_behind.states").tag("result", "enqueued").functionCounter().count());
+        assertEquals(1, registry.get("deeptalent.persistence.write_behind.states").tag("result", "coalesced").functionCounter().count());
+        assertEquals(2, registry.get("deeptalent.persistence.write_behind.states").tag("result", "flushed").functionCounter().count());
+        assertEquals(1, registry.get("deeptalent.persistence.write_behind.states").tag("result", "failed").functionCounter().count());
+        assertEquals(2, writeBehind.getStats().getFlushes());
+    }
+
+    @Test
+    void testSave_FullQueueFlushesInCallerThread() {
+        writeBehind = new WriteBehindPersistenceService(delegate, Duration.ofHours(1), 100, 2, 3, new SimpleMeterRegistry());
+
+        writeBehind.saveState("t1", stateWithMessages(1));
+        writeBehind.saveState("t2", stateWithMessages(1));
+
+        verify(delegate, times(2)).saveState(any(), any(DeepTalentState.class));
+        assertEquals(0, writeBehind.getQueueDepth());
+    }
+
+    @Test
+    void testShutdown_DrainsQueue() {
+        writeBehind.start();
+        writeBehind.saveState("t1", stateWithMessages(1));
+        writeBehind.saveState("t2", stateWithMessages(1));
+
+        writeBehind.shutdown();
+
+        verify(delegate, times(2)).saveState(any(), any(DeepTalentState.class));
+        assertEquals(0, writeBehind.getQueueDepth());
+    }
+}